@@ -2,10 +2,13 @@ package fr.diginamic.projetspring;
 
 import fr.diginamic.projetspring.traitement.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Collections;
+
 /**
  * La classe {@code TraitementFichierApplication} est le point d'entrée de l'application Spring Boot.
  * <p>
@@ -32,6 +35,20 @@ public class TraitementFichierApplication implements CommandLineRunner {
     @Autowired
     private ImportRoleFilms importRoleFilms;
 
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private NativeBulkLoader nativeBulkLoader;
+
+    /** Mode d'écriture : {@code NATIF} remplace les importeurs JPA par le chargement natif. */
+    @Value("${import.mode:BULK}")
+    private ImportMode mode;
+
+    /** Nombre maximal d'importations exécutées simultanément. */
+    @Value("${import.parallelisme:3}")
+    private int parallelisme;
+
     /**
      * Le point d'entrée principal de l'application.
      * <p>
@@ -41,7 +58,10 @@ public class TraitementFichierApplication implements CommandLineRunner {
      * @param args les arguments de la ligne de commande
      */
     public static void main(String[] args) {
-        SpringApplication.run(TraitementFichierApplication.class, args);
+        SpringApplication application = new SpringApplication(TraitementFichierApplication.class);
+        // Les lignes importées ne sont pas relues : pas de cache de second niveau (voir CacheSecondNiveau)
+        application.setDefaultProperties(Collections.singletonMap("api.cache.actif", "false"));
+        application.run(args);
     }
 
     /**
@@ -51,16 +71,29 @@ public class TraitementFichierApplication implements CommandLineRunner {
      * les films, les réalisateurs, les associations réalisateur-film et les rôles des acteurs
      * dans les films.
      * </p>
+     * <p>
+     * Les acteurs, les films et les réalisateurs sont importés en parallèle ; chaque table d'association
+     * est importée dès que les deux tables qu'elle relie sont chargées.
+     * </p>
+     * <p>
+     * En mode {@link ImportMode#NATIF}, le même graphe d'étapes est exécuté par le {@link NativeBulkLoader}.
+     * </p>
      *
      * @param args les arguments de la ligne de commande
      * @throws Exception en cas d'erreur lors de l'importation des fichiers
      */
     @Override
     public void run(String... args) throws Exception {
-        importActeurs.importActeurs();
-        importFilms.importFilms();
-        importRealisateurs.importRealisateurs();
-        importRealisateurFilms.importFilmRealisateurs();
-        importRoleFilms.importRoleFilms();
+        if (mode == ImportMode.NATIF) {
+            nativeBulkLoader.importer(parallelisme);
+            return;
+        }
+        new ImportScheduler(importMetrics.getRegistry())
+                .etape("acteurs", importActeurs::importActeurs)
+                .etape("films", importFilms::importFilms)
+                .etape("realisateurs", importRealisateurs::importRealisateurs)
+                .etape("roles", importRoleFilms::importRoleFilms, "acteurs", "films")
+                .etape("film_realisateurs", importRealisateurFilms::importFilmRealisateurs, "realisateurs", "films")
+                .executer(parallelisme);
     }
 }
@@ -0,0 +1,100 @@
+package fr.diginamic.projetspring.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Cache de second niveau d'Hibernate : les genres, les films (avec leurs genres) et les réalisateurs, lus bien plus
+ * souvent qu'ils ne sont modifiés, ainsi que les résultats des requêtes marquées {@code HINT_CACHEABLE}.
+ * <p>
+ * Chaque région est un cache Caffeine, déclaré à Hibernate par l'API JCache, dont le nombre d'entrées et la durée
+ * de vie se règlent par {@code api.cache.<region>.taille} et {@code api.cache.<region>.duree}. La durée de vie
+ * borne le retard sur les écritures faites hors de l'API (import) ; celles de l'API mettent le cache à jour.
+ * Les horodatages des tables, qui invalident les résultats de requêtes, ne doivent jamais être évincés : leur
+ * région n'est pas réglable.
+ * </p>
+ * <p>
+ * Avec {@code api.cache.statistiques}, les succès et défauts de chaque région sont publiés dans les métriques
+ * {@code hibernate.second.level.cache.requests} et {@code hibernate.cache.query.requests} de l'actuator.
+ * </p>
+ */
+@Component
+public class CacheSecondNiveau implements HibernatePropertiesCustomizer {
+
+    /** Régions réglables, par nom de propriété. */
+    private static final Map<String, String> REGIONS = new LinkedHashMap<>();
+
+    static {
+        REGIONS.put("genres", "genres");
+        REGIONS.put("films", "films");
+        REGIONS.put("films-genres", "films.genres");
+        REGIONS.put("realisateurs", "realisateurs");
+        REGIONS.put("requetes", "default-query-results-region");
+    }
+
+    private static final String REGION_HORODATAGES = "default-update-timestamps-region";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${api.cache.actif:true}")
+    private boolean actif;
+
+    @Value("${api.cache.statistiques:true}")
+    private boolean statistiques;
+
+    @Override
+    public void customize(Map<String, Object> proprietes) {
+        proprietes.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, actif);
+        proprietes.put(AvailableSettings.USE_QUERY_CACHE, actif);
+        proprietes.put(AvailableSettings.GENERATE_STATISTICS, actif && statistiques);
+        // Statistiques agrégées seulement, sans ligne de journal à la fermeture de chaque session
+        proprietes.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        if (!actif) {
+            return;
+        }
+        proprietes.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        proprietes.put(ConfigSettings.CACHE_MANAGER, gestionnaire());
+    }
+
+    /**
+     * Crée les caches Caffeine des régions.
+     */
+    private CacheManager gestionnaire() {
+        CachingProvider fournisseur = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager gestionnaire = fournisseur.getCacheManager(fournisseur.getDefaultURI(), getClass().getClassLoader());
+        for (Map.Entry<String, String> region : REGIONS.entrySet()) {
+            long taille = environment.getProperty("api.cache." + region.getKey() + ".taille", Long.class, 10_000L);
+            Duration duree = environment.getProperty("api.cache." + region.getKey() + ".duree", Duration.class,
+                    Duration.ofMinutes(10));
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(taille));
+            configuration.setExpireAfterWrite(OptionalLong.of(duree.toNanos()));
+            creer(gestionnaire, region.getValue(), configuration);
+        }
+        creer(gestionnaire, REGION_HORODATAGES, new CaffeineConfiguration<>());
+        return gestionnaire;
+    }
+
+    private static void creer(CacheManager gestionnaire, String region, CaffeineConfiguration<Object, Object> configuration) {
+        if (gestionnaire.getCache(region) != null) {
+            gestionnaire.destroyCache(region);
+        }
+        gestionnaire.createCache(region, configuration);
+    }
+}
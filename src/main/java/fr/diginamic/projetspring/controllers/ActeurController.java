@@ -1,13 +1,18 @@
 package fr.diginamic.projetspring.controllers;
 
 import fr.diginamic.projetspring.dto.ActeurDTO;
+import fr.diginamic.projetspring.dto.CheminDTO;
+import fr.diginamic.projetspring.dto.PageCurseur;
 import fr.diginamic.projetspring.entities.Acteur;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.services.ActeurService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,6 +26,8 @@ public class ActeurController {
     /** Service gérant la logique métier des acteurs. */
     @Autowired
     private ActeurService acteurService;
+    @Autowired
+    private ReponseFlux reponseFlux;
 
     /**
      * Endpoint pour obtenir la liste de tous les acteurs.
@@ -33,6 +40,22 @@ public class ActeurController {
         return acteursPage.map(this::convertToDTO);
     }
 
+    /**
+     * Endpoint pour obtenir les acteurs page par page avec un curseur ({@code ?curseur=} pour la première page,
+     * puis la valeur {@code next} de la page précédente), sans {@code OFFSET} ni comptage.
+     *
+     * @param curseur Le curseur de la page précédente, vide pour la première page.
+     * @param taille  Le nombre d'éléments par page.
+     * @return La page de acteurs et le curseur de la suivante.
+     */
+    @GetMapping(params = "curseur")
+    public PageCurseur<ActeurDTO> getActeursParCurseur(@RequestParam("curseur") String curseur,
+                                                       @RequestParam(value = "size", defaultValue = "20") int taille) {
+        int tailleRetenue = PageCurseur.taille(taille);
+        List<Acteur> acteurs = acteurService.getActeursApres(Curseurs.position(curseur), tailleRetenue);
+        return PageCurseur.de(acteurs, tailleRetenue, Acteur::getActeurId, this::convertToDTO);
+    }
+
     /**
      * Endpoint pour obtenir un acteur par son identifiant.
      *
@@ -53,6 +76,7 @@ public class ActeurController {
      */
     @PostMapping
     public ActeurDTO createActeur(@RequestBody Acteur acteur) {
+        IdentifiantsImdb.verifier(acteur.getIdIMDB(), ImdbIds.PREFIXE_NOM);
         Acteur createdActeur = acteurService.createActeur(acteur);
         return convertToDTO(createdActeur);
     }
@@ -66,6 +90,7 @@ public class ActeurController {
      */
     @PutMapping("/{acteurId}")
     public ResponseEntity<ActeurDTO> updateActeur(@PathVariable("acteurId") Integer acteurId, @RequestBody Acteur acteur) {
+        IdentifiantsImdb.verifier(acteur.getIdIMDB(), ImdbIds.PREFIXE_NOM);
         Acteur updatedActeur = acteurService.updateActeur(acteurId, acteur);
         if (updatedActeur != null) {
             return ResponseEntity.ok(convertToDTO(updatedActeur));
@@ -91,6 +116,15 @@ public class ActeurController {
         return acteurService.findFilmsByActeurId(acteurId);
     }
 
+    /**
+     * Variante en flux de {@link #getFilmsByActeurId(Integer)} ({@code ?flux=true}), voir {@link ReponseFlux}.
+     */
+    @GetMapping(value = "/{acteurId}/films", params = "flux=true")
+    public ResponseEntity<StreamingResponseBody> streamFilmsByActeurId(@PathVariable("acteurId") Integer acteurId,
+                                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseFlux.diffuser(accept, film -> acteurService.parcourirFilmsByActeurId(acteurId, film::accept));
+    }
+
     // Tache 6:  Extraire les acteurs communs à 2 films donnés
     @GetMapping("/in-films")
     public List<Object[]> getActeursInFilms(@RequestParam("filmId1") Integer filmId1,
@@ -98,6 +132,22 @@ public class ActeurController {
         return acteurService.findActeursInFilms(filmId1, filmId2);
     }
 
+    /**
+     * Endpoint pour obtenir un plus court chemin entre deux acteurs (« degrés de séparation ») : la suite des
+     * acteurs qui les relient, chacun ayant joué avec le précédent dans le film indiqué.
+     *
+     * @param acteurId      Identifiant de l'acteur de départ.
+     * @param autreActeurId Identifiant de l'acteur d'arrivée.
+     * @return Le chemin, ou 404 si les deux acteurs ne sont reliés par aucun film.
+     */
+    @GetMapping("/{acteurId}/path-to/{autreActeurId}")
+    public ResponseEntity<CheminDTO> getChemin(@PathVariable("acteurId") Integer acteurId,
+                                               @PathVariable("autreActeurId") Integer autreActeurId) {
+        return acteurService.getChemin(acteurId, autreActeurId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     private ActeurDTO convertToDTO(Acteur acteur) {
         ActeurDTO dto = new ActeurDTO();
         dto.setActeurId(acteur.getActeurId());
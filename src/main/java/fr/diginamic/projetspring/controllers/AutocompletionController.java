@@ -0,0 +1,56 @@
+package fr.diginamic.projetspring.controllers;
+
+import fr.diginamic.projetspring.dto.SuggestionDTO;
+import fr.diginamic.projetspring.services.Autocompletion;
+import fr.diginamic.projetspring.services.IndexRecherche;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Contrôleur REST pour l'autocomplétion des titres de films et des noms d'acteurs et de réalisateurs.
+ */
+@RestController
+@RequestMapping("/autocomplete")
+public class AutocompletionController {
+
+    /** Tableau trié des noms. */
+    @Autowired
+    private Autocompletion autocompletion;
+
+    /**
+     * Endpoint pour suggérer les films, acteurs et réalisateurs les plus populaires dont un mot du nom commence
+     * par le texte saisi, sans tenir compte des accents ni de la casse.
+     *
+     * @param saisie Le début du nom saisi.
+     * @param type   Le type des suggestions (film, acteur ou realisateur), tous par défaut.
+     * @param taille Le nombre de suggestions, 10 par défaut et 50 au plus.
+     * @return Les suggestions, de la plus populaire à la moins populaire.
+     */
+    @GetMapping
+    public List<SuggestionDTO> suggerer(@RequestParam("q") String saisie,
+                                        @RequestParam(value = "type", required = false) String type,
+                                        @RequestParam(value = "size", defaultValue = "" + Autocompletion.TAILLE_DEFAUT) int taille) {
+        if (taille < 1 || taille > Autocompletion.TAILLE_MAX) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Nombre de suggestions invalide : " + taille + " (entre 1 et " + Autocompletion.TAILLE_MAX + ")");
+        }
+        return autocompletion.suggerer(saisie, type(type), taille);
+    }
+
+    private static IndexRecherche.Type type(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        try {
+            return IndexRecherche.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Type de suggestion inconnu : " + type + " (film, acteur ou realisateur)", e);
+        }
+    }
+}
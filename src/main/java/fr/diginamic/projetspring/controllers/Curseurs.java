@@ -0,0 +1,29 @@
+package fr.diginamic.projetspring.controllers;
+
+import fr.diginamic.projetspring.dto.PageCurseur;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Lecture des curseurs de pagination reçus par les contrôleurs.
+ */
+final class Curseurs {
+
+    private Curseurs() {
+    }
+
+    /**
+     * Décode le curseur d'une requête.
+     *
+     * @param curseur Le curseur reçu, vide pour la première page.
+     * @return Le dernier identifiant de la page précédente, ou {@code null} pour la première page.
+     * @throws ResponseStatusException Avec le statut 400 si le curseur est invalide.
+     */
+    static Integer position(String curseur) {
+        try {
+            return PageCurseur.position(curseur);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
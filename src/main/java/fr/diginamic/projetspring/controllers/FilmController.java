@@ -2,6 +2,7 @@ package fr.diginamic.projetspring.controllers;
 
 import fr.diginamic.projetspring.dto.ActeurDTO;
 import fr.diginamic.projetspring.dto.FilmDTO;
+import fr.diginamic.projetspring.dto.PageCurseur;
 import fr.diginamic.projetspring.entities.*;
 import fr.diginamic.projetspring.services.ActeurService;
 import fr.diginamic.projetspring.services.FilmService;
@@ -9,11 +10,14 @@ import fr.diginamic.projetspring.services.RoleFilmService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,17 +34,42 @@ public class FilmController {
     private FilmService filmService;
     @Autowired
     private RoleFilmService roleFilmService;
+    @Autowired
+    private ReponseFlux reponseFlux;
 
 
     /**
      * Endpoint pour obtenir la liste de tous les films.
      *
+     * @param avecResume Indique s'il faut inclure le résumé des films (chargé séparément).
      * @return La liste de tous les films.
      */
     @GetMapping
-    public Page<FilmDTO> getAllFilms(Pageable pageable) {
+    public Page<FilmDTO> getAllFilms(Pageable pageable,
+                                     @RequestParam(value = "resume", defaultValue = "false") boolean avecResume) {
         Page<Film> filmsPage = filmService.getAllFilms(pageable);
-        return filmsPage.map(this::convertToDTO);
+        Map<Integer, String> resumes = avecResume ? filmService.getResumes(filmsPage.getContent()) : null;
+        return filmsPage.map(film -> convertToDTO(film, resumes));
+    }
+
+    /**
+     * Endpoint pour obtenir les films page par page avec un curseur ({@code ?curseur=} pour la première page,
+     * puis la valeur {@code next} de la page précédente), sans {@code OFFSET} ni comptage.
+     *
+     * @param curseur Le curseur de la page précédente, vide pour la première page.
+     * @param taille  Le nombre d'éléments par page.
+     * @param avecResume Indique s'il faut inclure le résumé des films.
+     * @return La page de films et le curseur de la suivante.
+     */
+    @GetMapping(params = "curseur")
+    public PageCurseur<FilmDTO> getFilmsParCurseur(@RequestParam("curseur") String curseur,
+                                                   @RequestParam(value = "size", defaultValue = "20") int taille,
+                                                   @RequestParam(value = "resume", defaultValue = "false") boolean avecResume) {
+        int tailleRetenue = PageCurseur.taille(taille);
+        List<Film> films = filmService.getFilmsApres(Curseurs.position(curseur), tailleRetenue);
+        List<Film> page = films.subList(0, Math.min(films.size(), tailleRetenue));
+        Map<Integer, String> resumes = avecResume ? filmService.getResumes(page) : null;
+        return PageCurseur.de(films, tailleRetenue, Film::getFilmId, film -> convertToDTO(film, resumes));
     }
 
     /**
@@ -63,6 +92,7 @@ public class FilmController {
      */
     @PostMapping
     public ResponseEntity<Film> createFilm(@RequestBody Film film) {
+        IdentifiantsImdb.verifier(film.getIdIMDB(), ImdbIds.PREFIXE_TITRE);
         Film createdFilm = filmService.createFilm(film);
         return new ResponseEntity<>(createdFilm, HttpStatus.CREATED);
     }
@@ -76,6 +106,7 @@ public class FilmController {
      */
     @PutMapping("/{filmId}")
     public ResponseEntity<Film> updateFilm(@PathVariable("filmId") Integer filmId, @RequestBody Film film) {
+        IdentifiantsImdb.verifier(film.getIdIMDB(), ImdbIds.PREFIXE_TITRE);
         Film updatedFilm = filmService.updateFilm(filmId, film);
         if (updatedFilm != null) {
             return ResponseEntity.ok(updatedFilm);
@@ -91,24 +122,36 @@ public class FilmController {
      * @param filmId Identifiant du film à supprimer.
      */
     @DeleteMapping("/{filmId}")
-    public void deleteFilm(@PathVariable Integer filmId) {
+    public void deleteFilm(@PathVariable("filmId") Integer filmId) {
         filmService.deleteFilm(filmId);
     }
 
     @GetMapping("/byGenres")
-    public ResponseEntity<List<Film>> getFilmsByGenres(@RequestParam Set<String> genreTypes) {
+    public ResponseEntity<List<FilmDTO>> getFilmsByGenres(@RequestParam("genreTypes") Set<String> genreTypes,
+                                                          @RequestParam(value = "resume", defaultValue = "false") boolean avecResume) {
         try {
             List<Film> films = filmService.getFilmsByGenreTypes(genreTypes);
-            return new ResponseEntity<>(films, HttpStatus.OK);
+            return new ResponseEntity<>(convertToDTO(films, avecResume), HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/byGenre")
-    public List<Film> getFilmsByGenre(@RequestParam String genreType) {
+    public List<FilmDTO> getFilmsByGenre(@RequestParam("genreType") String genreType,
+                                         @RequestParam(value = "resume", defaultValue = "false") boolean avecResume) {
         // Example of using findByGenres_Type
-        return filmService.getFilmsByGenre(genreType);
+        return convertToDTO(filmService.getFilmsByGenre(genreType), avecResume);
+    }
+
+    /**
+     * Variante en flux de {@link #getFilmsByGenre(String, boolean)} ({@code ?flux=true}), voir {@link ReponseFlux}.
+     */
+    @GetMapping(value = "/byGenre", params = "flux=true")
+    public ResponseEntity<StreamingResponseBody> streamFilmsByGenre(@RequestParam("genreType") String genreType,
+                                                                    @RequestParam(value = "resume", defaultValue = "false") boolean avecResume,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseFlux.diffuser(accept, film -> filmService.parcourirFilmsByGenre(genreType, avecResume, film));
     }
 
     // Implementation des requetes:
@@ -120,9 +163,22 @@ public class FilmController {
 
     // Tache 3: Extraire les films sortis entre 2 années données
     @GetMapping("/released-between-years")
-    public List<Film> getFilmsReleasedBetweenYears(@RequestParam("startYear") int startYear,
-                                                   @RequestParam("endYear") int endYear) {
-        return filmService.findFilmsReleasedBetweenYears(startYear, endYear);
+    public List<FilmDTO> getFilmsReleasedBetweenYears(@RequestParam("startYear") int startYear,
+                                                      @RequestParam("endYear") int endYear,
+                                                      @RequestParam(value = "resume", defaultValue = "false") boolean avecResume) {
+        return convertToDTO(filmService.findFilmsReleasedBetweenYears(startYear, endYear), avecResume);
+    }
+
+    /**
+     * Variante en flux de {@link #getFilmsReleasedBetweenYears(int, int, boolean)} ({@code ?flux=true}).
+     */
+    @GetMapping(value = "/released-between-years", params = "flux=true")
+    public ResponseEntity<StreamingResponseBody> streamFilmsReleasedBetweenYears(@RequestParam("startYear") int startYear,
+                                                                                 @RequestParam("endYear") int endYear,
+                                                                                 @RequestParam(value = "resume", defaultValue = "false") boolean avecResume,
+                                                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseFlux.diffuser(accept,
+                film -> filmService.parcourirFilmsReleasedBetweenYears(startYear, endYear, avecResume, film));
     }
 
     // Tache 4: Extraire les films communs à 2 acteurs ou actrices donnés.
@@ -138,6 +194,15 @@ public class FilmController {
         return filmService.findFilmsByGenre(genreId);
     }
 
+    /**
+     * Variante en flux de {@link #getFilmsByGenre(Integer)} ({@code ?flux=true}).
+     */
+    @GetMapping(value = "/by-genre", params = "flux=true")
+    public ResponseEntity<StreamingResponseBody> streamFilmsByGenre(@RequestParam("genreId") Integer genreId,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseFlux.diffuser(accept, film -> filmService.parcourirFilmsByGenreId(genreId, film::accept));
+    }
+
     // Tache 8: Extraire les films sortis entre 2 années données et qui ont un acteur/actrice donné parmi les acteurs
     @GetMapping("/betweenYearsAndByActeur")
     public List<Object[]> getFilmsBetweenYearsAndByActeur(@RequestParam("startYear") Integer startYear,
@@ -146,7 +211,17 @@ public class FilmController {
         return filmService.findFilmsBetweenYearsAndByActeur(startYear, endYear, acteurId);
     }
 
-    private FilmDTO convertToDTO(Film film) {
+    private List<FilmDTO> convertToDTO(List<Film> films, boolean avecResume) {
+        Map<Integer, String> resumes = avecResume ? filmService.getResumes(films) : null;
+        return films.stream().map(film -> convertToDTO(film, resumes)).collect(Collectors.toList());
+    }
+
+    /**
+     * Convertit un film en DTO. Le résumé, chargé à part, n'est renseigné que s'il a été demandé.
+     *
+     * @param resumes Les résumés lus en une requête pour toute la liste, ou {@code null} sans résumé.
+     */
+    private FilmDTO convertToDTO(Film film, Map<Integer, String> resumes) {
         FilmDTO dto = new FilmDTO();
         dto.setFilmId(film.getFilmId());
         dto.setIdIMDB(film.getIdIMDB());
@@ -156,7 +231,9 @@ public class FilmController {
         dto.setUrlProfile(film.getUrlProfile());
         dto.setLieuTournage(film.getLieuTournage());
         dto.setLangue(film.getLangue());
-        dto.setResume(film.getResume());
+        if (resumes != null) {
+            dto.setResume(resumes.get(film.getFilmId()));
+        }
         dto.setPays(film.getPays());
         dto.setGenres(film.getGenres());
         return dto;
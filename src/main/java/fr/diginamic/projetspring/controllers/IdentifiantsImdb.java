@@ -0,0 +1,30 @@
+package fr.diginamic.projetspring.controllers;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Contrôle des identifiants IMDB reçus par les contrôleurs, avant leur conversion en entier par
+ * {@link fr.diginamic.projetspring.entities.ImdbIdConverter}.
+ */
+final class IdentifiantsImdb {
+
+    private IdentifiantsImdb() {
+    }
+
+    /**
+     * Vérifie l'identifiant IMDB d'une entité reçue.
+     *
+     * @param idIMDB  L'identifiant reçu, ou {@code null}.
+     * @param prefixe Le préfixe attendu (ex : "nm").
+     * @throws ResponseStatusException Avec le statut 400 si l'identifiant n'est pas le préfixe attendu suivi de 7 à
+     *                                 9 chiffres.
+     */
+    static void verifier(String idIMDB, String prefixe) {
+        if (idIMDB != null && ImdbIds.compacter(idIMDB, prefixe) == ImdbIds.INVALIDE_COMPACT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Identifiant IMDB invalide : " + idIMDB
+                    + " (attendu : " + prefixe + " suivi de 7 à 9 chiffres)");
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package fr.diginamic.projetspring.controllers;
 
+import fr.diginamic.projetspring.dto.PageCurseur;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.entities.Realisateur;
 import fr.diginamic.projetspring.services.RealisateurService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +25,8 @@ public class RealisateurController {
     /** Service gérant la logique métier des réalisateurs. */
     @Autowired
     private RealisateurService realisateurService;
+    @Autowired
+    private ReponseFlux reponseFlux;
 
     /**
      * Constructeur du contrôleur avec injection du service.
@@ -42,6 +48,22 @@ public class RealisateurController {
         return realisateurService.getAllRealisateurs(pageable);
     }
 
+    /**
+     * Endpoint pour obtenir les réalisateurs page par page avec un curseur ({@code ?curseur=} pour la première page,
+     * puis la valeur {@code next} de la page précédente), sans {@code OFFSET} ni comptage.
+     *
+     * @param curseur Le curseur de la page précédente, vide pour la première page.
+     * @param taille  Le nombre d'éléments par page.
+     * @return La page de réalisateurs et le curseur de la suivante.
+     */
+    @GetMapping(params = "curseur")
+    public PageCurseur<Realisateur> getRealisateursParCurseur(@RequestParam("curseur") String curseur,
+                                                              @RequestParam(value = "size", defaultValue = "20") int taille) {
+        int tailleRetenue = PageCurseur.taille(taille);
+        List<Realisateur> realisateurs = realisateurService.getRealisateursApres(Curseurs.position(curseur), tailleRetenue);
+        return PageCurseur.de(realisateurs, tailleRetenue, Realisateur::getIdRealisateur, realisateur -> realisateur);
+    }
+
     /**
      * Endpoint pour obtenir un réalisateur par son identifiant.
      *
@@ -62,6 +84,7 @@ public class RealisateurController {
      */
     @PostMapping
     public Realisateur createRealisateur(@RequestBody Realisateur realisateur) {
+        IdentifiantsImdb.verifier(realisateur.getIdIMDB(), ImdbIds.PREFIXE_NOM);
         return realisateurService.createRealisateur(realisateur);
     }
 
@@ -74,6 +97,7 @@ public class RealisateurController {
      */
     @PutMapping("/{idRealisateur}")
     public ResponseEntity<Realisateur> updateRealisateur(@PathVariable("idRealisateur") Integer idRealisateur, @RequestBody Realisateur realisateur) {
+        IdentifiantsImdb.verifier(realisateur.getIdIMDB(), ImdbIds.PREFIXE_NOM);
         Realisateur updatedRealisateur = realisateurService.updateRealisateur(idRealisateur, realisateur);
         if (updatedRealisateur != null) {
             return ResponseEntity.ok(updatedRealisateur);
@@ -102,4 +126,14 @@ public class RealisateurController {
     public List<Object[]> getFilmsByRealisateurId(@PathVariable("idRealisateur") Integer idRealisateur) {
         return realisateurService.findFilmsByRealisateurId(idRealisateur);
     }
+
+    /**
+     * Variante en flux de {@link #getFilmsByRealisateurId(Integer)} ({@code ?flux=true}), voir {@link ReponseFlux}.
+     */
+    @GetMapping(value = "/{idRealisateur}/films", params = "flux=true")
+    public ResponseEntity<StreamingResponseBody> streamFilmsByRealisateurId(@PathVariable("idRealisateur") Integer idRealisateur,
+                                                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseFlux.diffuser(accept,
+                film -> realisateurService.parcourirFilmsByRealisateurId(idRealisateur, film::accept));
+    }
 }
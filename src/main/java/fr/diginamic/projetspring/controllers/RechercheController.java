@@ -0,0 +1,52 @@
+package fr.diginamic.projetspring.controllers;
+
+import fr.diginamic.projetspring.dto.ResultatRechercheDTO;
+import fr.diginamic.projetspring.services.IndexRecherche;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Contrôleur REST pour la recherche plein texte dans les films, les acteurs et les réalisateurs.
+ */
+@RestController
+@RequestMapping("/search")
+public class RechercheController {
+
+    /** Index inversé des titres, résumés et noms. */
+    @Autowired
+    private IndexRecherche indexRecherche;
+
+    /**
+     * Endpoint pour rechercher des films (titre et résumé), des acteurs et des réalisateurs (nom), classés par
+     * pertinence.
+     *
+     * @param requete  Les mots recherchés.
+     * @param type     Le type des résultats (film, acteur ou realisateur), tous par défaut.
+     * @param pageable La page de résultats ({@code page}, {@code size}).
+     * @return La page de résultats.
+     */
+    @GetMapping
+    public Page<ResultatRechercheDTO> rechercher(@RequestParam("q") String requete,
+                                                 @RequestParam(value = "type", required = false) String type,
+                                                 Pageable pageable) {
+        return indexRecherche.rechercher(requete, type(type), pageable);
+    }
+
+    private static IndexRecherche.Type type(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        try {
+            return IndexRecherche.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Type de résultat inconnu : " + type + " (film, acteur ou realisateur)", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package fr.diginamic.projetspring.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Réponses en flux des points d'accès qui renvoient des listes non bornées ({@code ?flux=true}).
+ * <p>
+ * Chaque élément est sérialisé dès qu'il est lu en base, sans construire la liste en mémoire : un tableau JSON
+ * par défaut, ou un élément JSON par ligne (NDJSON) si le client accepte {@value #NDJSON}. Le premier élément
+ * est envoyé immédiatement ; les suivants partent au rythme des tampons de sortie.
+ * </p>
+ * <p>
+ * L'écriture d'une réponse en flux dispose de sa propre durée maximale ({@code api.flux.duree}), appliquée à la
+ * requête asynchrone à la place du délai par défaut de Spring MVC ({@code spring.mvc.async.request-timeout}).
+ * </p>
+ */
+@Component
+public class ReponseFlux implements WebMvcConfigurer, CallableProcessingInterceptor {
+
+    /** Type de contenu NDJSON. */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /** Attribut de requête qui signale une réponse en flux. */
+    private static final String ATTRIBUT_FLUX = ReponseFlux.class.getName() + ".flux";
+
+    /**
+     * Source des éléments d'une réponse en flux.
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * Produit les éléments de la réponse.
+         *
+         * @param element Le traitement de chaque élément, dans l'ordre de la réponse.
+         */
+        void parcourir(Consumer<Object> element);
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${api.flux.duree:30m}")
+    private Duration duree;
+
+    /**
+     * Construit une réponse en flux.
+     *
+     * @param accept L'en-tête {@code Accept} de la requête, ou {@code null}.
+     * @param source La source des éléments, parcourue pendant l'écriture de la réponse.
+     * @return La réponse.
+     */
+    public ResponseEntity<StreamingResponseBody> diffuser(String accept, Source source) {
+        RequestContextHolder.currentRequestAttributes().setAttribute(ATTRIBUT_FLUX, Boolean.TRUE,
+                RequestAttributes.SCOPE_REQUEST);
+        boolean ndjson = accept != null && accept.contains(NDJSON);
+        ObjectWriter redacteur = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody corps = sortie -> {
+            try (JsonGenerator generateur = objectMapper.getFactory().createGenerator(sortie)) {
+                if (ndjson) {
+                    generateur.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    generateur.writeStartArray();
+                }
+                long[] elements = new long[1];
+                source.parcourir(element -> {
+                    try {
+                        redacteur.writeValue(generateur, element);
+                        if (++elements[0] == 1) {
+                            generateur.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (ndjson) {
+                    if (elements[0] > 0) {
+                        generateur.writeRaw('\n');
+                    }
+                } else {
+                    generateur.writeEndArray();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON) : MediaType.APPLICATION_JSON)
+                .body(corps);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(this);
+    }
+
+    /**
+     * Remplace le délai de la requête asynchrone par la durée maximale des réponses en flux, juste avant le début
+     * de l'écriture.
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest
+                && request.getAttribute(ATTRIBUT_FLUX, RequestAttributes.SCOPE_REQUEST) != null) {
+            ((AsyncWebRequest) request).setTimeout(duree.toMillis());
+        }
+    }
+}
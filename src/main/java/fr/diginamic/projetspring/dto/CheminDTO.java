@@ -0,0 +1,140 @@
+package fr.diginamic.projetspring.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * DTO représentant un plus court chemin entre deux acteurs : la suite des acteurs, chacun relié au précédent
+ * par un film dans lequel ils ont tous deux joué.
+ */
+public class CheminDTO {
+
+    private Integer degres;          // Nombre de films du chemin
+    private List<Etape> etapes;      // Acteurs du chemin, du départ à l'arrivée
+
+    /**
+     * Étape d'un chemin : un acteur et le film qui le relie à l'acteur de l'étape précédente (absent pour
+     * l'acteur de départ).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Etape {
+        private Integer filmId;          // Identifiant du film qui relie l'acteur au précédent
+        private String film;             // Nom de ce film
+        private Integer anneeSortie;     // Année de sortie de ce film
+        private Integer acteurId;        // Identifiant de l'acteur
+        private String acteur;           // Nom de l'acteur
+
+        /**
+         * Getter pour récupérer l'identifiant du film qui relie l'acteur au précédent.
+         * @return L'identifiant du film, ou null pour l'acteur de départ.
+         */
+        public Integer getFilmId() {
+            return filmId;
+        }
+
+        /**
+         * Setter pour définir l'identifiant du film qui relie l'acteur au précédent.
+         * @param filmId L'identifiant du film.
+         */
+        public void setFilmId(Integer filmId) {
+            this.filmId = filmId;
+        }
+
+        /**
+         * Getter pour récupérer le nom du film qui relie l'acteur au précédent.
+         * @return Le nom du film, ou null pour l'acteur de départ.
+         */
+        public String getFilm() {
+            return film;
+        }
+
+        /**
+         * Setter pour définir le nom du film qui relie l'acteur au précédent.
+         * @param film Le nom du film.
+         */
+        public void setFilm(String film) {
+            this.film = film;
+        }
+
+        /**
+         * Getter pour récupérer l'année de sortie du film qui relie l'acteur au précédent.
+         * @return L'année de sortie du film, ou null pour l'acteur de départ.
+         */
+        public Integer getAnneeSortie() {
+            return anneeSortie;
+        }
+
+        /**
+         * Setter pour définir l'année de sortie du film qui relie l'acteur au précédent.
+         * @param anneeSortie L'année de sortie du film.
+         */
+        public void setAnneeSortie(Integer anneeSortie) {
+            this.anneeSortie = anneeSortie;
+        }
+
+        /**
+         * Getter pour récupérer l'identifiant de l'acteur.
+         * @return L'identifiant de l'acteur.
+         */
+        public Integer getActeurId() {
+            return acteurId;
+        }
+
+        /**
+         * Setter pour définir l'identifiant de l'acteur.
+         * @param acteurId L'identifiant de l'acteur.
+         */
+        public void setActeurId(Integer acteurId) {
+            this.acteurId = acteurId;
+        }
+
+        /**
+         * Getter pour récupérer le nom de l'acteur.
+         * @return Le nom de l'acteur.
+         */
+        public String getActeur() {
+            return acteur;
+        }
+
+        /**
+         * Setter pour définir le nom de l'acteur.
+         * @param acteur Le nom de l'acteur.
+         */
+        public void setActeur(String acteur) {
+            this.acteur = acteur;
+        }
+    }
+
+    /**
+     * Getter pour récupérer le nombre de films du chemin.
+     * @return Le nombre de films du chemin (0 si le départ et l'arrivée sont le même acteur).
+     */
+    public Integer getDegres() {
+        return degres;
+    }
+
+    /**
+     * Setter pour définir le nombre de films du chemin.
+     * @param degres Le nombre de films du chemin.
+     */
+    public void setDegres(Integer degres) {
+        this.degres = degres;
+    }
+
+    /**
+     * Getter pour récupérer les étapes du chemin.
+     * @return Les étapes du chemin, du départ à l'arrivée.
+     */
+    public List<Etape> getEtapes() {
+        return etapes;
+    }
+
+    /**
+     * Setter pour définir les étapes du chemin.
+     * @param etapes Les étapes du chemin.
+     */
+    public void setEtapes(List<Etape> etapes) {
+        this.etapes = etapes;
+    }
+}
@@ -1,5 +1,6 @@
 package fr.diginamic.projetspring.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import fr.diginamic.projetspring.entities.Genre;
 import java.util.Set;
 
@@ -16,7 +17,8 @@ public class FilmDTO {
     private String urlProfile;       // URL du profil du film
     private String lieuTournage;     // Lieu de tournage du film
     private String langue;           // Langue du film
-    private String resume;           // Résumé du film
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String resume;           // Résumé du film, absent des listes sauf demande
     private String pays;             // Pays de production du film
     private Set<Genre> genres;       // Ensemble des genres du film
 
@@ -0,0 +1,126 @@
+package fr.diginamic.projetspring.dto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une pagination par curseur (keyset) sur l'identifiant technique.
+ * <p>
+ * La page suivante est demandée avec le curseur {@link #getNext()}, qui encode le dernier identifiant de la page :
+ * la requête reprend à {@code id > dernier} sur l'index de la clé primaire, sans {@code OFFSET} ni comptage, et
+ * coûte donc autant à toute profondeur. Le curseur est opaque pour les clients, qui ne doivent que le renvoyer.
+ * </p>
+ *
+ * @param <T> Le type des éléments de la page.
+ */
+public class PageCurseur<T> {
+
+    /** Nombre d'éléments par page par défaut. */
+    public static final int TAILLE_DEFAUT = 20;
+    /** Nombre maximal d'éléments par page. */
+    public static final int TAILLE_MAX = 2000;
+
+    private static final Base64.Encoder ENCODEUR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODEUR = Base64.getUrlDecoder();
+
+    private final List<T> content;
+    private final int size;
+    private final String next;
+
+    private PageCurseur(List<T> content, int size, String next) {
+        this.content = content;
+        this.size = size;
+        this.next = next;
+    }
+
+    /**
+     * Construit une page à partir des éléments lus, demandés à raison d'un de plus que la taille de la page pour
+     * savoir s'il existe une page suivante.
+     *
+     * @param elements   Les éléments lus (au plus {@code taille + 1}), dans l'ordre des identifiants.
+     * @param taille     La taille de la page.
+     * @param id         L'identifiant d'un élément.
+     * @param conversion La conversion des éléments pour la réponse.
+     * @param <E>        Le type des éléments lus.
+     * @param <T>        Le type des éléments de la page.
+     * @return La page.
+     */
+    public static <E, T> PageCurseur<T> de(List<E> elements, int taille, Function<E, Integer> id,
+                                            Function<E, T> conversion) {
+        boolean suite = elements.size() > taille;
+        List<E> page = suite ? elements.subList(0, taille) : elements;
+        List<T> contenu = new ArrayList<>(page.size());
+        for (E element : page) {
+            contenu.add(conversion.apply(element));
+        }
+        String next = suite ? encoder(id.apply(page.get(page.size() - 1))) : null;
+        return new PageCurseur<>(contenu, contenu.size(), next);
+    }
+
+    /**
+     * Ramène une taille de page demandée entre 1 et {@link #TAILLE_MAX}.
+     *
+     * @param taille La taille demandée.
+     * @return La taille retenue.
+     */
+    public static int taille(int taille) {
+        return Math.max(1, Math.min(taille, TAILLE_MAX));
+    }
+
+    /**
+     * Décode un curseur.
+     *
+     * @param curseur Le curseur reçu, vide ou {@code null} pour la première page.
+     * @return Le dernier identifiant de la page précédente, ou {@code null} pour la première page.
+     * @throws IllegalArgumentException Si le curseur n'a pas été produit par {@link #getNext()}.
+     */
+    public static Integer position(String curseur) {
+        if (curseur == null || curseur.isEmpty()) {
+            return null;
+        }
+        byte[] octets;
+        try {
+            octets = DECODEUR.decode(curseur);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide : " + curseur, e);
+        }
+        if (octets.length != Integer.BYTES) {
+            throw new IllegalArgumentException("Curseur invalide : " + curseur);
+        }
+        return ByteBuffer.wrap(octets).getInt();
+    }
+
+    private static String encoder(int id) {
+        return ENCODEUR.encodeToString(ByteBuffer.allocate(Integer.BYTES).putInt(id).array());
+    }
+
+    /**
+     * Obtient les éléments de la page.
+     *
+     * @return Les éléments de la page.
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Obtient le nombre d'éléments de la page.
+     *
+     * @return Le nombre d'éléments de la page.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Obtient le curseur de la page suivante.
+     *
+     * @return Le curseur de la page suivante, ou {@code null} s'il s'agit de la dernière page.
+     */
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,75 @@
+package fr.diginamic.projetspring.dto;
+
+/**
+ * DTO représentant un résultat de la recherche plein texte : un film, un acteur ou un réalisateur.
+ */
+public class ResultatRechercheDTO {
+    private String type;             // Type du résultat : film, acteur ou realisateur
+    private Integer id;              // Identifiant du film, de l'acteur ou du réalisateur
+    private String nom;              // Titre du film ou nom de la personne
+    private Double score;            // Pertinence (BM25) du résultat pour la requête
+
+    /**
+     * Getter pour récupérer le type du résultat.
+     * @return Le type du résultat : film, acteur ou realisateur.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Setter pour définir le type du résultat.
+     * @param type Le type du résultat.
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Getter pour récupérer l'identifiant du résultat.
+     * @return L'identifiant du film, de l'acteur ou du réalisateur.
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Setter pour définir l'identifiant du résultat.
+     * @param id L'identifiant du film, de l'acteur ou du réalisateur.
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter pour récupérer le nom du résultat.
+     * @return Le titre du film ou le nom de la personne.
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Setter pour définir le nom du résultat.
+     * @param nom Le titre du film ou le nom de la personne.
+     */
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * Getter pour récupérer la pertinence du résultat.
+     * @return Le score BM25 du résultat pour la requête.
+     */
+    public Double getScore() {
+        return score;
+    }
+
+    /**
+     * Setter pour définir la pertinence du résultat.
+     * @param score Le score BM25 du résultat.
+     */
+    public void setScore(Double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,76 @@
+package fr.diginamic.projetspring.dto;
+
+/**
+ * DTO représentant une suggestion de l'autocomplétion : un film, un acteur ou un réalisateur dont le nom commence
+ * par le texte saisi.
+ */
+public class SuggestionDTO {
+    private String type;             // Type de la suggestion : film, acteur ou realisateur
+    private Integer id;              // Identifiant du film, de l'acteur ou du réalisateur
+    private String nom;              // Titre du film ou nom de la personne
+    private Integer popularite;      // Nombre de rôles du film ou de l'acteur, nombre de films du réalisateur
+
+    /**
+     * Getter pour récupérer le type de la suggestion.
+     * @return Le type de la suggestion : film, acteur ou realisateur.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Setter pour définir le type de la suggestion.
+     * @param type Le type de la suggestion.
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Getter pour récupérer l'identifiant de la suggestion.
+     * @return L'identifiant du film, de l'acteur ou du réalisateur.
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Setter pour définir l'identifiant de la suggestion.
+     * @param id L'identifiant du film, de l'acteur ou du réalisateur.
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter pour récupérer le nom de la suggestion.
+     * @return Le titre du film ou le nom de la personne.
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Setter pour définir le nom de la suggestion.
+     * @param nom Le titre du film ou le nom de la personne.
+     */
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * Getter pour récupérer la popularité de la suggestion.
+     * @return Le nombre de rôles du film ou de l'acteur, ou le nombre de films du réalisateur.
+     */
+    public Integer getPopularite() {
+        return popularite;
+    }
+
+    /**
+     * Setter pour définir la popularité de la suggestion.
+     * @param popularite Le nombre de rôles ou de films.
+     */
+    public void setPopularite(Integer popularite) {
+        this.popularite = popularite;
+    }
+}
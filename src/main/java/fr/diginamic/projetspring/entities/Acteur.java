@@ -12,11 +12,13 @@ public class Acteur {
 
     /** Identifiant unique de l'acteur. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acteur_seq")
+    @SequenceGenerator(name = "acteur_seq", sequenceName = "acteur_seq", allocationSize = 100)
     private Integer acteurId;
 
     /** Identifiant IMDB de l'acteur. */
     @Column(unique = true)
+    @Convert(converter = ImdbIdConverter.Nom.class)
     private String idIMDB;
 
     /** Nom de l'acteur. */
@@ -1,6 +1,8 @@
 package fr.diginamic.projetspring.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -10,6 +12,8 @@ import java.util.Set;
  * Représente un film avec ses caractéristiques et les personnes impliquées dans sa création.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "films")
 @Table(name = "films")
 public class Film {
 
@@ -17,7 +21,8 @@ public class Film {
      * Identifiant unique du film.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "film_seq")
+    @SequenceGenerator(name = "film_seq", sequenceName = "film_seq", allocationSize = 100)
     private Integer filmId;
 
     /**
@@ -28,6 +33,7 @@ public class Film {
      * identifiant IMDB du film
      */
     @Column(unique = true)
+    @Convert(converter = ImdbIdConverter.Titre.class)
     private String idIMDB;
     /**
      * Date de sortie du film.
@@ -44,8 +50,11 @@ public class Film {
      */
     private String langue;
     /**
-     * Résumé du film.
+     * Résumé du film, complet. Stocké en TEXT et chargé à la première lecture seulement
+     * (attribut différé, nécessite l'enrichissement du bytecode par Hibernate).
      */
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "TEXT")
     private String resume;
     /**
      * Pays d'origine du film.
@@ -63,6 +72,7 @@ public class Film {
     private List<RoleFilm> rolefilm;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "films.genres")
     @JoinTable(name = "film_genre",
             joinColumns = @JoinColumn(name = "film_id"),
             inverseJoinColumns = @JoinColumn(name = "genre_id")
@@ -1,6 +1,8 @@
 package fr.diginamic.projetspring.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -9,6 +11,8 @@ import java.util.Set;
  * Représente un genre de film avec son type et la liste des films associés à ce genre.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "genres")
 @Table(name="genres")
 public class Genre {
     /** Identifiant unique du genre. */
@@ -17,7 +21,7 @@ public class Genre {
     private Integer genreId;
 
     /** Type du genre (ex: Action, Comédie, Drame, etc.). */
-    @Column(name="type")
+    @Column(name="type", unique = true)
     private String type;
 
     @ManyToMany(mappedBy = "genres")
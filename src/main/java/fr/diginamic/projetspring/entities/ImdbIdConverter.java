@@ -0,0 +1,79 @@
+package fr.diginamic.projetspring.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stocke un identifiant IMDB ({@code nm0913738}, {@code tt0082449}) sous forme d'entier.
+ * <p>
+ * Le préfixe est le même pour toutes les lignes d'une table (personnes ou titres) : seuls le nombre de
+ * chiffres et le numéro sont conservés, dans un {@code INT} ({@link ImdbIds#compacter(CharSequence, String)}).
+ * L'index unique de la colonne compare ainsi des entiers de 4 octets au lieu de chaînes, tandis que les
+ * entités et l'API continuent de manipuler l'identifiant sous sa forme textuelle.
+ * </p>
+ */
+public abstract class ImdbIdConverter implements AttributeConverter<String, Integer> {
+
+    private final String prefixe;
+
+    /**
+     * Crée un convertisseur pour les identifiants d'un préfixe donné.
+     *
+     * @param prefixe Le préfixe des identifiants (ex : "nm").
+     */
+    protected ImdbIdConverter(String prefixe) {
+        this.prefixe = prefixe;
+    }
+
+    /**
+     * Convertit l'identifiant IMDB en entier.
+     *
+     * @param idIMDB L'identifiant IMDB, ou {@code null}.
+     * @return Le code de l'identifiant, ou {@code null}.
+     * @throws IllegalArgumentException Si l'identifiant n'est pas le préfixe attendu suivi de 7 à 9 chiffres.
+     */
+    @Override
+    public Integer convertToDatabaseColumn(String idIMDB) {
+        if (idIMDB == null) {
+            return null;
+        }
+        int code = ImdbIds.compacter(idIMDB, prefixe);
+        if (code == ImdbIds.INVALIDE_COMPACT) {
+            throw new IllegalArgumentException("Identifiant IMDB invalide : " + idIMDB);
+        }
+        return code;
+    }
+
+    /**
+     * Reconstitue l'identifiant IMDB.
+     *
+     * @param code Le code lu en base, ou {@code null}.
+     * @return L'identifiant IMDB, ou {@code null}.
+     */
+    @Override
+    public String convertToEntityAttribute(Integer code) {
+        return code != null ? ImdbIds.decompacter(code, prefixe) : null;
+    }
+
+    /**
+     * Identifiants de personnes (acteurs, réalisateurs) : {@code nm…}.
+     */
+    @Converter
+    public static class Nom extends ImdbIdConverter {
+
+        public Nom() {
+            super(ImdbIds.PREFIXE_NOM);
+        }
+    }
+
+    /**
+     * Identifiants de titres (films) : {@code tt…}.
+     */
+    @Converter
+    public static class Titre extends ImdbIdConverter {
+
+        public Titre() {
+            super(ImdbIds.PREFIXE_TITRE);
+        }
+    }
+}
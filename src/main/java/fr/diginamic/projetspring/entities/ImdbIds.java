@@ -0,0 +1,149 @@
+package fr.diginamic.projetspring.entities;
+
+/**
+ * Représentation compacte des identifiants IMDB ({@code nm0913738}, {@code tt0082449}).
+ * <p>
+ * Un identifiant IMDB est un préfixe de deux lettres suivi d'un numéro. {@link #encoder(CharSequence)} le code
+ * sans perte dans un {@code long} (préfixe, nombre de chiffres et numéro), et {@link #compacter(CharSequence, String)}
+ * dans un {@code int} lorsque le préfixe est connu d'avance, ce qui permet de coder un couple d'identifiants
+ * dans un seul {@code long} ({@link #paire(CharSequence, String, CharSequence, String)}).
+ * </p>
+ */
+public final class ImdbIds {
+
+    /** Valeur renvoyée par {@link #encoder(CharSequence)} pour un identifiant qui n'a pas la forme attendue. */
+    public static final long INVALIDE = -1L;
+
+    /** Valeur renvoyée par {@link #compacter(CharSequence, String)} pour un identifiant qui n'a pas la forme attendue. */
+    public static final int INVALIDE_COMPACT = -1;
+
+    /** Préfixe des identifiants de personnes (acteurs, réalisateurs). */
+    public static final String PREFIXE_NOM = "nm";
+
+    /** Préfixe des identifiants de titres (films). */
+    public static final String PREFIXE_TITRE = "tt";
+
+    private static final int BITS_NUMERO = 50;
+    private static final int MAX_CHIFFRES = 15;
+    private static final int BITS_NUMERO_COMPACT = 30;
+    private static final int MIN_CHIFFRES_COMPACT = 7;
+    private static final int MAX_CHIFFRES_COMPACT = 9;
+
+    private ImdbIds() {
+    }
+
+    /**
+     * Code un identifiant IMDB dans un {@code long} : 2 × 5 bits pour le préfixe, 4 bits pour le nombre
+     * de chiffres (les zéros de tête sont significatifs) et 50 bits pour le numéro.
+     *
+     * @param idIMDB L'identifiant IMDB (ex : nm0913738), ou {@code null}.
+     * @return Le code de l'identifiant, ou {@link #INVALIDE} s'il ne se compose pas de deux lettres minuscules
+     * suivies de 1 à 15 chiffres.
+     */
+    public static long encoder(CharSequence idIMDB) {
+        if (idIMDB == null || idIMDB.length() < 3 || idIMDB.length() > 2 + MAX_CHIFFRES) {
+            return INVALIDE;
+        }
+        char premiere = idIMDB.charAt(0);
+        char seconde = idIMDB.charAt(1);
+        if (premiere < 'a' || premiere > 'z' || seconde < 'a' || seconde > 'z') {
+            return INVALIDE;
+        }
+        long numero = numero(idIMDB);
+        if (numero < 0) {
+            return INVALIDE;
+        }
+        long chiffres = idIMDB.length() - 2;
+        return (long) (premiere - 'a') << 59 | (long) (seconde - 'a') << 54 | chiffres << BITS_NUMERO | numero;
+    }
+
+    /**
+     * Reconstitue l'identifiant IMDB codé par {@link #encoder(CharSequence)}.
+     *
+     * @param code Le code de l'identifiant.
+     * @return L'identifiant IMDB.
+     */
+    public static String decoder(long code) {
+        int chiffres = (int) (code >>> BITS_NUMERO & 0xF);
+        String numero = Long.toString(code & (1L << BITS_NUMERO) - 1);
+        StringBuilder idIMDB = new StringBuilder(2 + chiffres)
+                .append((char) ('a' + (code >>> 59 & 0x1F)))
+                .append((char) ('a' + (code >>> 54 & 0x1F)));
+        for (int i = numero.length(); i < chiffres; i++) {
+            idIMDB.append('0');
+        }
+        return idIMDB.append(numero).toString();
+    }
+
+    /**
+     * Code un identifiant IMDB de préfixe connu dans un {@code int} : 2 bits pour le nombre de chiffres
+     * (7, 8 ou 9, formats utilisés par IMDB) et 30 bits pour le numéro.
+     *
+     * @param idIMDB  L'identifiant IMDB, ou {@code null}.
+     * @param prefixe Le préfixe attendu (ex : "nm").
+     * @return Le code de l'identifiant, ou {@link #INVALIDE_COMPACT} s'il n'a pas le préfixe attendu suivi de 7 à 9 chiffres.
+     */
+    public static int compacter(CharSequence idIMDB, String prefixe) {
+        if (idIMDB == null || idIMDB.length() < 2 + MIN_CHIFFRES_COMPACT || idIMDB.length() > 2 + MAX_CHIFFRES_COMPACT
+                || idIMDB.charAt(0) != prefixe.charAt(0) || idIMDB.charAt(1) != prefixe.charAt(1)) {
+            return INVALIDE_COMPACT;
+        }
+        long numero = numero(idIMDB);
+        if (numero < 0) {
+            return INVALIDE_COMPACT;
+        }
+        return (idIMDB.length() - 2 - MIN_CHIFFRES_COMPACT) << BITS_NUMERO_COMPACT | (int) numero;
+    }
+
+    /**
+     * Reconstitue l'identifiant IMDB codé par {@link #compacter(CharSequence, String)}.
+     *
+     * @param code    Le code de l'identifiant.
+     * @param prefixe Le préfixe de l'identifiant (ex : "nm").
+     * @return L'identifiant IMDB.
+     */
+    public static String decompacter(int code, String prefixe) {
+        int chiffres = MIN_CHIFFRES_COMPACT + (code >>> BITS_NUMERO_COMPACT);
+        String numero = Integer.toString(code & (1 << BITS_NUMERO_COMPACT) - 1);
+        StringBuilder idIMDB = new StringBuilder(2 + chiffres).append(prefixe);
+        for (int i = numero.length(); i < chiffres; i++) {
+            idIMDB.append('0');
+        }
+        return idIMDB.append(numero).toString();
+    }
+
+    /**
+     * Code un couple d'identifiants IMDB de préfixes connus dans un {@code long}, sans perte.
+     *
+     * @param premier        Le premier identifiant (ex : l'acteur).
+     * @param prefixePremier Le préfixe attendu du premier identifiant.
+     * @param second         Le second identifiant (ex : le film).
+     * @param prefixeSecond  Le préfixe attendu du second identifiant.
+     * @return Le code du couple, ou {@link #INVALIDE} si l'un des identifiants ne peut pas être compacté.
+     */
+    public static long paire(CharSequence premier, String prefixePremier, CharSequence second, String prefixeSecond) {
+        int codePremier = compacter(premier, prefixePremier);
+        int codeSecond = compacter(second, prefixeSecond);
+        if (codePremier == INVALIDE_COMPACT || codeSecond == INVALIDE_COMPACT) {
+            return INVALIDE;
+        }
+        return (long) codePremier << 32 | codeSecond & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Lit le numéro qui suit le préfixe.
+     *
+     * @return Le numéro, ou -1 si un caractère n'est pas un chiffre.
+     */
+    private static long numero(CharSequence idIMDB) {
+        long numero = 0;
+        for (int i = 2; i < idIMDB.length(); i++) {
+            char c = idIMDB.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+}
@@ -0,0 +1,126 @@
+package fr.diginamic.projetspring.entities;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Empreinte d'une ligne de fichier CSV lors de son dernier import, utilisée par l'import différentiel
+ * pour ne réécrire que les lignes nouvelles ou modifiées.
+ */
+@Entity
+@Table(name = "import_empreinte")
+@IdClass(ImportEmpreinte.Cle.class)
+public class ImportEmpreinte {
+
+    /** Nom du fichier CSV (ex : acteurs.csv). */
+    @Id
+    @Column(name = "fichier", length = 64, nullable = false)
+    private String fichier;
+
+    /** Clé métier de la ligne dans le fichier (identifiant IMDB ou couple d'identifiants IMDB). */
+    @Id
+    @Column(name = "cle", length = 64, nullable = false)
+    private String cle;
+
+    /** Empreinte 64 bits du contenu de la ligne. */
+    @Column(name = "empreinte", nullable = false)
+    private long empreinte;
+
+    /**
+     * Constructeur par défaut.
+     */
+    public ImportEmpreinte() {
+    }
+
+    /**
+     * Obtient le nom du fichier CSV de la ligne.
+     *
+     * @return Le nom du fichier CSV de la ligne.
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Définit le nom du fichier CSV de la ligne.
+     *
+     * @param fichier Le nom du fichier CSV de la ligne.
+     */
+    public void setFichier(String fichier) {
+        this.fichier = fichier;
+    }
+
+    /**
+     * Obtient la clé métier de la ligne dans le fichier.
+     *
+     * @return La clé métier de la ligne dans le fichier.
+     */
+    public String getCle() {
+        return cle;
+    }
+
+    /**
+     * Définit la clé métier de la ligne dans le fichier.
+     *
+     * @param cle La clé métier de la ligne dans le fichier.
+     */
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    /**
+     * Obtient l'empreinte du contenu de la ligne lors de son dernier import.
+     *
+     * @return L'empreinte du contenu de la ligne lors de son dernier import.
+     */
+    public long getEmpreinte() {
+        return empreinte;
+    }
+
+    /**
+     * Définit l'empreinte du contenu de la ligne lors de son dernier import.
+     *
+     * @param empreinte L'empreinte du contenu de la ligne lors de son dernier import.
+     */
+    public void setEmpreinte(long empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    /**
+     * Clé primaire composée (fichier, clé de ligne).
+     */
+    public static class Cle implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String fichier;
+        private String cle;
+
+        public Cle() {
+        }
+
+        public Cle(String fichier, String cle) {
+            this.fichier = fichier;
+            this.cle = cle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Cle)) {
+                return false;
+            }
+            Cle autre = (Cle) o;
+            return Objects.equals(fichier, autre.fichier) && Objects.equals(cle, autre.cle);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fichier, cle);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package fr.diginamic.projetspring.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Point de reprise de l'import d'un fichier CSV : position de la dernière ligne dont l'écriture a été validée.
+ * <p>
+ * Si l'import est interrompu, le suivant reprend le fichier à cette position, à condition que son contenu
+ * n'ait pas changé entre-temps (même empreinte).
+ * </p>
+ */
+@Entity
+@Table(name = "import_reprise")
+public class ImportReprise {
+
+    /** Nom du fichier CSV (ex : roles.csv). */
+    @Id
+    @Column(name = "fichier", length = 64, nullable = false)
+    private String fichier;
+
+    /** Empreinte SHA-256 (hexadécimale) du contenu du fichier. */
+    @Column(name = "empreinte", length = 64, nullable = false)
+    private String empreinte;
+
+    /** Position en octets du début de la première ligne non validée. */
+    @Column(name = "decalage", nullable = false)
+    private long decalage;
+
+    /** Numéro de la dernière ligne validée. */
+    @Column(name = "ligne", nullable = false)
+    private long ligne;
+
+    /** {@code true} si tout le fichier a été importé. */
+    @Column(name = "termine", nullable = false)
+    private boolean termine;
+
+    /**
+     * Constructeur par défaut.
+     */
+    public ImportReprise() {
+    }
+
+    /**
+     * Obtient le nom du fichier CSV importé.
+     *
+     * @return Le nom du fichier CSV importé.
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Définit le nom du fichier CSV importé.
+     *
+     * @param fichier Le nom du fichier CSV importé.
+     */
+    public void setFichier(String fichier) {
+        this.fichier = fichier;
+    }
+
+    /**
+     * Obtient l'empreinte SHA-256 du contenu du fichier.
+     *
+     * @return L'empreinte SHA-256 du contenu du fichier.
+     */
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    /**
+     * Définit l'empreinte SHA-256 du contenu du fichier.
+     *
+     * @param empreinte L'empreinte SHA-256 du contenu du fichier.
+     */
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    /**
+     * Obtient la position en octets du début de la première ligne non validée.
+     *
+     * @return La position en octets du début de la première ligne non validée.
+     */
+    public long getDecalage() {
+        return decalage;
+    }
+
+    /**
+     * Définit la position en octets du début de la première ligne non validée.
+     *
+     * @param decalage La position en octets du début de la première ligne non validée.
+     */
+    public void setDecalage(long decalage) {
+        this.decalage = decalage;
+    }
+
+    /**
+     * Obtient le numéro de la dernière ligne validée.
+     *
+     * @return Le numéro de la dernière ligne validée.
+     */
+    public long getLigne() {
+        return ligne;
+    }
+
+    /**
+     * Définit le numéro de la dernière ligne validée.
+     *
+     * @param ligne Le numéro de la dernière ligne validée.
+     */
+    public void setLigne(long ligne) {
+        this.ligne = ligne;
+    }
+
+    /**
+     * Indique si tout le fichier a été importé.
+     *
+     * @return {@code true} si tout le fichier a été importé.
+     */
+    public boolean isTermine() {
+        return termine;
+    }
+
+    /**
+     * Définit si tout le fichier a été importé.
+     *
+     * @param termine {@code true} si tout le fichier a été importé.
+     */
+    public void setTermine(boolean termine) {
+        this.termine = termine;
+    }
+}
@@ -1,6 +1,8 @@
 package fr.diginamic.projetspring.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Date;
 import java.util.List;
 
@@ -8,16 +10,20 @@ import java.util.List;
  * Représente un réalisateur avec ses informations personnelles et la liste des films qu'il a réalisés.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "realisateurs")
 @Table(name = "realisateurs")
 public class Realisateur {
 
     /** Identifiant unique du réalisateur. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "realisateur_seq")
+    @SequenceGenerator(name = "realisateur_seq", sequenceName = "realisateur_seq", allocationSize = 100)
     private Integer idRealisateur;
 
     /** Identifiant imdb du réalisateur. */
     @Column(unique = true)
+    @Convert(converter = ImdbIdConverter.Nom.class)
     private String idIMDB;
 
     private String nom;
@@ -20,7 +20,8 @@ public class RealisateurFilm {
      * Identifiant unique de l'association réalisateur-film.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "realisateur_film_seq")
+    @SequenceGenerator(name = "realisateur_film_seq", sequenceName = "realisateur_film_seq", allocationSize = 100)
     private Integer idRealisateurFilm;
 
     /**
@@ -142,6 +143,24 @@ public class RealisateurFilm {
         this.film = film;
     }
 
+    /**
+     * Retourne l'identifiant du film (utilisé pour la lecture seulement).
+     *
+     * @return L'identifiant du film.
+     */
+    public Integer getFilmId() {
+        return filmId;
+    }
+
+    /**
+     * Modifie l'identifiant du film (utilisé pour la lecture seulement).
+     *
+     * @param filmId Le nouvel identifiant du film.
+     */
+    public void setFilmId(Integer filmId) {
+        this.filmId = filmId;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -11,7 +11,8 @@ public class RoleFilm {
 
     /** Identifiant unique du rôle dans un film. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rolefilm_seq")
+    @SequenceGenerator(name = "rolefilm_seq", sequenceName = "rolefilm_seq", allocationSize = 100)
     private Integer roleId;
 
     /** Personnage joué par l'acteur dans le film. */
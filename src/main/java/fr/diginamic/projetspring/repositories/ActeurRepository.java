@@ -3,10 +3,12 @@ package fr.diginamic.projetspring.repositories;
 import fr.diginamic.projetspring.entities.Acteur;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -55,6 +57,22 @@ public interface ActeurRepository extends JpaRepository<Acteur, Integer> {
      */
     Acteur findByIdIMDB(String idIMDB);
 
+    /**
+     * Récupère les identifiants IMDB de tous les acteurs déjà enregistrés.
+     *
+     * @return La liste des identifiants IMDB des acteurs en base.
+     */
+    @Query("SELECT a.idIMDB FROM Acteur a")
+    List<String> findAllIdIMDB();
+
+    /**
+     * Récupère les couples (identifiant IMDB, identifiant technique) de tous les acteurs.
+     *
+     * @return Une liste d'objets contenant l'identifiant IMDB et l'identifiant de chaque acteur.
+     */
+    @Query("SELECT a.idIMDB, a.acteurId FROM Acteur a")
+    List<Object[]> findAllIdIMDBAndId();
+
     /**
      * Requête pour extraire tous les films (nom et années de sortie) d'un acteur donné.
      *
@@ -85,4 +103,21 @@ public interface ActeurRepository extends JpaRepository<Acteur, Integer> {
     List<Object[]> findActeursInFilms(@Param("filmId1") Integer filmId1,
                                       @Param("filmId2") Integer filmId2);
 
+    /**
+     * Requête pour extraire le nom d'acteurs donnés, sous la même forme que {@link #findActeursInFilms}.
+     *
+     * @param acteurIds Les identifiants des acteurs.
+     * @return Une liste d'objets contenant le nom des acteurs.
+     */
+    @Query("SELECT a.nom AS acteurNom FROM Acteur a WHERE a.acteurId IN :acteurIds")
+    List<Object[]> findNomsByActeurIds(@Param("acteurIds") Collection<Integer> acteurIds);
+
+    /**
+     * Lit les acteurs qui suivent un identifiant donné, dans l'ordre des identifiants (pagination par curseur).
+     *
+     * @param acteurId  L'identifiant à partir duquel lire (exclu).
+     * @param limite Le nombre maximal de acteurs.
+     * @return Les acteurs suivants.
+     */
+    List<Acteur> findByActeurIdGreaterThanOrderByActeurIdAsc(Integer acteurId, Limit limite);
 }
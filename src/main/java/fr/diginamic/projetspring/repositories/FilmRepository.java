@@ -2,10 +2,17 @@ package fr.diginamic.projetspring.repositories;
 
 import fr.diginamic.projetspring.entities.Film;
 import fr.diginamic.projetspring.entities.Genre;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -82,8 +89,9 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
      * Recherche tous les films par genre.
      *
      * @param genres Le set de genres des films à rechercher.
-     * @return La liste des films correspondant à l'un des genres spécifiés.
+     * @return La liste des films correspondant à l'un des genres spécifiés, avec leurs genres.
      */
+    @EntityGraph(attributePaths = "genres")
     List<Film> findAllByGenresIn(Set<Genre> genres);
 
     /**
@@ -94,8 +102,72 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
      */
     Film findByIdIMDB(String idIMDB);
 
+    /**
+     * Récupère les identifiants IMDB de tous les films déjà enregistrés.
+     *
+     * @return La liste des identifiants IMDB des films en base.
+     */
+    @Query("SELECT f.idIMDB FROM Film f")
+    List<String> findAllIdIMDB();
+
+    /**
+     * Récupère les couples (identifiant IMDB, identifiant technique) de tous les films.
+     *
+     * @return Une liste d'objets contenant l'identifiant IMDB et l'identifiant de chaque film.
+     */
+    @Query("SELECT f.idIMDB, f.filmId FROM Film f")
+    List<Object[]> findAllIdIMDBAndId();
+
+    /**
+     * Supprime les associations film-genre des films donnés. La table touchée est déclarée à Hibernate pour qu'il
+     * n'invalide que les genres des films en cache, et non tout le cache de second niveau.
+     *
+     * @param filmIds Les identifiants des films.
+     * @return Le nombre d'associations supprimées.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "film_genre"))
+    @Query(value = "DELETE FROM film_genre WHERE film_id IN (:filmIds)", nativeQuery = true)
+    int deleteGenresByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
+    /**
+     * Recherche les films d'un genre donné, avec tous leurs genres chargés dans la même requête.
+     *
+     * @param genreType Le type du genre.
+     * @return La liste des films du genre.
+     */
+    @EntityGraph(attributePaths = "genres")
     List<Film> findByGenres_Type(String genreType);
 
+    /**
+     * Recherche les films ayant au moins un des genres donnés, avec tous leurs genres.
+     *
+     * @param genreTypes Les types de genres.
+     * @return La liste des films correspondant à l'un des genres spécifiés.
+     */
+    @EntityGraph(attributePaths = "genres")
+    List<Film> findDistinctByGenres_TypeIn(Collection<String> genreTypes);
+
+    /**
+     * Charge les genres de films déjà lus (page de films), en une seule requête : les collections des
+     * films du contexte de persistance sont initialisées au passage.
+     *
+     * @param films Les films dont il faut charger les genres.
+     * @return Les mêmes films, avec leurs genres.
+     */
+    @Query("SELECT DISTINCT f FROM Film f LEFT JOIN FETCH f.genres WHERE f IN :films")
+    List<Film> chargerGenres(@Param("films") Collection<Film> films);
+
+    /**
+     * Lit les résumés de films déjà chargés, en une seule requête et sans initialiser l'attribut différé
+     * {@code resume} de chaque film.
+     *
+     * @param films Les films dont il faut lire le résumé.
+     * @return Une liste d'objets contenant l'identifiant et le résumé de chaque film.
+     */
+    @Query("SELECT f.filmId, f.resume FROM Film f WHERE f IN :films")
+    List<Object[]> findResumes(@Param("films") Collection<Film> films);
+
     /**
      * Requête pour extraire tous les acteurs et leurs personnages dans un film donné.
      *
@@ -114,8 +186,9 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
      *
      * @param startYear Année de début pour la recherche.
      * @param endYear   Année de fin pour la recherche.
-     * @return La liste des films sortis entre les années spécifiées.
+     * @return La liste des films sortis entre les années spécifiées, avec leurs genres.
      */
+    @EntityGraph(attributePaths = "genres")
     @Query("SELECT f FROM Film f WHERE f.anneeSortie BETWEEN :startYear AND :endYear")
     List<Film> findFilmsReleasedBetweenYears(@Param("startYear") int startYear, @Param("endYear") int endYear);
 
@@ -135,12 +208,23 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
             "WHERE a1.acteurId = :acteurId1 AND a2.acteurId = :acteurId2")
     List<Object[]> findFilmsByTwoActors(@Param("acteurId1") Integer acteurId1, @Param("acteurId2") Integer acteurId2);
 
+    /**
+     * Requête pour extraire le nom et l'année de sortie de films donnés, sous la même forme que
+     * {@link #findFilmsByTwoActors}.
+     *
+     * @param filmIds Les identifiants des films.
+     * @return Une liste d'objets contenant le nom et l'année de sortie des films.
+     */
+    @Query("SELECT f.nom AS filmNom, f.anneeSortie FROM Film f WHERE f.filmId IN :filmIds")
+    List<Object[]> findNomsByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
     /**
      * Requête pour extraire tous les films d'un genre donné.
      *
      * @param genreId L'identifiant du genre dont on veut extraire les films.
      * @return Une liste d'objets contenant le nom des films et leur année de sortie.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT f.nom AS filmNom, f.anneeSortie " +
             "FROM Genre g " +
             "JOIN g.films f " +
@@ -155,6 +239,7 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
      * @param acteurId  Identifiant de l'acteur recherché.
      * @return Une liste d'objets contenant le nom des films et leur année de sortie.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT DISTINCT f.nom AS film_nom, f.anneeSortie " +
             "FROM Film f " +
             "JOIN RoleFilm r ON f.filmId = r.film.filmId " +
@@ -165,4 +250,12 @@ public interface FilmRepository extends JpaRepository<Film, Integer> {
                                                     @Param("endYear") Integer endYear,
                                                     @Param("acteurId") Integer acteurId);
 
+    /**
+     * Lit les films qui suivent un identifiant donné, dans l'ordre des identifiants (pagination par curseur).
+     *
+     * @param filmId  L'identifiant à partir duquel lire (exclu).
+     * @param limite Le nombre maximal de films.
+     * @return Les films suivants.
+     */
+    List<Film> findByFilmIdGreaterThanOrderByFilmIdAsc(Integer filmId, Limit limite);
 }
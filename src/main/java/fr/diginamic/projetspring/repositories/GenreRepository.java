@@ -1,7 +1,10 @@
 package fr.diginamic.projetspring.repositories;
 
 import fr.diginamic.projetspring.entities.Genre;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +18,15 @@ public interface GenreRepository extends JpaRepository<Genre, Integer> {
 
     // Ajoutez d'autres méthodes déclaratives en fonction des besoins
 
+    /**
+     * Récupère tous les genres, depuis le cache des requêtes d'Hibernate tant qu'aucun genre n'a été modifié.
+     *
+     * @return La liste de tous les genres.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Genre> findAll();
+
     /**
      * Recherche tous les genres par type.
      *
@@ -10,6 +10,12 @@ package fr.diginamic.projetspring.repositories;
 
 import fr.diginamic.projetspring.entities.RealisateurFilm;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface repository pour l'entité RealisateurFilm, utilisant Spring Data JPA.
@@ -20,4 +26,50 @@ public interface RealisateurFilmRepository extends JpaRepository<RealisateurFilm
     // les opérations CRUD de base. Ces méthodes peuvent être utilisées telles quelles ou personnalisées
     // selon les besoins spécifiques de l'application.
 
+    /**
+     * Récupère les identifiants (idRealisateurFilm, idRealisateur, filmId) de toutes les associations.
+     *
+     * @return Les triplets d'identifiants.
+     */
+    @Query("SELECT rf.idRealisateurFilm, rf.idRealisateur, rf.filmId FROM RealisateurFilm rf")
+    List<Object[]> findAllIds();
+
+    /**
+     * Récupère les réalisateurs de films donnés.
+     *
+     * @param filmIds Les identifiants des films.
+     * @return Les identifiants des réalisateurs de ces films, une fois par association.
+     */
+    @Query("SELECT rf.idRealisateur FROM RealisateurFilm rf WHERE rf.filmId IN :filmIds")
+    List<Integer> findRealisateurIdsByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
+    /**
+     * Récupère les réalisateurs d'associations données.
+     *
+     * @param ids Les identifiants des associations.
+     * @return Les identifiants des réalisateurs de ces associations, une fois par association.
+     */
+    @Query("SELECT rf.idRealisateur FROM RealisateurFilm rf WHERE rf.idRealisateurFilm IN :ids")
+    List<Integer> findRealisateurIdsByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Supprime les associations des réalisateurs donnés.
+     *
+     * @param idsRealisateur Les identifiants des réalisateurs.
+     * @return Le nombre d'associations supprimées.
+     */
+    @Modifying
+    @Query("DELETE FROM RealisateurFilm rf WHERE rf.idRealisateur IN :idsRealisateur")
+    int deleteAllByRealisateurIds(@Param("idsRealisateur") Collection<Integer> idsRealisateur);
+
+    /**
+     * Supprime les associations des films donnés.
+     *
+     * @param filmIds Les identifiants des films.
+     * @return Le nombre d'associations supprimées.
+     */
+    @Modifying
+    @Query("DELETE FROM RealisateurFilm rf WHERE rf.filmId IN :filmIds")
+    int deleteAllByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
 }
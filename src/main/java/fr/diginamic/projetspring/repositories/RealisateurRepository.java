@@ -1,6 +1,7 @@
 package fr.diginamic.projetspring.repositories;
 
 import fr.diginamic.projetspring.entities.Realisateur;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -30,6 +31,22 @@ public interface RealisateurRepository extends JpaRepository<Realisateur, Intege
 
     Realisateur findByIdIMDB(String realisateurIdIMDB);
 
+    /**
+     * Récupère les identifiants IMDB de tous les réalisateurs déjà enregistrés.
+     *
+     * @return La liste des identifiants IMDB des réalisateurs en base.
+     */
+    @Query("SELECT r.idIMDB FROM Realisateur r")
+    List<String> findAllIdIMDB();
+
+    /**
+     * Récupère les couples (identifiant IMDB, identifiant technique) de tous les réalisateurs.
+     *
+     * @return Une liste d'objets contenant l'identifiant IMDB et l'identifiant de chaque réalisateur.
+     */
+    @Query("SELECT r.idIMDB, r.idRealisateur FROM Realisateur r")
+    List<Object[]> findAllIdIMDBAndId();
+
     //Implementation des requetes:
     //  Tache 7: Extraire tous les films d’un réalisateur donné
     @Query("SELECT f.nom AS film_nom, f.anneeSortie, f.langue, f.pays, f.rating " +
@@ -39,4 +56,12 @@ public interface RealisateurRepository extends JpaRepository<Realisateur, Intege
             "WHERE r.idRealisateur = :realisateurId")
     List<Object[]> findFilmsByRealisateurId(@Param("realisateurId") Integer realisateurId);
 
+    /**
+     * Lit les réalisateurs qui suivent un identifiant donné, dans l'ordre des identifiants (pagination par curseur).
+     *
+     * @param idRealisateur  L'identifiant à partir duquel lire (exclu).
+     * @param limite Le nombre maximal de réalisateurs.
+     * @return Les réalisateurs suivants.
+     */
+    List<Realisateur> findByIdRealisateurGreaterThanOrderByIdRealisateurAsc(Integer idRealisateur, Limit limite);
 }
@@ -2,9 +2,11 @@ package fr.diginamic.projetspring.repositories;
 
 import fr.diginamic.projetspring.entities.RoleFilm;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,4 +29,38 @@ public interface RoleFilmRepository extends JpaRepository<RoleFilm, Integer> {
     @Query("SELECT rf FROM RoleFilm rf JOIN rf.acteur a WHERE a.acteurId = :acteurId")
     List<RoleFilm> findAllByActeurId(@Param("acteurId")Integer acteurId);
 
+    // Identifiants (roleId, acteurId, filmId) de tous les rôles, pour l'import différentiel
+    @Query("SELECT rf.roleId, rf.acteurId, rf.filmId FROM RoleFilm rf")
+    List<Object[]> findAllIds();
+
+    // Identifiants (acteurId, filmId) de rôles donnés, pour tenir à jour le graphe acteurs-films et la popularité
+    @Query("SELECT rf.acteurId, rf.filmId FROM RoleFilm rf WHERE rf.roleId IN :roleIds")
+    List<Object[]> findActeurFilmIds(@Param("roleIds") Collection<Integer> roleIds);
+
+    // Identifiants (acteurId, filmId) des rôles de films donnés, supprimés avec eux
+    @Query("SELECT rf.acteurId, rf.filmId FROM RoleFilm rf WHERE rf.filmId IN :filmIds")
+    List<Object[]> findActeurFilmIdsByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
+    // Identifiants (acteurId, filmId) des rôles d'acteurs donnés, supprimés avec eux
+    @Query("SELECT rf.acteurId, rf.filmId FROM RoleFilm rf WHERE rf.acteurId IN :acteurIds")
+    List<Object[]> findActeurFilmIdsByActeurIds(@Param("acteurIds") Collection<Integer> acteurIds);
+
+    // Films joués par des acteurs donnés, pour invalider les résultats en cache qui les nomment
+    @Query("SELECT DISTINCT rf.filmId FROM RoleFilm rf WHERE rf.acteurId IN :acteurIds")
+    List<Integer> findFilmIdsByActeurIds(@Param("acteurIds") Collection<Integer> acteurIds);
+
+    // Acteurs de films donnés, pour invalider les résultats en cache qui les nomment
+    @Query("SELECT DISTINCT rf.acteurId FROM RoleFilm rf WHERE rf.filmId IN :filmIds")
+    List<Integer> findActeurIdsByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
+    // Suppression des rôles des acteurs supprimés
+    @Modifying
+    @Query("DELETE FROM RoleFilm rf WHERE rf.acteurId IN :acteurIds")
+    int deleteAllByActeurIds(@Param("acteurIds") Collection<Integer> acteurIds);
+
+    // Suppression des rôles des films supprimés
+    @Modifying
+    @Query("DELETE FROM RoleFilm rf WHERE rf.filmId IN :filmIds")
+    int deleteAllByFilmIds(@Param("filmIds") Collection<Integer> filmIds);
+
 }
@@ -1,15 +1,30 @@
 package fr.diginamic.projetspring.services;
 
+import fr.diginamic.projetspring.dto.CheminDTO;
 import fr.diginamic.projetspring.entities.Acteur;
+import fr.diginamic.projetspring.entities.Film;
 import fr.diginamic.projetspring.repositories.ActeurRepository;
+import fr.diginamic.projetspring.repositories.FilmRepository;
+import fr.diginamic.projetspring.repositories.RoleFilmRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service gérant les opérations liées à l'entité Acteur.
@@ -23,6 +38,30 @@ public class ActeurService {
     @Autowired
     private ActeurRepository acteurRepository;
 
+    @Autowired
+    private CurseurJdbc curseurJdbc;
+
+    @Autowired
+    private RoleFilmRepository roleFilmRepository;
+
+    @Autowired
+    private GrapheActeursFilms grapheActeursFilms;
+
+    @Autowired
+    private IndexRecherche indexRecherche;
+
+    @Autowired
+    private Autocompletion autocompletion;
+
+    @Autowired
+    private CacheResultats cacheResultats;
+
+    @Autowired
+    private CheminsActeurs cheminsActeurs;
+
+    @Autowired
+    private FilmRepository filmRepository;
+
     /**
      * Récupère tous les acteurs.
      *
@@ -32,6 +71,19 @@ public class ActeurService {
         return acteurRepository.findAll(pageable);
     }
 
+    /**
+     * Lit une page de acteurs par curseur : les {@code taille + 1} acteurs qui suivent un identifiant, le dernier
+     * servant seulement à savoir s'il existe une page suivante.
+     *
+     * @param apres  Le dernier identifiant de la page précédente, ou {@code null} pour la première page.
+     * @param taille La taille de la page.
+     * @return Au plus {@code taille + 1} acteurs, dans l'ordre des identifiants.
+     */
+    public List<Acteur> getActeursApres(Integer apres, int taille) {
+        return acteurRepository.findByActeurIdGreaterThanOrderByActeurIdAsc(apres != null ? apres : Integer.MIN_VALUE,
+                Limit.of(taille + 1));
+    }
+
     /**
      * Récupère un acteur par son identifiant.
      *
@@ -49,7 +101,10 @@ public class ActeurService {
      * @return L'acteur créé.
      */
     public Acteur createActeur(Acteur acteur) {
-        return acteurRepository.save(acteur);
+        Acteur createdActeur = acteurRepository.save(acteur);
+        indexRecherche.indexerActeur(createdActeur.getActeurId(), createdActeur.getNom());
+        autocompletion.indexer(IndexRecherche.Type.ACTEUR, createdActeur.getActeurId(), createdActeur.getNom());
+        return createdActeur;
     }
 
     /**
@@ -59,6 +114,7 @@ public class ActeurService {
      * @param acteur Les nouvelles données de l'acteur.
      * @return L'acteur mis à jour, ou null si l'acteur avec l'ID spécifié n'existe pas.
      */
+    @Transactional
     public Acteur updateActeur(Integer acteurId, Acteur acteur) {
         Optional<Acteur> existingActeur = acteurRepository.findById(acteurId);
         if (existingActeur.isPresent()) {
@@ -69,19 +125,29 @@ public class ActeurService {
             updatedActeur.setLieuNaissance(acteur.getLieuNaissance());
             updatedActeur.setUrlProfile(acteur.getUrlProfile());
             updatedActeur.setActeurId(acteurId);
-            return acteurRepository.save(updatedActeur);
+            Acteur savedActeur = acteurRepository.save(updatedActeur);
+            indexRecherche.indexerActeur(acteurId, savedActeur.getNom());
+            autocompletion.indexer(IndexRecherche.Type.ACTEUR, acteurId, savedActeur.getNom());
+            cacheResultats.acteursModifies(Collections.singletonList(acteurId));
+            return savedActeur;
         } else {
             throw new IllegalArgumentException("Acteur with ID " + acteurId + " not found");
         }
     }
 
     /**
-     * Supprime un acteur par son identifiant.
+     * Supprime un acteur par son identifiant, avec ses rôles.
      *
      * @param acteurId L'identifiant de l'acteur à supprimer.
      */
+    @Transactional
     public void deleteActeur(Integer acteurId) {
+        retirerDesIndex(Collections.singletonList(acteurId));
+        cacheResultats.acteursModifies(Collections.singletonList(acteurId));
+        roleFilmRepository.deleteAllByActeurIds(Collections.singletonList(acteurId));
         acteurRepository.deleteById(acteurId);
+        indexRecherche.supprimer(IndexRecherche.Type.ACTEUR, Collections.singletonList(acteurId));
+        autocompletion.supprimer(IndexRecherche.Type.ACTEUR, Collections.singletonList(acteurId));
     }
 
 
@@ -93,6 +159,57 @@ public class ActeurService {
         return acteurRepository.findByIdIMDB(idIMDB);
     }
 
+    public List<String> findAllIdIMDB() {
+        return acteurRepository.findAllIdIMDB();
+    }
+
+    public List<Object[]> findAllIdIMDBAndId() {
+        return acteurRepository.findAllIdIMDBAndId();
+    }
+
+    /**
+     * Supprime en une transaction un ensemble d'acteurs et leurs rôles.
+     *
+     * @param acteurIds Les identifiants des acteurs à supprimer.
+     */
+    @Transactional
+    public void deleteActeurs(Collection<Integer> acteurIds) {
+        retirerDesIndex(acteurIds);
+        cacheResultats.acteursModifies(acteurIds);
+        roleFilmRepository.deleteAllByActeurIds(acteurIds);
+        acteurRepository.deleteAllByIdInBatch(acteurIds);
+        indexRecherche.supprimer(IndexRecherche.Type.ACTEUR, acteurIds);
+        autocompletion.supprimer(IndexRecherche.Type.ACTEUR, acteurIds);
+    }
+
+    /**
+     * Retire du graphe acteurs-films et de la popularité de leurs films les rôles des acteurs supprimés, lus avant
+     * leur suppression.
+     */
+    private void retirerDesIndex(Collection<Integer> acteurIds) {
+        if (grapheActeursFilms.isCharge() || autocompletion.isCharge()) {
+            List<Object[]> roles = roleFilmRepository.findActeurFilmIdsByActeurIds(acteurIds);
+            if (grapheActeursFilms.isCharge()) {
+                grapheActeursFilms.retirerRoles(roles);
+            }
+            List<Integer> filmIds = new ArrayList<>(roles.size());
+            for (Object[] role : roles) {
+                filmIds.add((Integer) role[1]);
+            }
+            autocompletion.ajusterPopularites(IndexRecherche.Type.FILM, filmIds, -1);
+        }
+    }
+
+    /**
+     * Obtient une référence vers un acteur dont l'identifiant est connu, sans le charger depuis la base.
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @return Une référence (proxy non initialisé) vers l'acteur.
+     */
+    public Acteur getReferenceById(Integer acteurId) {
+        return acteurRepository.getReferenceById(acteurId);
+    }
+
     public List<Acteur> findByLieuNaissance(String lieuNaissance) {
         return acteurRepository.findAllByLieuNaissance(lieuNaissance);
     }
@@ -108,12 +225,98 @@ public class ActeurService {
     // Implementations des requetes:
     // Tache 1: Extraire tous les films (nom et années de sortie) d’un acteur donné
     public List<Object[]> findFilmsByActeurId(Integer acteurId) {
-        return acteurRepository.findFilmsByActeurId(acteurId);
+        return cacheResultats.lire(CacheResultats.Requete.FILMS_ACTEUR, acteurId,
+                () -> acteurRepository.findFilmsByActeurId(acteurId));
+    }
+
+    /**
+     * Parcourt en flux le nom et l'année de sortie des films d'un acteur (variante de {@link #findFilmsByActeurId(Integer)}).
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @param ligne    Le traitement de chaque film.
+     */
+    public void parcourirFilmsByActeurId(Integer acteurId, Consumer<Object[]> ligne) {
+        curseurJdbc.parcourir("SELECT f.nom, f.annee_sortie FROM rolefilm r JOIN films f ON f.film_id = r.film_id"
+                        + " WHERE r.acteur_id = ?",
+                resultat -> ligne.accept(new Object[]{resultat.getString(1), resultat.getObject(2)}), acteurId);
     }
 
     // Tache 6:  Extraire les acteurs communs à 2 films donnés
+    // Les acteurs communs sont lus dans le graphe acteurs-films une fois chargé, puis nommés en une requête.
     public List<Object[]> findActeursInFilms(Integer filmId1, Integer filmId2) {
-        return acteurRepository.findActeursInFilms(filmId1, filmId2);
+        if (!grapheActeursFilms.isCharge()) {
+            return acteurRepository.findActeursInFilms(filmId1, filmId2);
+        }
+        int[] acteurIds = grapheActeursFilms.acteursCommuns(filmId1, filmId2);
+        if (acteurIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return acteurRepository.findNomsByActeurIds(Arrays.stream(acteurIds).boxed().collect(Collectors.toList()));
+    }
+
+    /**
+     * Cherche un plus court chemin entre deux acteurs dans le graphe acteurs-films, puis charge en deux requêtes
+     * les noms des acteurs et des films qui le composent.
+     * <p>
+     * Un acteur ou un film du chemin absent de la base signale un graphe en retard sur une suppression (faite hors
+     * de l'API, ou dont la mise à jour du graphe n'a pas encore eu lieu) : le graphe est rechargé et le chemin
+     * recalculé, une seule fois. Si le chemin passe encore par un acteur ou un film absent après le rechargement
+     * (supprimé entre-temps), il est traité comme introuvable.
+     * </p>
+     *
+     * @param acteurId      L'identifiant de l'acteur de départ.
+     * @param autreActeurId L'identifiant de l'acteur d'arrivée.
+     * @return Le chemin, ou un Optional vide si les deux acteurs ne sont reliés par aucun film ou si le chemin
+     * trouvé passe par un acteur ou un film absent de la base.
+     */
+    public Optional<CheminDTO> getChemin(Integer acteurId, Integer autreActeurId) {
+        for (int tentative = 1; ; tentative++) {
+            int[] chemin = cheminsActeurs.chemin(acteurId, autreActeurId);
+            if (chemin == null) {
+                return Optional.empty();
+            }
+            List<Integer> acteurIds = new ArrayList<>();
+            List<Integer> filmIds = new ArrayList<>();
+            for (int k = 0; k < chemin.length; k++) {
+                (k % 2 == 0 ? acteurIds : filmIds).add(chemin[k]);
+            }
+            Map<Integer, Acteur> acteurs = acteurRepository.findAllById(acteurIds).stream()
+                    .collect(Collectors.toMap(Acteur::getActeurId, Function.identity()));
+            Map<Integer, Film> films = filmIds.isEmpty() ? new HashMap<>() : filmRepository.findAllById(filmIds).stream()
+                    .collect(Collectors.toMap(Film::getFilmId, Function.identity()));
+            if (acteurs.keySet().containsAll(acteurIds) && films.keySet().containsAll(filmIds)) {
+                return Optional.of(chemin(chemin, acteurs, films));
+            }
+            String message = String.format("Chemin entre les acteurs %d et %d : acteurs %s ou films %s absents de la base",
+                    acteurId, autreActeurId, acteurIds, filmIds);
+            if (tentative > 1) {
+                System.out.println(message + " après le rechargement du graphe acteurs-films, chemin introuvable");
+                return Optional.empty();
+            }
+            System.out.println(message + ", rechargement du graphe acteurs-films");
+            grapheActeursFilms.charger();
+        }
+    }
+
+    private static CheminDTO chemin(int[] chemin, Map<Integer, Acteur> acteurs, Map<Integer, Film> films) {
+        List<CheminDTO.Etape> etapes = new ArrayList<>(chemin.length / 2 + 1);
+        for (int k = 0; k < chemin.length; k += 2) {
+            CheminDTO.Etape etape = new CheminDTO.Etape();
+            if (k > 0) {
+                Film film = films.get(chemin[k - 1]);
+                etape.setFilmId(film.getFilmId());
+                etape.setFilm(film.getNom());
+                etape.setAnneeSortie(film.getAnneeSortie());
+            }
+            Acteur acteur = acteurs.get(chemin[k]);
+            etape.setActeurId(acteur.getActeurId());
+            etape.setActeur(acteur.getNom());
+            etapes.add(etape);
+        }
+        CheminDTO dto = new CheminDTO();
+        dto.setDegres(chemin.length / 2);
+        dto.setEtapes(etapes);
+        return dto;
     }
 
 }
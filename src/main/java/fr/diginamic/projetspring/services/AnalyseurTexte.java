@@ -0,0 +1,86 @@
+package fr.diginamic.projetspring.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Découpage des textes français et anglais en termes d'index.
+ * <p>
+ * Le texte est mis en minuscules et débarrassé de ses accents, puis découpé sur tout ce qui n'est ni une lettre
+ * ni un chiffre (les élisions {@code l'}, {@code d'}, {@code qu'} tombent avec l'apostrophe). Les mots vides des
+ * deux langues et les mots d'une lettre sont ignorés, et le pluriel régulier en {@code -s} est retiré : « films »,
+ * « Film » et « FILMS » donnent le même terme. Les textes indexés et les requêtes passent par le même découpage.
+ * </p>
+ */
+final class AnalyseurTexte {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> MOTS_VIDES = new HashSet<>(Arrays.asList(
+            // Français (sans accents)
+            "au", "aux", "avec", "ce", "ces", "cet", "cette", "dans", "de", "des", "du", "elle", "elles", "en", "est",
+            "et", "etre", "ete", "il", "ils", "je", "la", "le", "les", "leur", "leurs", "lui", "ma", "mais", "me",
+            "mes", "mon", "ne", "nous", "on", "ont", "ou", "par", "pas", "pour", "qu", "que", "qui", "sa", "se",
+            "ses", "son", "sont", "sur", "ta", "te", "tes", "ton", "tu", "un", "une", "vous",
+            // Anglais
+            "about", "after", "an", "and", "are", "as", "at", "be", "been", "but", "by", "for", "from", "he",
+            "her", "his", "in", "into", "is", "it", "its", "not", "of", "on", "or", "she", "that", "the", "their",
+            "they", "this", "those", "these", "to", "was", "we", "were", "with", "you"));
+
+    private AnalyseurTexte() {
+    }
+
+    /**
+     * Découpe un texte en termes, dans leur ordre d'apparition et avec leurs répétitions.
+     *
+     * @param texte Le texte, éventuellement {@code null}.
+     * @return Les termes du texte.
+     */
+    static List<String> termes(String texte) {
+        List<String> termes = new ArrayList<>();
+        if (texte == null || texte.isEmpty()) {
+            return termes;
+        }
+        String normalise = normaliser(texte);
+        for (String mot : SEPARATEURS.split(normalise)) {
+            if (mot.length() < 2 || MOTS_VIDES.contains(mot)) {
+                continue;
+            }
+            termes.add(raciner(mot));
+        }
+        return termes;
+    }
+
+    /**
+     * Met un texte en minuscules et retire ses accents.
+     *
+     * @param texte Le texte.
+     * @return Le texte normalisé.
+     */
+    static String normaliser(String texte) {
+        return DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retire le {@code -s} du pluriel régulier, sauf après {@code s}, {@code u} ou {@code i} (« class »,
+     * « virus », « paris ») et pour les mots courts.
+     */
+    private static String raciner(String mot) {
+        int n = mot.length();
+        if (n > 3 && mot.charAt(n - 1) == 's') {
+            char avant = mot.charAt(n - 2);
+            if (avant != 's' && avant != 'u' && avant != 'i') {
+                return mot.substring(0, n - 1);
+            }
+        }
+        return mot;
+    }
+}
@@ -0,0 +1,33 @@
+package fr.diginamic.projetspring.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Report des mises à jour des index en mémoire après la validation de la transaction qui modifie la base : une
+ * transaction annulée ne laisse pas l'index en avance sur la base.
+ */
+final class ApresValidation {
+
+    private ApresValidation() {
+    }
+
+    /**
+     * Exécute une action après la validation de la transaction en cours, ou immédiatement en l'absence de
+     * transaction.
+     *
+     * @param action L'action à exécuter.
+     */
+    static void executer(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package fr.diginamic.projetspring.services;
+
+import fr.diginamic.projetspring.dto.SuggestionDTO;
+import fr.diginamic.projetspring.services.IndexRecherche.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Complétion des noms d'acteurs, de réalisateurs et des titres de films à partir des premières lettres saisies.
+ * <p>
+ * Chaque nom, sans accents ni ponctuation et en minuscules, donne une clé par mot : la suite du nom à partir de ce
+ * mot (« John Wayne » donne {@code john wayne} et {@code wayne}). Les clés sont rangées dans un tableau trié :
+ * les clés qui commencent par le texte saisi forment une plage contiguë, trouvée par recherche dichotomique,
+ * dont ne sont gardés que les {@code K} noms les plus populaires (nombre de rôles des acteurs et des films,
+ * nombre de films des réalisateurs).
+ * </p>
+ * <p>
+ * Les tableaux sont construits au démarrage de l'API et ne sont jamais modifiés une fois publiés : les lectures
+ * ne prennent aucun verrou. Une création, une modification ou une suppression recopie les tableaux en y insérant
+ * ou en retirant les seules clés du nom concerné, sans nouveau tri ; un changement de popularité recopie le
+ * tableau des popularités. La popularité suit les rôles créés ou supprimés par {@link RoleFilmService}, les
+ * associations réalisateur-film de {@link RealisateurFilmService}, et les rôles et associations supprimés avec
+ * leur film ou leur acteur.
+ * </p>
+ */
+@Component
+public class Autocompletion {
+
+    /** Nombre de suggestions par défaut. */
+    public static final int TAILLE_DEFAUT = 10;
+    /** Nombre maximal de suggestions. */
+    public static final int TAILLE_MAX = 50;
+
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Instantane instantane = new Instantane(new String[0], new int[0], new byte[0], new int[0],
+            new String[0], new int[0], 0);
+    private final Map<Long, Integer> numeros = new HashMap<>();
+    private volatile boolean charge;
+
+    /**
+     * Construit les tableaux au démarrage de l'API ; l'import, sans serveur web, ne les construit pas.
+     *
+     * @param evenement L'événement de fin de démarrage.
+     */
+    @EventListener
+    public void demarrer(ApplicationReadyEvent evenement) {
+        if (evenement.getApplicationContext() instanceof WebApplicationContext) {
+            chargerSiNecessaire();
+        }
+    }
+
+    /**
+     * Construit les tableaux s'ils ne le sont pas encore, pour une requête reçue avant la fin du démarrage.
+     */
+    public synchronized void chargerSiNecessaire() {
+        if (charge) {
+            return;
+        }
+        long debut = System.nanoTime();
+        Documents documents = new Documents();
+        jdbcTemplate.query("SELECT f.film_id, f.nom, COUNT(r.role_id) FROM films f"
+                        + " LEFT JOIN rolefilm r ON r.film_id = f.film_id GROUP BY f.film_id, f.nom",
+                ligne -> { documents.ajouter(Type.FILM, ligne.getInt(1), ligne.getString(2), ligne.getInt(3)); });
+        jdbcTemplate.query("SELECT a.acteur_id, a.nom, COUNT(r.role_id) FROM acteur a"
+                        + " LEFT JOIN rolefilm r ON r.acteur_id = a.acteur_id GROUP BY a.acteur_id, a.nom",
+                ligne -> { documents.ajouter(Type.ACTEUR, ligne.getInt(1), ligne.getString(2), ligne.getInt(3)); });
+        jdbcTemplate.query("SELECT re.id_realisateur, re.nom, COUNT(rf.id_realisateur_film) FROM realisateurs re"
+                        + " LEFT JOIN realisateur_film rf ON rf.realisateur_id = re.id_realisateur GROUP BY re.id_realisateur, re.nom",
+                ligne -> { documents.ajouter(Type.REALISATEUR, ligne.getInt(1), ligne.getString(2), ligne.getInt(3)); });
+
+        List<Object[]> entrees = new ArrayList<>();
+        for (int numero = 0; numero < documents.nombre; numero++) {
+            numeros.put(cle(Type.values()[documents.types[numero]], documents.entites[numero]), numero);
+            for (String cle : cles(documents.noms[numero])) {
+                entrees.add(new Object[]{cle, numero});
+            }
+        }
+        entrees.sort(Comparator.comparing(entree -> (String) entree[0]));
+        String[] cles = new String[entrees.size()];
+        int[] references = new int[entrees.size()];
+        for (int k = 0; k < cles.length; k++) {
+            cles[k] = (String) entrees.get(k)[0];
+            references[k] = (Integer) entrees.get(k)[1];
+        }
+        instantane = new Instantane(cles, references, documents.types, documents.entites, documents.noms,
+                documents.popularites, documents.nombre);
+        charge = true;
+        System.out.println(String.format(Locale.ROOT, "Autocomplétion : %d nom(s), %d clé(s) construites en %d ms",
+                documents.nombre, cles.length, (System.nanoTime() - debut) / 1_000_000));
+    }
+
+    /**
+     * Indique si les tableaux sont construits.
+     *
+     * @return {@code true} si les tableaux sont construits.
+     */
+    public boolean isCharge() {
+        return charge;
+    }
+
+    /**
+     * Suggère les noms les plus populaires dont un mot commence par le texte saisi (ou dont la suite des mots
+     * commence par le texte saisi, s'il contient plusieurs mots).
+     *
+     * @param saisie Le début du nom saisi.
+     * @param type   Le type des noms suggérés, ou {@code null} pour tous.
+     * @param taille Le nombre de suggestions, entre 1 et {@link #TAILLE_MAX}.
+     * @return Les suggestions, de la plus populaire à la moins populaire.
+     */
+    public List<SuggestionDTO> suggerer(String saisie, Type type, int taille) {
+        chargerSiNecessaire();
+        String prefixe = normaliser(saisie);
+        if (prefixe.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Instantane courant = instantane;
+        int debut = premiereCle(courant.cles, prefixe);
+        int fin = premiereCle(courant.cles, prefixe + Character.MAX_VALUE);
+
+        Comparator<Integer> ordre = courant.ordre();
+        PriorityQueue<Integer> meilleurs = new PriorityQueue<>(taille + 1, ordre.reversed());
+        BitSet vus = new BitSet(courant.nombre);
+        for (int k = debut; k < fin; k++) {
+            int numero = courant.references[k];
+            if (vus.get(numero) || (type != null && courant.types[numero] != type.ordinal())) {
+                continue;
+            }
+            vus.set(numero);
+            if (meilleurs.size() < taille) {
+                meilleurs.add(numero);
+            } else if (ordre.compare(numero, meilleurs.peek()) < 0) {
+                meilleurs.poll();
+                meilleurs.add(numero);
+            }
+        }
+        List<Integer> classement = new ArrayList<>(meilleurs);
+        classement.sort(ordre);
+        List<SuggestionDTO> suggestions = new ArrayList<>(classement.size());
+        for (int numero : classement) {
+            SuggestionDTO suggestion = new SuggestionDTO();
+            suggestion.setType(Type.values()[courant.types[numero]].name().toLowerCase(Locale.ROOT));
+            suggestion.setId(courant.entites[numero]);
+            suggestion.setNom(courant.noms[numero]);
+            suggestion.setPopularite(courant.popularites[numero]);
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Ajoute un nom ou remplace le nom d'un film, d'un acteur ou d'un réalisateur, après la validation de la
+     * transaction en cours.
+     *
+     * @param type Le type du nom.
+     * @param id   L'identifiant du film, de l'acteur ou du réalisateur.
+     * @param nom  Le nom.
+     */
+    public void indexer(Type type, Integer id, String nom) {
+        if (charge && id != null) {
+            ApresValidation.executer(() -> remplacer(type, id, nom));
+        }
+    }
+
+    /**
+     * Retire des noms après la validation de la transaction en cours.
+     *
+     * @param type Le type des noms.
+     * @param ids  Les identifiants des films, acteurs ou réalisateurs supprimés.
+     */
+    public void supprimer(Type type, Collection<Integer> ids) {
+        if (charge) {
+            List<Integer> retraits = new ArrayList<>(ids);
+            ApresValidation.executer(() -> {
+                for (Integer id : retraits) {
+                    if (id != null) {
+                        remplacer(type, id, null);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Ajuste la popularité d'un acteur et d'un film après la création ({@code +1}) ou la suppression
+     * ({@code -1}) d'un rôle, après la validation de la transaction en cours.
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @param filmId   L'identifiant du film.
+     * @param ecart    La variation du nombre de rôles.
+     */
+    public void ajusterPopularite(Integer acteurId, Integer filmId, int ecart) {
+        if (charge) {
+            Map<Long, Integer> ecarts = new HashMap<>();
+            cumuler(ecarts, Type.ACTEUR, acteurId, ecart);
+            cumuler(ecarts, Type.FILM, filmId, ecart);
+            ApresValidation.executer(() -> ajuster(ecarts));
+        }
+    }
+
+    /**
+     * Ajuste la popularité de noms d'un même type après la validation de la transaction en cours : un écart par
+     * occurrence d'un identifiant, par exemple par rôle ou par association supprimé avec un film ou un acteur.
+     *
+     * @param type  Le type des noms.
+     * @param ids   Les identifiants, répétés autant de fois que l'écart s'applique.
+     * @param ecart La variation par occurrence.
+     */
+    public void ajusterPopularites(Type type, Collection<Integer> ids, int ecart) {
+        if (charge && !ids.isEmpty()) {
+            Map<Long, Integer> ecarts = new HashMap<>();
+            for (Integer id : ids) {
+                cumuler(ecarts, type, id, ecart);
+            }
+            ApresValidation.executer(() -> ajuster(ecarts));
+        }
+    }
+
+    private static void cumuler(Map<Long, Integer> ecarts, Type type, Integer id, int ecart) {
+        if (id != null) {
+            ecarts.merge(cle(type, id), ecart, Integer::sum);
+        }
+    }
+
+    /**
+     * Publie une copie du tableau des popularités : une recherche en cours garde un classement cohérent.
+     */
+    private synchronized void ajuster(Map<Long, Integer> ecarts) {
+        Instantane courant = instantane;
+        int[] popularites = courant.popularites.clone();
+        boolean modifie = false;
+        for (Map.Entry<Long, Integer> ecart : ecarts.entrySet()) {
+            Integer numero = numeros.get(ecart.getKey());
+            if (numero != null && ecart.getValue() != 0) {
+                popularites[numero] = Math.max(0, popularites[numero] + ecart.getValue());
+                modifie = true;
+            }
+        }
+        if (modifie) {
+            instantane = new Instantane(courant.cles, courant.references, courant.types, courant.entites, courant.noms,
+                    popularites, courant.nombre);
+        }
+    }
+
+    /**
+     * Retire les clés de l'ancien nom et insère celles du nouveau ({@code null} pour une suppression), en une
+     * copie fusionnée des tableaux triés.
+     */
+    private synchronized void remplacer(Type type, int id, String nom) {
+        Instantane courant = instantane;
+        Integer ancien = numeros.get(cle(type, id));
+        int numero;
+        int nombre = courant.nombre;
+        byte[] types = courant.types;
+        int[] entites = courant.entites;
+        String[] noms = courant.noms;
+        int[] popularites = courant.popularites;
+        if (ancien != null) {
+            numero = ancien;
+        } else if (nom == null) {
+            return;
+        } else {
+            numero = nombre++;
+            if (numero >= types.length) {
+                int capacite = Math.max(16, numero * 2);
+                types = Arrays.copyOf(types, capacite);
+                entites = Arrays.copyOf(entites, capacite);
+                noms = Arrays.copyOf(noms, capacite);
+                popularites = Arrays.copyOf(popularites, capacite);
+            }
+            types[numero] = (byte) type.ordinal();
+            entites[numero] = id;
+            numeros.put(cle(type, id), numero);
+        }
+        if (nom == null) {
+            // Le nom reste lisible par les requêtes en cours sur les anciennes clés
+            numeros.remove(cle(type, id));
+        } else {
+            if (ancien != null && noms == courant.noms) {
+                // Un nom publié n'est jamais modifié sur place
+                noms = noms.clone();
+            }
+            noms[numero] = nom;
+        }
+
+        List<String> nouvelles = nom != null ? cles(nom) : Collections.emptyList();
+        Collections.sort(nouvelles);
+        int anciennes = 0;
+        if (ancien != null) {
+            for (int reference : courant.references) {
+                if (reference == numero) {
+                    anciennes++;
+                }
+            }
+        }
+        String[] cles = new String[courant.cles.length - anciennes + nouvelles.size()];
+        int[] references = new int[cles.length];
+        int n = 0;
+        int j = 0;
+        for (int k = 0; k < courant.cles.length; k++) {
+            if (courant.references[k] == numero && ancien != null) {
+                continue;
+            }
+            while (j < nouvelles.size() && nouvelles.get(j).compareTo(courant.cles[k]) < 0) {
+                cles[n] = nouvelles.get(j++);
+                references[n++] = numero;
+            }
+            cles[n] = courant.cles[k];
+            references[n++] = courant.references[k];
+        }
+        while (j < nouvelles.size()) {
+            cles[n] = nouvelles.get(j++);
+            references[n++] = numero;
+        }
+        instantane = new Instantane(cles, references, types, entites, noms, popularites, nombre);
+    }
+
+    /**
+     * Clés d'un nom : la suite du nom normalisé à partir de chacun de ses mots.
+     */
+    private static List<String> cles(String nom) {
+        List<String> cles = new ArrayList<>();
+        String normalise = normaliser(nom);
+        if (normalise.isEmpty()) {
+            return cles;
+        }
+        cles.add(normalise);
+        for (int k = normalise.indexOf(' '); k >= 0; k = normalise.indexOf(' ', k + 1)) {
+            cles.add(normalise.substring(k + 1));
+        }
+        return cles;
+    }
+
+    /**
+     * Nom en minuscules, sans accents, et dont les mots sont séparés par une seule espace.
+     */
+    private static String normaliser(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        return SEPARATEURS.matcher(AnalyseurTexte.normaliser(texte)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Position de la première clé supérieure ou égale à {@code cle}.
+     */
+    private static int premiereCle(String[] cles, String cle) {
+        int position = Arrays.binarySearch(cles, cle);
+        if (position < 0) {
+            return -position - 1;
+        }
+        while (position > 0 && cles[position - 1].equals(cle)) {
+            position--;
+        }
+        return position;
+    }
+
+    private static long cle(Type type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Noms lus au démarrage, avant la construction des tableaux.
+     */
+    private static final class Documents {
+
+        private byte[] types = new byte[1024];
+        private int[] entites = new int[1024];
+        private String[] noms = new String[1024];
+        private int[] popularites = new int[1024];
+        private int nombre;
+
+        void ajouter(Type type, int id, String nom, int popularite) {
+            if (nombre == types.length) {
+                types = Arrays.copyOf(types, nombre * 2);
+                entites = Arrays.copyOf(entites, nombre * 2);
+                noms = Arrays.copyOf(noms, nombre * 2);
+                popularites = Arrays.copyOf(popularites, nombre * 2);
+            }
+            types[nombre] = (byte) type.ordinal();
+            entites[nombre] = id;
+            noms[nombre] = nom;
+            popularites[nombre] = popularite;
+            nombre++;
+        }
+    }
+
+    /**
+     * État publié de l'autocomplétion : les clés triées avec le numéro du nom de chacune, et les noms par numéro.
+     * Les tableaux d'un état publié ne sont jamais modifiés pour les numéros qu'il contient : seules les cases
+     * au-delà de {@code nombre} peuvent être remplies par l'état suivant.
+     */
+    private static final class Instantane {
+
+        private final String[] cles;
+        private final int[] references;
+        private final byte[] types;
+        private final int[] entites;
+        private final String[] noms;
+        private final int[] popularites;
+        private final int nombre;
+
+        Instantane(String[] cles, int[] references, byte[] types, int[] entites, String[] noms, int[] popularites,
+                   int nombre) {
+            this.cles = cles;
+            this.references = references;
+            this.types = types;
+            this.entites = entites;
+            this.noms = noms;
+            this.popularites = popularites;
+            this.nombre = nombre;
+        }
+
+        /**
+         * Ordre des suggestions : les plus populaires d'abord, puis les noms les plus courts, puis l'ordre
+         * alphabétique.
+         */
+        Comparator<Integer> ordre() {
+            return (a, b) -> {
+                if (popularites[a] != popularites[b]) {
+                    return Integer.compare(popularites[b], popularites[a]);
+                }
+                if (noms[a].length() != noms[b].length()) {
+                    return Integer.compare(noms[a].length(), noms[b].length());
+                }
+                return noms[a].compareTo(noms[b]);
+            };
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package fr.diginamic.projetspring.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import fr.diginamic.projetspring.repositories.RealisateurFilmRepository;
+import fr.diginamic.projetspring.repositories.RoleFilmRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des résultats des requêtes de consultation (« Taches ») les plus répétées : films d'un acteur, rôles d'un
+ * film, films communs à deux acteurs et films d'un réalisateur.
+ * <p>
+ * Chaque requête a son cache Caffeine, borné par un budget mémoire ({@code api.resultats.<requete>.memoire}) :
+ * chaque résultat pèse la taille estimée de ses lignes, et les moins utilisés sont évincés au-delà du budget.
+ * Les écritures invalident exactement les résultats qu'elles touchent, après la validation de leur transaction :
+ * un rôle, les résultats de son acteur et de son film ; un film renommé ou supprimé, ses rôles, les films de ses
+ * acteurs et de ses réalisateurs ; un acteur, ses films et les rôles des films où il joue. La durée de vie
+ * {@code api.resultats.duree} borne le retard sur les écritures faites hors de l'API (import).
+ * </p>
+ * <p>
+ * Une lecture commencée avant une invalidation ne remet pas son résultat, peut-être périmé, dans le cache : chaque
+ * invalidation incrémente une version, vérifiée après la requête.
+ * </p>
+ * <p>
+ * Les métriques Micrometer {@code cache.gets} (succès et défauts), {@code cache.evictions}, {@code cache.size},
+ * ainsi que les jauges {@code cache.taux.succes} et {@code cache.memoire} (octets estimés), sont publiées pour
+ * chaque cache avec le tag {@code cache=resultats.<requete>}.
+ * </p>
+ */
+@Component
+public class CacheResultats {
+
+    /**
+     * Requêtes mises en cache, avec le nom de leurs propriétés et de leurs métriques.
+     */
+    public enum Requete {
+        /** Films d'un acteur (clé : l'acteur). */
+        FILMS_ACTEUR("films-acteur"),
+        /** Acteurs et personnages d'un film (clé : le film). */
+        ROLES_FILM("roles-film"),
+        /** Films communs à deux acteurs (clé : le couple d'acteurs, voir {@link #cle(int, int)}). */
+        FILMS_DEUX_ACTEURS("films-deux-acteurs"),
+        /** Films d'un réalisateur (clé : le réalisateur). */
+        FILMS_REALISATEUR("films-realisateur");
+
+        private final String nom;
+
+        Requete(String nom) {
+            this.nom = nom;
+        }
+    }
+
+    @Autowired
+    private RoleFilmRepository roleFilmRepository;
+
+    @Autowired
+    private RealisateurFilmRepository realisateurFilmRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${api.resultats.duree:10m}")
+    private Duration duree;
+
+    private final Map<Requete, Cache<Long, List<Object[]>>> caches = new EnumMap<>(Requete.class);
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    void creer() {
+        for (Requete requete : Requete.values()) {
+            DataSize memoire = environment.getProperty("api.resultats." + requete.nom + ".memoire", DataSize.class,
+                    DataSize.ofMegabytes(16));
+            Cache<Long, List<Object[]>> cache = Caffeine.newBuilder()
+                    .maximumWeight(memoire.toBytes())
+                    .weigher((Long cle, List<Object[]> lignes) -> poids(lignes))
+                    .expireAfterWrite(duree)
+                    .recordStats()
+                    .build();
+            caches.put(requete, cache);
+            String nom = "resultats." + requete.nom;
+            CaffeineCacheMetrics.monitor(registry, cache, nom);
+            Gauge.builder("cache.taux.succes", cache, c -> c.stats().hitRate())
+                    .description("Part des lectures servies par le cache")
+                    .tag("cache", nom)
+                    .register(registry);
+            Gauge.builder("cache.memoire", cache,
+                            c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                    .description("Taille estimée des résultats en cache")
+                    .baseUnit("bytes")
+                    .tag("cache", nom)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Clé d'un couple d'acteurs, dans l'ordre de la requête.
+     *
+     * @param acteurId1 Le premier acteur.
+     * @param acteurId2 Le second acteur.
+     * @return La clé du couple.
+     */
+    public static long cle(int acteurId1, int acteurId2) {
+        return ((long) acteurId1 << 32) | (acteurId2 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Lit un résultat dans le cache, ou l'obtient de la base et l'y range.
+     *
+     * @param requete La requête.
+     * @param cle     La clé du résultat (identifiant, ou {@link #cle(int, int)} pour un couple).
+     * @param lecture La lecture du résultat en base.
+     * @return Le résultat, non modifiable.
+     */
+    public List<Object[]> lire(Requete requete, long cle, Supplier<List<Object[]>> lecture) {
+        Cache<Long, List<Object[]>> cache = caches.get(requete);
+        List<Object[]> resultat = cache.getIfPresent(cle);
+        if (resultat != null) {
+            return resultat;
+        }
+        long avant = version.get();
+        resultat = Collections.unmodifiableList(lecture.get());
+        if (version.get() == avant) {
+            cache.put(cle, resultat);
+            // Une invalidation survenue entre la vérification et l'ajout n'a peut-être pas vu ce résultat
+            if (version.get() != avant) {
+                cache.asMap().remove(cle, resultat);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Invalide, après la validation de la transaction en cours, les résultats touchés par la création ou la
+     * suppression d'un rôle.
+     *
+     * @param acteurId L'identifiant de l'acteur du rôle.
+     * @param filmId   L'identifiant du film du rôle.
+     */
+    public void roleModifie(Integer acteurId, Integer filmId) {
+        invalider(Collections.singleton(acteurId), Collections.singleton(filmId), Collections.emptySet());
+    }
+
+    /**
+     * Invalide, après la validation de la transaction en cours, les résultats touchés par la modification ou la
+     * suppression d'acteurs : leurs films, et les rôles des films où ils jouent. À appeler avant une suppression,
+     * tant que leurs rôles sont en base.
+     *
+     * @param acteurIds Les identifiants des acteurs.
+     */
+    public void acteursModifies(Collection<Integer> acteurIds) {
+        Set<Integer> filmIds = new HashSet<>();
+        if (!acteurIds.isEmpty() && !vide(Requete.ROLES_FILM)) {
+            filmIds.addAll(roleFilmRepository.findFilmIdsByActeurIds(acteurIds));
+        }
+        invalider(acteurIds, filmIds, Collections.emptySet());
+    }
+
+    /**
+     * Invalide, après la validation de la transaction en cours, les résultats touchés par la modification ou la
+     * suppression de films : leurs rôles, les films de leurs acteurs et de leurs réalisateurs. À appeler avant une
+     * suppression, tant que leurs rôles et leurs réalisateurs sont en base.
+     *
+     * @param filmIds Les identifiants des films.
+     */
+    public void filmsModifies(Collection<Integer> filmIds) {
+        Set<Integer> acteurIds = new HashSet<>();
+        Set<Integer> realisateurIds = new HashSet<>();
+        if (!filmIds.isEmpty() && !(vide(Requete.FILMS_ACTEUR) && vide(Requete.FILMS_DEUX_ACTEURS))) {
+            acteurIds.addAll(roleFilmRepository.findActeurIdsByFilmIds(filmIds));
+        }
+        if (!filmIds.isEmpty() && !vide(Requete.FILMS_REALISATEUR)) {
+            realisateurIds.addAll(realisateurFilmRepository.findRealisateurIdsByFilmIds(filmIds));
+        }
+        invalider(acteurIds, filmIds, realisateurIds);
+    }
+
+    /**
+     * Invalide, après la validation de la transaction en cours, les films de réalisateurs dont les associations
+     * aux films ont changé ou qui sont supprimés.
+     *
+     * @param realisateurIds Les identifiants des réalisateurs.
+     */
+    public void realisateursModifies(Collection<Integer> realisateurIds) {
+        invalider(Collections.emptySet(), Collections.emptySet(), realisateurIds);
+    }
+
+    private boolean vide(Requete requete) {
+        return caches.get(requete).estimatedSize() == 0;
+    }
+
+    private void invalider(Collection<Integer> acteurIds, Collection<Integer> filmIds,
+                           Collection<Integer> realisateurIds) {
+        Set<Integer> acteurs = sansNull(acteurIds);
+        Set<Integer> films = sansNull(filmIds);
+        Set<Integer> realisateurs = sansNull(realisateurIds);
+        if (acteurs.isEmpty() && films.isEmpty() && realisateurs.isEmpty()) {
+            return;
+        }
+        ApresValidation.executer(() -> {
+            version.incrementAndGet();
+            caches.get(Requete.FILMS_ACTEUR).invalidateAll(cles(acteurs));
+            caches.get(Requete.ROLES_FILM).invalidateAll(cles(films));
+            caches.get(Requete.FILMS_REALISATEUR).invalidateAll(cles(realisateurs));
+            if (!acteurs.isEmpty()) {
+                caches.get(Requete.FILMS_DEUX_ACTEURS).asMap().keySet().removeIf(cle ->
+                        acteurs.contains((int) (cle >>> 32)) || acteurs.contains((int) cle.longValue()));
+            }
+        });
+    }
+
+    private static Set<Integer> sansNull(Collection<Integer> ids) {
+        Set<Integer> copie = new HashSet<>(ids);
+        copie.remove(null);
+        return copie;
+    }
+
+    private static List<Long> cles(Set<Integer> ids) {
+        List<Long> cles = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            cles.add(id.longValue());
+        }
+        return cles;
+    }
+
+    /**
+     * Taille estimée d'un résultat en mémoire : la liste, les tableaux de colonnes, les chaînes et les nombres.
+     */
+    private static int poids(List<Object[]> lignes) {
+        long octets = 64;
+        for (Object[] ligne : lignes) {
+            octets += 24 + 8L * ligne.length;
+            for (Object valeur : ligne) {
+                if (valeur instanceof String) {
+                    octets += 40 + ((String) valeur).length();
+                } else if (valeur != null) {
+                    octets += 16;
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, octets);
+    }
+}
@@ -0,0 +1,330 @@
+package fr.diginamic.projetspring.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plus courts chemins entre acteurs (« degrés de séparation ») dans le {@link GrapheActeursFilms}.
+ * <p>
+ * Deux acteurs sont voisins s'ils ont joué dans un même film. Le chemin est cherché par un parcours en largeur
+ * mené depuis les deux extrémités à la fois, en étendant toujours la frontière la plus petite : les deux
+ * parcours se rejoignent à mi-distance et visitent bien moins d'acteurs qu'un parcours depuis le seul départ.
+ * Chaque film n'est ouvert qu'une fois par côté.
+ * </p>
+ * <p>
+ * Avec {@code api.graphe.hubs} supérieur à 0, les distances de chaque acteur aux acteurs qui ont le plus de rôles
+ * (les « hubs ») sont précalculées. Elles bornent la distance cherchée : lorsqu'un hub se trouve sur un plus court
+ * chemin (bornes inférieure et supérieure égales), le chemin est lu directement dans la table ; lorsque l'un des
+ * acteurs atteint un hub que l'autre n'atteint pas, il n'existe aucun chemin et le parcours est évité. La table
+ * est recalculée en arrière-plan après une modification du graphe ; en attendant, seul le parcours est utilisé.
+ * </p>
+ */
+@Component
+public class CheminsActeurs {
+
+    /** Lien d'un acteur d'origine, qui n'a pas de parent. */
+    private static final long ORIGINE = Long.MIN_VALUE;
+
+    @Autowired
+    private GrapheActeursFilms graphe;
+
+    /** Nombre d'acteurs dont les distances sont précalculées (0 pour n'utiliser que le parcours). */
+    @Value("${api.graphe.hubs:8}")
+    private int nombreHubs;
+
+    private volatile TableHubs table;
+    private final AtomicBoolean calculEnCours = new AtomicBoolean();
+
+    /**
+     * Calcule la table des hubs au démarrage de l'API, une fois le graphe chargé.
+     *
+     * @param evenement L'événement de fin de démarrage.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void demarrer(ApplicationReadyEvent evenement) {
+        if (graphe.isCharge() && nombreHubs > 0) {
+            table = calculerTable();
+        }
+    }
+
+    /**
+     * Cherche un plus court chemin entre deux acteurs.
+     *
+     * @param depart  L'identifiant de l'acteur de départ.
+     * @param arrivee L'identifiant de l'acteur d'arrivée.
+     * @return Les identifiants du chemin, alternativement acteur et film ({@code depart, film, acteur, ..., film,
+     * arrivee}), ou {@code null} si les deux acteurs ne sont reliés par aucun film.
+     */
+    public int[] chemin(int depart, int arrivee) {
+        graphe.chargerSiNecessaire();
+        if (depart == arrivee) {
+            return graphe.degreActeur(depart) > 0 ? new int[]{depart} : null;
+        }
+        TableHubs hubs = tableAJour();
+        if (hubs != null && depart < hubs.taille() && arrivee < hubs.taille() && depart >= 0 && arrivee >= 0) {
+            int borneSuperieure = Integer.MAX_VALUE;
+            int borneInferieure = 0;
+            int meilleur = -1;
+            for (int i = 0; i < hubs.hubs.length; i++) {
+                int versDepart = hubs.distances[i][depart];
+                int versArrivee = hubs.distances[i][arrivee];
+                if (versDepart < 0 && versArrivee < 0) {
+                    continue;
+                }
+                if (versDepart < 0 || versArrivee < 0) {
+                    // L'un des acteurs est dans la composante du hub, l'autre non
+                    return null;
+                }
+                if (versDepart + versArrivee < borneSuperieure) {
+                    borneSuperieure = versDepart + versArrivee;
+                    meilleur = i;
+                }
+                borneInferieure = Math.max(borneInferieure, Math.abs(versDepart - versArrivee));
+            }
+            if (meilleur >= 0 && borneSuperieure == borneInferieure) {
+                return hubs.cheminPar(meilleur, depart, arrivee);
+            }
+        }
+        return parcoursBidirectionnel(depart, arrivee);
+    }
+
+    private int[] parcoursBidirectionnel(int depart, int arrivee) {
+        Cote coteDepart = new Cote(depart);
+        Cote coteArrivee = new Cote(arrivee);
+        while (!coteDepart.frontiere.isEmpty() && !coteArrivee.frontiere.isEmpty()) {
+            boolean avant = coteDepart.frontiere.size() <= coteArrivee.frontiere.size();
+            Integer rencontre = avant ? coteDepart.etendre(coteArrivee) : coteArrivee.etendre(coteDepart);
+            if (rencontre != null) {
+                List<Integer> debut = coteDepart.remonter(rencontre);
+                List<Integer> fin = coteArrivee.remonter(rencontre);
+                int[] chemin = new int[debut.size() + fin.size() - 1];
+                for (int k = 0; k < debut.size(); k++) {
+                    chemin[k] = debut.get(debut.size() - 1 - k);
+                }
+                for (int k = 1; k < fin.size(); k++) {
+                    chemin[debut.size() - 1 + k] = fin.get(k);
+                }
+                return chemin;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Un côté du parcours bidirectionnel : les acteurs atteints avec leur lien vers l'origine (film et acteur
+     * précédent), les films déjà ouverts et la frontière du niveau courant.
+     */
+    private final class Cote {
+
+        private final Map<Integer, Long> liens = new HashMap<>();
+        private final Set<Integer> filmsOuverts = new HashSet<>();
+        private List<Integer> frontiere = new ArrayList<>();
+
+        Cote(int origine) {
+            liens.put(origine, ORIGINE);
+            frontiere.add(origine);
+        }
+
+        /**
+         * Étend la frontière d'un niveau. Dès qu'un acteur atteint est déjà connu de l'autre côté, le chemin qui
+         * passe par lui est un plus court chemin : tous les acteurs qui rejoignent l'autre côté à ce niveau
+         * appartiennent à sa dernière frontière.
+         *
+         * @return L'acteur de rencontre, ou {@code null} si les deux côtés ne se sont pas encore rejoints.
+         */
+        Integer etendre(Cote autre) {
+            List<Integer> suivante = new ArrayList<>();
+            for (int acteur : frontiere) {
+                for (int film : graphe.films(acteur)) {
+                    if (!filmsOuverts.add(film)) {
+                        continue;
+                    }
+                    for (int voisin : graphe.acteurs(film)) {
+                        if (liens.containsKey(voisin)) {
+                            continue;
+                        }
+                        liens.put(voisin, ((long) film << 32) | (acteur & 0xFFFFFFFFL));
+                        if (autre.liens.containsKey(voisin)) {
+                            return voisin;
+                        }
+                        suivante.add(voisin);
+                    }
+                }
+            }
+            frontiere = suivante;
+            return null;
+        }
+
+        /**
+         * Chemin d'un acteur atteint jusqu'à l'origine : acteur, film, acteur, ..., origine.
+         */
+        List<Integer> remonter(int acteur) {
+            List<Integer> chemin = new ArrayList<>();
+            chemin.add(acteur);
+            long lien = liens.get(acteur);
+            while (lien != ORIGINE) {
+                chemin.add((int) (lien >>> 32));
+                int precedent = (int) lien;
+                chemin.add(precedent);
+                lien = liens.get(precedent);
+            }
+            return chemin;
+        }
+    }
+
+    /**
+     * Renvoie la table des hubs si elle correspond à la version courante du graphe ; sinon, lance son calcul en
+     * arrière-plan et renvoie {@code null}.
+     */
+    private TableHubs tableAJour() {
+        if (nombreHubs <= 0) {
+            return null;
+        }
+        TableHubs actuelle = table;
+        if (actuelle != null && actuelle.version == graphe.getVersion()) {
+            return actuelle;
+        }
+        if (calculEnCours.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    table = calculerTable();
+                } finally {
+                    calculEnCours.set(false);
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Choisit les acteurs qui ont le plus de rôles et calcule, par un parcours en largeur depuis chacun, la
+     * distance de tous les acteurs et leur lien vers le hub.
+     */
+    private TableHubs calculerTable() {
+        long debut = System.nanoTime();
+        long version = graphe.getVersion();
+        int taille = graphe.acteurIdMax() + 1;
+        int films = graphe.filmIdMax() + 1;
+
+        PriorityQueue<int[]> meilleurs = new PriorityQueue<>((a, b) -> Integer.compare(a[1], b[1]));
+        for (int acteur = 0; acteur < taille; acteur++) {
+            int degre = graphe.degreActeur(acteur);
+            if (degre == 0) {
+                continue;
+            }
+            if (meilleurs.size() < nombreHubs) {
+                meilleurs.add(new int[]{acteur, degre});
+            } else if (degre > meilleurs.peek()[1]) {
+                meilleurs.poll();
+                meilleurs.add(new int[]{acteur, degre});
+            }
+        }
+        int[] hubs = new int[meilleurs.size()];
+        for (int i = 0; i < hubs.length; i++) {
+            hubs[i] = meilleurs.poll()[0];
+        }
+
+        int[][] distances = new int[hubs.length][];
+        int[][] suivants = new int[hubs.length][];
+        int[][] liens = new int[hubs.length][];
+        for (int i = 0; i < hubs.length; i++) {
+            int[] distance = new int[taille];
+            int[] suivant = new int[taille];
+            int[] lien = new int[taille];
+            Arrays.fill(distance, -1);
+            boolean[] filmsOuverts = new boolean[films];
+            int[] file = new int[taille];
+            int tete = 0;
+            int queue = 0;
+            distance[hubs[i]] = 0;
+            file[queue++] = hubs[i];
+            while (tete < queue) {
+                int acteur = file[tete++];
+                for (int film : graphe.films(acteur)) {
+                    if (film >= films || filmsOuverts[film]) {
+                        continue;
+                    }
+                    filmsOuverts[film] = true;
+                    for (int voisin : graphe.acteurs(film)) {
+                        if (voisin < taille && distance[voisin] < 0) {
+                            distance[voisin] = distance[acteur] + 1;
+                            suivant[voisin] = acteur;
+                            lien[voisin] = film;
+                            file[queue++] = voisin;
+                        }
+                    }
+                }
+            }
+            distances[i] = distance;
+            suivants[i] = suivant;
+            liens[i] = lien;
+        }
+        System.out.println(String.format(Locale.ROOT, "Graphe acteurs-films : distances de %d hub(s) calculées en %d ms",
+                hubs.length, (System.nanoTime() - debut) / 1_000_000));
+        return new TableHubs(version, hubs, distances, suivants, liens);
+    }
+
+    /**
+     * Distances précalculées depuis les hubs : pour le hub {@code i} et chaque acteur, la distance au hub
+     * ({@code -1} s'il n'est pas relié), l'acteur suivant vers le hub et le film qui les relie.
+     */
+    private static final class TableHubs {
+
+        private final long version;
+        private final int[] hubs;
+        private final int[][] distances;
+        private final int[][] suivants;
+        private final int[][] liens;
+
+        TableHubs(long version, int[] hubs, int[][] distances, int[][] suivants, int[][] liens) {
+            this.version = version;
+            this.hubs = hubs;
+            this.distances = distances;
+            this.suivants = suivants;
+            this.liens = liens;
+        }
+
+        int taille() {
+            return distances.length > 0 ? distances[0].length : 0;
+        }
+
+        /**
+         * Chemin du départ au hub {@code i} puis du hub à l'arrivée.
+         */
+        int[] cheminPar(int i, int depart, int arrivee) {
+            int versDepart = distances[i][depart];
+            int versArrivee = distances[i][arrivee];
+            int[] chemin = new int[2 * (versDepart + versArrivee) + 1];
+            int position = 0;
+            for (int acteur = depart; acteur != hubs[i]; acteur = suivants[i][acteur]) {
+                chemin[position++] = acteur;
+                chemin[position++] = liens[i][acteur];
+            }
+            position = chemin.length - 1;
+            for (int acteur = arrivee; acteur != hubs[i]; acteur = suivants[i][acteur]) {
+                chemin[position--] = acteur;
+                chemin[position--] = liens[i][acteur];
+            }
+            chemin[2 * versDepart] = hubs[i];
+            return chemin;
+        }
+    }
+}
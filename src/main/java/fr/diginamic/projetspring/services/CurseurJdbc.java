@@ -0,0 +1,62 @@
+package fr.diginamic.projetspring.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Locale;
+
+/**
+ * Lecture en flux des résultats d'une requête SQL, pour les points d'accès qui renvoient des listes non bornées.
+ * <p>
+ * Les lignes sont lues par un curseur en avant seulement, par paquets de {@code api.flux.fetch-size} lignes,
+ * et transmises une à une à l'appelant : la mémoire occupée ne dépend pas du nombre de lignes. Le pilote MySQL
+ * charge par défaut tout le résultat avant de rendre la première ligne ; sans {@code useCursorFetch=true} dans
+ * l'URL JDBC, les lignes lui sont donc demandées une à une ({@code fetchSize = Integer.MIN_VALUE}).
+ * </p>
+ */
+@Component
+public class CurseurJdbc {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${api.flux.fetch-size:500}")
+    private int fetchSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Prépare le {@link JdbcTemplate} de lecture en flux.
+     */
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(isMySqlSansCurseur() ? Integer.MIN_VALUE : fetchSize);
+    }
+
+    /**
+     * Exécute une requête et transmet ses lignes au fur et à mesure de leur lecture.
+     *
+     * @param sql        La requête.
+     * @param traitement Le traitement de chaque ligne.
+     * @param parametres Les paramètres de la requête.
+     */
+    public void parcourir(String sql, RowCallbackHandler traitement, Object... parametres) {
+        jdbcTemplate.query(sql, traitement, parametres);
+    }
+
+    private boolean isMySqlSansCurseur() {
+        return new JdbcTemplate(dataSource).execute((ConnectionCallback<Boolean>) connexion -> {
+            DatabaseMetaData metadonnees = connexion.getMetaData();
+            return metadonnees.getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")
+                    && !metadonnees.getURL().contains("useCursorFetch=true");
+        });
+    }
+}
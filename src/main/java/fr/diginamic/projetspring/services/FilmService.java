@@ -1,17 +1,30 @@
 package fr.diginamic.projetspring.services;
 
+import fr.diginamic.projetspring.dto.FilmDTO;
 import fr.diginamic.projetspring.entities.Film;
 import fr.diginamic.projetspring.entities.Genre;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.repositories.FilmRepository;
+import fr.diginamic.projetspring.repositories.RealisateurFilmRepository;
+import fr.diginamic.projetspring.repositories.RoleFilmRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,17 +35,81 @@ public class FilmService {
     @Autowired
     private FilmRepository filmRepository;
 
+    @Autowired
+    private RoleFilmRepository roleFilmRepository;
+
+    @Autowired
+    private RealisateurFilmRepository realisateurFilmRepository;
+
+    @Autowired
+    private CurseurJdbc curseurJdbc;
+
+    @Autowired
+    private GrapheActeursFilms grapheActeursFilms;
+
+    @Autowired
+    private IndexRecherche indexRecherche;
+
+    @Autowired
+    private Autocompletion autocompletion;
+
+    @Autowired
+    private CacheResultats cacheResultats;
+
     public List<Film> getFilmsByGenre(String genreType) {
         return filmRepository.findByGenres_Type(genreType);
     }
     /**
-     * Récupère tous les films.
+     * Récupère une page de films, avec leurs genres.
+     * <p>
+     * Les genres sont chargés par une seconde requête sur les films de la page plutôt que par une jointure dans
+     * la requête paginée, qui obligerait Hibernate à paginer en mémoire : une page coûte ainsi le même nombre
+     * de requêtes quelle que soit sa taille.
+     * </p>
      *
-     * @return Une liste de tous les films.
+     * @return Une page de films.
      */
-
+    @Transactional
     public Page<Film> getAllFilms(Pageable pageable) {
-        return filmRepository.findAll(pageable);
+        Page<Film> films = filmRepository.findAll(pageable);
+        if (films.hasContent()) {
+            filmRepository.chargerGenres(films.getContent());
+        }
+        return films;
+    }
+
+    /**
+     * Lit une page de films par curseur : les {@code taille + 1} films qui suivent un identifiant, le dernier
+     * servant seulement à savoir s'il existe une page suivante.
+     *
+     * @param apres  Le dernier identifiant de la page précédente, ou {@code null} pour la première page.
+     * @param taille La taille de la page.
+     * @return Au plus {@code taille + 1} films, dans l'ordre des identifiants, avec leurs genres.
+     */
+    @Transactional
+    public List<Film> getFilmsApres(Integer apres, int taille) {
+        List<Film> films = filmRepository.findByFilmIdGreaterThanOrderByFilmIdAsc(apres != null ? apres : Integer.MIN_VALUE,
+                Limit.of(taille + 1));
+        if (!films.isEmpty()) {
+            filmRepository.chargerGenres(films);
+        }
+        return films;
+    }
+
+    /**
+     * Lit le résumé de plusieurs films en une seule requête.
+     *
+     * @param films Les films.
+     * @return Les résumés, par identifiant de film.
+     */
+    public Map<Integer, String> getResumes(Collection<Film> films) {
+        Map<Integer, String> resumes = new HashMap<>();
+        if (!films.isEmpty()) {
+            for (Object[] ligne : filmRepository.findResumes(films)) {
+                resumes.put((Integer) ligne[0], (String) ligne[1]);
+            }
+        }
+        return resumes;
     }
 
     /**
@@ -52,7 +129,10 @@ public class FilmService {
      * @return Le film créé.
      */
     public Film createFilm(Film film) {
-        return filmRepository.save(film);
+        Film createdFilm = filmRepository.save(film);
+        indexRecherche.indexerFilm(createdFilm.getFilmId(), createdFilm.getNom(), createdFilm.getResume());
+        autocompletion.indexer(IndexRecherche.Type.FILM, createdFilm.getFilmId(), createdFilm.getNom());
+        return createdFilm;
     }
 
     /**
@@ -62,6 +142,7 @@ public class FilmService {
      *  * @param film   Les nouvelles données du film.
      *  * @return Le film mis à jour, ou un Optional vide si le film avec l'ID spécifié n'existe pas.
      *  */
+    @Transactional
     public Film updateFilm(Integer filmId, Film film) {
         Optional<Film> existingFilm = filmRepository.findById(filmId);
         if (existingFilm.isPresent()) {
@@ -78,7 +159,11 @@ public class FilmService {
             updatedFilm.setGenres(film.getGenres());
             updatedFilm.setFilmId(filmId);
 
-            return filmRepository.save(updatedFilm);
+            Film savedFilm = filmRepository.save(updatedFilm);
+            indexRecherche.indexerFilm(filmId, savedFilm.getNom(), savedFilm.getResume());
+            autocompletion.indexer(IndexRecherche.Type.FILM, filmId, savedFilm.getNom());
+            cacheResultats.filmsModifies(Collections.singletonList(filmId));
+            return savedFilm;
         } else {
             throw new IllegalArgumentException("Film with ID " + filmId + " not found");
             // Alternatively, you can return null or handle the case according to your application's logic
@@ -90,8 +175,13 @@ public class FilmService {
      *
      * @param filmId L'identifiant du film à supprimer.
      */
+    @Transactional
     public void deleteFilm(Integer filmId) {
+        retirerDesIndex(Collections.singletonList(filmId));
+        cacheResultats.filmsModifies(Collections.singletonList(filmId));
         filmRepository.deleteById(filmId);
+        indexRecherche.supprimer(IndexRecherche.Type.FILM, Collections.singletonList(filmId));
+        autocompletion.supprimer(IndexRecherche.Type.FILM, Collections.singletonList(filmId));
     }
 
     // Ajoutez d'autres méthodes en fonction des besoins
@@ -132,15 +222,72 @@ public class FilmService {
         return filmRepository.findByIdIMDB(idIMDB);
     }
 
+    public List<String> findAllIdIMDB() {
+        return filmRepository.findAllIdIMDB();
+    }
+
+    public List<Object[]> findAllIdIMDBAndId() {
+        return filmRepository.findAllIdIMDBAndId();
+    }
+
+    /**
+     * Supprime en une transaction un ensemble de films, avec leurs rôles, leurs réalisateurs et leurs genres.
+     *
+     * @param filmIds Les identifiants des films à supprimer.
+     */
+    @Transactional
+    public void deleteFilms(Collection<Integer> filmIds) {
+        retirerDesIndex(filmIds);
+        cacheResultats.filmsModifies(filmIds);
+        roleFilmRepository.deleteAllByFilmIds(filmIds);
+        realisateurFilmRepository.deleteAllByFilmIds(filmIds);
+        filmRepository.deleteGenresByFilmIds(filmIds);
+        filmRepository.deleteAllByIdInBatch(filmIds);
+        indexRecherche.supprimer(IndexRecherche.Type.FILM, filmIds);
+        autocompletion.supprimer(IndexRecherche.Type.FILM, filmIds);
+    }
+
+    /**
+     * Retire du graphe acteurs-films les rôles des films supprimés, et de la popularité de leurs acteurs et de
+     * leurs réalisateurs les rôles et les associations supprimés avec eux, lus avant leur suppression.
+     */
+    private void retirerDesIndex(Collection<Integer> filmIds) {
+        if (grapheActeursFilms.isCharge() || autocompletion.isCharge()) {
+            List<Object[]> roles = roleFilmRepository.findActeurFilmIdsByFilmIds(filmIds);
+            if (grapheActeursFilms.isCharge()) {
+                grapheActeursFilms.retirerRoles(roles);
+            }
+            List<Integer> acteurIds = new ArrayList<>(roles.size());
+            for (Object[] role : roles) {
+                acteurIds.add((Integer) role[0]);
+            }
+            autocompletion.ajusterPopularites(IndexRecherche.Type.ACTEUR, acteurIds, -1);
+        }
+        if (autocompletion.isCharge()) {
+            autocompletion.ajusterPopularites(IndexRecherche.Type.REALISATEUR,
+                    realisateurFilmRepository.findRealisateurIdsByFilmIds(filmIds), -1);
+        }
+    }
+
+    /**
+     * Obtient une référence vers un film dont l'identifiant est connu, sans le charger depuis la base.
+     *
+     * @param filmId L'identifiant du film.
+     * @return Une référence (proxy non initialisé) vers le film.
+     */
+    public Film getReferenceById(Integer filmId) {
+        return filmRepository.getReferenceById(filmId);
+    }
+
     public List<Film> getFilmsByGenreTypes(Set<String> genreTypes) {
-        Set<Genre> genres = genreTypes.stream().map(Genre::new).collect(Collectors.toSet());
-        return filmRepository.findAllByGenresIn(genres);
+        return filmRepository.findDistinctByGenres_TypeIn(genreTypes);
     }
 
     //Implementation des requetes:
     // Tache 2:Extraire tous les rôles d’un film donné
     public List<Object[]> findActorsAndCharactersByFilmId(Integer filmId) {
-        return filmRepository.findActorsAndCharactersByFilmId(filmId);
+        return cacheResultats.lire(CacheResultats.Requete.ROLES_FILM, filmId,
+                () -> filmRepository.findActorsAndCharactersByFilmId(filmId));
     }
 
     // Tache 3: Extraire les films sortis entre 2 années données
@@ -149,8 +296,21 @@ public class FilmService {
     }
 
     // Tache 4: Extraire les films communs à 2 acteurs ou actrices donnés.
+    // Les films communs sont lus dans le graphe acteurs-films une fois chargé, puis nommés en une requête.
     public List<Object[]> findFilmsByTwoActors(Integer acteurId1, Integer acteurId2) {
-        return filmRepository.findFilmsByTwoActors(acteurId1, acteurId2);
+        return cacheResultats.lire(CacheResultats.Requete.FILMS_DEUX_ACTEURS, CacheResultats.cle(acteurId1, acteurId2),
+                () -> lireFilmsByTwoActors(acteurId1, acteurId2));
+    }
+
+    private List<Object[]> lireFilmsByTwoActors(Integer acteurId1, Integer acteurId2) {
+        if (!grapheActeursFilms.isCharge()) {
+            return filmRepository.findFilmsByTwoActors(acteurId1, acteurId2);
+        }
+        int[] filmIds = grapheActeursFilms.filmsCommuns(acteurId1, acteurId2);
+        if (filmIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return filmRepository.findNomsByFilmIds(Arrays.stream(filmIds).boxed().collect(Collectors.toList()));
     }
 
     // Tache 5:  Extraire tous les films d’un genre donné
@@ -158,6 +318,89 @@ public class FilmService {
         return filmRepository.findFilmsByGenre(genreId);
     }
 
+    /**
+     * Parcourt en flux les films sortis entre deux années, avec leurs genres.
+     *
+     * @param startYear  Année de début.
+     * @param endYear    Année de fin.
+     * @param avecResume Indique s'il faut lire le résumé des films.
+     * @param film       Le traitement de chaque film, dans l'ordre des identifiants.
+     */
+    public void parcourirFilmsReleasedBetweenYears(int startYear, int endYear, boolean avecResume,
+                                                   Consumer<? super FilmDTO> film) {
+        parcourirFilms("f.annee_sortie BETWEEN ? AND ?", avecResume, film, startYear, endYear);
+    }
+
+    /**
+     * Parcourt en flux les films d'un genre donné, avec tous leurs genres.
+     *
+     * @param genreType  Le type du genre.
+     * @param avecResume Indique s'il faut lire le résumé des films.
+     * @param film       Le traitement de chaque film, dans l'ordre des identifiants.
+     */
+    public void parcourirFilmsByGenre(String genreType, boolean avecResume, Consumer<? super FilmDTO> film) {
+        parcourirFilms("f.film_id IN (SELECT fg.film_id FROM film_genre fg JOIN genres g ON g.genre_id = fg.genre_id"
+                + " WHERE g.type = ?)", avecResume, film, genreType);
+    }
+
+    /**
+     * Parcourt en flux le nom et l'année de sortie des films d'un genre (variante de {@link #findFilmsByGenre(Integer)}).
+     *
+     * @param genreId L'identifiant du genre.
+     * @param ligne   Le traitement de chaque film.
+     */
+    public void parcourirFilmsByGenreId(Integer genreId, Consumer<Object[]> ligne) {
+        curseurJdbc.parcourir("SELECT f.nom, f.annee_sortie FROM film_genre fg JOIN films f ON f.film_id = fg.film_id"
+                        + " WHERE fg.genre_id = ?",
+                resultat -> ligne.accept(new Object[]{resultat.getString(1), resultat.getObject(2)}), genreId);
+    }
+
+    /**
+     * Parcourt en flux les films qui vérifient une condition, avec leurs genres : la jointure sur les genres rend
+     * une ligne par genre, regroupées par film grâce au tri sur l'identifiant.
+     */
+    private void parcourirFilms(String condition, boolean avecResume, Consumer<? super FilmDTO> film, Object... parametres) {
+        String sql = "SELECT f.film_id, f.idimdb, f.nom, f.annee_sortie, f.rating, f.url_profile, f.lieu_tournage,"
+                + " f.langue, f.pays, g.genre_id, g.type" + (avecResume ? ", f.resume" : "")
+                + " FROM films f LEFT JOIN film_genre fg ON fg.film_id = f.film_id"
+                + " LEFT JOIN genres g ON g.genre_id = fg.genre_id"
+                + " WHERE " + condition + " ORDER BY f.film_id";
+        FilmDTO[] courant = new FilmDTO[1];
+        curseurJdbc.parcourir(sql, resultat -> {
+            int filmId = resultat.getInt(1);
+            if (courant[0] == null || courant[0].getFilmId() != filmId) {
+                if (courant[0] != null) {
+                    film.accept(courant[0]);
+                }
+                FilmDTO dto = new FilmDTO();
+                dto.setFilmId(filmId);
+                int idIMDB = resultat.getInt(2);
+                dto.setIdIMDB(resultat.wasNull() ? null : ImdbIds.decompacter(idIMDB, ImdbIds.PREFIXE_TITRE));
+                dto.setNom(resultat.getString(3));
+                dto.setAnneeSortie(resultat.getObject(4, Integer.class));
+                dto.setRating(resultat.getString(5));
+                dto.setUrlProfile(resultat.getString(6));
+                dto.setLieuTournage(resultat.getString(7));
+                dto.setLangue(resultat.getString(8));
+                dto.setPays(resultat.getString(9));
+                if (avecResume) {
+                    dto.setResume(resultat.getString(12));
+                }
+                dto.setGenres(new HashSet<>());
+                courant[0] = dto;
+            }
+            int genreId = resultat.getInt(10);
+            if (!resultat.wasNull()) {
+                Genre genre = new Genre(resultat.getString(11));
+                genre.setGenreId(genreId);
+                courant[0].getGenres().add(genre);
+            }
+        }, parametres);
+        if (courant[0] != null) {
+            film.accept(courant[0]);
+        }
+    }
+
     // Tache 8:
     public List<Object[]> findFilmsBetweenYearsAndByActeur(Integer startYear, Integer endYear, Integer acteurId) {
         return filmRepository.findFilmsBetweenYearsAndByActeur(startYear, endYear, acteurId);
@@ -3,6 +3,7 @@ package fr.diginamic.projetspring.services;
 import fr.diginamic.projetspring.entities.Genre;
 import fr.diginamic.projetspring.repositories.GenreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -69,7 +70,12 @@ public class GenreService {
             // If the genre does not exist, create a new one and save it
             Genre newGenre = new Genre();
             newGenre.setType(type);
-            return genreRepository.save(newGenre);
+            try {
+                return genreRepository.save(newGenre);
+            } catch (DataIntegrityViolationException e) {
+                // Created meanwhile by a concurrent import: the unique constraint on type guarantees a single row
+                return genreRepository.findByType(type).orElseThrow(() -> e);
+            }
         }
     }
 }
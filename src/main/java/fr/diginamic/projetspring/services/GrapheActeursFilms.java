@@ -0,0 +1,426 @@
+package fr.diginamic.projetspring.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire du graphe biparti acteurs-films formé par les rôles.
+ * <p>
+ * Chaque sens (acteur vers ses films, film vers ses acteurs) est rangé en listes d'adjacence compactes (CSR) :
+ * un tableau {@code debuts} indexé par l'identifiant et un tableau {@code voisins} qui contient, pour chaque
+ * identifiant, les identifiants voisins triés, un par rôle. Les films communs à deux acteurs et les acteurs
+ * communs à deux films s'obtiennent alors par intersection de deux tableaux triés, sans requête SQL.
+ * </p>
+ * <p>
+ * L'index est chargé depuis la table {@code rolefilm} au démarrage de l'API, puis tenu à jour par
+ * {@link RoleFilmService} après la validation de chaque création ou suppression de rôle, et par les services des
+ * films et des acteurs pour les rôles supprimés avec eux : les listes modifiées
+ * sont recopiées dans une surcharge, fusionnée dans les tableaux compacts lorsqu'elle dépasse
+ * {@value #SURCHARGE_MAX} identifiants. Tant qu'il n'est pas chargé (import, démarrage), {@link #isCharge()}
+ * vaut {@code false} et les appelants interrogent la base.
+ * </p>
+ */
+@Component
+public class GrapheActeursFilms {
+
+    /** Nombre de listes modifiées au-delà duquel la surcharge d'un sens est fusionnée dans ses tableaux compacts. */
+    static final int SURCHARGE_MAX = 4096;
+
+    private static final int[] AUCUN = new int[0];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Adjacence filmsParActeur = new Adjacence();
+    private final Adjacence acteursParFilm = new Adjacence();
+
+    private volatile boolean charge;
+
+    /** Incrémenté à chaque chargement et à chaque modification du graphe. */
+    private volatile long version;
+
+    /**
+     * Charge le graphe au démarrage de l'API ; l'import, sans serveur web, ne le charge pas.
+     *
+     * @param evenement L'événement de fin de démarrage.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void demarrer(ApplicationReadyEvent evenement) {
+        if (evenement.getApplicationContext() instanceof WebApplicationContext) {
+            charger();
+        }
+    }
+
+    /**
+     * (Re)charge le graphe depuis la table {@code rolefilm}.
+     */
+    public synchronized void charger() {
+        long debut = System.nanoTime();
+        int[][] colonnes = {new int[1024], new int[1024]};
+        int[] compteurs = new int[3];
+        jdbcTemplate.query("SELECT acteur_id, film_id FROM rolefilm", ligne -> {
+            int acteurId = ligne.getInt(1);
+            boolean sansActeur = ligne.wasNull();
+            int filmId = ligne.getInt(2);
+            if (sansActeur || ligne.wasNull()) {
+                return;
+            }
+            int n = compteurs[0];
+            if (n == colonnes[0].length) {
+                colonnes[0] = Arrays.copyOf(colonnes[0], n * 2);
+                colonnes[1] = Arrays.copyOf(colonnes[1], n * 2);
+            }
+            colonnes[0][n] = acteurId;
+            colonnes[1][n] = filmId;
+            compteurs[0] = n + 1;
+            compteurs[1] = Math.max(compteurs[1], acteurId);
+            compteurs[2] = Math.max(compteurs[2], filmId);
+        });
+        int roles = compteurs[0];
+        filmsParActeur.remplacer(Csr.construire(colonnes[0], colonnes[1], roles, compteurs[1]));
+        acteursParFilm.remplacer(Csr.construire(colonnes[1], colonnes[0], roles, compteurs[2]));
+        charge = true;
+        version++;
+        System.out.println(String.format(Locale.ROOT, "Graphe acteurs-films : %d rôle(s), %d acteur(s), %d film(s) chargés en %d ms",
+                roles, filmsParActeur.csr.sommets(), acteursParFilm.csr.sommets(), (System.nanoTime() - debut) / 1_000_000));
+    }
+
+    /**
+     * Charge le graphe s'il ne l'est pas encore, pour une requête reçue avant la fin du démarrage.
+     */
+    public synchronized void chargerSiNecessaire() {
+        if (!charge) {
+            charger();
+        }
+    }
+
+    /**
+     * Indique si le graphe est chargé et peut remplacer les requêtes sur les rôles.
+     *
+     * @return {@code true} si le graphe est chargé.
+     */
+    public boolean isCharge() {
+        return charge;
+    }
+
+    /**
+     * Version du graphe, qui change à chaque modification : un calcul dérivé du graphe reste valable tant
+     * que la version est la même.
+     *
+     * @return La version du graphe.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Films d'un acteur, triés, un par rôle.
+     */
+    int[] films(int acteurId) {
+        return filmsParActeur.voisins(acteurId);
+    }
+
+    /**
+     * Acteurs d'un film, triés, un par rôle.
+     */
+    int[] acteurs(int filmId) {
+        return acteursParFilm.voisins(filmId);
+    }
+
+    /**
+     * Nombre de rôles d'un acteur.
+     */
+    int degreActeur(int acteurId) {
+        return filmsParActeur.degre(acteurId);
+    }
+
+    /**
+     * Plus grand identifiant d'acteur présent dans le graphe.
+     */
+    int acteurIdMax() {
+        return filmsParActeur.idMax();
+    }
+
+    /**
+     * Plus grand identifiant de film présent dans le graphe.
+     */
+    int filmIdMax() {
+        return acteursParFilm.idMax();
+    }
+
+    /**
+     * Identifiants des films dans lesquels deux acteurs ont tous deux joué.
+     *
+     * @param acteurId1 L'identifiant du premier acteur.
+     * @param acteurId2 L'identifiant du deuxième acteur.
+     * @return Les identifiants des films communs, triés et sans doublon.
+     */
+    public int[] filmsCommuns(int acteurId1, int acteurId2) {
+        return intersecter(filmsParActeur.voisins(acteurId1), filmsParActeur.voisins(acteurId2));
+    }
+
+    /**
+     * Identifiants des acteurs qui ont joué dans deux films.
+     *
+     * @param filmId1 L'identifiant du premier film.
+     * @param filmId2 L'identifiant du deuxième film.
+     * @return Les identifiants des acteurs communs, triés et sans doublon.
+     */
+    public int[] acteursCommuns(int filmId1, int filmId2) {
+        return intersecter(acteursParFilm.voisins(filmId1), acteursParFilm.voisins(filmId2));
+    }
+
+    /**
+     * Ajoute un rôle au graphe, après la validation de la transaction en cours s'il y en a une.
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @param filmId   L'identifiant du film.
+     */
+    public void ajouterRole(Integer acteurId, Integer filmId) {
+        apresValidation(acteurId, filmId, true);
+    }
+
+    /**
+     * Retire un rôle du graphe, après la validation de la transaction en cours s'il y en a une. Un acteur qui
+     * garde un autre rôle dans le film reste relié au film.
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @param filmId   L'identifiant du film.
+     */
+    public void retirerRole(Integer acteurId, Integer filmId) {
+        apresValidation(acteurId, filmId, false);
+    }
+
+    /**
+     * Retire du graphe des rôles supprimés avec leur film ou leur acteur, après la validation de la transaction
+     * en cours s'il y en a une.
+     *
+     * @param roles Les identifiants (acteurId, filmId) des rôles, lus avant leur suppression.
+     */
+    public void retirerRoles(Collection<Object[]> roles) {
+        for (Object[] role : roles) {
+            retirerRole((Integer) role[0], (Integer) role[1]);
+        }
+    }
+
+    private void apresValidation(Integer acteurId, Integer filmId, boolean ajout) {
+        if (!charge || acteurId == null || filmId == null || acteurId < 0 || filmId < 0) {
+            return;
+        }
+        ApresValidation.executer(() -> modifier(acteurId, filmId, ajout));
+    }
+
+    private synchronized void modifier(int acteurId, int filmId, boolean ajout) {
+        version++;
+        if (ajout) {
+            filmsParActeur.ajouter(acteurId, filmId);
+            acteursParFilm.ajouter(filmId, acteurId);
+        } else {
+            filmsParActeur.retirer(acteurId, filmId);
+            acteursParFilm.retirer(filmId, acteurId);
+        }
+    }
+
+    /**
+     * Intersection de deux tableaux triés, sans doublon.
+     */
+    static int[] intersecter(int[] a, int[] b) {
+        int[] resultat = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                int valeur = a[i];
+                resultat[n++] = valeur;
+                while (i < a.length && a[i] == valeur) {
+                    i++;
+                }
+                while (j < b.length && b[j] == valeur) {
+                    j++;
+                }
+            }
+        }
+        return n == resultat.length ? resultat : Arrays.copyOf(resultat, n);
+    }
+
+    /**
+     * Listes d'adjacence compactes d'un sens du graphe : les voisins de l'identifiant {@code id} occupent
+     * {@code voisins[debuts[id]]} à {@code voisins[debuts[id + 1] - 1]}, triés.
+     */
+    private static final class Csr {
+
+        private final int[] debuts;
+        private final int[] voisins;
+
+        private Csr(int[] debuts, int[] voisins) {
+            this.debuts = debuts;
+            this.voisins = voisins;
+        }
+
+        /**
+         * Construit les listes par tri par comptage des arêtes {@code (sources[k], cibles[k])}.
+         */
+        static Csr construire(int[] sources, int[] cibles, int aretes, int idMax) {
+            int[] debuts = new int[Math.max(idMax, 0) + 2];
+            for (int k = 0; k < aretes; k++) {
+                if (sources[k] >= 0) {
+                    debuts[sources[k] + 1]++;
+                }
+            }
+            for (int id = 1; id < debuts.length; id++) {
+                debuts[id] += debuts[id - 1];
+            }
+            int[] positions = Arrays.copyOf(debuts, debuts.length - 1);
+            int[] voisins = new int[debuts[debuts.length - 1]];
+            for (int k = 0; k < aretes; k++) {
+                if (sources[k] >= 0) {
+                    voisins[positions[sources[k]]++] = cibles[k];
+                }
+            }
+            for (int id = 0; id < debuts.length - 1; id++) {
+                if (debuts[id + 1] - debuts[id] > 1) {
+                    Arrays.sort(voisins, debuts[id], debuts[id + 1]);
+                }
+            }
+            return new Csr(debuts, voisins);
+        }
+
+        int[] voisins(int id) {
+            if (id < 0 || id >= debuts.length - 1 || debuts[id] == debuts[id + 1]) {
+                return AUCUN;
+            }
+            return Arrays.copyOfRange(voisins, debuts[id], debuts[id + 1]);
+        }
+
+        int degre(int id) {
+            return id < 0 || id >= debuts.length - 1 ? 0 : debuts[id + 1] - debuts[id];
+        }
+
+        int idMax() {
+            return debuts.length - 2;
+        }
+
+        int sommets() {
+            int n = 0;
+            for (int id = 0; id < debuts.length - 1; id++) {
+                if (debuts[id] != debuts[id + 1]) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Un sens du graphe : les listes compactes et la surcharge des listes modifiées depuis leur construction.
+     * <p>
+     * Les lectures ne prennent aucun verrou ; les modifications sont sérialisées par le graphe. Chaque liste de
+     * la surcharge est un tableau trié qui n'est jamais modifié une fois publié.
+     * </p>
+     */
+    private static final class Adjacence {
+
+        private volatile Csr csr = new Csr(new int[1], AUCUN);
+        private final Map<Integer, int[]> surcharge = new ConcurrentHashMap<>();
+
+        int[] voisins(int id) {
+            int[] modifies = surcharge.get(id);
+            return modifies != null ? modifies : csr.voisins(id);
+        }
+
+        int degre(int id) {
+            int[] modifies = surcharge.get(id);
+            return modifies != null ? modifies.length : csr.degre(id);
+        }
+
+        int idMax() {
+            int idMax = csr.idMax();
+            for (Integer id : surcharge.keySet()) {
+                idMax = Math.max(idMax, id);
+            }
+            return idMax;
+        }
+
+        /**
+         * Publie de nouvelles listes compactes avant de vider la surcharge : une lecture concurrente voit toujours
+         * l'une ou l'autre version à jour.
+         */
+        void remplacer(Csr nouveau) {
+            csr = nouveau;
+            surcharge.clear();
+        }
+
+        void ajouter(int id, int voisin) {
+            int[] actuels = voisins(id);
+            int position = Arrays.binarySearch(actuels, voisin);
+            int insertion = position >= 0 ? position : -position - 1;
+            int[] nouveaux = new int[actuels.length + 1];
+            System.arraycopy(actuels, 0, nouveaux, 0, insertion);
+            nouveaux[insertion] = voisin;
+            System.arraycopy(actuels, insertion, nouveaux, insertion + 1, actuels.length - insertion);
+            modifier(id, nouveaux);
+        }
+
+        void retirer(int id, int voisin) {
+            int[] actuels = voisins(id);
+            int position = Arrays.binarySearch(actuels, voisin);
+            if (position < 0) {
+                return;
+            }
+            int[] nouveaux = new int[actuels.length - 1];
+            System.arraycopy(actuels, 0, nouveaux, 0, position);
+            System.arraycopy(actuels, position + 1, nouveaux, position, actuels.length - position - 1);
+            modifier(id, nouveaux);
+        }
+
+        private void modifier(int id, int[] nouveaux) {
+            surcharge.put(id, nouveaux);
+            if (surcharge.size() > SURCHARGE_MAX) {
+                compacter();
+            }
+        }
+
+        /**
+         * Fusionne la surcharge dans de nouvelles listes compactes.
+         */
+        private void compacter() {
+            Csr ancien = csr;
+            int idMax = idMax();
+            int[] debuts = new int[idMax + 2];
+            for (int id = 0; id <= idMax; id++) {
+                int[] modifies = surcharge.get(id);
+                int taille = modifies != null ? modifies.length
+                        : id <= ancien.idMax() ? ancien.debuts[id + 1] - ancien.debuts[id] : 0;
+                debuts[id + 1] = debuts[id] + taille;
+            }
+            int[] voisins = new int[debuts[idMax + 1]];
+            for (int id = 0; id <= idMax; id++) {
+                int[] modifies = surcharge.get(id);
+                if (modifies != null) {
+                    System.arraycopy(modifies, 0, voisins, debuts[id], modifies.length);
+                } else if (id <= ancien.idMax()) {
+                    System.arraycopy(ancien.voisins, ancien.debuts[id], voisins, debuts[id], debuts[id + 1] - debuts[id]);
+                }
+            }
+            remplacer(new Csr(debuts, voisins));
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package fr.diginamic.projetspring.services;
+
+import fr.diginamic.projetspring.dto.ResultatRechercheDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire pour la recherche plein texte dans les titres et résumés des films et dans les noms
+ * des acteurs et des réalisateurs.
+ * <p>
+ * Chaque film, acteur ou réalisateur est un document à deux champs : le nom (titre du film ou nom de la personne)
+ * et le texte (résumé du film). Pour chaque terme ({@link AnalyseurTexte}) et chaque champ, l'index garde la liste
+ * des documents qui le contiennent avec le nombre d'occurrences. Les résultats sont classés par BM25, calculé
+ * champ par champ, le nom comptant {@value #POIDS_NOM} fois plus que le résumé : le nombre de documents et la
+ * longueur moyenne d'un champ ne portent que sur les documents présents où il n'est pas vide, et la fréquence
+ * d'un terme ne compte pas les documents retirés en attente de purge.
+ * </p>
+ * <p>
+ * L'index est construit au démarrage de l'API depuis la base ou, si {@code api.recherche.fichier} est renseigné,
+ * relu depuis ce fichier lorsque la base n'a pas changé depuis son écriture (nombre de lignes, plus grands
+ * identifiants et empreintes des imports). Le fichier est supprimé dès la première modification de l'index, puis
+ * réécrit quelques secondes plus tard : il n'est jamais relu en retard sur la base. Les créations, modifications et
+ * suppressions faites par {@link FilmService}, {@link ActeurService} et {@link RealisateurService} le tiennent à
+ * jour après validation : un document modifié est retiré puis indexé à nouveau, et les entrées des documents
+ * retirés sont purgées des listes lorsqu'ils dépassent le quart de l'index.
+ * </p>
+ */
+@Component
+public class IndexRecherche {
+
+    /**
+     * Type des documents de l'index.
+     */
+    public enum Type {
+        FILM, ACTEUR, REALISATEUR
+    }
+
+    /** Poids du champ nom par rapport au champ résumé. */
+    static final float POIDS_NOM = 2.0f;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int FORMAT = 1;
+    private static final int DELAI_ENREGISTREMENT = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Fichier de sauvegarde de l'index, vide pour le reconstruire à chaque démarrage. */
+    @Value("${api.recherche.fichier:}")
+    private String fichier;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private volatile boolean charge;
+    private boolean modifie;
+    private ScheduledExecutorService enregistrement;
+
+    private final Champ noms = new Champ(POIDS_NOM);
+    private final Champ textes = new Champ(1.0f);
+    private final Map<Long, Integer> numeros = new HashMap<>();
+    private final BitSet retires = new BitSet();
+    private byte[] types = new byte[1024];
+    private int[] entites = new int[1024];
+    private String[] libelles = new String[1024];
+    private int documents;
+    private int vivants;
+    private int aPurger;
+
+    /**
+     * Construit ou relit l'index au démarrage de l'API ; l'import, sans serveur web, ne le charge pas.
+     *
+     * @param evenement L'événement de fin de démarrage.
+     */
+    @EventListener
+    public void demarrer(ApplicationReadyEvent evenement) {
+        if (evenement.getApplicationContext() instanceof WebApplicationContext) {
+            chargerSiNecessaire();
+        }
+    }
+
+    /**
+     * Charge l'index s'il ne l'est pas encore, pour une recherche reçue avant la fin du démarrage.
+     */
+    public void chargerSiNecessaire() {
+        if (charge) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            if (!charge) {
+                charger();
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private void charger() {
+        long debut = System.nanoTime();
+        Path chemin = fichier.isEmpty() ? null : Paths.get(fichier);
+        String signature = chemin != null ? signature() : null;
+        String origine = "relu depuis " + chemin;
+        if (chemin == null || !lire(chemin, signature)) {
+            vider();
+            jdbcTemplate.query("SELECT film_id, nom, resume FROM films",
+                    ligne -> { ajouter(Type.FILM, ligne.getInt(1), ligne.getString(2), ligne.getString(3)); });
+            jdbcTemplate.query("SELECT acteur_id, nom FROM acteur",
+                    ligne -> { ajouter(Type.ACTEUR, ligne.getInt(1), ligne.getString(2), null); });
+            jdbcTemplate.query("SELECT id_realisateur, nom FROM realisateurs",
+                    ligne -> { ajouter(Type.REALISATEUR, ligne.getInt(1), ligne.getString(2), null); });
+            origine = "construit depuis la base";
+            if (chemin != null) {
+                ecrire(chemin, signature);
+            }
+        }
+        charge = true;
+        System.out.println(String.format(Locale.ROOT, "Index de recherche : %d document(s), %d terme(s), %s en %d ms",
+                vivants, noms.listes.size() + textes.listes.size(), origine, (System.nanoTime() - debut) / 1_000_000));
+    }
+
+    /**
+     * Recherche les documents qui contiennent au moins un terme de la requête, classés par pertinence.
+     *
+     * @param requete  Le texte recherché.
+     * @param type     Le type des documents recherchés, ou {@code null} pour tous.
+     * @param pageable La page de résultats demandée.
+     * @return La page de résultats, avec le nombre total de documents trouvés.
+     */
+    public Page<ResultatRechercheDTO> rechercher(String requete, Type type, Pageable pageable) {
+        chargerSiNecessaire();
+        List<String> termes = new ArrayList<>(new LinkedHashSet<>(AnalyseurTexte.termes(requete)));
+        verrou.readLock().lock();
+        try {
+            if (termes.isEmpty() || vivants == 0) {
+                return new PageImpl<>(new ArrayList<>(), pageable, 0);
+            }
+            float[] scores = new float[documents];
+            int[] trouves = new int[64];
+            int nombre = 0;
+            for (Champ champ : new Champ[]{noms, textes}) {
+                if (champ.documents == 0) {
+                    continue;
+                }
+                float longueurMoyenne = (float) champ.total / champ.documents;
+                for (String terme : termes) {
+                    Liste liste = champ.listes.get(terme);
+                    if (liste == null) {
+                        continue;
+                    }
+                    int frequence = aPurger == 0 ? liste.taille : liste.presents(retires);
+                    if (frequence == 0) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (champ.documents - frequence + 0.5) / (frequence + 0.5));
+                    for (int k = 0; k < liste.taille; k++) {
+                        int numero = liste.documents[k];
+                        if (retires.get(numero) || (type != null && types[numero] != type.ordinal())) {
+                            continue;
+                        }
+                        int occurrences = liste.occurrences[k];
+                        float normalisation = K1 * (1 - B + B * champ.longueurs[numero] / longueurMoyenne);
+                        if (scores[numero] == 0) {
+                            if (nombre == trouves.length) {
+                                trouves = Arrays.copyOf(trouves, nombre * 2);
+                            }
+                            trouves[nombre++] = numero;
+                        }
+                        scores[numero] += (float) (champ.poids * idf * occurrences * (K1 + 1) / (occurrences + normalisation));
+                    }
+                }
+            }
+
+            Integer[] classement = new Integer[nombre];
+            for (int k = 0; k < nombre; k++) {
+                classement[k] = trouves[k];
+            }
+            Arrays.sort(classement, (a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Integer.compare(a, b));
+            int debut = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), nombre) : 0;
+            int fin = pageable.isPaged() ? Math.min(debut + pageable.getPageSize(), nombre) : nombre;
+            List<ResultatRechercheDTO> resultats = new ArrayList<>(fin - debut);
+            for (int k = debut; k < fin; k++) {
+                int numero = classement[k];
+                ResultatRechercheDTO resultat = new ResultatRechercheDTO();
+                resultat.setType(Type.values()[types[numero]].name().toLowerCase(Locale.ROOT));
+                resultat.setId(entites[numero]);
+                resultat.setNom(libelles[numero]);
+                resultat.setScore(Math.round(scores[numero] * 1000) / 1000.0);
+                resultats.add(resultat);
+            }
+            return new PageImpl<>(resultats, pageable, nombre);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexe (ou indexe à nouveau) un film après la validation de la transaction en cours.
+     *
+     * @param filmId L'identifiant du film.
+     * @param nom    Le titre du film.
+     * @param resume Le résumé du film.
+     */
+    public void indexerFilm(Integer filmId, String nom, String resume) {
+        if (filmId != null) {
+            modifier(() -> ajouter(Type.FILM, filmId, nom, resume));
+        }
+    }
+
+    /**
+     * Indexe (ou indexe à nouveau) un acteur après la validation de la transaction en cours.
+     *
+     * @param acteurId L'identifiant de l'acteur.
+     * @param nom      Le nom de l'acteur.
+     */
+    public void indexerActeur(Integer acteurId, String nom) {
+        if (acteurId != null) {
+            modifier(() -> ajouter(Type.ACTEUR, acteurId, nom, null));
+        }
+    }
+
+    /**
+     * Indexe (ou indexe à nouveau) un réalisateur après la validation de la transaction en cours.
+     *
+     * @param idRealisateur L'identifiant du réalisateur.
+     * @param nom           Le nom du réalisateur.
+     */
+    public void indexerRealisateur(Integer idRealisateur, String nom) {
+        if (idRealisateur != null) {
+            modifier(() -> ajouter(Type.REALISATEUR, idRealisateur, nom, null));
+        }
+    }
+
+    /**
+     * Retire des documents de l'index après la validation de la transaction en cours.
+     *
+     * @param type Le type des documents.
+     * @param ids  Les identifiants des films, acteurs ou réalisateurs supprimés.
+     */
+    public void supprimer(Type type, Collection<Integer> ids) {
+        List<Integer> retraits = new ArrayList<>(ids);
+        modifier(() -> {
+            for (Integer id : retraits) {
+                if (id != null) {
+                    retirer(type, id);
+                }
+            }
+        });
+    }
+
+    private void modifier(Runnable modification) {
+        if (!charge) {
+            return;
+        }
+        ApresValidation.executer(() -> {
+            verrou.writeLock().lock();
+            try {
+                modification.run();
+                if (aPurger > Math.max(1024, vivants / 4)) {
+                    purger();
+                }
+                if (!modifie && !fichier.isEmpty()) {
+                    programmerEnregistrement();
+                }
+                modifie = true;
+            } finally {
+                verrou.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Supprime le fichier de l'index, qui ne correspond plus à la base, et programme sa réécriture
+     * {@value #DELAI_ENREGISTREMENT} secondes plus tard, une seule fois pour toutes les modifications de ce délai.
+     */
+    private void programmerEnregistrement() {
+        try {
+            Files.deleteIfExists(Paths.get(fichier));
+        } catch (IOException e) {
+            System.err.println("Index de recherche : suppression de " + fichier + " impossible : " + e.getMessage());
+        }
+        if (enregistrement == null) {
+            enregistrement = Executors.newSingleThreadScheduledExecutor(tache -> {
+                Thread thread = new Thread(tache, "index-recherche");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        enregistrement.schedule(this::enregistrer, DELAI_ENREGISTREMENT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Réécrit l'index dans {@code api.recherche.fichier} s'il a été modifié depuis sa dernière écriture.
+     * Appelée après les modifications et à l'arrêt de l'application ; la base peut alors être déjà fermée
+     * (base embarquée), et l'index sera reconstruit au prochain démarrage.
+     */
+    @PreDestroy
+    public void enregistrer() {
+        if (!charge || fichier.isEmpty()) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            if (modifie) {
+                ecrire(Paths.get(fichier), signature());
+                modifie = false;
+            }
+        } catch (DataAccessException e) {
+            System.err.println("Index de recherche : base indisponible, " + fichier + " n'est pas réécrit : " + e.getMessage());
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private void vider() {
+        noms.vider();
+        textes.vider();
+        numeros.clear();
+        retires.clear();
+        documents = 0;
+        vivants = 0;
+        aPurger = 0;
+    }
+
+    private void ajouter(Type type, int id, String nom, String texte) {
+        retirer(type, id);
+        int numero = nouveauNumero(type, id, nom);
+        noms.ajouter(numero, AnalyseurTexte.termes(nom));
+        textes.ajouter(numero, AnalyseurTexte.termes(texte));
+    }
+
+    private int nouveauNumero(Type type, int id, String nom) {
+        int numero = documents++;
+        if (numero == types.length) {
+            types = Arrays.copyOf(types, numero * 2);
+            entites = Arrays.copyOf(entites, numero * 2);
+            libelles = Arrays.copyOf(libelles, numero * 2);
+        }
+        types[numero] = (byte) type.ordinal();
+        entites[numero] = id;
+        libelles[numero] = nom;
+        numeros.put(cle(type, id), numero);
+        vivants++;
+        return numero;
+    }
+
+    private void retirer(Type type, int id) {
+        Integer numero = numeros.remove(cle(type, id));
+        if (numero != null) {
+            retires.set(numero);
+            libelles[numero] = null;
+            noms.retirer(numero);
+            textes.retirer(numero);
+            vivants--;
+            aPurger++;
+        }
+    }
+
+    /**
+     * Purge les listes des entrées des documents retirés. Les numéros des documents retirés ne sont pas
+     * réattribués.
+     */
+    private void purger() {
+        noms.purger(retires);
+        textes.purger(retires);
+        aPurger = 0;
+    }
+
+    private static long cle(Type type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Signature de l'état de la base : un index enregistré n'est relu que si elle n'a pas changé.
+     */
+    private String signature() {
+        StringBuilder signature = new StringBuilder();
+        String[][] tables = {{"films", "film_id"}, {"acteur", "acteur_id"}, {"realisateurs", "id_realisateur"}};
+        for (String[] table : tables) {
+            Map<String, Object> ligne = jdbcTemplate.queryForMap(
+                    "SELECT COUNT(*) AS n, COALESCE(MAX(" + table[1] + "), 0) AS m FROM " + table[0]);
+            signature.append(table[0]).append(':').append(ligne.get("n")).append(':').append(ligne.get("m")).append(';');
+        }
+        Map<String, Object> empreintes = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS n, COALESCE(SUM(empreinte), 0) AS s FROM import_empreinte");
+        return signature.append("imports:").append(empreintes.get("n")).append(':').append(empreintes.get("s")).toString();
+    }
+
+    private void ecrire(Path chemin, String signature) {
+        purger();
+        Path temporaire = chemin.resolveSibling(chemin.getFileName() + ".tmp");
+        try {
+            if (chemin.getParent() != null) {
+                Files.createDirectories(chemin.getParent());
+            }
+            try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+                sortie.writeInt(FORMAT);
+                sortie.writeUTF(signature);
+                sortie.writeInt(documents);
+                for (int numero = 0; numero < documents; numero++) {
+                    sortie.writeBoolean(retires.get(numero));
+                    sortie.writeByte(types[numero]);
+                    sortie.writeInt(entites[numero]);
+                    sortie.writeUTF(libelles[numero] != null ? libelles[numero] : "");
+                }
+                noms.ecrire(sortie, documents);
+                textes.ecrire(sortie, documents);
+            }
+            Files.move(temporaire, chemin, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Index de recherche : écriture de " + chemin + " impossible : " + e.getMessage());
+        }
+    }
+
+    private boolean lire(Path chemin, String signature) {
+        if (!Files.isRegularFile(chemin)) {
+            return false;
+        }
+        vider();
+        try (DataInputStream entree = new DataInputStream(new BufferedInputStream(Files.newInputStream(chemin)))) {
+            if (entree.readInt() != FORMAT || !entree.readUTF().equals(signature)) {
+                System.out.println("Index de recherche : " + chemin + " ne correspond plus à la base, reconstruction");
+                return false;
+            }
+            int total = entree.readInt();
+            for (int numero = 0; numero < total; numero++) {
+                boolean retire = entree.readBoolean();
+                Type type = Type.values()[entree.readByte()];
+                int id = entree.readInt();
+                String nom = entree.readUTF();
+                nouveauNumero(type, id, nom.isEmpty() ? null : nom);
+                if (retire) {
+                    // Numéro d'un document retiré avant l'écriture, dont les listes ont été purgées
+                    retires.set(numero);
+                    numeros.remove(cle(type, id));
+                    vivants--;
+                }
+            }
+            noms.lire(entree, documents, retires);
+            textes.lire(entree, documents, retires);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Index de recherche : lecture de " + chemin + " impossible, reconstruction : " + e.getMessage());
+            vider();
+            return false;
+        }
+    }
+
+    /**
+     * Un champ de l'index : les listes de documents par terme, la longueur (en termes) du champ de chaque document,
+     * ainsi que le nombre de documents présents où le champ n'est pas vide et leur longueur totale.
+     */
+    private static final class Champ {
+
+        private final float poids;
+        private final Map<String, Liste> listes = new HashMap<>();
+        private int[] longueurs = new int[1024];
+        private long total;
+        private int documents;
+
+        Champ(float poids) {
+            this.poids = poids;
+        }
+
+        void vider() {
+            listes.clear();
+            total = 0;
+            documents = 0;
+        }
+
+        void ajouter(int numero, List<String> termes) {
+            if (numero >= longueurs.length) {
+                longueurs = Arrays.copyOf(longueurs, Math.max(numero + 1, longueurs.length * 2));
+            }
+            longueurs[numero] = termes.size();
+            total += termes.size();
+            if (!termes.isEmpty()) {
+                documents++;
+            }
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (String terme : termes) {
+                occurrences.merge(terme, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entree : occurrences.entrySet()) {
+                listes.computeIfAbsent(entree.getKey(), terme -> new Liste()).ajouter(numero, entree.getValue());
+            }
+        }
+
+        void retirer(int numero) {
+            if (longueurs[numero] > 0) {
+                documents--;
+            }
+            total -= longueurs[numero];
+            longueurs[numero] = 0;
+        }
+
+        void purger(BitSet retires) {
+            listes.values().removeIf(liste -> liste.purger(retires) == 0);
+        }
+
+        void ecrire(DataOutputStream sortie, int nombreDocuments) throws IOException {
+            for (int numero = 0; numero < nombreDocuments; numero++) {
+                sortie.writeInt(numero < longueurs.length ? longueurs[numero] : 0);
+            }
+            sortie.writeInt(listes.size());
+            for (Map.Entry<String, Liste> entree : listes.entrySet()) {
+                Liste liste = entree.getValue();
+                sortie.writeUTF(entree.getKey());
+                sortie.writeInt(liste.taille);
+                for (int k = 0; k < liste.taille; k++) {
+                    sortie.writeInt(liste.documents[k]);
+                    sortie.writeInt(liste.occurrences[k]);
+                }
+            }
+        }
+
+        void lire(DataInputStream entree, int nombreDocuments, BitSet retires) throws IOException {
+            longueurs = new int[Math.max(1024, nombreDocuments)];
+            for (int numero = 0; numero < nombreDocuments; numero++) {
+                longueurs[numero] = entree.readInt();
+                if (!retires.get(numero) && longueurs[numero] > 0) {
+                    total += longueurs[numero];
+                    this.documents++;
+                }
+            }
+            int nombre = entree.readInt();
+            for (int t = 0; t < nombre; t++) {
+                String terme = entree.readUTF();
+                int taille = entree.readInt();
+                Liste liste = new Liste();
+                for (int k = 0; k < taille; k++) {
+                    liste.ajouter(entree.readInt(), entree.readInt());
+                }
+                listes.put(terme, liste);
+            }
+        }
+    }
+
+    /**
+     * Liste des documents qui contiennent un terme dans un champ, par numéro croissant, avec le nombre
+     * d'occurrences du terme.
+     */
+    private static final class Liste {
+
+        private int[] documents = new int[2];
+        private int[] occurrences = new int[2];
+        private int taille;
+
+        void ajouter(int numero, int nombre) {
+            if (taille == documents.length) {
+                documents = Arrays.copyOf(documents, taille * 2);
+                occurrences = Arrays.copyOf(occurrences, taille * 2);
+            }
+            documents[taille] = numero;
+            occurrences[taille] = nombre;
+            taille++;
+        }
+
+        /**
+         * Nombre d'entrées de documents présents, avant la purge des documents retirés.
+         */
+        int presents(BitSet retires) {
+            int presents = 0;
+            for (int k = 0; k < taille; k++) {
+                if (!retires.get(documents[k])) {
+                    presents++;
+                }
+            }
+            return presents;
+        }
+
+        int purger(BitSet retires) {
+            int conserves = 0;
+            for (int k = 0; k < taille; k++) {
+                if (!retires.get(documents[k])) {
+                    documents[conserves] = documents[k];
+                    occurrences[conserves] = occurrences[k];
+                    conserves++;
+                }
+            }
+            taille = conserves;
+            return conserves;
+        }
+    }
+}
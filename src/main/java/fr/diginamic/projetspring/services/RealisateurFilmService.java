@@ -12,10 +12,15 @@ import fr.diginamic.projetspring.entities.Film;
 import fr.diginamic.projetspring.entities.Realisateur;
 import fr.diginamic.projetspring.entities.RealisateurFilm;
 import fr.diginamic.projetspring.repositories.RealisateurFilmRepository;
+import fr.diginamic.projetspring.services.IndexRecherche.Type;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Service Spring gérant les opérations liées à l'entité RealisateurFilm.
  */
@@ -31,6 +36,12 @@ public class RealisateurFilmService {
     @Autowired
     private FilmService filmService;
 
+    @Autowired
+    private CacheResultats cacheResultats;
+
+    @Autowired
+    private Autocompletion autocompletion;
+
     /**
      * Crée une association entre un réalisateur et un film et l'enregistre en base de données.
      *
@@ -50,6 +61,54 @@ public class RealisateurFilmService {
         realisateurFilm.setFilm(film);
 
         // Enregistrement de l'entité RealisateurFilm en base de données
-        return realisateurFilmRepository.save(realisateurFilm);
+        RealisateurFilm enregistre = realisateurFilmRepository.save(realisateurFilm);
+        if (realisateur != null) {
+            List<Integer> realisateurIds = Collections.singletonList(realisateur.getIdRealisateur());
+            cacheResultats.realisateursModifies(realisateurIds);
+            autocompletion.ajusterPopularites(Type.REALISATEUR, realisateurIds, 1);
+        }
+        return enregistre;
+    }
+
+    /**
+     * Crée une association entre un réalisateur et un film à partir d'identifiants déjà résolus,
+     * sans recharger le réalisateur ni le film.
+     *
+     * @param idRealisateur L'identifiant du réalisateur.
+     * @param filmId        L'identifiant du film.
+     * @return L'entité RealisateurFilm créée et enregistrée.
+     */
+    @Transactional
+    public RealisateurFilm createRealisateurFilm(Integer idRealisateur, Integer filmId) {
+        RealisateurFilm realisateurFilm = new RealisateurFilm();
+        realisateurFilm.setRealisateur(realisateurService.getReferenceById(idRealisateur));
+        realisateurFilm.setFilm(filmService.getReferenceById(filmId));
+        RealisateurFilm enregistre = realisateurFilmRepository.save(realisateurFilm);
+        List<Integer> realisateurIds = Collections.singletonList(idRealisateur);
+        cacheResultats.realisateursModifies(realisateurIds);
+        autocompletion.ajusterPopularites(Type.REALISATEUR, realisateurIds, 1);
+        return enregistre;
+    }
+
+    /**
+     * Récupère les identifiants (idRealisateurFilm, idRealisateur, filmId) de toutes les associations.
+     *
+     * @return Les triplets d'identifiants.
+     */
+    public List<Object[]> findAllIds() {
+        return realisateurFilmRepository.findAllIds();
+    }
+
+    /**
+     * Supprime un ensemble d'associations réalisateur-film en une seule requête.
+     *
+     * @param ids Les identifiants des associations à supprimer.
+     */
+    @Transactional
+    public void deleteRealisateurFilms(Collection<Integer> ids) {
+        List<Integer> realisateurIds = realisateurFilmRepository.findRealisateurIdsByIds(ids);
+        cacheResultats.realisateursModifies(realisateurIds);
+        autocompletion.ajusterPopularites(Type.REALISATEUR, realisateurIds, -1);
+        realisateurFilmRepository.deleteAllByIdInBatch(ids);
     }
 }
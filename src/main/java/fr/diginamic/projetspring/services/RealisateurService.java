@@ -1,15 +1,21 @@
 package fr.diginamic.projetspring.services;
 
 import fr.diginamic.projetspring.entities.Realisateur;
+import fr.diginamic.projetspring.repositories.RealisateurFilmRepository;
 import fr.diginamic.projetspring.repositories.RealisateurRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service gérant les opérations liées à l'entité Realisateur.
@@ -24,6 +30,21 @@ public class RealisateurService {
     @Autowired
     private RealisateurRepository realisateurRepository;
 
+    @Autowired
+    private CurseurJdbc curseurJdbc;
+
+    @Autowired
+    private RealisateurFilmRepository realisateurFilmRepository;
+
+    @Autowired
+    private IndexRecherche indexRecherche;
+
+    @Autowired
+    private Autocompletion autocompletion;
+
+    @Autowired
+    private CacheResultats cacheResultats;
+
 
     /**
      * Récupère tous les réalisateurs avec pagination.
@@ -35,6 +56,19 @@ public class RealisateurService {
         return realisateurRepository.findAll(pageable);
     }
 
+    /**
+     * Lit une page de réalisateurs par curseur : les {@code taille + 1} réalisateurs qui suivent un identifiant, le dernier
+     * servant seulement à savoir s'il existe une page suivante.
+     *
+     * @param apres  Le dernier identifiant de la page précédente, ou {@code null} pour la première page.
+     * @param taille La taille de la page.
+     * @return Au plus {@code taille + 1} réalisateurs, dans l'ordre des identifiants.
+     */
+    public List<Realisateur> getRealisateursApres(Integer apres, int taille) {
+        return realisateurRepository.findByIdRealisateurGreaterThanOrderByIdRealisateurAsc(
+                apres != null ? apres : Integer.MIN_VALUE, Limit.of(taille + 1));
+    }
+
     /**
      * Récupère un réalisateur par son identifiant.
      *
@@ -53,7 +87,10 @@ public class RealisateurService {
      * @return Le réalisateur enregistré.
      */
     public Realisateur createRealisateur(Realisateur realisateur) {
-        return realisateurRepository.save(realisateur);
+        Realisateur createdRealisateur = realisateurRepository.save(realisateur);
+        indexRecherche.indexerRealisateur(createdRealisateur.getIdRealisateur(), createdRealisateur.getNom());
+        autocompletion.indexer(IndexRecherche.Type.REALISATEUR, createdRealisateur.getIdRealisateur(), createdRealisateur.getNom());
+        return createdRealisateur;
     }
 
     /**
@@ -72,7 +109,10 @@ public class RealisateurService {
             updatedRealisateur.setDateNaissance(realisateur.getDateNaissance());
             updatedRealisateur.setLieuNaissance(realisateur.getLieuNaissance());
             updatedRealisateur.setUrlProfile(realisateur.getUrlProfile());
-            return realisateurRepository.save(updatedRealisateur);
+            Realisateur savedRealisateur = realisateurRepository.save(updatedRealisateur);
+            indexRecherche.indexerRealisateur(idRealisateur, savedRealisateur.getNom());
+            autocompletion.indexer(IndexRecherche.Type.REALISATEUR, idRealisateur, savedRealisateur.getNom());
+            return savedRealisateur;
         }
         return null; // Or handle differently, like throwing an exception
     }
@@ -84,6 +124,9 @@ public class RealisateurService {
      */
     public void deleteRealisateurById(Integer idRealisateur) {
         realisateurRepository.deleteById(idRealisateur);
+        indexRecherche.supprimer(IndexRecherche.Type.REALISATEUR, Collections.singletonList(idRealisateur));
+        autocompletion.supprimer(IndexRecherche.Type.REALISATEUR, Collections.singletonList(idRealisateur));
+        cacheResultats.realisateursModifies(Collections.singletonList(idRealisateur));
     }
 
     // Ajoutez d'autres méthodes en fonction des besoins
@@ -107,9 +150,55 @@ public class RealisateurService {
         return realisateurRepository.findByIdIMDB(realisateurIdIMDB);
     }
 
+    public List<String> findAllIdIMDB() {
+        return realisateurRepository.findAllIdIMDB();
+    }
+
+    public List<Object[]> findAllIdIMDBAndId() {
+        return realisateurRepository.findAllIdIMDBAndId();
+    }
+
+    /**
+     * Supprime en une transaction un ensemble de réalisateurs et leurs associations aux films.
+     *
+     * @param idsRealisateur Les identifiants des réalisateurs à supprimer.
+     */
+    @Transactional
+    public void deleteRealisateurs(Collection<Integer> idsRealisateur) {
+        realisateurFilmRepository.deleteAllByRealisateurIds(idsRealisateur);
+        realisateurRepository.deleteAllByIdInBatch(idsRealisateur);
+        indexRecherche.supprimer(IndexRecherche.Type.REALISATEUR, idsRealisateur);
+        autocompletion.supprimer(IndexRecherche.Type.REALISATEUR, idsRealisateur);
+        cacheResultats.realisateursModifies(idsRealisateur);
+    }
+
+    /**
+     * Obtient une référence vers un réalisateur dont l'identifiant est connu, sans le charger depuis la base.
+     *
+     * @param idRealisateur L'identifiant du réalisateur.
+     * @return Une référence (proxy non initialisé) vers le réalisateur.
+     */
+    public Realisateur getReferenceById(Integer idRealisateur) {
+        return realisateurRepository.getReferenceById(idRealisateur);
+    }
+
     // Implementation des requetes:
     //  Tache 7: Extraire tous les films d’un réalisateur donné
     public List<Object[]> findFilmsByRealisateurId(Integer idRealisateur) {
-        return realisateurRepository.findFilmsByRealisateurId(idRealisateur);
+        return cacheResultats.lire(CacheResultats.Requete.FILMS_REALISATEUR, idRealisateur,
+                () -> realisateurRepository.findFilmsByRealisateurId(idRealisateur));
+    }
+
+    /**
+     * Parcourt en flux les films d'un réalisateur (variante de {@link #findFilmsByRealisateurId(Integer)}).
+     *
+     * @param idRealisateur L'identifiant du réalisateur.
+     * @param ligne         Le traitement de chaque film.
+     */
+    public void parcourirFilmsByRealisateurId(Integer idRealisateur, Consumer<Object[]> ligne) {
+        curseurJdbc.parcourir("SELECT f.nom, f.annee_sortie, f.langue, f.pays, f.rating FROM realisateur_film rf"
+                        + " JOIN films f ON f.film_id = rf.film_id WHERE rf.realisateur_id = ?",
+                resultat -> ligne.accept(new Object[]{resultat.getString(1), resultat.getObject(2),
+                        resultat.getString(3), resultat.getString(4), resultat.getString(5)}), idRealisateur);
     }
 }
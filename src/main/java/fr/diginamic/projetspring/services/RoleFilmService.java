@@ -8,6 +8,7 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,15 @@ public class RoleFilmService {
     @Autowired
     private FilmService filmService;
 
+    @Autowired
+    private GrapheActeursFilms grapheActeursFilms;
+
+    @Autowired
+    private Autocompletion autocompletion;
+
+    @Autowired
+    private CacheResultats cacheResultats;
+
     /**
      * Récupère un rôle par son identifiant.
      *
@@ -61,16 +71,49 @@ public class RoleFilmService {
        Film film = filmService.findByIdIMDB(role.getFilm().getIdIMDB());
        role.setActeur(acteur);
        role.setFilm(film);
-       return roleRepository.save(role);
+       RoleFilm enregistre = roleRepository.save(role);
+       if (acteur != null && film != null) {
+           grapheActeursFilms.ajouterRole(acteur.getActeurId(), film.getFilmId());
+           autocompletion.ajusterPopularite(acteur.getActeurId(), film.getFilmId(), 1);
+           cacheResultats.roleModifie(acteur.getActeurId(), film.getFilmId());
+       }
+       return enregistre;
    }
 
+    /**
+     * Enregistre un nouveau rôle à partir d'identifiants déjà résolus, sans recharger l'acteur ni le film.
+     *
+     * @param acteurId   L'identifiant de l'acteur.
+     * @param filmId     L'identifiant du film.
+     * @param personnage Le personnage joué par l'acteur dans le film.
+     * @return Le rôle enregistré.
+     */
+    @Transactional
+    public RoleFilm createRoleFilm(Integer acteurId, Integer filmId, String personnage) {
+        RoleFilm role = new RoleFilm();
+        role.setActeur(acteurService.getReferenceById(acteurId));
+        role.setFilm(filmService.getReferenceById(filmId));
+        role.setPersonnage(personnage);
+        RoleFilm enregistre = roleRepository.save(role);
+        grapheActeursFilms.ajouterRole(acteurId, filmId);
+        autocompletion.ajusterPopularite(acteurId, filmId, 1);
+        cacheResultats.roleModifie(acteurId, filmId);
+        return enregistre;
+    }
+
 
     /**
      * Supprime un rôle par son identifiant.
      *
      * @param roleId L'identifiant du rôle à supprimer.
      */
+    @Transactional
     public void deleteRoleFilm(Integer roleId) {
+        roleRepository.findById(roleId).ifPresent(role -> {
+            grapheActeursFilms.retirerRole(role.getActeurId(), role.getFilmId());
+            autocompletion.ajusterPopularite(role.getActeurId(), role.getFilmId(), -1);
+            cacheResultats.roleModifie(role.getActeurId(), role.getFilmId());
+        });
         roleRepository.deleteById(roleId);
     }
 
@@ -88,5 +131,30 @@ public class RoleFilmService {
         return roleRepository.findAllByActeurId(acteurId);
     }
 
+    /**
+     * Récupère les identifiants (roleId, acteurId, filmId) de tous les rôles.
+     *
+     * @return Les triplets d'identifiants.
+     */
+    public List<Object[]> findAllIds() {
+        return roleRepository.findAllIds();
+    }
+
+    /**
+     * Supprime un ensemble de rôles en une seule requête.
+     *
+     * @param roleIds Les identifiants des rôles à supprimer.
+     */
+    @Transactional
+    public void deleteRoleFilms(Collection<Integer> roleIds) {
+        // Les résultats en cache sont invalidés même si le graphe et l'autocomplétion ne sont pas chargés
+        for (Object[] ids : roleRepository.findActeurFilmIds(roleIds)) {
+            grapheActeursFilms.retirerRole((Integer) ids[0], (Integer) ids[1]);
+            autocompletion.ajusterPopularite((Integer) ids[0], (Integer) ids[1], -1);
+            cacheResultats.roleModifie((Integer) ids[0], (Integer) ids[1]);
+        }
+        roleRepository.deleteAllByIdInBatch(roleIds);
+    }
+
     // Ajoutez d'autres méthodes en fonction des besoins
 }
@@ -0,0 +1,64 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Filtre de Bloom sur des clés {@code long}.
+ * <p>
+ * Le filtre répond « absente » de façon sûre et « peut-être présente » avec un taux de faux positifs
+ * choisi à la construction, pour environ 10 bits par clé à 1 %. Les positions des bits sont obtenues par
+ * double hachage d'une seule valeur mélangée ({@link LongHashSet#melanger(long)}).
+ * Une instance n'est pas thread-safe.
+ * </p>
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final long nbBits;
+    private final int nbHachages;
+
+    /**
+     * Crée un filtre vide.
+     *
+     * @param attendues    Le nombre de clés attendues.
+     * @param fauxPositifs Le taux de faux positifs visé pour ce nombre de clés (ex : 0.01).
+     */
+    public BloomFilter(long attendues, double fauxPositifs) {
+        long n = Math.max(1, attendues);
+        long m = (long) Math.ceil(-n * Math.log(fauxPositifs) / (Math.log(2) * Math.log(2)));
+        int mots = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.bits = new long[mots];
+        this.nbBits = 64L * mots;
+        this.nbHachages = Math.max(1, (int) Math.round((double) nbBits / n * Math.log(2)));
+    }
+
+    /**
+     * Ajoute une clé.
+     *
+     * @param cle La clé.
+     * @return {@code true} si la clé était peut-être déjà présente (tous ses bits étaient positionnés).
+     */
+    public boolean ajouter(long cle) {
+        long hachage = LongHashSet.melanger(cle);
+        long h1 = hachage & 0xFFFFFFFFL;
+        long h2 = hachage >>> 32 | 1;
+        boolean presente = true;
+        for (int i = 0; i < nbHachages; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, nbBits);
+            long masque = 1L << bit;
+            int mot = (int) (bit >>> 6);
+            if ((bits[mot] & masque) == 0) {
+                presente = false;
+                bits[mot] |= masque;
+            }
+        }
+        return presente;
+    }
+
+    /**
+     * Obtient la taille du filtre en mémoire.
+     *
+     * @return Le nombre d'octets occupés par le filtre.
+     */
+    public long octets() {
+        return 8L * bits.length;
+    }
+}
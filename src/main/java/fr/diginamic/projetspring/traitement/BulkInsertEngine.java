@@ -0,0 +1,521 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Moteur d'écriture des entités importées depuis les fichiers CSV.
+ * <p>
+ * En mode {@link ImportMode#BULK}, les entités sont regroupées en lots de {@code import.bulk.chunk-size}
+ * lignes. Chaque lot est écrit dans une seule transaction, avec un batching JDBC de la taille du lot,
+ * puis le contexte de persistance est vidé : la mémoire consommée ne dépend donc pas de la taille du fichier.
+ * </p>
+ * <p>
+ * En mode {@link ImportMode#UNITAIRE}, chaque entité est sauvegardée immédiatement par le service
+ * fourni, dans sa propre transaction, comme avant l'introduction du mode par lots.
+ * </p>
+ * <p>
+ * Les mises à jour ({@link ImportWriter#update(Object)}, utilisées par l'import différentiel) suivent
+ * le même découpage : en mode par lots, les entités existantes d'un lot sont chargées en une seule
+ * requête puis fusionnées, et les {@code UPDATE} partent dans le même batch JDBC.
+ * </p>
+ * <p>
+ * En mode par lots, les lots sont écrits par les threads d'écriture de l'{@link ImportPipeline}
+ * ({@code import.pipeline.ecrivains}), pendant que le thread de l'import constitue les lots suivants.
+ * Les lots sont écrits et validés en parallèle ; seul le {@link ImportCheckpoint point de reprise} du fichier
+ * suit l'ordre de lecture : après la validation de son lot, chaque thread attend, hors transaction, que les
+ * points de reprise des lots précédents soient enregistrés pour enregistrer le sien (attente publiée dans
+ * {@code import.pipeline.attente}). Le point de reprise ne dépasse donc jamais une ligne dont l'entité n'est
+ * pas encore en base, et s'arrête avant le premier lot en échec. Les lignes d'un lot validé au-delà du point de
+ * reprise sont relues à la reprise et écartées comme déjà en base.
+ * En mode unitaire, il est enregistré toutes les {@code import.bulk.chunk-size} entités.
+ * </p>
+ * <p>
+ * Les empreintes de l'import différentiel sont enregistrées dans la transaction qui écrit leurs entités : celle
+ * du lot, ou celle de l'entité lorsque le lot est rejoué ligne par ligne ou en mode unitaire.
+ * </p>
+ */
+@Component
+public class BulkInsertEngine {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Value("${import.mode:BULK}")
+    private ImportMode mode;
+
+    @Value("${import.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Obtient le mode d'écriture configuré.
+     *
+     * @return Le mode d'écriture.
+     */
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Ouvre une écriture pour un type d'entité.
+     *
+     * @param libelle          Le nom de l'entité, utilisé dans le rapport de débit.
+     * @param ecritureUnitaire L'opération de sauvegarde d'une entité, utilisée en mode unitaire.
+     * @param reprise          Le point de reprise du fichier, enregistré à chaque validation d'écritures.
+     * @param <T>              Le type d'entité écrit.
+     * @return Un {@link ImportWriter} à fermer en fin de fichier.
+     */
+    public <T> ImportWriter<T> ouvrir(String libelle, Consumer<T> ecritureUnitaire, ImportCheckpoint reprise) {
+        ImportThroughput debit = new ImportThroughput(libelle, registry);
+        if (mode == ImportMode.BULK) {
+            return new EcritureParLots<>(libelle, debit, reprise);
+        }
+        return new EcritureUnitaire<>(debit, ecritureUnitaire, reprise);
+    }
+
+    /**
+     * Exécute une transaction d'écriture et en mesure la durée.
+     */
+    private static void executer(TransactionTemplate transaction, ImportThroughput debit, Consumer<TransactionStatus> travail) {
+        long debut = System.nanoTime();
+        try {
+            transaction.executeWithoutResult(travail);
+        } finally {
+            debit.transaction(System.nanoTime() - debut);
+        }
+    }
+
+    /**
+     * Écriture d'une entité par transaction, déléguée au service métier.
+     */
+    private class EcritureUnitaire<T> implements ImportWriter<T> {
+
+        private final ImportThroughput debit;
+        private final Consumer<T> ecriture;
+        private final ImportCheckpoint reprise;
+        private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        private final List<DeltaTracker.Empreinte> confirmees = new ArrayList<>();
+        private int depuisReprise;
+
+        EcritureUnitaire(ImportThroughput debit, Consumer<T> ecriture, ImportCheckpoint reprise) {
+            this.debit = debit;
+            this.ecriture = ecriture;
+            this.reprise = reprise;
+        }
+
+        @Override
+        public void write(T entite, DeltaTracker.Empreinte empreinte) {
+            try {
+                // La transaction du service rejoint celle-ci, qui enregistre aussi l'empreinte
+                executer(transaction, debit, status -> {
+                    ecriture.accept(entite);
+                    deltaImport.enregistrer(empreintes(empreinte));
+                });
+                debit.ecrites(1);
+            } catch (DataIntegrityViolationException e) {
+                debit.rejetees(1);
+            }
+            if (++depuisReprise >= chunkSize) {
+                reprise.valider();
+                depuisReprise = 0;
+            }
+        }
+
+        @Override
+        public void update(T entite, DeltaTracker.Empreinte empreinte) {
+            try {
+                executer(transaction, debit, status -> {
+                    entityManager.merge(entite);
+                    deltaImport.enregistrer(empreintes(empreinte));
+                });
+                debit.ecrites(1);
+            } catch (PersistenceException | DataAccessException e) {
+                debit.rejetees(1);
+            }
+        }
+
+        @Override
+        public void confirmer(DeltaTracker.Empreinte empreinte) {
+            if (empreinte != null) {
+                confirmees.add(empreinte);
+                if (confirmees.size() >= chunkSize) {
+                    enregistrerConfirmees();
+                }
+            }
+        }
+
+        private void enregistrerConfirmees() {
+            if (!confirmees.isEmpty()) {
+                executer(transaction, debit, status -> deltaImport.enregistrer(confirmees));
+                confirmees.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            enregistrerConfirmees();
+            reprise.valider();
+            System.out.println(debit.rapport());
+        }
+    }
+
+    /**
+     * Empreintes à enregistrer avec une entité : aucune, ou une seule.
+     */
+    private static List<DeltaTracker.Empreinte> empreintes(DeltaTracker.Empreinte empreinte) {
+        return empreinte != null ? Collections.singletonList(empreinte) : Collections.emptyList();
+    }
+
+    /**
+     * Lot d'entités confié aux threads d'écriture, numéroté dans l'ordre de lecture.
+     */
+    private static final class Lot<T> {
+
+        private final long numero;
+        private final List<T> entites;
+        /** Empreinte de chaque entité, au même rang ({@code null} hors import différentiel). */
+        private final List<DeltaTracker.Empreinte> empreintes;
+        /** Empreintes des lignes déjà à jour en base, sans entité à écrire. */
+        private final List<DeltaTracker.Empreinte> confirmees;
+        private final boolean miseAJour;
+        private final ImportCheckpoint.Position position;
+
+        Lot(long numero, List<T> entites, List<DeltaTracker.Empreinte> empreintes,
+            List<DeltaTracker.Empreinte> confirmees, boolean miseAJour, ImportCheckpoint.Position position) {
+            this.numero = numero;
+            this.entites = entites;
+            this.empreintes = empreintes;
+            this.confirmees = confirmees;
+            this.miseAJour = miseAJour;
+            this.position = position;
+        }
+
+        /**
+         * Toutes les empreintes du lot, à enregistrer lorsque toutes ses entités sont écrites.
+         */
+        List<DeltaTracker.Empreinte> toutesLesEmpreintes() {
+            List<DeltaTracker.Empreinte> toutes = new ArrayList<>(confirmees);
+            for (DeltaTracker.Empreinte empreinte : empreintes) {
+                if (empreinte != null) {
+                    toutes.add(empreinte);
+                }
+            }
+            return toutes;
+        }
+    }
+
+    /**
+     * Écriture par lots : une transaction et un batch JDBC par lot, contexte de persistance vidé après chaque lot.
+     * Les lots sont constitués par le thread de l'import et écrits par les threads d'écriture.
+     */
+    private class EcritureParLots<T> implements ImportWriter<T> {
+
+        private final String libelle;
+        private final ImportThroughput debit;
+        private final ImportCheckpoint reprise;
+        private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        private final ImportPipeline.FileAttente<Lot<T>> lots;
+        private final List<Thread> ecrivains = new ArrayList<>();
+        private final Timer attenteOrdre;
+        private final LongAdder nanosOrdre = new LongAdder();
+        private final Object ordre = new Object();
+        /** Numéro du prochain lot à valider, protégé par {@link #ordre}. */
+        private long prochainAValider;
+        private long lotsEnvoyes;
+        private List<T> lot = new ArrayList<>(chunkSize);
+        private List<DeltaTracker.Empreinte> empreintesLot = new ArrayList<>(chunkSize);
+        private List<DeltaTracker.Empreinte> confirmees = new ArrayList<>();
+        private List<T> miseAJour = new ArrayList<>(chunkSize);
+        private List<DeltaTracker.Empreinte> empreintesMiseAJour = new ArrayList<>(chunkSize);
+        private volatile RuntimeException erreur;
+
+        EcritureParLots(String libelle, ImportThroughput debit, ImportCheckpoint reprise) {
+            this.libelle = libelle;
+            this.debit = debit;
+            this.reprise = reprise;
+            this.lots = importPipeline.file(reprise.getFichier(), "lots", "resolution", "ecriture");
+            this.attenteOrdre = importPipeline.attente(reprise.getFichier(), "ecriture", "ordre");
+            for (int i = 1; i <= importPipeline.getEcrivains(); i++) {
+                ecrivains.add(importPipeline.demarrer(libelle + "-ecriture-" + i, this::ecrireLots));
+            }
+        }
+
+        @Override
+        public void write(T entite, DeltaTracker.Empreinte empreinte) {
+            lot.add(entite);
+            empreintesLot.add(empreinte);
+            if (lot.size() >= chunkSize) {
+                envoyerLot();
+            }
+        }
+
+        @Override
+        public void update(T entite, DeltaTracker.Empreinte empreinte) {
+            miseAJour.add(entite);
+            empreintesMiseAJour.add(empreinte);
+            if (miseAJour.size() >= chunkSize) {
+                envoyer(miseAJour, empreintesMiseAJour, Collections.emptyList(), true);
+                miseAJour = new ArrayList<>(chunkSize);
+                empreintesMiseAJour = new ArrayList<>(chunkSize);
+            }
+        }
+
+        @Override
+        public void confirmer(DeltaTracker.Empreinte empreinte) {
+            if (empreinte != null) {
+                confirmees.add(empreinte);
+                if (confirmees.size() >= chunkSize) {
+                    envoyerLot();
+                }
+            }
+        }
+
+        private void envoyerLot() {
+            envoyer(lot, empreintesLot, confirmees, false);
+            lot = new ArrayList<>(chunkSize);
+            empreintesLot = new ArrayList<>(chunkSize);
+            confirmees = new ArrayList<>();
+        }
+
+        @Override
+        public void close() {
+            try {
+                envoyer(lot, empreintesLot, confirmees, false);
+                envoyer(miseAJour, empreintesMiseAJour, Collections.emptyList(), true);
+                // Un lot sans entités par thread d'écriture marque la fin du fichier
+                for (int i = 0; i < ecrivains.size(); i++) {
+                    lots.mettre(new Lot<>(-1, null, null, null, false, null));
+                }
+                for (Thread ecrivain : ecrivains) {
+                    ecrivain.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Écriture de " + libelle + " interrompue", e);
+            }
+            if (erreur == null) {
+                reprise.valider();
+            }
+            System.out.println(debit.rapport());
+            System.out.println(String.format(Locale.ROOT, "%s : %d thread(s) d'écriture, %s, ordre des reprises %.2f s",
+                    libelle, ecrivains.size(), lots.rapport(), nanosOrdre.sum() / 1_000_000_000d));
+            if (erreur != null) {
+                throw erreur;
+            }
+        }
+
+        /**
+         * Confie un lot aux threads d'écriture, en attendant qu'une place se libère dans la file des lots.
+         */
+        private void envoyer(List<T> entites, List<DeltaTracker.Empreinte> empreintes,
+                             List<DeltaTracker.Empreinte> confirmees, boolean miseAJourLot) {
+            if (erreur != null) {
+                throw erreur;
+            }
+            if (entites.isEmpty() && confirmees.isEmpty()) {
+                return;
+            }
+            try {
+                lots.mettre(new Lot<>(lotsEnvoyes++, entites, empreintes, confirmees, miseAJourLot, reprise.position()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Écriture de " + libelle + " interrompue", e);
+            }
+        }
+
+        /**
+         * Boucle d'un thread d'écriture : écrit les lots jusqu'au marqueur de fin.
+         */
+        private void ecrireLots() {
+            try {
+                Lot<T> suivant = lots.prendre();
+                while (suivant.entites != null) {
+                    boolean ecrit = false;
+                    try {
+                        if (suivant.miseAJour) {
+                            mettreAJourLot(suivant);
+                        } else {
+                            ecrireLot(suivant);
+                        }
+                        ecrit = true;
+                    } catch (RuntimeException e) {
+                        signaler(e);
+                    } finally {
+                        try {
+                            attendreTour(suivant);
+                            try {
+                                // Après un lot en échec, le point de reprise n'avance plus
+                                if (ecrit && erreur == null) {
+                                    reprise.valider(suivant.position);
+                                }
+                            } catch (RuntimeException e) {
+                                signaler(e);
+                            }
+                        } catch (RuntimeException e) {
+                            // Interrompu avant son tour : l'import échoue et ce thread d'écriture s'arrête
+                            signaler(e);
+                            throw e;
+                        } finally {
+                            // Même en échec ou interrompu, le lot doit céder son tour pour ne pas bloquer les suivants
+                            // (un lot interrompu peut passer avant les précédents : l'import est alors en échec)
+                            synchronized (ordre) {
+                                prochainAValider = Math.max(prochainAValider, suivant.numero + 1);
+                                ordre.notifyAll();
+                            }
+                        }
+                    }
+                    suivant = lots.prendre();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void signaler(RuntimeException e) {
+            if (erreur == null) {
+                erreur = e;
+            }
+        }
+
+        /**
+         * Attend, hors transaction, que les points de reprise de tous les lots précédents soient enregistrés.
+         */
+        private void attendreTour(Lot<T> courant) {
+            long debut = System.nanoTime();
+            synchronized (ordre) {
+                while (prochainAValider < courant.numero) {
+                    try {
+                        ordre.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Écriture de " + libelle + " interrompue", e);
+                    }
+                }
+            }
+            long duree = System.nanoTime() - debut;
+            nanosOrdre.add(duree);
+            attenteOrdre.record(duree, TimeUnit.NANOSECONDS);
+        }
+
+        private void ecrireLot(Lot<T> courant) {
+            try {
+                executer(transaction, debit, status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+                    for (T entite : courant.entites) {
+                        entityManager.persist(entite);
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                    deltaImport.enregistrer(courant.toutesLesEmpreintes());
+                });
+                debit.ecrites(courant.entites.size());
+            } catch (PersistenceException | DataAccessException e) {
+                // Une seule ligne invalide fait échouer tout le lot : on le rejoue ligne par ligne pour isoler les rejets
+                rejouerUneParUne(courant);
+            }
+        }
+
+        private void rejouerUneParUne(Lot<T> courant) {
+            for (int i = 0; i < courant.entites.size(); i++) {
+                T entite = courant.entites.get(i);
+                DeltaTracker.Empreinte empreinte = courant.empreintes.get(i);
+                try {
+                    executer(transaction, debit, status -> {
+                        reinitialiserIdentifiant(entite);
+                        entityManager.persist(entite);
+                        deltaImport.enregistrer(empreintes(empreinte));
+                    });
+                    debit.ecrites(1);
+                } catch (PersistenceException | DataAccessException e) {
+                    debit.rejetees(1);
+                }
+            }
+            if (!courant.confirmees.isEmpty()) {
+                executer(transaction, debit, status -> deltaImport.enregistrer(courant.confirmees));
+            }
+        }
+
+        private void mettreAJourLot(Lot<T> courant) {
+            List<T> entites = courant.entites;
+            try {
+                executer(transaction, debit, status -> {
+                    Session session = entityManager.unwrap(Session.class);
+                    session.setJdbcBatchSize(chunkSize);
+                    // Un seul SELECT ... IN pour tout le lot : merge() trouve ensuite les entités dans le contexte
+                    List<Object> ids = entites.stream().map(this::identifiant).collect(Collectors.toList());
+                    session.byMultipleIds(entites.get(0).getClass()).multiLoad(ids);
+                    for (T entite : entites) {
+                        entityManager.merge(entite);
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                    deltaImport.enregistrer(courant.toutesLesEmpreintes());
+                });
+                debit.ecrites(entites.size());
+            } catch (PersistenceException | DataAccessException e) {
+                for (int i = 0; i < entites.size(); i++) {
+                    T entite = entites.get(i);
+                    DeltaTracker.Empreinte empreinte = courant.empreintes.get(i);
+                    try {
+                        executer(transaction, debit, status -> {
+                            entityManager.merge(entite);
+                            deltaImport.enregistrer(empreintes(empreinte));
+                        });
+                        debit.ecrites(1);
+                    } catch (PersistenceException | DataAccessException rejet) {
+                        debit.rejetees(1);
+                    }
+                }
+            }
+        }
+
+        private Object identifiant(T entite) {
+            return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entite);
+        }
+
+        /**
+         * Efface l'identifiant alloué lors de la tentative d'écriture du lot annulée,
+         * afin que l'entité soit de nouveau considérée comme transiente.
+         */
+        private void reinitialiserIdentifiant(T entite) {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            session.getFactory().getMappingMetamodel()
+                    .getEntityDescriptor(entite.getClass())
+                    .setIdentifier(entite, null, session);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Colonne d'un fichier CSV : position, nom, codec et règles de validation.
+ * <p>
+ * Une colonne est immuable et peut être déclarée en constante partagée. Sa lecture
+ * ({@link #lire(CsvLine, CsvRejects)}) ne lève jamais d'exception : une cellule absente, blanche ou
+ * mal formée donne {@code null} et est comptabilisée dans les rejets du fichier.
+ * </p>
+ *
+ * @param <T> Le type de la valeur de la colonne.
+ */
+public final class CsvColumn<T> {
+
+    private final int index;
+    private final String nom;
+    private final FieldCodec<T> codec;
+    private final boolean obligatoire;
+    private final int longueurMax;
+
+    private CsvColumn(int index, String nom, FieldCodec<T> codec, boolean obligatoire, int longueurMax) {
+        this.index = index;
+        this.nom = nom;
+        this.codec = codec;
+        this.obligatoire = obligatoire;
+        this.longueurMax = longueurMax;
+    }
+
+    /**
+     * Déclare une colonne facultative, sans limite de longueur.
+     *
+     * @param index La position du champ dans la ligne, à partir de 0.
+     * @param nom   Le nom de la colonne, utilisé dans les rapports de rejets.
+     * @param codec Le codec de la colonne.
+     * @param <T>   Le type de la valeur de la colonne.
+     * @return La colonne.
+     */
+    public static <T> CsvColumn<T> of(int index, String nom, FieldCodec<T> codec) {
+        return new CsvColumn<>(index, nom, codec, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Rend la colonne obligatoire : une cellule absente ou blanche est comptée comme manquante.
+     *
+     * @return Une copie obligatoire de la colonne.
+     */
+    public CsvColumn<T> obligatoire() {
+        return new CsvColumn<>(index, nom, codec, true, longueurMax);
+    }
+
+    /**
+     * Tronque les valeurs plus longues que la colonne en base au lieu de laisser l'insertion échouer.
+     *
+     * @param longueur La longueur maximale, en caractères.
+     * @return Une copie de la colonne avec la règle de troncature.
+     */
+    public CsvColumn<T> tronquer(int longueur) {
+        return new CsvColumn<>(index, nom, codec, obligatoire, longueur);
+    }
+
+    /**
+     * Lit et décode la cellule de la ligne courante.
+     *
+     * @param ligne  La ligne lue.
+     * @param rejets Les compteurs de rejets du fichier.
+     * @return La valeur décodée, ou {@code null} si la cellule est absente, blanche ou invalide.
+     */
+    public T lire(CsvLine ligne, CsvRejects rejets) {
+        if (index >= ligne.fieldCount() || ligne.isBlank(index)) {
+            if (obligatoire) {
+                rejets.manquante(this);
+            }
+            return null;
+        }
+        CharSequence champ = ligne.field(index);
+        if (champ.length() > longueurMax) {
+            champ = champ.subSequence(0, longueurMax);
+            rejets.tronquee(this);
+        }
+        T valeur = codec.decode(champ);
+        if (valeur == null) {
+            rejets.invalide(this, ligne);
+        }
+        return valeur;
+    }
+
+    /**
+     * Obtient la position du champ dans la ligne.
+     *
+     * @return L'index du champ, à partir de 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Obtient le nom de la colonne.
+     *
+     * @return Le nom de la colonne.
+     */
+    public String getNom() {
+        return nom;
+    }
+}
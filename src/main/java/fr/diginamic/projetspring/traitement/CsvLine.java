@@ -0,0 +1,88 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Enregistrement d'un fichier CSV : champs, numéro de ligne et position dans le fichier.
+ * <p>
+ * Le {@link CsvReader} est lui-même l'enregistrement courant, valide jusqu'au prochain {@link CsvReader#next()} ;
+ * {@link CsvReader#copier()} en produit une copie indépendante du lecteur, qui peut être transmise à un autre
+ * thread (voir {@link ImportPipeline}).
+ * </p>
+ */
+public interface CsvLine {
+
+    /**
+     * Obtient le nombre de champs de l'enregistrement.
+     *
+     * @return Le nombre de champs.
+     */
+    int fieldCount();
+
+    /**
+     * Obtient le numéro (à partir de 1) de la dernière ligne physique de l'enregistrement.
+     *
+     * @return Le numéro de ligne dans le fichier.
+     */
+    long lineNumber();
+
+    /**
+     * Obtient la position en octets de la fin de l'enregistrement, c'est-à-dire du début du suivant.
+     *
+     * @return La position dans le fichier.
+     */
+    long position();
+
+    /**
+     * Indique si {@link #position()} est exacte, c'est-à-dire si le fichier lu jusqu'ici est de l'UTF-8 valide.
+     *
+     * @return {@code true} si la position peut servir à rouvrir le fichier.
+     */
+    boolean isPositionExacte();
+
+    /**
+     * Obtient une vue sur un champ de l'enregistrement.
+     *
+     * @param index L'index du champ, à partir de 0.
+     * @return La valeur du champ.
+     */
+    CharSequence field(int index);
+
+    /**
+     * Indique si un champ est vide ou ne contient que des espaces.
+     *
+     * @param index L'index du champ.
+     * @return {@code true} si le champ est blanc.
+     */
+    boolean isBlank(int index);
+
+    /**
+     * Obtient la valeur d'un champ sous forme de chaîne.
+     *
+     * @param index L'index du champ.
+     * @return Une chaîne contenant la valeur du champ.
+     */
+    String getString(int index);
+
+    /**
+     * Obtient la valeur d'un champ sans les espaces de début et de fin.
+     *
+     * @param index L'index du champ.
+     * @return Une chaîne contenant la valeur du champ, sans espaces autour.
+     */
+    String getTrimmed(int index);
+
+    /**
+     * Calcule une empreinte 64 bits (FNV-1a) de l'enregistrement.
+     * Deux enregistrements dont les champs sont identiques ont la même empreinte.
+     *
+     * @return L'empreinte de l'enregistrement.
+     */
+    long fingerprint();
+
+    /**
+     * Reconstitue l'enregistrement sous forme de texte, champs séparés par {@code ;}.
+     * Destiné aux messages de diagnostic.
+     *
+     * @return Le texte de l'enregistrement.
+     */
+    String currentLine();
+}
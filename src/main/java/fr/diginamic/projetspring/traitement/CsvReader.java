@@ -0,0 +1,564 @@
+package fr.diginamic.projetspring.traitement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lecteur CSV en flux, partagé par les composants d'importation.
+ * <p>
+ * Le fichier est lu par blocs à travers un {@link FileChannel} et décodé en UTF-8 dans des tampons
+ * réutilisés : la mémoire consommée dépend de la longueur de la plus longue ligne, pas de la taille
+ * du fichier. Chaque appel à {@link #next()} avance d'un enregistrement ; les champs sont exposés
+ * sous forme de vues ({@link #field(int)}) sur le tampon de la ligne courante, et une chaîne n'est
+ * allouée que lorsque l'appelant la demande explicitement ({@link #getString(int)}, {@link #getTrimmed(int)}).
+ * </p>
+ * <p>
+ * Règles de découpage :
+ * <ul>
+ * <li>les champs sont séparés par {@code ;} ;</li>
+ * <li>un champ commençant par {@code "} est cité : il peut contenir des {@code ;}, des retours à la ligne,
+ * et {@code ""} y représente un guillemet ; si le guillemet fermant est suivi d'autre chose qu'un séparateur
+ * ou une fin de ligne (ex : {@code "Maude" spin-off...}), les guillemets sont conservés tels quels ;</li>
+ * <li>un {@code ;} terminal (ex : {@code tt0082449;nm0410139;}) termine l'enregistrement sans ajouter de champ vide ;</li>
+ * <li>les lignes vides sont ignorées, les fins de ligne {@code \r\n} sont acceptées.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * La position en octets de la fin de l'enregistrement courant ({@link #position()}) permet de rouvrir le fichier
+ * au même endroit ({@link #open(Path, long, long)}), par exemple pour reprendre un import interrompu.
+ * </p>
+ * <p>
+ * Les vues renvoyées par {@link #field(int)} ne sont valides que jusqu'au prochain appel à {@link #next()} ;
+ * {@link #copier()} fige l'enregistrement courant. Une instance n'est pas thread-safe.
+ * </p>
+ */
+public final class CsvReader implements CsvLine, AutoCloseable {
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final char SEPARATEUR = ';';
+    private static final char GUILLEMET = '"';
+    private static final int FIN = -1;
+
+    private final FileChannel canal;
+    private final CharsetDecoder decodeur = StandardCharsets.UTF_8.newDecoder();
+    private final ByteBuffer octets = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+    private final CharBuffer caracteres = CharBuffer.allocate(TAILLE_TAMPON);
+    private boolean finCanal;
+    private int caractereRendu = FIN;
+    /** Octets du fichier correspondant aux caractères déjà lus (y compris le caractère rendu). */
+    private long octetsLus;
+    private boolean positionExacte = true;
+
+    /** Caractères de l'enregistrement courant, guillemets de citation retirés. */
+    private char[] ligne = new char[1024];
+    private int longueur;
+    private int[] debuts = new int[16];
+    private int[] fins = new int[16];
+    private int nbChamps;
+    private Champ[] vues = new Champ[16];
+    private long numeroLigne;
+
+    private CsvReader(FileChannel canal) {
+        this.canal = canal;
+        caracteres.flip();
+    }
+
+    /**
+     * Ouvre un fichier CSV encodé en UTF-8.
+     *
+     * @param chemin Le chemin du fichier.
+     * @return Un lecteur positionné avant le premier enregistrement.
+     * @throws IOException Si le fichier ne peut pas être ouvert.
+     */
+    public static CsvReader open(Path chemin) throws IOException {
+        CsvReader reader = new CsvReader(FileChannel.open(chemin, StandardOpenOption.READ));
+        reader.ignorerBom();
+        return reader;
+    }
+
+    /**
+     * Ouvre un fichier CSV encodé en UTF-8 à une position obtenue par {@link #position()}.
+     *
+     * @param chemin      Le chemin du fichier.
+     * @param position    La position en octets du début de l'enregistrement suivant.
+     * @param numeroLigne Le numéro de la dernière ligne physique lue avant cette position.
+     * @return Un lecteur positionné avant l'enregistrement qui suit la position.
+     * @throws IOException Si le fichier ne peut pas être ouvert.
+     */
+    public static CsvReader open(Path chemin, long position, long numeroLigne) throws IOException {
+        if (position == 0) {
+            return open(chemin);
+        }
+        FileChannel canal = FileChannel.open(chemin, StandardOpenOption.READ);
+        canal.position(position);
+        CsvReader reader = new CsvReader(canal);
+        reader.octetsLus = position;
+        reader.numeroLigne = numeroLigne;
+        return reader;
+    }
+
+    /**
+     * Avance jusqu'à l'enregistrement suivant.
+     *
+     * @return {@code true} si un enregistrement a été lu, {@code false} en fin de fichier.
+     * @throws IOException En cas d'erreur de lecture.
+     */
+    public boolean next() throws IOException {
+        do {
+            if (!lireEnregistrement()) {
+                return false;
+            }
+        } while (nbChamps == 0);
+        return true;
+    }
+
+    /**
+     * Obtient le nombre de champs de l'enregistrement courant.
+     *
+     * @return Le nombre de champs.
+     */
+    @Override
+    public int fieldCount() {
+        return nbChamps;
+    }
+
+    /**
+     * Obtient le numéro (à partir de 1) de la dernière ligne physique lue.
+     *
+     * @return Le numéro de ligne dans le fichier.
+     */
+    @Override
+    public long lineNumber() {
+        return numeroLigne;
+    }
+
+    /**
+     * Obtient la position en octets de la fin de l'enregistrement courant, c'est-à-dire du début du suivant.
+     *
+     * @return La position dans le fichier.
+     */
+    @Override
+    public long position() {
+        return caractereRendu == FIN ? octetsLus : octetsLus - octetsUtf8((char) caractereRendu);
+    }
+
+    /**
+     * Indique si {@link #position()} est exacte. Elle ne l'est plus dès qu'une séquence UTF-8 invalide
+     * a été remplacée par {@code U+FFFD} : la position ne peut alors plus servir à rouvrir le fichier.
+     *
+     * @return {@code true} si le fichier lu jusqu'ici est de l'UTF-8 valide.
+     */
+    @Override
+    public boolean isPositionExacte() {
+        return positionExacte;
+    }
+
+    /**
+     * Obtient une vue sur un champ de l'enregistrement courant, sans allocation de chaîne.
+     *
+     * @param index L'index du champ, à partir de 0.
+     * @return Une vue valide jusqu'au prochain appel à {@link #next()}.
+     */
+    @Override
+    public CharSequence field(int index) {
+        verifierIndex(index);
+        Champ vue = vues[index];
+        if (vue == null) {
+            vue = new Champ(index);
+            vues[index] = vue;
+        }
+        return vue;
+    }
+
+    /**
+     * Indique si un champ est vide ou ne contient que des espaces.
+     *
+     * @param index L'index du champ.
+     * @return {@code true} si le champ est blanc.
+     */
+    @Override
+    public boolean isBlank(int index) {
+        verifierIndex(index);
+        return blanc(ligne, debuts[index], fins[index]);
+    }
+
+    /**
+     * Obtient la valeur d'un champ sous forme de chaîne.
+     *
+     * @param index L'index du champ.
+     * @return Une nouvelle chaîne contenant la valeur du champ.
+     */
+    @Override
+    public String getString(int index) {
+        verifierIndex(index);
+        return new String(ligne, debuts[index], fins[index] - debuts[index]);
+    }
+
+    /**
+     * Obtient la valeur d'un champ sans les espaces de début et de fin.
+     *
+     * @param index L'index du champ.
+     * @return Une nouvelle chaîne contenant la valeur du champ, sans espaces autour.
+     */
+    @Override
+    public String getTrimmed(int index) {
+        verifierIndex(index);
+        return sansEspaces(ligne, debuts[index], fins[index]);
+    }
+
+    /**
+     * Calcule une empreinte 64 bits (FNV-1a) de l'enregistrement courant, sans allocation.
+     * Deux enregistrements dont les champs sont identiques ont la même empreinte.
+     *
+     * @return L'empreinte de l'enregistrement.
+     */
+    @Override
+    public long fingerprint() {
+        return empreinte(ligne, debuts, fins, nbChamps);
+    }
+
+    /**
+     * Reconstitue l'enregistrement courant sous forme de texte, champs séparés par {@code ;}.
+     * Destiné aux messages de diagnostic.
+     *
+     * @return Le texte de l'enregistrement.
+     */
+    @Override
+    public String currentLine() {
+        return texte(ligne, debuts, fins, nbChamps);
+    }
+
+    /**
+     * Copie l'enregistrement courant : la copie reste valide après les appels suivants à {@link #next()}
+     * et peut être lue depuis un autre thread.
+     *
+     * @return Une copie de l'enregistrement courant.
+     */
+    public CsvLine copier() {
+        int decalage = nbChamps == 0 ? 0 : debuts[0];
+        int fin = nbChamps == 0 ? 0 : fins[nbChamps - 1];
+        int[] debutsCopies = new int[nbChamps];
+        int[] finsCopies = new int[nbChamps];
+        for (int i = 0; i < nbChamps; i++) {
+            debutsCopies[i] = debuts[i] - decalage;
+            finsCopies[i] = fins[i] - decalage;
+        }
+        return new LigneCopiee(Arrays.copyOfRange(ligne, decalage, fin), debutsCopies, finsCopies,
+                numeroLigne, position(), positionExacte);
+    }
+
+    /**
+     * Ferme le fichier sous-jacent.
+     *
+     * @throws IOException En cas d'erreur à la fermeture.
+     */
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private boolean lireEnregistrement() throws IOException {
+        longueur = 0;
+        nbChamps = 0;
+        int debutChamp = 0;
+        boolean enCitation = false;
+        boolean apresSeparateur = false;
+        int c = lireCaractere();
+        if (c == FIN) {
+            return false;
+        }
+        numeroLigne++;
+        while (c != FIN) {
+            if (enCitation) {
+                if (c == GUILLEMET) {
+                    int suivant = lireCaractere();
+                    if (suivant == GUILLEMET) {
+                        ajouter(GUILLEMET);
+                    } else if (suivant == SEPARATEUR || suivant == '\n' || suivant == '\r' || suivant == FIN) {
+                        enCitation = false;
+                        rendre(suivant);
+                    } else {
+                        // Guillemet suivi de texte (ex : "Maude" spin-off...) : le champ n'était pas cité
+                        restaurerGuillemetOuvrant(debutChamp);
+                        ajouter(GUILLEMET);
+                        enCitation = false;
+                        rendre(suivant);
+                    }
+                } else {
+                    if (c == '\n') {
+                        numeroLigne++;
+                    }
+                    ajouter((char) c);
+                }
+            } else if (c == GUILLEMET && longueur == debutChamp) {
+                enCitation = true;
+                apresSeparateur = false;
+            } else if (c == SEPARATEUR) {
+                terminerChamp(debutChamp);
+                debutChamp = longueur;
+                apresSeparateur = true;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                ajouter((char) c);
+                apresSeparateur = false;
+            }
+            c = lireCaractere();
+        }
+        // Un séparateur terminal clôt l'enregistrement ; une ligne vide ne produit aucun champ
+        if (!apresSeparateur && (longueur > 0 || nbChamps > 0)) {
+            terminerChamp(debutChamp);
+        }
+        return true;
+    }
+
+    private void ajouter(char c) {
+        if (longueur == ligne.length) {
+            ligne = Arrays.copyOf(ligne, ligne.length * 2);
+        }
+        ligne[longueur++] = c;
+    }
+
+    private void restaurerGuillemetOuvrant(int debutChamp) {
+        ajouter(GUILLEMET);
+        System.arraycopy(ligne, debutChamp, ligne, debutChamp + 1, longueur - debutChamp - 1);
+        ligne[debutChamp] = GUILLEMET;
+    }
+
+    private void terminerChamp(int debutChamp) {
+        if (nbChamps == debuts.length) {
+            debuts = Arrays.copyOf(debuts, nbChamps * 2);
+            fins = Arrays.copyOf(fins, nbChamps * 2);
+            vues = Arrays.copyOf(vues, nbChamps * 2);
+        }
+        debuts[nbChamps] = debutChamp;
+        fins[nbChamps] = longueur;
+        nbChamps++;
+    }
+
+    private void verifierIndex(int index) {
+        if (index < 0 || index >= nbChamps) {
+            throw new IndexOutOfBoundsException("Champ " + index + " absent (ligne " + numeroLigne + ", " + nbChamps + " champs)");
+        }
+    }
+
+    private void rendre(int c) {
+        caractereRendu = c;
+    }
+
+    private int lireCaractere() throws IOException {
+        if (caractereRendu != FIN) {
+            int c = caractereRendu;
+            caractereRendu = FIN;
+            return c;
+        }
+        if (!caracteres.hasRemaining() && !remplir()) {
+            return FIN;
+        }
+        char c = caracteres.get();
+        octetsLus += octetsUtf8(c);
+        return c;
+    }
+
+    /**
+     * Longueur en UTF-8 d'un caractère ; chaque moitié d'une paire de substitution compte pour deux octets.
+     */
+    private static int octetsUtf8(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        return c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+    }
+
+    /**
+     * Décode le bloc d'octets suivant dans le tampon de caractères.
+     *
+     * @return {@code false} si la fin du fichier est atteinte et qu'il ne reste aucun caractère.
+     */
+    private boolean remplir() throws IOException {
+        caracteres.clear();
+        while (caracteres.position() == 0) {
+            if (!finCanal && canal.read(octets) < 0) {
+                finCanal = true;
+            }
+            octets.flip();
+            CoderResult resultat = decodeur.decode(octets, caracteres, finCanal);
+            if (resultat.isError() && caracteres.hasRemaining()) {
+                // Séquence invalide : remplacée par U+FFFD, dont la longueur ne correspond plus aux octets lus
+                octets.position(octets.position() + resultat.length());
+                caracteres.put('\uFFFD');
+                positionExacte = false;
+            }
+            octets.compact();
+            if (finCanal) {
+                // Après une séquence invalide, des octets restent à décoder : le décodeur ne doit pas encore être vidé
+                if (octets.position() == 0) {
+                    decodeur.flush(caracteres);
+                }
+                break;
+            }
+        }
+        caracteres.flip();
+        return caracteres.hasRemaining();
+    }
+
+    private static boolean blanc(char[] ligne, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            if (!Character.isWhitespace(ligne[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sansEspaces(char[] ligne, int debut, int fin) {
+        while (debut < fin && ligne[debut] <= ' ') {
+            debut++;
+        }
+        while (fin > debut && ligne[fin - 1] <= ' ') {
+            fin--;
+        }
+        return new String(ligne, debut, fin - debut);
+    }
+
+    private static long empreinte(char[] ligne, int[] debuts, int[] fins, int nbChamps) {
+        long empreinte = 0xcbf29ce484222325L;
+        for (int i = 0; i < nbChamps; i++) {
+            for (int j = debuts[i]; j < fins[i]; j++) {
+                empreinte = (empreinte ^ ligne[j]) * 0x100000001b3L;
+            }
+            empreinte = (empreinte ^ SEPARATEUR) * 0x100000001b3L;
+        }
+        return empreinte;
+    }
+
+    private static String texte(char[] ligne, int[] debuts, int[] fins, int nbChamps) {
+        StringBuilder texte = new StringBuilder(nbChamps == 0 ? 0 : fins[nbChamps - 1] - debuts[0] + nbChamps);
+        for (int i = 0; i < nbChamps; i++) {
+            if (i > 0) {
+                texte.append(SEPARATEUR);
+            }
+            texte.append(ligne, debuts[i], fins[i] - debuts[i]);
+        }
+        return texte.toString();
+    }
+
+    private void ignorerBom() throws IOException {
+        int premier = lireCaractere();
+        if (premier != '\uFEFF') {
+            rendre(premier);
+        }
+    }
+
+    /**
+     * Vue sur un champ de l'enregistrement courant.
+     */
+    private final class Champ implements CharSequence {
+
+        private final int index;
+
+        Champ(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return fins[index] - debuts[index];
+        }
+
+        @Override
+        public char charAt(int position) {
+            return ligne[debuts[index] + position];
+        }
+
+        @Override
+        public CharSequence subSequence(int debut, int fin) {
+            return CharBuffer.wrap(ligne, debuts[index] + debut, fin - debut);
+        }
+
+        @Override
+        public String toString() {
+            return getString(index);
+        }
+    }
+
+    /**
+     * Copie d'un enregistrement, détachée du tampon du lecteur.
+     */
+    private static final class LigneCopiee implements CsvLine {
+
+        private final char[] ligne;
+        private final int[] debuts;
+        private final int[] fins;
+        private final long numeroLigne;
+        private final long position;
+        private final boolean positionExacte;
+
+        LigneCopiee(char[] ligne, int[] debuts, int[] fins, long numeroLigne, long position, boolean positionExacte) {
+            this.ligne = ligne;
+            this.debuts = debuts;
+            this.fins = fins;
+            this.numeroLigne = numeroLigne;
+            this.position = position;
+            this.positionExacte = positionExacte;
+        }
+
+        @Override
+        public int fieldCount() {
+            return debuts.length;
+        }
+
+        @Override
+        public long lineNumber() {
+            return numeroLigne;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public boolean isPositionExacte() {
+            return positionExacte;
+        }
+
+        @Override
+        public CharSequence field(int index) {
+            return CharBuffer.wrap(ligne, debuts[index], fins[index] - debuts[index]);
+        }
+
+        @Override
+        public boolean isBlank(int index) {
+            return blanc(ligne, debuts[index], fins[index]);
+        }
+
+        @Override
+        public String getString(int index) {
+            return new String(ligne, debuts[index], fins[index] - debuts[index]);
+        }
+
+        @Override
+        public String getTrimmed(int index) {
+            return sansEspaces(ligne, debuts[index], fins[index]);
+        }
+
+        @Override
+        public long fingerprint() {
+            return empreinte(ligne, debuts, fins, debuts.length);
+        }
+
+        @Override
+        public String currentLine() {
+            return texte(ligne, debuts, fins, debuts.length);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package fr.diginamic.projetspring.traitement;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compteurs des lignes et cellules rejetées lors de la lecture d'un fichier selon son {@link CsvSchema}.
+ * <p>
+ * Les compteurs sont atomiques : une même instance peut être alimentée par plusieurs threads d'analyse.
+ * Chaque ligne rejetée et chaque cellule invalide est en outre signalée à une {@link Destination}
+ * (ex : {@link ImportProgress}, qui les recopie dans le fichier des rejets).
+ * </p>
+ */
+public final class CsvRejects {
+
+    /**
+     * Reçoit les rejets au fil de la lecture, avec la ligne concernée.
+     */
+    public interface Destination {
+
+        /** Aucune destination : les rejets sont seulement comptés. */
+        Destination AUCUNE = new Destination() {
+            @Override
+            public void ligneRejetee(CsvLine ligne, String motif) {
+            }
+
+            @Override
+            public void celluleInvalide(CsvLine ligne, CsvColumn<?> colonne) {
+            }
+        };
+
+        /**
+         * Signale une ligne écartée de l'import.
+         *
+         * @param ligne La ligne rejetée.
+         * @param motif La raison du rejet.
+         */
+        void ligneRejetee(CsvLine ligne, String motif);
+
+        /**
+         * Signale une cellule dont la valeur n'a pas pu être décodée ; la ligne est conservée sans cette valeur.
+         *
+         * @param ligne   La ligne de la cellule.
+         * @param colonne La colonne de la cellule.
+         */
+        void celluleInvalide(CsvLine ligne, CsvColumn<?> colonne);
+    }
+
+    private final CsvSchema schema;
+    private final Destination destination;
+    private final AtomicLongArray manquantes;
+    private final AtomicLongArray invalides;
+    private final AtomicLongArray tronquees;
+    private final AtomicLong lignesRejetees = new AtomicLong();
+
+    CsvRejects(CsvSchema schema, Destination destination) {
+        this.schema = schema;
+        this.destination = destination;
+        int taille = schema.indexMax() + 1;
+        this.manquantes = new AtomicLongArray(taille);
+        this.invalides = new AtomicLongArray(taille);
+        this.tronquees = new AtomicLongArray(taille);
+    }
+
+    void manquante(CsvColumn<?> colonne) {
+        manquantes.incrementAndGet(colonne.getIndex());
+    }
+
+    void invalide(CsvColumn<?> colonne, CsvLine ligne) {
+        invalides.incrementAndGet(colonne.getIndex());
+        destination.celluleInvalide(ligne, colonne);
+    }
+
+    void tronquee(CsvColumn<?> colonne) {
+        tronquees.incrementAndGet(colonne.getIndex());
+    }
+
+    /**
+     * Comptabilise une ligne écartée de l'import (colonne obligatoire manquante, ligne incomplète,
+     * référence inconnue).
+     *
+     * @param ligne La ligne rejetée.
+     * @param motif La raison du rejet.
+     */
+    public void ligneRejetee(CsvLine ligne, String motif) {
+        lignesRejetees.incrementAndGet();
+        destination.ligneRejetee(ligne, motif);
+    }
+
+    /**
+     * Comptabilise une ligne écartée après sa lecture, sans lecteur positionné sur la ligne
+     * (ex : référence inconnue constatée en base lors du chargement natif).
+     */
+    void compterLigneRejetee() {
+        lignesRejetees.incrementAndGet();
+    }
+
+    /**
+     * Obtient le nombre de lignes écartées.
+     *
+     * @return Le nombre de lignes rejetées.
+     */
+    public long getLignesRejetees() {
+        return lignesRejetees.get();
+    }
+
+    /**
+     * Obtient le nombre de cellules invalides d'une colonne.
+     *
+     * @param colonne La colonne.
+     * @return Le nombre de cellules dont la valeur n'a pas pu être décodée.
+     */
+    public long getInvalides(CsvColumn<?> colonne) {
+        return invalides.get(colonne.getIndex());
+    }
+
+    /**
+     * Construit le rapport des rejets, une ligne par fichier, limité aux colonnes concernées.
+     *
+     * @return Le rapport, ex : {@code films.csv : 0 ligne(s) rejetée(s) ; anneeSortie : 102 invalide(s)}.
+     */
+    public String rapport() {
+        StringBuilder rapport = new StringBuilder(schema.getFichier())
+                .append(" : ").append(lignesRejetees.get()).append(" ligne(s) rejetée(s)");
+        for (CsvColumn<?> colonne : schema.getColonnes()) {
+            int index = colonne.getIndex();
+            if (manquantes.get(index) + invalides.get(index) + tronquees.get(index) > 0) {
+                rapport.append(" ; ").append(colonne.getNom()).append(" :");
+                ajouter(rapport, manquantes.get(index), "manquante(s)");
+                ajouter(rapport, invalides.get(index), "invalide(s)");
+                ajouter(rapport, tronquees.get(index), "tronquée(s)");
+            }
+        }
+        return rapport.toString();
+    }
+
+    private static void ajouter(StringBuilder rapport, long nombre, String libelle) {
+        if (nombre > 0) {
+            rapport.append(' ').append(nombre).append(' ').append(libelle);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fr.diginamic.projetspring.traitement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Schéma déclaratif d'un fichier CSV : la liste de ses colonnes typées.
+ * <p>
+ * Chaque import déclare le schéma de son fichier en constantes ({@link CsvColumn}), puis lit chaque
+ * ligne colonne par colonne. Le schéma est immuable ; les compteurs de rejets d'une exécution sont
+ * créés par {@link #rejets()}.
+ * </p>
+ */
+public final class CsvSchema {
+
+    private final String fichier;
+    private final List<CsvColumn<?>> colonnes;
+
+    /**
+     * Déclare le schéma d'un fichier.
+     *
+     * @param fichier  Le nom du fichier CSV.
+     * @param colonnes Les colonnes lues par l'import, chacune à une position distincte.
+     */
+    public CsvSchema(String fichier, CsvColumn<?>... colonnes) {
+        this.fichier = fichier;
+        this.colonnes = Collections.unmodifiableList(Arrays.asList(colonnes));
+    }
+
+    /**
+     * Crée les compteurs de rejets d'une exécution de l'import.
+     *
+     * @return Des compteurs à zéro.
+     */
+    public CsvRejects rejets() {
+        return new CsvRejects(this, CsvRejects.Destination.AUCUNE);
+    }
+
+    /**
+     * Crée les compteurs de rejets d'une exécution de l'import, en signalant chaque rejet à une destination.
+     *
+     * @param destination La destination des rejets.
+     * @return Des compteurs à zéro.
+     */
+    public CsvRejects rejets(CsvRejects.Destination destination) {
+        return new CsvRejects(this, destination);
+    }
+
+    /**
+     * Obtient le nom du fichier décrit.
+     *
+     * @return Le nom du fichier.
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Obtient les colonnes du fichier.
+     *
+     * @return Les colonnes, dans l'ordre de déclaration.
+     */
+    public List<CsvColumn<?>> getColonnes() {
+        return colonnes;
+    }
+
+    /**
+     * Obtient la position la plus élevée parmi les colonnes déclarées.
+     *
+     * @return L'index de champ maximal.
+     */
+    int indexMax() {
+        int max = 0;
+        for (CsvColumn<?> colonne : colonnes) {
+            max = Math.max(max, colonne.getIndex());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,175 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Clés déjà rencontrées pendant l'import d'un fichier, pour en écarter les doublons.
+ * <p>
+ * Les clés sont des {@code long} : identifiant IMDB codé par {@link ImdbIds#encoder(CharSequence)}, ou couple
+ * d'identifiants codé par {@link ImdbIdResolver#paire(int, int)}. Elles sont conservées dans un
+ * {@link LongHashSet} ; seuls les identifiants IMDB de forme inhabituelle, qui ne peuvent pas être codés,
+ * sont conservés sous forme de chaînes.
+ * </p>
+ * <p>
+ * Avec une présélection ({@link DedupSets}, {@code import.dedup.bloom=true}), seules les clés
+ * <em>candidates</em> (vues au moins deux fois par le filtre de Bloom lors d'une première lecture du
+ * fichier) sont conservées : une clé non candidate est unique dans le fichier.
+ * </p>
+ * <p>
+ * Lorsque les clés d'un fichier ne tiennent pas dans le budget mémoire, les doublons sont repérés à l'avance par
+ * tri externe ({@link ExternalSortDedup}) : l'ensemble ne conserve alors aucune clé et répond d'après le numéro de
+ * la ligne ({@link #ajouter(long, CsvLine)}). Il doit être fermé pour supprimer les fichiers temporaires.
+ * </p>
+ */
+public final class DedupSet implements AutoCloseable {
+
+    /**
+     * Calcul de la clé d'une ligne, pour la présélection.
+     */
+    public interface Cle {
+
+        /**
+         * Calcule la clé d'une ligne.
+         *
+         * @param ligne  La ligne lue.
+         * @param rejets Des compteurs de rejets à passer aux lectures de colonnes.
+         * @return La clé de la ligne, ou {@link ImdbIds#INVALIDE} si elle n'en a pas.
+         */
+        long calculer(CsvLine ligne, CsvRejects rejets);
+    }
+
+    private final LongHashSet vues;
+    private final LongHashSet candidates;
+    private final ExternalSortDedup.Doublons doublons;
+    private Set<String> nonCodees;
+
+    DedupSet(int attendues, LongHashSet candidates) {
+        this.vues = new LongHashSet(candidates != null ? candidates.size() : attendues);
+        this.candidates = candidates;
+        this.doublons = null;
+    }
+
+    DedupSet(ExternalSortDedup.Doublons doublons) {
+        this.vues = new LongHashSet(0);
+        this.candidates = null;
+        this.doublons = doublons;
+    }
+
+    /**
+     * Crée un ensemble sans présélection.
+     *
+     * @param attendues Le nombre de clés attendues.
+     * @return Un ensemble vide.
+     */
+    public static DedupSet exact(int attendues) {
+        return new DedupSet(attendues, null);
+    }
+
+    /**
+     * Enregistre une clé.
+     *
+     * @param cle La clé (jamais {@link ImdbIds#INVALIDE}).
+     * @return {@code true} à la première rencontre de la clé, {@code false} pour un doublon.
+     */
+    public boolean ajouter(long cle) {
+        if (candidates != null && !candidates.contains(cle)) {
+            return true;
+        }
+        return vues.add(cle);
+    }
+
+    /**
+     * Enregistre la clé d'une ligne, en tenant compte d'un éventuel tri externe. Les lignes doivent être
+     * présentées dans l'ordre du fichier.
+     *
+     * @param cle   La clé (jamais {@link ImdbIds#INVALIDE}).
+     * @param ligne La ligne dont la clé est issue.
+     * @return {@code true} à la première rencontre de la clé, {@code false} pour un doublon.
+     */
+    public boolean ajouter(long cle, CsvLine ligne) {
+        if (doublons != null) {
+            return !doublons.contient(ligne.lineNumber());
+        }
+        return ajouter(cle);
+    }
+
+    /**
+     * Enregistre un identifiant IMDB.
+     *
+     * @param idIMDB L'identifiant IMDB.
+     * @return {@code true} à la première rencontre de l'identifiant, {@code false} pour un doublon.
+     */
+    public boolean ajouter(String idIMDB) {
+        long cle = ImdbIds.encoder(idIMDB);
+        if (cle != ImdbIds.INVALIDE) {
+            return ajouter(cle);
+        }
+        if (nonCodees == null) {
+            nonCodees = new HashSet<>();
+        }
+        return nonCodees.add(idIMDB);
+    }
+
+    /**
+     * Enregistre un couple d'identifiants IMDB de préfixes connus (voir {@link ImdbIds#paire(CharSequence, String, CharSequence, String)}).
+     *
+     * @param premier        Le premier identifiant (ex : l'acteur).
+     * @param prefixePremier Le préfixe attendu du premier identifiant.
+     * @param second         Le second identifiant (ex : le film).
+     * @param prefixeSecond  Le préfixe attendu du second identifiant.
+     * @param ligne          La ligne dont le couple est issu.
+     * @return {@code true} à la première rencontre du couple, {@code false} pour un doublon.
+     */
+    public boolean ajouter(String premier, String prefixePremier, String second, String prefixeSecond, CsvLine ligne) {
+        long cle = ImdbIds.paire(premier, prefixePremier, second, prefixeSecond);
+        if (cle != ImdbIds.INVALIDE) {
+            return ajouter(cle, ligne);
+        }
+        if (nonCodees == null) {
+            nonCodees = new HashSet<>();
+        }
+        return nonCodees.add(premier + "_" + second);
+    }
+
+    /**
+     * Enregistre des identifiants IMDB déjà connus (ex : déjà en base), sans les compter comme doublons.
+     *
+     * @param idsIMDB Les identifiants IMDB.
+     */
+    public void ajouterTous(Collection<String> idsIMDB) {
+        for (String idIMDB : idsIMDB) {
+            if (idIMDB != null) {
+                ajouter(idIMDB);
+            }
+        }
+    }
+
+    /**
+     * Obtient la mémoire occupée par les clés.
+     *
+     * @return Le nombre d'octets des tables de clés (hors clés non codées).
+     */
+    public long octets() {
+        return vues.octets() + (candidates != null ? candidates.octets() : 0);
+    }
+
+    /**
+     * Supprime les fichiers temporaires du tri externe, s'il y en a.
+     */
+    @Override
+    public void close() {
+        if (doublons != null) {
+            try {
+                doublons.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
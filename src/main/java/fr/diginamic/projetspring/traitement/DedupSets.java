@@ -0,0 +1,164 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Création des ensembles de dédoublonnage ({@link DedupSet}) des imports.
+ * <p>
+ * Par défaut ({@code import.dedup.bloom=false}), toutes les clés du fichier sont conservées, à raison
+ * de 16 octets par clé au plus. Pour les très gros fichiers, {@code import.dedup.bloom=true} ajoute une
+ * présélection : une première lecture du fichier fait passer chaque clé par un filtre de Bloom (environ
+ * 10 bits par clé), et seules les clés qu'il signale comme déjà vues (vrais doublons et environ 1 % de faux
+ * positifs) sont ensuite suivies exactement. La mémoire dépend alors du nombre de doublons plutôt que du
+ * nombre de lignes, au prix d'une seconde lecture du fichier.
+ * </p>
+ * <p>
+ * Pour les fichiers d'associations (rôles, réalisateurs des films), dont les clés sont les plus nombreuses,
+ * le nombre de clés est estimé d'après la taille du fichier et la longueur des premières lignes : s'il dépasse
+ * le budget {@code import.dedup.memoire}, les doublons sont repérés par tri externe ({@link ExternalSortDedup})
+ * dans {@code import.dedup.repertoire}, en mémoire bornée par ce même budget.
+ * </p>
+ */
+@Component
+public class DedupSets {
+
+    private static final double FAUX_POSITIFS = 0.01;
+    /** Longueur minimale d'une ligne, pour estimer le nombre de clés d'après la taille du fichier. */
+    private static final int OCTETS_PAR_LIGNE_MIN = 16;
+    /** Place occupée par une clé dans un {@link LongHashSet}, au plus. */
+    private static final int OCTETS_PAR_CLE = 16;
+    /** Place occupée par un couple (clé, ligne) dans le tampon du tri externe. */
+    private static final int OCTETS_PAR_COUPLE = 16;
+    private static final int LIGNES_ECHANTILLON = 1000;
+    private static final int COUPLES_PAR_SEGMENT_MIN = 1024;
+
+    @Value("${import.dedup.bloom:false}")
+    private boolean bloom;
+
+    @Value("${import.dedup.memoire:256MB}")
+    private DataSize memoire;
+
+    @Value("${import.dedup.repertoire:${java.io.tmpdir}}")
+    private String repertoire;
+
+    /**
+     * Crée l'ensemble de dédoublonnage d'un fichier d'associations, trié sur disque si ses clés dépassent
+     * le budget mémoire. L'ensemble est à consulter par {@link DedupSet#ajouter(long, CsvLine)} et à fermer
+     * après l'import.
+     *
+     * @param schema  Le schéma du fichier.
+     * @param reprise Le point de reprise du fichier, qui fournit le lecteur de la présélection ou du tri.
+     * @param cle     Le calcul de la clé d'une ligne, le même que celui de l'import.
+     * @return Un ensemble vide, ou les doublons repérés par le tri externe.
+     */
+    public DedupSet ouvrir(CsvSchema schema, ImportCheckpoint reprise, DedupSet.Cle cle) {
+        long attendues = estimerLignes(reprise);
+        if (attendues * OCTETS_PAR_CLE > memoire.toBytes()) {
+            int couplesParSegment = (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(COUPLES_PAR_SEGMENT_MIN, memoire.toBytes() / OCTETS_PAR_COUPLE));
+            try (CsvReader lecteur = reprise.ouvrirLecteur()) {
+                ExternalSortDedup.Doublons doublons = ExternalSortDedup.trier(lecteur, cle, schema.rejets(),
+                        couplesParSegment, Paths.get(repertoire));
+                System.out.println(String.format(Locale.ROOT, "%s : environ %d clé(s) pour un budget de %d Ko, %s",
+                        schema.getFichier(), attendues, memoire.toKilobytes(), doublons.rapport()));
+                return new DedupSet(doublons);
+            } catch (IOException e) {
+                System.out.println(schema.getFichier() + " : tri externe impossible (" + e.getMessage()
+                        + "), dédoublonnage en mémoire");
+            }
+        }
+        return ouvrir(schema, reprise, Collections.<String>emptyList(), cle);
+    }
+
+    /**
+     * Crée l'ensemble de dédoublonnage d'un fichier dont certaines clés sont déjà connues.
+     *
+     * @param schema     Le schéma du fichier.
+     * @param reprise    Le point de reprise du fichier, qui fournit le lecteur de la présélection.
+     * @param dejaEnBase Les identifiants IMDB déjà en base, à écarter comme des doublons.
+     * @param cle        Le calcul de la clé d'une ligne, le même que celui de l'import.
+     * @return Un ensemble contenant les identifiants déjà en base.
+     */
+    public DedupSet ouvrir(CsvSchema schema, ImportCheckpoint reprise, Collection<String> dejaEnBase, DedupSet.Cle cle) {
+        DedupSet dedup;
+        if (bloom) {
+            dedup = new DedupSet(0, preselectionner(schema, reprise, dejaEnBase, cle));
+        } else {
+            dedup = DedupSet.exact(dejaEnBase.size());
+        }
+        dedup.ajouterTous(dejaEnBase);
+        return dedup;
+    }
+
+    /**
+     * Estime le nombre de lignes restant à lire d'après la taille du fichier et la longueur des premières lignes.
+     *
+     * @return Le nombre de lignes estimé, 0 si le fichier ne peut pas être lu (l'erreur sera signalée par l'import).
+     */
+    private long estimerLignes(ImportCheckpoint reprise) {
+        try (CsvReader lecteur = reprise.ouvrirLecteur()) {
+            long debut = lecteur.position();
+            long lignes = 0;
+            while (lignes < LIGNES_ECHANTILLON && lecteur.next()) {
+                lignes++;
+            }
+            long octets = lecteur.position() - debut;
+            if (lignes < LIGNES_ECHANTILLON || octets <= 0) {
+                // Fichier entièrement lu : le compte est exact
+                return lignes;
+            }
+            return (Files.size(reprise.getChemin()) - debut) * lignes / octets;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Lit une première fois le fichier et renvoie les clés signalées comme déjà vues par le filtre de Bloom.
+     */
+    private LongHashSet preselectionner(CsvSchema schema, ImportCheckpoint reprise, Collection<String> dejaEnBase,
+                                        DedupSet.Cle cle) {
+        long attendues;
+        try {
+            attendues = Files.size(reprise.getChemin()) / OCTETS_PAR_LIGNE_MIN + dejaEnBase.size();
+        } catch (IOException e) {
+            // Fichier illisible : l'erreur sera signalée par l'import
+            return null;
+        }
+        BloomFilter filtre = new BloomFilter(attendues, FAUX_POSITIFS);
+        LongHashSet candidates = new LongHashSet(0);
+        for (String idIMDB : dejaEnBase) {
+            long code = ImdbIds.encoder(idIMDB);
+            if (code != ImdbIds.INVALIDE) {
+                filtre.ajouter(code);
+            }
+        }
+        CsvRejects rejets = schema.rejets();
+        long lignes = 0;
+        try (CsvReader lecteur = reprise.ouvrirLecteur()) {
+            while (lecteur.next()) {
+                lignes++;
+                long code = cle.calculer(lecteur, rejets);
+                if (code != ImdbIds.INVALIDE && filtre.ajouter(code)) {
+                    candidates.add(code);
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        System.out.println(String.format(Locale.ROOT, "%s : présélection de Bloom, %d clé(s) candidate(s) sur %d ligne(s) (filtre %d Ko)",
+                schema.getFichier(), candidates.size(), lignes, filtre.octets() / 1024));
+        return candidates;
+    }
+}
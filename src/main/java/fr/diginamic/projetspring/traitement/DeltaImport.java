@@ -0,0 +1,87 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point d'entrée de l'import différentiel ({@code import.delta=true}).
+ * <p>
+ * Pour chaque fichier, les empreintes des lignes importées lors du précédent passage sont conservées
+ * dans la table {@code import_empreinte}. Un nouvel import ne réécrit alors que les lignes nouvelles
+ * ou dont l'empreinte a changé, et peut supprimer ({@code import.delta.suppression=true}) les lignes
+ * qui ont disparu du fichier : le coût d'un import quotidien dépend du volume de changements, pas de
+ * la taille du jeu de données.
+ * </p>
+ * <p>
+ * Lorsque l'import différentiel est désactivé, {@link #ouvrir(String)} renvoie un suivi neutre qui
+ * classe toutes les lignes comme nouvelles.
+ * </p>
+ */
+@Component
+public class DeltaImport {
+
+    static final String SQL_CHARGER = "SELECT cle, empreinte FROM import_empreinte WHERE fichier = ?";
+    static final String SQL_ENREGISTRER = "INSERT INTO import_empreinte (fichier, cle, empreinte) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE empreinte = VALUES(empreinte)";
+    static final String SQL_SUPPRIMER = "DELETE FROM import_empreinte WHERE fichier = ? AND cle = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${import.delta:false}")
+    private boolean actif;
+
+    @Value("${import.delta.suppression:false}")
+    private boolean suppression;
+
+    /**
+     * Indique si l'import différentiel est activé.
+     *
+     * @return {@code true} si seules les lignes nouvelles ou modifiées doivent être écrites.
+     */
+    public boolean isActif() {
+        return actif;
+    }
+
+    /**
+     * Ouvre le suivi différentiel d'un fichier, en chargeant les empreintes du précédent import.
+     *
+     * @param fichier Le nom du fichier CSV.
+     * @return Le suivi du fichier, à fermer en fin d'import pour afficher son bilan.
+     */
+    public DeltaTracker ouvrir(String fichier) {
+        if (!actif) {
+            return DeltaTracker.inactif(fichier);
+        }
+        Map<String, Long> empreintes = new HashMap<>();
+        jdbcTemplate.query(SQL_CHARGER, ligne -> {
+            empreintes.put(ligne.getString(1), ligne.getLong(2));
+        }, fichier);
+        return new DeltaTracker(fichier, empreintes, suppression, jdbcTemplate);
+    }
+
+    /**
+     * Enregistre des empreintes en une requête {@code INSERT ... ON DUPLICATE KEY UPDATE}, dans la transaction
+     * en cours : celle qui écrit les lignes correspondantes.
+     *
+     * @param empreintes Les empreintes des lignes écrites.
+     */
+    void enregistrer(Collection<DeltaTracker.Empreinte> empreintes) {
+        if (empreintes.isEmpty()) {
+            return;
+        }
+        List<Object[]> lignes = new ArrayList<>(empreintes.size());
+        for (DeltaTracker.Empreinte empreinte : empreintes) {
+            lignes.add(empreinte.parametres());
+        }
+        jdbcTemplate.batchUpdate(SQL_ENREGISTRER, lignes);
+    }
+}
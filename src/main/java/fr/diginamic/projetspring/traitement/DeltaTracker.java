@@ -0,0 +1,174 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suivi différentiel d'un fichier CSV au cours d'un import.
+ * <p>
+ * Chaque ligne est classée d'après sa clé métier et l'empreinte de son contenu
+ * ({@link CsvReader#fingerprint()}) : nouvelle, modifiée ou inchangée. Les clés du précédent import qui ne
+ * sont pas revues avant la fin du fichier sont les lignes disparues ({@link #disparues()}).
+ * </p>
+ * <p>
+ * Le suivi n'écrit pas lui-même les empreintes des lignes nouvelles et modifiées : chacune ({@link #empreinte(String, long)})
+ * accompagne son entité jusqu'à l'{@link ImportWriter}, qui l'enregistre dans la transaction où il écrit la ligne.
+ * Une ligne rejetée ou un lot annulé ne laisse donc pas en base une empreinte qui la ferait passer pour à jour.
+ * </p>
+ * <p>
+ * Une instance n'est pas thread-safe : elle est utilisée par l'import d'un seul fichier.
+ * </p>
+ */
+public class DeltaTracker implements AutoCloseable {
+
+    /**
+     * Classement d'une ligne par rapport au précédent import.
+     */
+    public enum Statut {
+        /** Ligne absente de la base : à insérer. */
+        NOUVELLE,
+        /** Ligne présente en base dont le contenu a changé (ou n'a jamais été comparé) : à mettre à jour. */
+        MODIFIEE,
+        /** Ligne identique à celle du précédent import : rien à écrire. */
+        INCHANGEE
+    }
+
+    /**
+     * Empreinte d'une ligne nouvelle ou modifiée, à enregistrer avec l'écriture de son entité.
+     */
+    public static final class Empreinte {
+
+        private final String fichier;
+        private final String cle;
+        private final long valeur;
+
+        Empreinte(String fichier, String cle, long valeur) {
+            this.fichier = fichier;
+            this.cle = cle;
+            this.valeur = valeur;
+        }
+
+        /**
+         * Paramètres de la requête {@link DeltaImport#SQL_ENREGISTRER}.
+         */
+        Object[] parametres() {
+            return new Object[]{fichier, cle, valeur};
+        }
+    }
+
+    private final String fichier;
+    private final Map<String, Long> empreintes;
+    private final boolean suppression;
+    private final JdbcTemplate jdbcTemplate;
+    private long nouvelles;
+    private long modifiees;
+    private long inchangees;
+
+    DeltaTracker(String fichier, Map<String, Long> empreintes, boolean suppression, JdbcTemplate jdbcTemplate) {
+        this.fichier = fichier;
+        this.empreintes = empreintes;
+        this.suppression = suppression;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crée un suivi neutre, utilisé lorsque l'import différentiel est désactivé.
+     */
+    static DeltaTracker inactif(String fichier) {
+        return new DeltaTracker(fichier, null, false, null);
+    }
+
+    /**
+     * Indique si ce suivi compare réellement les lignes au précédent import.
+     *
+     * @return {@code false} pour un suivi neutre.
+     */
+    public boolean isActif() {
+        return empreintes != null;
+    }
+
+    /**
+     * Classe une ligne du fichier. L'empreinte d'une ligne nouvelle ou modifiée n'est enregistrée qu'avec son
+     * écriture : voir {@link #empreinte(String, long)}.
+     *
+     * @param cle          La clé métier de la ligne.
+     * @param empreinte    L'empreinte du contenu de la ligne.
+     * @param existeEnBase {@code true} si l'entité correspondant à la clé est déjà en base.
+     * @return Le statut de la ligne ; toujours {@link Statut#NOUVELLE} pour un suivi neutre.
+     */
+    public Statut classer(String cle, long empreinte, boolean existeEnBase) {
+        if (!isActif()) {
+            return Statut.NOUVELLE;
+        }
+        Long precedente = empreintes.remove(cle);
+        if (!existeEnBase) {
+            nouvelles++;
+            return Statut.NOUVELLE;
+        } else if (precedente == null || precedente != empreinte) {
+            // Sans empreinte (premier import différentiel), la ligne ne peut pas être comparée : elle est réécrite
+            modifiees++;
+            return Statut.MODIFIEE;
+        }
+        inchangees++;
+        return Statut.INCHANGEE;
+    }
+
+    /**
+     * Construit l'empreinte d'une ligne nouvelle ou modifiée, à confier à l'{@link ImportWriter} avec son entité
+     * ({@link ImportWriter#write(Object, Empreinte)}, {@link ImportWriter#update(Object, Empreinte)}), ou seule
+     * lorsque la ligne est déjà à jour en base ({@link ImportWriter#confirmer(Empreinte)}).
+     *
+     * @param cle       La clé métier de la ligne.
+     * @param empreinte L'empreinte du contenu de la ligne.
+     * @return L'empreinte, ou {@code null} pour un suivi neutre.
+     */
+    public Empreinte empreinte(String cle, long empreinte) {
+        return isActif() ? new Empreinte(fichier, cle, empreinte) : null;
+    }
+
+    /**
+     * Obtient les clés des lignes présentes lors du précédent import et absentes de celui-ci.
+     * Significatif une fois tout le fichier lu.
+     *
+     * @return Les clés des lignes disparues, ou une collection vide si la suppression n'est pas demandée.
+     */
+    public Collection<String> disparues() {
+        if (!isActif() || !suppression) {
+            return Collections.emptyList();
+        }
+        return empreintes.keySet();
+    }
+
+    /**
+     * Oublie les empreintes des lignes disparues si leur suppression est demandée. À appeler une fois leurs
+     * entités supprimées : en cas d'échec, les lignes restent disparues au prochain import.
+     */
+    public void oublierDisparues() {
+        if (!isActif() || !suppression || empreintes.isEmpty()) {
+            return;
+        }
+        List<Object[]> cles = new ArrayList<>(empreintes.size());
+        for (String cle : empreintes.keySet()) {
+            cles.add(new Object[]{fichier, cle});
+        }
+        jdbcTemplate.batchUpdate(DeltaImport.SQL_SUPPRIMER, cles);
+    }
+
+    /**
+     * Affiche le bilan du suivi.
+     */
+    @Override
+    public void close() {
+        if (!isActif()) {
+            return;
+        }
+        System.out.println("Delta " + fichier + " : " + nouvelles + " nouvelle(s), " + modifiees + " modifiée(s), "
+                + inchangees + " inchangée(s), " + empreintes.size() + " disparue(s)"
+                + (suppression ? " supprimée(s)" : ""));
+    }
+}
@@ -0,0 +1,373 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Dédoublonnage par tri externe, pour les fichiers dont les clés ne tiennent pas en mémoire.
+ * <p>
+ * Une première lecture du fichier range les couples (clé, numéro de ligne) dans un tampon de taille bornée,
+ * trié puis écrit sur disque (segment) chaque fois qu'il est plein. La fusion des segments, triés par clé
+ * puis par ligne, parcourt les occurrences de chaque clé dans l'ordre du fichier : toutes sauf la première
+ * sont des doublons, dont les numéros de ligne sont à leur tour triés en segments. L'import consulte ensuite
+ * ces numéros au fil de sa lecture ({@link Doublons#contient(long)}), sans jamais conserver l'ensemble des
+ * clés en mémoire.
+ * </p>
+ * <p>
+ * Les segments sont fusionnés en une seule passe : avec un tampon de plusieurs millions de couples, quelques
+ * dizaines de segments couvrent des centaines de millions de lignes.
+ * </p>
+ */
+public final class ExternalSortDedup {
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final int TRI_PAR_INSERTION = 16;
+
+    private static final Comparator<Segment> ORDRE = (a, b) -> comparer(a.cle, a.ligne, b.cle, b.ligne);
+
+    private ExternalSortDedup() {
+    }
+
+    /**
+     * Lit les clés d'un fichier, les trie sur disque et repère les lignes en double.
+     *
+     * @param lecteur        Le lecteur du fichier, positionné avant la première ligne de données.
+     * @param cle            Le calcul de la clé d'une ligne, le même que celui de l'import.
+     * @param rejets         Des compteurs de rejets à passer aux lectures de colonnes.
+     * @param clesParSegment Le nombre de couples (clé, ligne) triés en mémoire à la fois.
+     * @param repertoire     Le répertoire où créer les fichiers temporaires.
+     * @return Les lignes en double, à fermer après l'import pour supprimer les fichiers temporaires.
+     * @throws IOException En cas d'erreur de lecture du fichier ou d'écriture des segments.
+     */
+    static Doublons trier(CsvReader lecteur, DedupSet.Cle cle, CsvRejects rejets, int clesParSegment,
+                          Path repertoire) throws IOException {
+        Files.createDirectories(repertoire);
+        Path dossier = Files.createTempDirectory(repertoire, "import-dedup");
+        try {
+            long[] cles = new long[clesParSegment];
+            long[] lignes = new long[clesParSegment];
+
+            // Segments de couples (clé, ligne) triés
+            List<Segment> segments = new ArrayList<>();
+            int taille = 0;
+            long total = 0;
+            while (lecteur.next()) {
+                long code = cle.calculer(lecteur, rejets);
+                if (code == ImdbIds.INVALIDE) {
+                    continue;
+                }
+                cles[taille] = code;
+                lignes[taille] = lecteur.lineNumber();
+                total++;
+                if (++taille == clesParSegment) {
+                    segments.add(ecrireCouples(dossier, segments.size(), cles, lignes, taille));
+                    taille = 0;
+                }
+            }
+            if (taille > 0) {
+                segments.add(ecrireCouples(dossier, segments.size(), cles, lignes, taille));
+            }
+
+            // Fusion : toute occurrence d'une clé après la première est un doublon
+            List<Segment> segmentsDoublons = new ArrayList<>();
+            long doublons = 0;
+            taille = 0;
+            try (Fusion fusion = new Fusion(segments)) {
+                boolean premiere = true;
+                long precedente = 0;
+                while (fusion.suivant()) {
+                    if (!premiere && fusion.cle() == precedente) {
+                        lignes[taille] = fusion.ligne();
+                        doublons++;
+                        if (++taille == clesParSegment) {
+                            segmentsDoublons.add(ecrireLignes(dossier, segmentsDoublons.size(), lignes, taille));
+                            taille = 0;
+                        }
+                    }
+                    precedente = fusion.cle();
+                    premiere = false;
+                }
+            }
+            if (taille > 0) {
+                segmentsDoublons.add(ecrireLignes(dossier, segmentsDoublons.size(), lignes, taille));
+            }
+            for (Segment segment : segments) {
+                Files.delete(segment.chemin);
+            }
+            return new Doublons(dossier, segmentsDoublons, total, segments.size(), doublons);
+        } catch (IOException | RuntimeException e) {
+            supprimer(dossier);
+            throw e;
+        }
+    }
+
+    /**
+     * Lignes en double d'un fichier, consultées dans l'ordre croissant des numéros de ligne.
+     * Une instance n'est pas thread-safe.
+     */
+    public static final class Doublons implements Closeable {
+
+        private final Path dossier;
+        private final List<Segment> segments;
+        private final long cles;
+        private final int nbSegments;
+        private final long doublons;
+        private Fusion fusion;
+        private long prochaine = Long.MIN_VALUE;
+        private boolean epuise;
+
+        private Doublons(Path dossier, List<Segment> segments, long cles, int nbSegments, long doublons) {
+            this.dossier = dossier;
+            this.segments = segments;
+            this.cles = cles;
+            this.nbSegments = nbSegments;
+            this.doublons = doublons;
+        }
+
+        /**
+         * Indique si une ligne est un doublon. Les lignes doivent être consultées dans l'ordre croissant.
+         *
+         * @param ligne Le numéro de la ligne.
+         * @return {@code true} si la clé de la ligne est apparue sur une ligne précédente.
+         */
+        public boolean contient(long ligne) {
+            try {
+                if (fusion == null) {
+                    fusion = new Fusion(segments);
+                }
+                while (!epuise && prochaine < ligne) {
+                    if (fusion.suivant()) {
+                        prochaine = fusion.ligne();
+                    } else {
+                        epuise = true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return !epuise && prochaine == ligne;
+        }
+
+        /**
+         * Décrit le tri effectué.
+         *
+         * @return Le nombre de clés, de segments et de doublons.
+         */
+        public String rapport() {
+            return String.format(Locale.ROOT, "dédoublonnage externe, %d clé(s) triée(s) en %d segment(s), %d doublon(s)",
+                    cles, nbSegments, doublons);
+        }
+
+        /**
+         * Supprime les fichiers temporaires.
+         */
+        @Override
+        public void close() throws IOException {
+            if (fusion != null) {
+                fusion.close();
+            }
+            supprimer(dossier);
+        }
+    }
+
+    /**
+     * Fusion de segments triés, dans l'ordre (clé, ligne).
+     */
+    private static final class Fusion implements Closeable {
+
+        private final List<Segment> segments;
+        private final PriorityQueue<Segment> file;
+        private Segment courant;
+
+        private Fusion(List<Segment> segments) throws IOException {
+            this.segments = segments;
+            this.file = new PriorityQueue<>(Math.max(1, segments.size()), ORDRE);
+            try {
+                for (Segment segment : segments) {
+                    segment.ouvrir();
+                    if (segment.avancer()) {
+                        file.add(segment);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private boolean suivant() throws IOException {
+            if (courant != null && courant.avancer()) {
+                file.add(courant);
+            }
+            courant = file.poll();
+            return courant != null;
+        }
+
+        private long cle() {
+            return courant.cle;
+        }
+
+        private long ligne() {
+            return courant.ligne;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Segment segment : segments) {
+                segment.fermer();
+            }
+        }
+    }
+
+    /**
+     * Fichier temporaire de couples (clé, ligne) ou de numéros de ligne, triés.
+     */
+    private static final class Segment {
+
+        private final Path chemin;
+        private final boolean couples;
+        private long restants;
+        private DataInputStream entree;
+        private long cle;
+        private long ligne;
+
+        private Segment(Path chemin, boolean couples, long restants) {
+            this.chemin = chemin;
+            this.couples = couples;
+            this.restants = restants;
+        }
+
+        private void ouvrir() throws IOException {
+            entree = new DataInputStream(new BufferedInputStream(Files.newInputStream(chemin), TAILLE_TAMPON));
+        }
+
+        private boolean avancer() throws IOException {
+            if (restants == 0) {
+                return false;
+            }
+            restants--;
+            if (couples) {
+                cle = entree.readLong();
+                ligne = entree.readLong();
+            } else {
+                ligne = entree.readLong();
+                cle = ligne;
+            }
+            return true;
+        }
+
+        private void fermer() throws IOException {
+            if (entree != null) {
+                entree.close();
+                entree = null;
+            }
+        }
+    }
+
+    private static Segment ecrireCouples(Path dossier, int numero, long[] cles, long[] lignes, int taille) throws IOException {
+        trierCouples(cles, lignes, 0, taille);
+        Path chemin = dossier.resolve("cles-" + numero);
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chemin), TAILLE_TAMPON))) {
+            for (int i = 0; i < taille; i++) {
+                sortie.writeLong(cles[i]);
+                sortie.writeLong(lignes[i]);
+            }
+        }
+        return new Segment(chemin, true, taille);
+    }
+
+    private static Segment ecrireLignes(Path dossier, int numero, long[] lignes, int taille) throws IOException {
+        Arrays.sort(lignes, 0, taille);
+        Path chemin = dossier.resolve("doublons-" + numero);
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chemin), TAILLE_TAMPON))) {
+            for (int i = 0; i < taille; i++) {
+                sortie.writeLong(lignes[i]);
+            }
+        }
+        return new Segment(chemin, false, taille);
+    }
+
+    /**
+     * Trie les couples (clé, ligne) de {@code [debut, fin[} par clé puis par ligne (tri rapide, les numéros
+     * de ligne étant distincts).
+     */
+    private static void trierCouples(long[] cles, long[] lignes, int debut, int fin) {
+        while (fin - debut > TRI_PAR_INSERTION) {
+            int milieu = (debut + fin) >>> 1;
+            long pivotCle = cles[milieu];
+            long pivotLigne = lignes[milieu];
+            int i = debut;
+            int j = fin - 1;
+            while (i <= j) {
+                while (comparer(cles[i], lignes[i], pivotCle, pivotLigne) < 0) {
+                    i++;
+                }
+                while (comparer(cles[j], lignes[j], pivotCle, pivotLigne) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    long cle = cles[i];
+                    cles[i] = cles[j];
+                    cles[j] = cle;
+                    long ligne = lignes[i];
+                    lignes[i] = lignes[j];
+                    lignes[j] = ligne;
+                    i++;
+                    j--;
+                }
+            }
+            // Récursion sur la plus petite partie, boucle sur la plus grande
+            if (j - debut < fin - i) {
+                trierCouples(cles, lignes, debut, j + 1);
+                debut = i;
+            } else {
+                trierCouples(cles, lignes, i, fin);
+                fin = j + 1;
+            }
+        }
+        for (int i = debut + 1; i < fin; i++) {
+            long cle = cles[i];
+            long ligne = lignes[i];
+            int j = i - 1;
+            while (j >= debut && comparer(cles[j], lignes[j], cle, ligne) > 0) {
+                cles[j + 1] = cles[j];
+                lignes[j + 1] = lignes[j];
+                j--;
+            }
+            cles[j + 1] = cle;
+            lignes[j + 1] = ligne;
+        }
+    }
+
+    private static int comparer(long cle, long ligne, long autreCle, long autreLigne) {
+        return cle != autreCle ? Long.compare(cle, autreCle) : Long.compare(ligne, autreLigne);
+    }
+
+    private static void supprimer(Path dossier) throws IOException {
+        if (!Files.exists(dossier)) {
+            return;
+        }
+        try (Stream<Path> fichiers = Files.list(dossier)) {
+            for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                Files.deleteIfExists(fichier);
+            }
+        }
+        Files.deleteIfExists(dossier);
+    }
+}
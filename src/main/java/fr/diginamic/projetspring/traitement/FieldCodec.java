@@ -0,0 +1,23 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Convertit la valeur textuelle d'un champ CSV en valeur typée.
+ * <p>
+ * Un codec ne lève pas d'exception pour une valeur mal formée : il renvoie {@code null}, et la colonne
+ * qui l'utilise ({@link CsvColumn}) comptabilise la cellule comme rejetée. Les codecs sont sans état
+ * et peuvent être partagés entre threads.
+ * </p>
+ *
+ * @param <T> Le type de la valeur décodée.
+ */
+@FunctionalInterface
+public interface FieldCodec<T> {
+
+    /**
+     * Décode un champ non blanc.
+     *
+     * @param champ Le texte du champ, valide uniquement pendant l'appel.
+     * @return La valeur décodée, ou {@code null} si le texte n'est pas une valeur valide.
+     */
+    T decode(CharSequence champ);
+}
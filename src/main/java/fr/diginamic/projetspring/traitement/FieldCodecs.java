@@ -0,0 +1,150 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Codecs partagés par les schémas des fichiers CSV.
+ * <p>
+ * Tous les codecs sont précompilés et sans état : ils peuvent être utilisés simultanément par plusieurs
+ * threads. Aucun ne passe par une exception pour signaler une valeur invalide.
+ * </p>
+ */
+public final class FieldCodecs {
+
+    /** Valeur renvoyée par {@link #parseInt(CharSequence)} pour un texte qui n'est pas un entier. */
+    public static final int ENTIER_INVALIDE = Integer.MIN_VALUE;
+
+    /** Format des dates de naissance des fichiers IMDB (ex : {@code March 15 1954}), indépendant de la locale de la machine. */
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("MMMM d yyyy", Locale.ENGLISH);
+
+    /** Texte du champ, tel quel. */
+    public static final FieldCodec<String> TEXTE = CharSequence::toString;
+
+    /** Texte du champ sans espaces de début et de fin (identifiants). */
+    public static final FieldCodec<String> TEXTE_NETTOYE = champ -> champ.toString().trim();
+
+    /**
+     * Identifiant IMDB de personne ({@code nm} suivi de 7 à 9 chiffres), sans espaces de début et de fin :
+     * seule forme que peut stocker la colonne {@code idimdb} des acteurs et des réalisateurs.
+     */
+    public static final FieldCodec<String> IDENTIFIANT_NOM = champ -> identifiant(champ, ImdbIds.PREFIXE_NOM);
+
+    /** Identifiant IMDB de titre ({@code tt} suivi de 7 à 9 chiffres), sans espaces de début et de fin. */
+    public static final FieldCodec<String> IDENTIFIANT_TITRE = champ -> identifiant(champ, ImdbIds.PREFIXE_TITRE);
+
+    /** Date au format {@code MMMM d yyyy} en anglais, convertie à minuit heure locale. */
+    public static final FieldCodec<Date> DATE_ANGLAISE = FieldCodecs::parseDate;
+
+    /** Année sur quatre chiffres. */
+    public static final FieldCodec<Integer> ANNEE = champ -> {
+        int annee = parseInt(champ);
+        return annee >= 1000 && annee <= 9999 ? annee : null;
+    };
+
+    /**
+     * Note sur 10 avec une décimale, séparateur point ou virgule (ex : {@code 6.4}, {@code 3,4}),
+     * renvoyée sous forme canonique {@code 6.4}.
+     */
+    public static final FieldCodec<String> NOTE = champ -> {
+        int dixiemes = parseDixiemes(champ);
+        return dixiemes >= 0 && dixiemes <= 100 ? (dixiemes / 10) + "." + (dixiemes % 10) : null;
+    };
+
+    private FieldCodecs() {
+    }
+
+    /**
+     * Analyse un entier décimal signé, espaces de début et de fin ignorés, sans allocation.
+     *
+     * @param champ Le texte à analyser.
+     * @return L'entier, ou {@link #ENTIER_INVALIDE} si le texte n'est pas un entier représentable.
+     */
+    public static int parseInt(CharSequence champ) {
+        int debut = 0;
+        int fin = champ.length();
+        while (debut < fin && champ.charAt(debut) <= ' ') {
+            debut++;
+        }
+        while (fin > debut && champ.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        boolean negatif = debut < fin && champ.charAt(debut) == '-';
+        if (negatif) {
+            debut++;
+        }
+        if (debut == fin || fin - debut > 9) {
+            return ENTIER_INVALIDE;
+        }
+        int valeur = 0;
+        for (int i = debut; i < fin; i++) {
+            char c = champ.charAt(i);
+            if (c < '0' || c > '9') {
+                return ENTIER_INVALIDE;
+            }
+            valeur = valeur * 10 + (c - '0');
+        }
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Analyse un nombre positif à au plus une décimale en virgule fixe (dixièmes).
+     *
+     * @return Le nombre de dixièmes, ou -1 si le texte n'est pas un tel nombre.
+     */
+    static int parseDixiemes(CharSequence champ) {
+        int valeur = 0;
+        int decimales = -1;
+        boolean chiffre = false;
+        for (int i = 0; i < champ.length(); i++) {
+            char c = champ.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (decimales >= 1 || valeur > 100_000) {
+                    return -1;
+                }
+                valeur = valeur * 10 + (c - '0');
+                chiffre = true;
+                if (decimales >= 0) {
+                    decimales++;
+                }
+            } else if ((c == '.' || c == ',') && decimales < 0) {
+                decimales = 0;
+            } else if (c > ' ') {
+                return -1;
+            }
+        }
+        if (!chiffre) {
+            return -1;
+        }
+        return decimales == 1 ? valeur : valeur * 10;
+    }
+
+    private static String identifiant(CharSequence champ, String prefixe) {
+        String idIMDB = champ.toString().trim();
+        return ImdbIds.compacter(idIMDB, prefixe) != ImdbIds.INVALIDE_COMPACT ? idIMDB : null;
+    }
+
+    private static Date parseDate(CharSequence champ) {
+        String texte = champ.toString().trim();
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor champs = FORMAT_DATE.parseUnresolved(texte, position);
+        if (champs == null || position.getErrorIndex() >= 0 || position.getIndex() != texte.length()) {
+            return null;
+        }
+        int annee = (int) champs.getLong(ChronoField.YEAR_OF_ERA);
+        int mois = (int) champs.getLong(ChronoField.MONTH_OF_YEAR);
+        int jour = (int) champs.getLong(ChronoField.DAY_OF_MONTH);
+        if (jour < 1 || jour > LocalDate.of(annee, mois, 1).lengthOfMonth()) {
+            return null;
+        }
+        return Date.from(LocalDate.of(annee, mois, jour).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
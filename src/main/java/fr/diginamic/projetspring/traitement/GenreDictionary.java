@@ -0,0 +1,64 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.Genre;
+import fr.diginamic.projetspring.services.GenreService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Dictionnaire des genres utilisé pendant l'importation des films.
+ * <p>
+ * Les genres existants sont chargés en une requête par {@link #charger()} ; ensuite, seul un genre
+ * encore inconnu provoque un accès à la base. Le dictionnaire peut être partagé entre threads : l'accès à la
+ * base se fait hors de la table, qui ne garde ensuite qu'un genre par type ({@link ConcurrentMap#putIfAbsent}),
+ * et la contrainte d'unicité sur {@code genres.type} ramène les créations concurrentes, par un autre thread ou
+ * un autre processus, à une seule ligne.
+ * </p>
+ */
+@Component
+public class GenreDictionary {
+
+    @Autowired
+    private GenreService genreService;
+
+    private final ConcurrentMap<String, Genre> genres = new ConcurrentHashMap<>();
+
+    /**
+     * (Re)charge tous les genres présents en base, en oubliant ceux d'un précédent import.
+     */
+    public void charger() {
+        genres.clear();
+        for (Genre genre : genreService.findAll()) {
+            genres.putIfAbsent(genre.getType(), genre);
+        }
+    }
+
+    /**
+     * Obtient le genre correspondant à un type, en le créant en base s'il n'existe pas encore.
+     *
+     * @param type Le type de genre (ex : "Drama").
+     * @return Le genre, avec son identifiant en base.
+     */
+    public Genre obtenir(String type) {
+        Genre genre = genres.get(type);
+        if (genre != null) {
+            return genre;
+        }
+        // Recherche ou création hors de la table : computeIfAbsent bloquerait les autres types pendant la requête
+        genre = genreService.findOrCreateGenreByType(type);
+        Genre present = genres.putIfAbsent(type, genre);
+        return present != null ? present : genre;
+    }
+
+    /**
+     * Obtient le nombre de genres connus du dictionnaire.
+     *
+     * @return Le nombre de genres.
+     */
+    public int size() {
+        return genres.size();
+    }
+}
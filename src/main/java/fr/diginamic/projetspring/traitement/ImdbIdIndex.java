@@ -0,0 +1,104 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Correspondance immuable entre identifiants IMDB et identifiants techniques en base.
+ * <p>
+ * Les couples sont stockés dans deux tableaux parallèles d'entiers triés par identifiant IMDB,
+ * compacté sous la forme stockée en base ({@link ImdbIds#compacter(CharSequence, String)}) :
+ * pas d'objet {@code Map.Entry}, d'{@code Integer} ni de chaîne par entrée. La résolution
+ * se fait par recherche dichotomique sur des entiers, sans aucune requête en base.
+ * </p>
+ */
+public final class ImdbIdIndex {
+
+    /** Valeur renvoyée par {@link #resolve(String)} pour un identifiant IMDB inconnu. */
+    public static final int INCONNU = -1;
+
+    /** Index ne contenant aucun identifiant. */
+    public static final ImdbIdIndex VIDE = new ImdbIdIndex(ImdbIds.PREFIXE_NOM, new int[0], new int[0]);
+
+    private final String prefixe;
+    private final int[] codes;
+    private final int[] ids;
+
+    private ImdbIdIndex(String prefixe, int[] codes, int[] ids) {
+        this.prefixe = prefixe;
+        this.codes = codes;
+        this.ids = ids;
+    }
+
+    /**
+     * Construit l'index à partir de couples (identifiant IMDB, identifiant technique).
+     *
+     * @param couples Les lignes {@code [String idIMDB, Integer id]} issues de la base.
+     * @param prefixe Le préfixe des identifiants IMDB de la table (ex : "nm").
+     * @return L'index trié correspondant.
+     */
+    public static ImdbIdIndex of(List<Object[]> couples, String prefixe) {
+        // Couple (code, id) rangé dans un long dont le tri suit celui des codes
+        long[] tries = new long[couples.size()];
+        int taille = 0;
+        for (Object[] couple : couples) {
+            int code = ImdbIds.compacter((String) couple[0], prefixe);
+            if (code != ImdbIds.INVALIDE_COMPACT) {
+                tries[taille++] = ImdbIdResolver.paire(code, (Integer) couple[1]);
+            }
+        }
+        Arrays.sort(tries, 0, taille);
+        int[] codes = new int[taille];
+        int[] ids = new int[taille];
+        for (int i = 0; i < taille; i++) {
+            codes[i] = (int) (tries[i] >> 32);
+            ids[i] = (int) tries[i];
+        }
+        return new ImdbIdIndex(prefixe, codes, ids);
+    }
+
+    /**
+     * Résout un identifiant IMDB en identifiant technique.
+     *
+     * @param idIMDB L'identifiant IMDB à résoudre.
+     * @return L'identifiant technique, ou {@link #INCONNU} si l'identifiant IMDB n'est pas en base.
+     */
+    public int resolve(String idIMDB) {
+        int code = ImdbIds.compacter(idIMDB, prefixe);
+        if (code == ImdbIds.INVALIDE_COMPACT) {
+            return INCONNU;
+        }
+        int position = Arrays.binarySearch(codes, code);
+        return position >= 0 ? ids[position] : INCONNU;
+    }
+
+    /**
+     * Résout un ensemble d'identifiants IMDB, en ignorant ceux qui ne sont pas en base.
+     *
+     * @param idsIMDB Les identifiants IMDB à résoudre.
+     * @return Les identifiants techniques trouvés.
+     */
+    public List<Integer> resolveAll(Collection<String> idsIMDB) {
+        List<Integer> resolus = new ArrayList<>(idsIMDB.size());
+        for (String idIMDB : idsIMDB) {
+            int id = resolve(idIMDB);
+            if (id != INCONNU) {
+                resolus.add(id);
+            }
+        }
+        return resolus;
+    }
+
+    /**
+     * Obtient le nombre d'identifiants indexés.
+     *
+     * @return Le nombre d'entrées de l'index.
+     */
+    public int size() {
+        return ids.length;
+    }
+}
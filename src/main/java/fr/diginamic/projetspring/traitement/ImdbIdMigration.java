@@ -0,0 +1,120 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Migration Flyway V2 : colonnes {@code idimdb} des acteurs, films et réalisateurs converties vers leur forme
+ * entière ({@link fr.diginamic.projetspring.entities.ImdbIdConverter}).
+ * <p>
+ * Pour chaque table dont la colonne est encore textuelle (schéma de {@code V1__schema_initial.sql}, ou base créée
+ * par Hibernate puis enregistrée à la version 1), une colonne entière est ajoutée et remplie, l'ancienne colonne
+ * (et son index unique) est supprimée, puis la nouvelle prend son nom et reçoit un nouvel index unique. Une
+ * colonne déjà entière est laissée telle quelle.
+ * </p>
+ */
+@Component
+public class ImdbIdMigration implements JavaMigration {
+
+    private static final int LIGNES_PAR_LOT = 1000;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("2");
+    }
+
+    @Override
+    public String getDescription() {
+        return "identifiants imdb entiers";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    /**
+     * Migre les trois tables si nécessaire.
+     *
+     * @param contexte Le contexte de la migration, qui fournit la connexion.
+     */
+    @Override
+    public void migrate(Context contexte) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(contexte.getConnection(), true));
+        migrer(jdbcTemplate, "acteur", "acteur_id", ImdbIds.PREFIXE_NOM);
+        migrer(jdbcTemplate, "films", "film_id", ImdbIds.PREFIXE_TITRE);
+        migrer(jdbcTemplate, "realisateurs", "id_realisateur", ImdbIds.PREFIXE_NOM);
+    }
+
+    private void migrer(JdbcTemplate jdbcTemplate, String table, String cle, String prefixe) {
+        if (!isTextuelle(jdbcTemplate, table)) {
+            return;
+        }
+        long debut = System.nanoTime();
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN idimdb_code INT");
+
+        List<Object[]> lot = new ArrayList<>(LIGNES_PAR_LOT);
+        int[] compteurs = new int[2];
+        String miseAJour = "UPDATE " + table + " SET idimdb_code = ? WHERE " + cle + " = ?";
+        jdbcTemplate.query("SELECT " + cle + ", idimdb FROM " + table, ligne -> {
+            String idIMDB = ligne.getString(2);
+            int code = ImdbIds.compacter(idIMDB != null ? idIMDB.trim() : null, prefixe);
+            if (code == ImdbIds.INVALIDE_COMPACT) {
+                // Identifiant qui ne peut pas être stocké : la ligne reste sans identifiant IMDB
+                compteurs[1]++;
+                return;
+            }
+            lot.add(new Object[]{code, ligne.getInt(1)});
+            compteurs[0]++;
+            if (lot.size() == LIGNES_PAR_LOT) {
+                jdbcTemplate.batchUpdate(miseAJour, lot);
+                lot.clear();
+            }
+        });
+        if (!lot.isEmpty()) {
+            jdbcTemplate.batchUpdate(miseAJour, lot);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN idimdb");
+        jdbcTemplate.execute("ALTER TABLE " + table + " CHANGE COLUMN idimdb_code idimdb INT");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT uk_" + table + "_idimdb UNIQUE (idimdb)");
+        System.out.println(String.format(Locale.ROOT, "%s : %d identifiant(s) IMDB convertis en entiers en %d ms, %d invalide(s) effacé(s)",
+                table, compteurs[0], (System.nanoTime() - debut) / 1_000_000, compteurs[1]));
+    }
+
+    /**
+     * Indique si la colonne {@code idimdb} d'une table existe et est encore de type texte.
+     */
+    private boolean isTextuelle(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connexion -> {
+            DatabaseMetaData metadonnees = connexion.getMetaData();
+            try (ResultSet colonnes = metadonnees.getColumns(connexion.getCatalog(), null, table, "idimdb")) {
+                while (colonnes.next()) {
+                    int type = colonnes.getInt("DATA_TYPE");
+                    if (type == Types.VARCHAR || type == Types.CHAR || type == Types.LONGVARCHAR || type == Types.NVARCHAR) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import fr.diginamic.projetspring.services.ActeurService;
+import fr.diginamic.projetspring.services.FilmService;
+import fr.diginamic.projetspring.services.RealisateurFilmService;
+import fr.diginamic.projetspring.services.RealisateurService;
+import fr.diginamic.projetspring.services.RoleFilmService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Charge en une seule requête par entité la correspondance identifiant IMDB → identifiant technique.
+ * <p>
+ * Utilisé par les imports des tables d'association ({@link ImportRoleFilms}, {@link ImportRealisateurFilms})
+ * pour relier les lignes sans émettre de SELECT par ligne du fichier CSV.
+ * </p>
+ */
+@Component
+public class ImdbIdResolver {
+
+    @Autowired
+    private ActeurService acteurService;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private RealisateurService realisateurService;
+
+    @Autowired
+    private RoleFilmService roleFilmService;
+
+    @Autowired
+    private RealisateurFilmService realisateurFilmService;
+
+    /**
+     * Combine deux identifiants techniques en une clé de couple.
+     *
+     * @param premier Le premier identifiant (acteur ou réalisateur).
+     * @param second  Le second identifiant (film).
+     * @return La clé du couple.
+     */
+    public static long paire(int premier, int second) {
+        return ((long) premier << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Charge l'index des acteurs présents en base.
+     *
+     * @return L'index identifiant IMDB → {@code acteurId}.
+     */
+    public ImdbIdIndex chargerActeurs() {
+        return ImdbIdIndex.of(acteurService.findAllIdIMDBAndId(), ImdbIds.PREFIXE_NOM);
+    }
+
+    /**
+     * Charge l'index des films présents en base.
+     *
+     * @return L'index identifiant IMDB → {@code filmId}.
+     */
+    public ImdbIdIndex chargerFilms() {
+        return ImdbIdIndex.of(filmService.findAllIdIMDBAndId(), ImdbIds.PREFIXE_TITRE);
+    }
+
+    /**
+     * Charge l'index des réalisateurs présents en base.
+     *
+     * @return L'index identifiant IMDB → {@code idRealisateur}.
+     */
+    public ImdbIdIndex chargerRealisateurs() {
+        return ImdbIdIndex.of(realisateurService.findAllIdIMDBAndId(), ImdbIds.PREFIXE_NOM);
+    }
+
+    /**
+     * Charge les rôles présents en base, indexés par couple (acteur, film).
+     *
+     * @return La correspondance {@link #paire(int, int)} → {@code roleId}.
+     */
+    public Map<Long, Integer> chargerRoles() {
+        return indexerPaires(roleFilmService.findAllIds());
+    }
+
+    /**
+     * Charge les associations réalisateur-film présentes en base, indexées par couple (réalisateur, film).
+     *
+     * @return La correspondance {@link #paire(int, int)} → {@code idRealisateurFilm}.
+     */
+    public Map<Long, Integer> chargerRealisateurFilms() {
+        return indexerPaires(realisateurFilmService.findAllIds());
+    }
+
+    private static Map<Long, Integer> indexerPaires(List<Object[]> lignes) {
+        Map<Long, Integer> paires = new HashMap<>(lignes.size() * 2);
+        for (Object[] ligne : lignes) {
+            paires.put(paire((Integer) ligne[1], (Integer) ligne[2]), (Integer) ligne[0]);
+        }
+        return paires;
+    }
+}
@@ -1,17 +1,14 @@
 package fr.diginamic.projetspring.traitement;
 
 import fr.diginamic.projetspring.entities.Acteur;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.services.ActeurService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -23,59 +20,122 @@ public class ImportActeurs {
     @Autowired
     private ActeurService acteurService;
 
-    private final SimpleDateFormat sdf = new SimpleDateFormat("MMMM d yyyy");
+    @Autowired
+    private BulkInsertEngine bulkInsertEngine;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private ImportCheckpoints importCheckpoints;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DedupSets dedupSets;
+
+    @Autowired
+    private ImdbIdResolver imdbIdResolver;
+
+    // Colonnes et schéma partagés avec le chargement natif (NativeBulkLoader)
+    static final CsvColumn<String> ID_IMDB = CsvColumn.of(0, "idIMDB", FieldCodecs.IDENTIFIANT_NOM).obligatoire();
+    static final CsvColumn<String> NOM = CsvColumn.of(1, "nom", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<Date> DATE_NAISSANCE = CsvColumn.of(2, "dateNaissance", FieldCodecs.DATE_ANGLAISE);
+    static final CsvColumn<String> LIEU_NAISSANCE = CsvColumn.of(3, "lieuNaissance", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<String> URL_PROFILE = CsvColumn.of(5, "urlProfile", FieldCodecs.TEXTE).tronquer(255);
+
+    /** Colonnes lues dans {@code acteurs.csv} (la colonne 4, la taille, n'est pas importée). */
+    static final CsvSchema SCHEMA = new CsvSchema("acteurs.csv",
+            ID_IMDB, NOM, DATE_NAISSANCE, LIEU_NAISSANCE, URL_PROFILE);
 
     /**
      * Importe les acteurs à partir d'un fichier CSV dans la base de données.
      * Gère les doublons d'identifiants et analyse la date de naissance à partir du fichier CSV.
+     * En import différentiel, seuls les acteurs nouveaux ou modifiés sont écrits.
      */
     public void importActeurs() {
-        Set<String> uniqueActeurIds = new HashSet<>();
+        List<String> dejaEnBase = Collections.emptyList();
+        ImdbIdIndex existants = ImdbIdIndex.VIDE;
+
+        if (deltaImport.isActif()) {
+            // En import différentiel, les acteurs déjà en base sont mis à jour si leur ligne a changé
+            existants = imdbIdResolver.chargerActeurs();
+        } else if (bulkInsertEngine.getMode() == ImportMode.BULK) {
+            // En mode par lots, un doublon ferait échouer tout le lot : on écarte d'emblée les acteurs déjà en base
+            dejaEnBase = acteurService.findAllIdIMDB();
+        }
 
         Path pathActeurs = Paths.get("src/main/resources/dataset/acteurs.csv");
-        try {
-            List<String> rowsActeurs = Files.readAllLines(pathActeurs);
-            rowsActeurs.remove(0); // Supprime la ligne d'en-tête
-            for (String rowActeur : rowsActeurs) {
-                String[] elements = rowActeur.split(";");
-                String idIMDB = elements[0].trim();
-                if (!uniqueActeurIds.contains(idIMDB)) {
-                    Acteur acteur = createActeurFromElements(elements);
-                    try {
-                        acteurService.createActeur(acteur);
-                        uniqueActeurIds.add(idIMDB);
-                    } catch (DataIntegrityViolationException e) {
-                        System.out.println("ID en double : " + idIMDB);
+        ImportCheckpoint reprise = importCheckpoints.ouvrir(pathActeurs);
+        if (reprise.isTermine()) {
+            return;
+        }
+        DedupSet uniqueActeurIds = dedupSets.ouvrir(SCHEMA, reprise, dejaEnBase,
+                (ligne, rejetsLigne) -> ImdbIds.encoder(ID_IMDB.lire(ligne, rejetsLigne)));
+
+        try (ImportProgress progression = importMetrics.ouvrir(SCHEMA);
+             DeltaTracker delta = deltaImport.ouvrir(pathActeurs.getFileName().toString());
+             ImportWriter<Acteur> writer = bulkInsertEngine.ouvrir("Acteur", acteurService::createActeur, reprise);
+             ImportPipeline.Lecture lignes = importPipeline.lire(SCHEMA, reprise.ouvrirLecteur())) {
+            CsvRejects rejets = progression.getRejets();
+            while (lignes.next()) {
+                CsvLine rowsActeurs = lignes.ligne();
+                reprise.avancer(rowsActeurs);
+                progression.lue();
+                String idIMDB = ID_IMDB.lire(rowsActeurs, rejets);
+                if (idIMDB == null) {
+                    rejets.ligneRejetee(rowsActeurs, "identifiant IMDB manquant");
+                } else if (uniqueActeurIds.ajouter(idIMDB)) {
+                    int acteurId = existants.resolve(idIMDB);
+                    progression.analysee();
+                    long empreinte = rowsActeurs.fingerprint();
+                    switch (delta.classer(idIMDB, empreinte, acteurId != ImdbIdIndex.INCONNU)) {
+                        case NOUVELLE:
+                            writer.write(createActeurFromElements(rowsActeurs, rejets), delta.empreinte(idIMDB, empreinte));
+                            break;
+                        case MODIFIEE:
+                            Acteur acteur = createActeurFromElements(rowsActeurs, rejets);
+                            acteur.setActeurId(acteurId);
+                            writer.update(acteur, delta.empreinte(idIMDB, empreinte));
+                            break;
+                        default:
+                            break;
                     }
                 } else {
-                    System.out.println("ID en double : " + idIMDB);
+                    progression.dedupliquee();
                 }
             }
-            System.out.println("Ensemble d'IDs uniques : " + uniqueActeurIds);
-        } catch (IOException | ParseException e) {
+            reprise.lectureTerminee();
+            List<Integer> disparus = existants.resolveAll(delta.disparues());
+            if (!disparus.isEmpty()) {
+                acteurService.deleteActeurs(disparus);
+            }
+            delta.oublierDisparues();
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Crée un objet Acteur à partir des éléments d'un tableau de chaînes extraits du fichier CSV.
+     * Crée un objet Acteur à partir de l'enregistrement courant du fichier CSV.
+     *
+     * Une cellule invalide (ex : date incomplète) laisse le champ vide et est comptée dans les rejets.
      *
-     * @param elements Tableau d'éléments de chaîne contenant les informations sur l'acteur.
+     * @param elements La ligne CSV contenant les informations sur l'acteur.
+     * @param rejets   Les compteurs de rejets du fichier.
      * @return Un objet Acteur rempli avec les données du fichier CSV.
-     * @throws ParseException Si une erreur se produit lors de l'analyse de la date de naissance à partir du CSV.
      */
-    private Acteur createActeurFromElements(String[] elements) throws ParseException {
+    private Acteur createActeurFromElements(CsvLine elements, CsvRejects rejets) {
         Acteur acteur = new Acteur();
-        acteur.setIdIMDB(elements[0].trim());
-        acteur.setNom(elements[1]);
-        try {
-            Date dateNaissance = sdf.parse(elements[2]);
-            acteur.setDateNaissance(dateNaissance);
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        acteur.setLieuNaissance(elements[3]);
-        acteur.setUrlProfile(elements[5]);
+        acteur.setIdIMDB(ID_IMDB.lire(elements, rejets));
+        acteur.setNom(NOM.lire(elements, rejets));
+        acteur.setDateNaissance(DATE_NAISSANCE.lire(elements, rejets));
+        acteur.setLieuNaissance(LIEU_NAISSANCE.lire(elements, rejets));
+        acteur.setUrlProfile(URL_PROFILE.lire(elements, rejets));
         return acteur;
     }
 }
@@ -0,0 +1,179 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Point de reprise de l'import d'un fichier CSV.
+ * <p>
+ * L'import signale chaque ligne lue ({@link #avancer(CsvLine)}) ; l'{@link ImportWriter} enregistre la
+ * position atteinte ({@link #valider()}) une fois validées les écritures des lignes qui la précèdent. Après la dernière ligne ({@link #lectureTerminee()}), le fichier est marqué comme
+ * entièrement importé à la validation suivante.
+ * </p>
+ * <p>
+ * Une instance n'est pas thread-safe : elle est utilisée par l'import d'un seul fichier. Lorsque l'écriture
+ * se fait sur d'autres threads ({@link ImportPipeline}), chaque lot emporte la {@link Position} atteinte
+ * lors de sa constitution, validée par {@link #valider(Position)}.
+ * </p>
+ */
+public class ImportCheckpoint {
+
+    private final Path chemin;
+    private final String empreinte;
+    private final JdbcTemplate jdbcTemplate;
+    private final long decalageDepart;
+    private final long ligneDepart;
+    private final boolean termine;
+    private long decalage;
+    private long ligne;
+    private boolean positionExacte = true;
+    private boolean lectureTerminee;
+
+    ImportCheckpoint(Path chemin, String empreinte, JdbcTemplate jdbcTemplate, long decalage, long ligne, boolean termine) {
+        this.chemin = chemin;
+        this.empreinte = empreinte;
+        this.jdbcTemplate = jdbcTemplate;
+        this.decalageDepart = decalage;
+        this.ligneDepart = ligne;
+        this.termine = termine;
+        this.decalage = decalage;
+        this.ligne = ligne;
+    }
+
+    /**
+     * Crée un suivi neutre, utilisé lorsque la reprise est désactivée : le fichier est lu depuis le début
+     * et aucun point de reprise n'est enregistré.
+     */
+    static ImportCheckpoint inactif(Path chemin) {
+        return new ImportCheckpoint(chemin, null, null, 0, 0, false);
+    }
+
+    /**
+     * Position atteinte dans le fichier à un instant donné.
+     */
+    public static final class Position {
+
+        private final long decalage;
+        private final long ligne;
+        private final boolean termine;
+
+        private Position(long decalage, long ligne, boolean termine) {
+            this.decalage = decalage;
+            this.ligne = ligne;
+            this.termine = termine;
+        }
+    }
+
+    /**
+     * Obtient le nom du fichier suivi.
+     *
+     * @return Le nom du fichier (ex : roles.csv).
+     */
+    public String getFichier() {
+        return chemin.getFileName().toString();
+    }
+
+    Path getChemin() {
+        return chemin;
+    }
+
+    /**
+     * Indique si le fichier a déjà été entièrement importé, sans changement depuis.
+     *
+     * @return {@code true} si l'import du fichier peut être ignoré.
+     */
+    public boolean isTermine() {
+        return termine;
+    }
+
+    /**
+     * Indique si l'import reprend un précédent import interrompu.
+     *
+     * @return {@code true} si la lecture ne commence pas au début du fichier.
+     */
+    public boolean isReprise() {
+        return decalageDepart > 0;
+    }
+
+    /**
+     * Obtient le numéro de la dernière ligne validée.
+     *
+     * @return Le numéro de ligne, 0 si aucune ligne n'a été validée.
+     */
+    public long getLigne() {
+        return ligne;
+    }
+
+    /**
+     * Ouvre le fichier à la position de reprise, ou après son en-tête pour un import complet.
+     *
+     * @return Un lecteur positionné avant la première ligne à importer.
+     * @throws IOException Si le fichier ne peut pas être ouvert.
+     */
+    public CsvReader ouvrirLecteur() throws IOException {
+        if (isReprise()) {
+            return CsvReader.open(chemin, decalageDepart, ligneDepart);
+        }
+        CsvReader lecteur = CsvReader.open(chemin);
+        lecteur.next(); // Ignore l'en-tête du fichier CSV
+        return lecteur;
+    }
+
+    /**
+     * Signale qu'une ligne a été lue et transmise (ou non) à l'écriture : elle sera couverte par le prochain point de reprise.
+     *
+     * @param enregistrement La ligne lue.
+     */
+    public void avancer(CsvLine enregistrement) {
+        if (jdbcTemplate != null && positionExacte) {
+            if (enregistrement.isPositionExacte()) {
+                decalage = enregistrement.position();
+                ligne = enregistrement.lineNumber();
+            } else {
+                // La position n'est plus fiable : les points de reprise restent sur la dernière position exacte
+                positionExacte = false;
+                System.out.println(chemin.getFileName() + " : UTF-8 invalide ligne " + enregistrement.lineNumber()
+                        + ", points de reprise arrêtés à la ligne " + ligne);
+            }
+        }
+    }
+
+    /**
+     * Signale que toutes les lignes du fichier ont été lues.
+     */
+    public void lectureTerminee() {
+        lectureTerminee = positionExacte;
+    }
+
+    /**
+     * Fige la position atteinte, pour l'enregistrer une fois écrites les lignes lues jusqu'ici.
+     *
+     * @return La position de la dernière ligne signalée.
+     */
+    public Position position() {
+        return new Position(decalage, ligne, lectureTerminee);
+    }
+
+    /**
+     * Enregistre la position atteinte. Appelé par l'{@link ImportWriter} une fois les lignes lues jusqu'ici
+     * écrites et validées.
+     */
+    public void valider() {
+        valider(position());
+    }
+
+    /**
+     * Enregistre une position obtenue par {@link #position()}, une fois les lignes qui la précèdent écrites.
+     * Peut être appelé depuis un autre thread que celui de la lecture.
+     *
+     * @param position La position à enregistrer.
+     */
+    public void valider(Position position) {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update(ImportCheckpoints.SQL_ENREGISTRER, getFichier(), empreinte,
+                    position.decalage, position.ligne, position.termine);
+        }
+    }
+}
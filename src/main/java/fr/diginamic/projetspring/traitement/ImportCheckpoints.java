@@ -0,0 +1,117 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Points de reprise des imports JPA ({@code import.reprise=true}).
+ * <p>
+ * Pour chaque fichier, la position de la dernière ligne validée et l'empreinte SHA-256 du contenu sont
+ * conservées dans la table {@code import_reprise}. En mode {@link ImportMode#BULK}, le point de reprise est
+ * enregistré après la validation de chaque lot, dans l'ordre du fichier : après une interruption, l'import
+ * suivant reprend le fichier juste après le dernier lot enregistré, au lieu de tout relire et de buter sur les
+ * lignes déjà en base.
+ * Un fichier dont le contenu a changé est réimporté depuis le début ; un fichier entièrement importé et
+ * inchangé est ignoré.
+ * </p>
+ * <p>
+ * La reprise est désactivée en import différentiel, dont les relances sont déjà incrémentales. Un import
+ * sans reprise efface le point de reprise du fichier.
+ * </p>
+ */
+@Component
+public class ImportCheckpoints {
+
+    static final String SQL_CHARGER = "SELECT empreinte, decalage, ligne, termine FROM import_reprise WHERE fichier = ?";
+    static final String SQL_ENREGISTRER = "INSERT INTO import_reprise (fichier, empreinte, decalage, ligne, termine) VALUES (?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE empreinte = VALUES(empreinte), decalage = VALUES(decalage),"
+            + " ligne = VALUES(ligne), termine = VALUES(termine)";
+    static final String SQL_SUPPRIMER = "DELETE FROM import_reprise WHERE fichier = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Value("${import.reprise:true}")
+    private boolean actif;
+
+    /**
+     * Ouvre le suivi des points de reprise d'un fichier.
+     *
+     * @param chemin Le chemin du fichier CSV.
+     * @return Le suivi du fichier, positionné sur son dernier point de reprise s'il est encore valable.
+     */
+    public ImportCheckpoint ouvrir(Path chemin) {
+        String fichier = chemin.getFileName().toString();
+        if (!actif || deltaImport.isActif()) {
+            jdbcTemplate.update(SQL_SUPPRIMER, fichier);
+            return ImportCheckpoint.inactif(chemin);
+        }
+        String empreinte;
+        try {
+            empreinte = empreinte(chemin);
+        } catch (IOException e) {
+            // Fichier illisible : l'erreur sera signalée à l'ouverture du lecteur
+            return ImportCheckpoint.inactif(chemin);
+        }
+        // Un point de reprise n'est valable que pour le contenu sur lequel il a été enregistré
+        List<ImportCheckpoint> precedents = jdbcTemplate.query(SQL_CHARGER, (ligne, numero) ->
+                empreinte.equals(ligne.getString("empreinte"))
+                        ? new ImportCheckpoint(chemin, empreinte, jdbcTemplate,
+                                ligne.getLong("decalage"), ligne.getLong("ligne"), ligne.getBoolean("termine"))
+                        : null, fichier);
+        if (precedents.isEmpty()) {
+            return new ImportCheckpoint(chemin, empreinte, jdbcTemplate, 0, 0, false);
+        }
+        if (precedents.get(0) == null) {
+            System.out.println(fichier + " : fichier modifié depuis le dernier import, reprise depuis le début");
+            jdbcTemplate.update(SQL_SUPPRIMER, fichier);
+            return new ImportCheckpoint(chemin, empreinte, jdbcTemplate, 0, 0, false);
+        }
+        ImportCheckpoint reprise = precedents.get(0);
+        if (reprise.isTermine()) {
+            System.out.println(fichier + " : déjà importé et inchangé, ignoré");
+        } else if (reprise.isReprise()) {
+            System.out.println(fichier + " : reprise après la ligne " + reprise.getLigne());
+        }
+        return reprise;
+    }
+
+    /**
+     * Calcule l'empreinte SHA-256 du contenu d'un fichier.
+     */
+    private static String empreinte(Path chemin) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer tampon = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel canal = FileChannel.open(chemin, StandardOpenOption.READ)) {
+            while (canal.read(tampon) >= 0) {
+                tampon.flip();
+                sha256.update(tampon);
+                tampon.clear();
+            }
+        }
+        StringBuilder hexa = new StringBuilder(64);
+        for (byte octet : sha256.digest()) {
+            hexa.append(Character.forDigit((octet >> 4) & 0xF, 16)).append(Character.forDigit(octet & 0xF, 16));
+        }
+        return hexa.toString();
+    }
+}
@@ -2,16 +2,15 @@ package fr.diginamic.projetspring.traitement;
 
 import fr.diginamic.projetspring.entities.Film;
 import fr.diginamic.projetspring.entities.Genre;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.services.FilmService;
-import fr.diginamic.projetspring.services.GenreService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -45,11 +44,47 @@ import java.util.Set;
 @Component
 public class ImportFilms {
 
+    // Colonnes et schéma partagés avec le chargement natif (NativeBulkLoader)
+    static final CsvColumn<String> ID_IMDB = CsvColumn.of(0, "idIMDB", FieldCodecs.IDENTIFIANT_TITRE).obligatoire();
+    static final CsvColumn<String> NOM = CsvColumn.of(1, "nom", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<Integer> ANNEE_SORTIE = CsvColumn.of(2, "anneeSortie", FieldCodecs.ANNEE);
+    static final CsvColumn<String> RATING = CsvColumn.of(3, "rating", FieldCodecs.NOTE);
+    static final CsvColumn<String> URL_PROFILE = CsvColumn.of(4, "urlProfile", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<String> LIEU_TOURNAGE = CsvColumn.of(5, "lieuTournage", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<String> GENRES = CsvColumn.of(6, "genres", FieldCodecs.TEXTE);
+    static final CsvColumn<String> LANGUE = CsvColumn.of(7, "langue", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<String> RESUME = CsvColumn.of(8, "resume", FieldCodecs.TEXTE);
+    static final CsvColumn<String> PAYS = CsvColumn.of(9, "pays", FieldCodecs.TEXTE).tronquer(255);
+
+    static final CsvSchema SCHEMA = new CsvSchema("films.csv",
+            ID_IMDB, NOM, ANNEE_SORTIE, RATING, URL_PROFILE, LIEU_TOURNAGE, GENRES, LANGUE, RESUME, PAYS);
+
     @Autowired
     private FilmService filmService;
 
     @Autowired
-    private GenreService genreService;
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private BulkInsertEngine bulkInsertEngine;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private ImportCheckpoints importCheckpoints;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DedupSets dedupSets;
+
+    @Autowired
+    private ImdbIdResolver imdbIdResolver;
 
     /**
      * Convertit une chaîne de caractères représentant les genres en un ensemble d'objets {@link Genre}.
@@ -62,8 +97,10 @@ public class ImportFilms {
         String[] genreTypes = genresString.split(",");
 
         for (String genreType : genreTypes) {
-            Genre genre = genreService.findOrCreateGenreByType(genreType.trim());
-            genres.add(genre);
+            String type = genreType.trim();
+            if (!type.isEmpty()) {
+                genres.add(genreDictionary.obtenir(type));
+            }
         }
 
         return genres;
@@ -73,40 +110,76 @@ public class ImportFilms {
      * Importe les films depuis un fichier CSV situé à {@code src/main/resources/dataset/films.csv}.
      * <p>
      * Cette méthode lit les données du fichier, élimine les duplicatas d'ID IMDB et sauvegarde
-     * les films uniques dans la base de données.
+     * les films uniques dans la base de données. En import différentiel, seuls les films nouveaux
+     * ou modifiés sont écrits.
      * </p>
      */
     public void importFilms() {
-        Set<String> uniqueFilmIds = new HashSet<>();
+        List<String> dejaEnBase = Collections.emptyList();
+        ImdbIdIndex existants = ImdbIdIndex.VIDE;
+        genreDictionary.charger();
+
+        if (deltaImport.isActif()) {
+            // En import différentiel, les films déjà en base sont mis à jour si leur ligne a changé
+            existants = imdbIdResolver.chargerFilms();
+        } else if (bulkInsertEngine.getMode() == ImportMode.BULK) {
+            // En mode par lots, un doublon ferait échouer tout le lot : on écarte d'emblée les films déjà en base
+            dejaEnBase = filmService.findAllIdIMDB();
+        }
 
         Path pathFilms = Paths.get("src/main/resources/dataset/films.csv");
-        try {
-            List<String> rowFilms = Files.readAllLines(pathFilms);
-            rowFilms.remove(0); // Supprime l'en-tête du fichier CSV
-
-            for (String rowFilm : rowFilms) {
-                System.out.println(rowFilm);
-                String[] elements = rowFilm.split(";");
-                if (elements.length < 10) {
-                    System.out.println("Invalid data: " + rowFilm);
+        ImportCheckpoint reprise = importCheckpoints.ouvrir(pathFilms);
+        if (reprise.isTermine()) {
+            return;
+        }
+        DedupSet uniqueFilmIds = dedupSets.ouvrir(SCHEMA, reprise, dejaEnBase,
+                (ligne, rejetsLigne) -> ImdbIds.encoder(ID_IMDB.lire(ligne, rejetsLigne)));
+
+        try (ImportProgress progression = importMetrics.ouvrir(SCHEMA);
+             DeltaTracker delta = deltaImport.ouvrir(pathFilms.getFileName().toString());
+             ImportWriter<Film> writer = bulkInsertEngine.ouvrir("Film", filmService::createFilm, reprise);
+             ImportPipeline.Lecture lignes = importPipeline.lire(SCHEMA, reprise.ouvrirLecteur())) {
+            CsvRejects rejets = progression.getRejets();
+
+            while (lignes.next()) {
+                CsvLine elements = lignes.ligne();
+                reprise.avancer(elements);
+                progression.lue();
+                if (elements.fieldCount() < 10) {
+                    rejets.ligneRejetee(elements, "ligne incomplète");
                     continue;
                 }
-                String idIMDB = elements[0].trim();
+                String idIMDB = ID_IMDB.lire(elements, rejets);
                 // Vérifier si l'ID IMDB est unique
-                if (!uniqueFilmIds.contains(idIMDB)) {
-                    Film film = createFilmFromElements(elements);
-                    try {
-                        // Sauvegarder le film dans la base de données
-                        filmService.createFilm(film);
-                        // Ajouter l'ID IMDB à l'ensemble des IDs uniques
-                        uniqueFilmIds.add(idIMDB);
-                    } catch (DataIntegrityViolationException e) {
-                        System.out.println("Duplicate ID: " + idIMDB);
+                if (idIMDB == null) {
+                    rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                } else if (uniqueFilmIds.ajouter(idIMDB)) {
+                    int filmId = existants.resolve(idIMDB);
+                    progression.analysee();
+                    long empreinte = elements.fingerprint();
+                    switch (delta.classer(idIMDB, empreinte, filmId != ImdbIdIndex.INCONNU)) {
+                        case NOUVELLE:
+                            // Sauvegarder le film dans la base de données
+                            writer.write(createFilmFromElements(elements, rejets), delta.empreinte(idIMDB, empreinte));
+                            break;
+                        case MODIFIEE:
+                            Film film = createFilmFromElements(elements, rejets);
+                            film.setFilmId(filmId);
+                            writer.update(film, delta.empreinte(idIMDB, empreinte));
+                            break;
+                        default:
+                            break;
                     }
                 } else {
-                    System.out.println("Duplicate ID: " + idIMDB);
+                    progression.dedupliquee();
                 }
             }
+            reprise.lectureTerminee();
+            List<Integer> disparus = existants.resolveAll(delta.disparues());
+            if (!disparus.isEmpty()) {
+                filmService.deleteFilms(disparus);
+            }
+            delta.oublierDisparues();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -116,49 +189,35 @@ public class ImportFilms {
      * Crée un objet {@link Film} à partir des éléments d'une ligne du fichier CSV.
      * <p>
      * Cette méthode extrait les données d'une ligne du fichier CSV, les formate et les assigne
-     * aux propriétés de l'objet {@link Film}.
+     * aux propriétés de l'objet {@link Film}. Une année ou une note invalide (ex : {@code 2005–2013})
+     * laisse le champ vide et est comptée dans les rejets ; le résumé est conservé en entier, et reste vide
+     * ({@code null}) s'il est absent.
      * </p>
      *
-     * @param elements Les éléments de la ligne CSV, séparés par des points-virgules.
+     * @param elements La ligne CSV du film.
+     * @param rejets   Les compteurs de rejets du fichier.
      * @return Un objet {@link Film} avec les propriétés définies à partir des éléments de la ligne CSV.
      */
-    private Film createFilmFromElements(String[] elements) {
+    private Film createFilmFromElements(CsvLine elements, CsvRejects rejets) {
         Film film = new Film();
-        film.setIdIMDB(elements[0].trim());
-        film.setNom(elements[1]);
-
-        if (elements.length >= 3) {
-            try {
-                film.setAnneeSortie(Integer.valueOf(elements[2]));
-            } catch (NumberFormatException e) {
-                System.out.println("Error converting film data: " + elements);
-                e.printStackTrace();
-            }
-        }
+        film.setIdIMDB(ID_IMDB.lire(elements, rejets));
+        film.setNom(NOM.lire(elements, rejets));
+        film.setAnneeSortie(ANNEE_SORTIE.lire(elements, rejets));
+        film.setRating(RATING.lire(elements, rejets));
+        film.setUrlProfile(URL_PROFILE.lire(elements, rejets));
+        film.setLieuTournage(LIEU_TOURNAGE.lire(elements, rejets));
 
-        film.setRating(elements[3]);
-        film.setUrlProfile(elements[4]);
-        film.setLieuTournage(elements[5]);
-
-        if (elements.length >= 8) {
-            String resume = elements[8];
-            if (resume.length() > 255) {
-                resume = resume.substring(0, 255);
-            }
-            film.setResume(resume);
-        } else {
-            film.setResume("");
-        }
+        film.setResume(RESUME.lire(elements, rejets));
 
         // Convertir les genres et les assigner au film
-        if (elements.length >= 7) {
-            String genresString = elements[6];
+        String genresString = GENRES.lire(elements, rejets);
+        if (genresString != null) {
             Set<Genre> genres = convertGenres(genresString);
             film.setGenres(genres);
         }
 
-        film.setLangue(elements[7]);
-        film.setPays(elements[9]);
+        film.setLangue(LANGUE.lire(elements, rejets));
+        film.setPays(PAYS.lire(elements, rejets));
 
         return film;
     }
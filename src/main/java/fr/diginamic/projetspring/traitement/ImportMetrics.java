@@ -0,0 +1,135 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation des imports CSV.
+ * <p>
+ * Chaque fichier importé ouvre un {@link ImportProgress} qui publie ses compteurs dans Micrometer
+ * (exposés par Actuator sous {@code /actuator/metrics/import.*}) :
+ * <ul>
+ * <li>{@code import.lignes.lues}, {@code import.lignes.analysees}, {@code import.lignes.dedupliquees},
+ * {@code import.lignes.rejetees} et {@code import.cellules.invalides}, par fichier ;</li>
+ * <li>{@code import.entites.ecrites}, {@code import.entites.rejetees} et le timer
+ * {@code import.bdd.transactions} (une mesure par transaction d'écriture), par entité ;</li>
+ * <li>le timer {@code import.etape}, par étape de l'{@link ImportScheduler} ;</li>
+ * <li>la jauge {@code import.pipeline.file} et le timer {@code import.pipeline.attente}, par fichier,
+ * publiés par l'{@link ImportPipeline}.</li>
+ * </ul>
+ * Une ligne de progression par fichier en cours est affichée toutes les {@code import.progression.intervalle}
+ * secondes, et les lignes rejetées sont recopiées dans le fichier {@code import.rejets.fichier}.
+ * </p>
+ */
+@Component
+public class ImportMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${import.progression.intervalle:5}")
+    private int intervalle;
+
+    @Value("${import.rejets.fichier:import-rejets.csv}")
+    private String cheminRejets;
+
+    private final Set<ImportProgress> enCours = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService affichage;
+    private BufferedWriter rejets;
+
+    /**
+     * Commence le suivi de l'import d'un fichier.
+     *
+     * @param schema Le schéma du fichier importé.
+     * @return Le suivi du fichier, à fermer en fin d'import.
+     */
+    public ImportProgress ouvrir(CsvSchema schema) {
+        ImportProgress progression = new ImportProgress(schema, this, registry);
+        enCours.add(progression);
+        demarrerAffichage();
+        return progression;
+    }
+
+    /**
+     * Obtient le registre Micrometer dans lequel les métriques de l'import sont publiées.
+     *
+     * @return Le registre de métriques.
+     */
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    void terminer(ImportProgress progression) {
+        enCours.remove(progression);
+        synchronized (this) {
+            if (rejets != null) {
+                try {
+                    rejets.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recopie une ligne rejetée dans le fichier des rejets, créé (et vidé) au premier rejet.
+     */
+    synchronized void ecrireRejet(String fichier, long numeroLigne, String motif, String contenu) {
+        try {
+            if (rejets == null) {
+                Path chemin = Paths.get(cheminRejets);
+                rejets = Files.newBufferedWriter(chemin, StandardCharsets.UTF_8);
+                rejets.write("fichier;ligne;motif;contenu");
+                rejets.newLine();
+            }
+            rejets.write(fichier + ';' + numeroLigne + ';' + motif + ';' + contenu);
+            rejets.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void demarrerAffichage() {
+        if (affichage == null && intervalle > 0) {
+            affichage = Executors.newSingleThreadScheduledExecutor(tache -> {
+                Thread thread = new Thread(tache, "import-progression");
+                thread.setDaemon(true);
+                return thread;
+            });
+            affichage.scheduleAtFixedRate(() -> enCours.forEach(progression ->
+                    System.out.println("Progression " + progression.progression())), intervalle, intervalle, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Arrête l'affichage de la progression et ferme le fichier des rejets.
+     *
+     * @throws IOException En cas d'erreur à la fermeture du fichier des rejets.
+     */
+    @PreDestroy
+    public synchronized void fermer() throws IOException {
+        if (affichage != null) {
+            affichage.shutdownNow();
+        }
+        if (rejets != null) {
+            rejets.close();
+        }
+    }
+}
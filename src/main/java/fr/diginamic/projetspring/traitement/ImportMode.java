@@ -0,0 +1,23 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Mode d'écriture utilisé par les composants d'importation des fichiers CSV.
+ * <p>
+ * Le mode est choisi au lancement via la propriété {@code import.mode}.
+ * </p>
+ */
+public enum ImportMode {
+
+    /** Une sauvegarde par ligne, chacune dans sa propre transaction (comportement historique). */
+    UNITAIRE,
+
+    /** Écriture par lots : une transaction par paquet de lignes et batching JDBC. */
+    BULK,
+
+    /**
+     * Chargement natif : les fichiers sont chargés dans des tables de transit ({@code LOAD DATA LOCAL INFILE}
+     * ou {@code INSERT} multi-lignes), puis recopiés par des {@code INSERT ... SELECT} ensemblistes.
+     * Réservé aux rechargements complets : l'import différentiel n'est pas disponible dans ce mode.
+     */
+    NATIF
+}
@@ -0,0 +1,362 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Découpage de l'import d'un fichier CSV en étapes exécutées sur des threads distincts.
+ * <p>
+ * L'import d'un fichier forme une chaîne de trois étapes reliées par des files bornées :
+ * <ol>
+ * <li>lecture : un thread lit et découpe le fichier ({@link #lire(CsvSchema, CsvReader)}) et transmet
+ * les lignes par blocs de {@value #LIGNES_PAR_BLOC} ;</li>
+ * <li>résolution : le thread de l'import résout les identifiants, écarte les doublons et construit les entités ;</li>
+ * <li>écriture : en mode {@link ImportMode#BULK}, {@code import.pipeline.ecrivains} threads écrivent les lots
+ * construits ({@link BulkInsertEngine}), chacun avec sa propre transaction et donc sa propre connexion.</li>
+ * </ol>
+ * Chaque file contient au plus {@code import.pipeline.file} éléments : une étape plus rapide que la suivante
+ * est bloquée au lieu d'accumuler des lignes en mémoire. La profondeur des files est publiée dans la jauge
+ * {@code import.pipeline.file}, enregistrée une fois par fichier et par file et qui suit la dernière file
+ * créée, et le temps passé par chaque étape à attendre une file pleine ou vide dans
+ * le timer {@code import.pipeline.attente}.
+ * </p>
+ * <p>
+ * Avec {@code import.pipeline.threads-virtuels=true}, les étapes s'exécutent sur des threads virtuels
+ * lorsque le JDK en dispose (Java 21 et suivants), sur des threads classiques sinon.
+ * </p>
+ */
+@Component
+public class ImportPipeline {
+
+    /** Nombre de lignes transmises à la fois par l'étape de lecture. */
+    static final int LIGNES_PAR_BLOC = 256;
+
+    private static final List<CsvLine> FIN_LECTURE = Collections.emptyList();
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${import.pipeline.ecrivains:2}")
+    private int ecrivains;
+
+    @Value("${import.pipeline.file:8}")
+    private int capacite;
+
+    @Value("${import.pipeline.threads-virtuels:false}")
+    private boolean threadsVirtuels;
+
+    private volatile ThreadFactory fabrique;
+
+    /** File suivie par chaque jauge {@code import.pipeline.file}, par fichier et nom de file. */
+    private final Map<String, AtomicReference<Collection<?>>> filesSuivies = new ConcurrentHashMap<>();
+
+    /**
+     * Obtient le nombre de threads d'écriture par fichier.
+     *
+     * @return Le nombre de threads d'écriture, au moins 1.
+     */
+    public int getEcrivains() {
+        return Math.max(1, ecrivains);
+    }
+
+    /**
+     * Démarre la lecture d'un fichier sur un thread dédié.
+     *
+     * @param schema  Le schéma du fichier lu.
+     * @param lecteur Le lecteur du fichier, positionné avant la première ligne à importer ; il est fermé en fin de lecture.
+     * @return Les lignes lues, à fermer en fin d'import.
+     */
+    public Lecture lire(CsvSchema schema, CsvReader lecteur) {
+        return new Lecture(schema.getFichier(), lecteur);
+    }
+
+    /**
+     * Crée une file bornée entre deux étapes.
+     *
+     * @param fichier      Le fichier importé.
+     * @param nom          Le nom de la file.
+     * @param producteur   L'étape qui alimente la file.
+     * @param consommateur L'étape qui vide la file.
+     * @param <E>          Le type des éléments de la file.
+     * @return La file.
+     */
+    <E> FileAttente<E> file(String fichier, String nom, String producteur, String consommateur) {
+        return new FileAttente<>(fichier, nom, producteur, consommateur);
+    }
+
+    /**
+     * Crée le timer d'attente d'une étape.
+     */
+    Timer attente(String fichier, String etape, String cause) {
+        return registry.timer("import.pipeline.attente", "fichier", fichier, "etape", etape, "cause", cause);
+    }
+
+    /**
+     * Démarre un thread d'étape.
+     *
+     * @param nom   Le nom du thread.
+     * @param tache Le traitement de l'étape.
+     * @return Le thread démarré.
+     */
+    Thread demarrer(String nom, Runnable tache) {
+        Thread thread = fabriqueThreads().newThread(tache);
+        thread.setName(nom);
+        thread.start();
+        return thread;
+    }
+
+    private ThreadFactory fabriqueThreads() {
+        if (fabrique == null) {
+            synchronized (this) {
+                if (fabrique == null) {
+                    fabrique = threadsVirtuels ? fabriqueVirtuelle() : null;
+                    if (fabrique == null) {
+                        AtomicInteger numero = new AtomicInteger();
+                        fabrique = tache -> {
+                            Thread thread = new Thread(tache, "import-" + numero.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        };
+                    }
+                }
+            }
+        }
+        return fabrique;
+    }
+
+    /**
+     * Obtient la fabrique de threads virtuels ({@code Thread.ofVirtual().factory()}) par réflexion,
+     * l'application étant compilée pour Java 11.
+     *
+     * @return La fabrique, ou {@code null} si le JDK ne fournit pas de threads virtuels.
+     */
+    private static ThreadFactory fabriqueVirtuelle() {
+        try {
+            Object constructeur = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(constructeur);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("Threads virtuels indisponibles sur ce JDK (" + System.getProperty("java.version")
+                    + ") : threads classiques utilisés");
+            return null;
+        }
+    }
+
+    /**
+     * Fait suivre une nouvelle file par la jauge de son fichier et de son nom, enregistrée à la première file.
+     */
+    private void suivre(String fichier, String nom, Collection<?> elements) {
+        filesSuivies.computeIfAbsent(fichier + "/" + nom, cle -> {
+            AtomicReference<Collection<?>> suivie = new AtomicReference<>();
+            Gauge.builder("import.pipeline.file", suivie, reference -> {
+                        Collection<?> file = reference.get();
+                        return file != null ? file.size() : 0;
+                    })
+                    .description("Nombre d'éléments en attente dans une file du pipeline d'import")
+                    .tag("fichier", fichier)
+                    .tag("file", nom)
+                    .register(registry);
+            return suivie;
+        }).set(elements);
+    }
+
+    private static double secondes(long nanos) {
+        return nanos / 1_000_000_000d;
+    }
+
+    /**
+     * File bornée entre deux étapes, qui mesure le temps pendant lequel le producteur est bloqué
+     * (file pleine) et le consommateur attend (file vide).
+     *
+     * @param <E> Le type des éléments de la file.
+     */
+    final class FileAttente<E> {
+
+        private final String nom;
+        private final String producteur;
+        private final String consommateur;
+        private final BlockingQueue<E> elements;
+        private final Timer attentePleine;
+        private final Timer attenteVide;
+        private final LongAdder nanosPleine = new LongAdder();
+        private final LongAdder nanosVide = new LongAdder();
+
+        private FileAttente(String fichier, String nom, String producteur, String consommateur) {
+            this.nom = nom;
+            this.producteur = producteur;
+            this.consommateur = consommateur;
+            this.elements = new ArrayBlockingQueue<>(Math.max(1, capacite));
+            this.attentePleine = attente(fichier, producteur, "file-pleine");
+            this.attenteVide = attente(fichier, consommateur, "file-vide");
+            suivre(fichier, nom, elements);
+        }
+
+        /**
+         * Ajoute un élément, en attendant qu'une place se libère si la file est pleine.
+         */
+        void mettre(E element) throws InterruptedException {
+            if (!elements.offer(element)) {
+                long debut = System.nanoTime();
+                elements.put(element);
+                long duree = System.nanoTime() - debut;
+                nanosPleine.add(duree);
+                attentePleine.record(duree, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Retire le premier élément, en attendant qu'il y en ait un si la file est vide.
+         */
+        E prendre() throws InterruptedException {
+            E element = elements.poll();
+            if (element == null) {
+                long debut = System.nanoTime();
+                element = elements.take();
+                long duree = System.nanoTime() - debut;
+                nanosVide.add(duree);
+                attenteVide.record(duree, TimeUnit.NANOSECONDS);
+            }
+            return element;
+        }
+
+        /**
+         * Vide la file, lorsque le consommateur abandonne.
+         */
+        void vider() {
+            elements.clear();
+        }
+
+        /**
+         * Construit le bilan des attentes de la file.
+         *
+         * @return Un texte de la forme "lecture bloquée 0.00 s, résolution en attente 1.20 s (file lignes)".
+         */
+        String rapport() {
+            return String.format(Locale.ROOT, "%s bloquée %.2f s, %s en attente %.2f s (file %s)",
+                    producteur, secondes(nanosPleine.sum()), consommateur, secondes(nanosVide.sum()), nom);
+        }
+    }
+
+    /**
+     * Lignes d'un fichier, lues et découpées par un thread dédié.
+     * <p>
+     * S'utilise comme un {@link CsvReader} : {@link #next()} avance d'une ligne, {@link #ligne()} donne la
+     * ligne courante, une copie qui reste valide après les appels suivants. Une erreur de lecture est relancée
+     * par {@link #next()}.
+     * </p>
+     */
+    public final class Lecture implements AutoCloseable {
+
+        private final String fichier;
+        private final FileAttente<List<CsvLine>> lignes;
+        private final Thread thread;
+        private volatile Exception erreur;
+        private List<CsvLine> bloc = new ArrayList<>();
+        private int index;
+        private CsvLine courante;
+
+        private Lecture(String fichier, CsvReader lecteur) {
+            this.fichier = fichier;
+            this.lignes = file(fichier, "lignes", "lecture", "resolution");
+            this.thread = demarrer(fichier + "-lecture", () -> lireFichier(lecteur));
+        }
+
+        /**
+         * Avance jusqu'à la ligne suivante.
+         *
+         * @return {@code true} si une ligne a été lue, {@code false} en fin de fichier.
+         * @throws IOException En cas d'erreur de lecture du fichier.
+         */
+        public boolean next() throws IOException {
+            while (index == bloc.size()) {
+                if (bloc == FIN_LECTURE) {
+                    return false;
+                }
+                try {
+                    bloc = lignes.prendre();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Import de " + fichier + " interrompu", e);
+                }
+                index = 0;
+                if (bloc == FIN_LECTURE && erreur != null) {
+                    if (erreur instanceof IOException) {
+                        throw (IOException) erreur;
+                    }
+                    throw (RuntimeException) erreur;
+                }
+            }
+            courante = bloc.get(index++);
+            return true;
+        }
+
+        /**
+         * Obtient la ligne courante.
+         *
+         * @return La ligne lue par le dernier appel à {@link #next()}.
+         */
+        public CsvLine ligne() {
+            return courante;
+        }
+
+        /**
+         * Arrête la lecture si elle n'est pas terminée et affiche le bilan des attentes.
+         */
+        @Override
+        public void close() {
+            if (thread.isAlive()) {
+                // Import abandonné avant la fin du fichier : le thread de lecture peut être bloqué sur la file pleine
+                thread.interrupt();
+                lignes.vider();
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println(fichier + " : " + lignes.rapport());
+        }
+
+        private void lireFichier(CsvReader lecteur) {
+            try {
+                try (CsvReader fichierLu = lecteur) {
+                    List<CsvLine> lues = new ArrayList<>(LIGNES_PAR_BLOC);
+                    while (fichierLu.next()) {
+                        lues.add(fichierLu.copier());
+                        if (lues.size() == LIGNES_PAR_BLOC) {
+                            lignes.mettre(lues);
+                            lues = new ArrayList<>(LIGNES_PAR_BLOC);
+                        }
+                    }
+                    if (!lues.isEmpty()) {
+                        lignes.mettre(lues);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    erreur = e;
+                }
+                lignes.mettre(FIN_LECTURE);
+            } catch (InterruptedException e) {
+                // Lecture abandonnée par close()
+            }
+        }
+    }
+}
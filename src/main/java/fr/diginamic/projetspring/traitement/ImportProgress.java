@@ -0,0 +1,116 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Locale;
+
+/**
+ * Suivi de l'import d'un fichier CSV : compteurs de lignes publiés dans Micrometer, rejets du fichier
+ * et ligne de progression.
+ * <p>
+ * Les compteurs sont thread-safe. Les rejets détectés par le {@link CsvSchema} du fichier sont à la fois
+ * comptés et recopiés dans le fichier des rejets de l'{@link ImportMetrics}.
+ * </p>
+ */
+public final class ImportProgress implements AutoCloseable, CsvRejects.Destination {
+
+    private final String fichier;
+    private final ImportMetrics metrics;
+    private final CsvRejects rejets;
+    private final Counter lues;
+    private final Counter analysees;
+    private final Counter dedupliquees;
+    private final Counter rejetees;
+    private final Counter cellulesInvalides;
+    private final long debut = System.nanoTime();
+
+    ImportProgress(CsvSchema schema, ImportMetrics metrics, MeterRegistry registry) {
+        this.fichier = schema.getFichier();
+        this.metrics = metrics;
+        this.rejets = schema.rejets(this);
+        this.lues = registry.counter("import.lignes.lues", "fichier", fichier);
+        this.analysees = registry.counter("import.lignes.analysees", "fichier", fichier);
+        this.dedupliquees = registry.counter("import.lignes.dedupliquees", "fichier", fichier);
+        this.rejetees = registry.counter("import.lignes.rejetees", "fichier", fichier);
+        this.cellulesInvalides = registry.counter("import.cellules.invalides", "fichier", fichier);
+    }
+
+    /**
+     * Obtient les compteurs de rejets du fichier, à passer aux lectures de colonnes.
+     *
+     * @return Les rejets du fichier.
+     */
+    public CsvRejects getRejets() {
+        return rejets;
+    }
+
+    /**
+     * Comptabilise une ligne lue dans le fichier.
+     */
+    public void lue() {
+        lues.increment();
+    }
+
+    /**
+     * Comptabilise une ligne décodée en entité.
+     */
+    public void analysee() {
+        analysees.increment();
+    }
+
+    /**
+     * Comptabilise une ligne écartée car sa clé a déjà été vue dans le fichier.
+     */
+    public void dedupliquee() {
+        dedupliquees.increment();
+    }
+
+    @Override
+    public void ligneRejetee(CsvLine ligne, String motif) {
+        rejetees.increment();
+        metrics.ecrireRejet(fichier, ligne.lineNumber(), motif, ligne.currentLine());
+    }
+
+    /**
+     * Comptabilise une ligne écartée après sa lecture, lorsque le rejet n'est constaté qu'en base
+     * (ex : référence inconnue lors du chargement natif).
+     *
+     * @param numeroLigne Le numéro de la ligne dans le fichier.
+     * @param motif       La raison du rejet.
+     * @param contenu     Le contenu de la ligne, ou les valeurs qui en ont été retenues.
+     */
+    public void ligneRejetee(long numeroLigne, String motif, String contenu) {
+        rejets.compterLigneRejetee();
+        rejetees.increment();
+        metrics.ecrireRejet(fichier, numeroLigne, motif, contenu);
+    }
+
+    @Override
+    public void celluleInvalide(CsvLine ligne, CsvColumn<?> colonne) {
+        cellulesInvalides.increment();
+        metrics.ecrireRejet(fichier, ligne.lineNumber(), colonne.getNom() + " invalide", ligne.currentLine());
+    }
+
+    /**
+     * Construit la ligne de progression du fichier.
+     *
+     * @return Une ligne de la forme "acteurs.csv : 12000 lues (4000 lignes/s), 11990 analysées, 10 doublon(s), 0 rejet(s)".
+     */
+    public String progression() {
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000d;
+        double debit = secondes > 0 ? lues.count() / secondes : 0;
+        return String.format(Locale.ROOT, "%s : %.0f lues (%.0f lignes/s), %.0f analysées, %.0f doublon(s), %.0f rejet(s)",
+                fichier, lues.count(), debit, analysees.count(), dedupliquees.count(), rejetees.count());
+    }
+
+    /**
+     * Termine le suivi et affiche le bilan du fichier.
+     */
+    @Override
+    public void close() {
+        metrics.terminer(this);
+        System.out.println(progression());
+        System.out.println(rejets.rapport());
+    }
+}
@@ -1,22 +1,21 @@
 package fr.diginamic.projetspring.traitement;
 
 import fr.diginamic.projetspring.entities.Film;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.entities.Realisateur;
 import fr.diginamic.projetspring.entities.RealisateurFilm;
-import fr.diginamic.projetspring.services.FilmService;
-import fr.diginamic.projetspring.services.RealisateurService;
 import fr.diginamic.projetspring.services.RealisateurFilmService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * La classe {@code ImportRealisateurFilms} permet d'importer les associations de réalisateurs et de films depuis un fichier CSV.
@@ -39,61 +38,153 @@ import java.util.Set;
 @Component
 public class ImportRealisateurFilms {
 
+    // Colonnes et schéma partagés avec le chargement natif (NativeBulkLoader)
+    static final CsvColumn<String> FILM_ID_IMDB = CsvColumn.of(0, "filmIdIMDB", FieldCodecs.IDENTIFIANT_TITRE).obligatoire();
+    static final CsvColumn<String> REALISATEUR_ID_IMDB = CsvColumn.of(1, "realisateurIdIMDB", FieldCodecs.IDENTIFIANT_NOM).obligatoire();
+
+    static final CsvSchema SCHEMA = new CsvSchema("film_realisateurs.csv", FILM_ID_IMDB, REALISATEUR_ID_IMDB);
+
     @Autowired
-    private RealisateurService realisateurService;
+    private RealisateurFilmService realisateurFilmService;
 
     @Autowired
-    private FilmService filmService;
+    private BulkInsertEngine bulkInsertEngine;
 
     @Autowired
-    private RealisateurFilmService realisateurFilmService;
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private ImdbIdResolver imdbIdResolver;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private ImportCheckpoints importCheckpoints;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DedupSets dedupSets;
 
     /**
      * Importe les associations de réalisateurs et de films depuis un fichier CSV situé à {@code src/main/resources/dataset/film_realisateurs.csv}.
      * <p>
      * Cette méthode lit les données du fichier, élimine les duplicatas d'associations et sauvegarde
-     * les associations uniques dans la base de données.
+     * les associations uniques dans la base de données. En import différentiel, seules les associations
+     * nouvelles sont écrites.
      * </p>
      */
     public void importFilmRealisateurs() {
-        Set<String> uniqueRealisateurFilmIds = new HashSet<>();
-
         Path pathRealisateurFilm = Paths.get("src/main/resources/dataset/film_realisateurs.csv");
-        try {
-            List<String> rowsRealisateurFilm = Files.readAllLines(pathRealisateurFilm);
-            rowsRealisateurFilm.remove(0); // Supprime l'en-tête du fichier CSV
+        ImportCheckpoint reprise = importCheckpoints.ouvrir(pathRealisateurFilm);
+        if (reprise.isTermine()) {
+            return;
+        }
 
-            for (String rowRealisateurFilms : rowsRealisateurFilm) {
-                System.out.println(rowRealisateurFilms);
-                String[] elements = rowRealisateurFilms.split(";");
-                String filmIdIMDB = elements[0].trim();
-                String realisateurIdIMDB = elements[1].trim();
+        // Correspondances IMDB → identifiant technique chargées une fois pour tout le fichier
+        ImdbIdIndex realisateurs = imdbIdResolver.chargerRealisateurs();
+        ImdbIdIndex films = imdbIdResolver.chargerFilms();
+        // En reprise, les associations déjà en base sont chargées pour ne pas réinsérer celles écrites avant l'interruption
+        Map<Long, Integer> existants = deltaImport.isActif() || reprise.isReprise()
+                ? imdbIdResolver.chargerRealisateurFilms() : Collections.<Long, Integer>emptyMap();
+        // Couples (idRealisateur, filmId) déjà rencontrés, codés dans un long
+        try (DedupSet uniqueRealisateurFilmIds = dedupSets.ouvrir(SCHEMA, reprise, (ligne, rejetsLigne) ->
+                cle(realisateurs, films, REALISATEUR_ID_IMDB.lire(ligne, rejetsLigne), FILM_ID_IMDB.lire(ligne, rejetsLigne)));
+             ImportProgress progression = importMetrics.ouvrir(SCHEMA);
+             DeltaTracker delta = deltaImport.ouvrir(pathRealisateurFilm.getFileName().toString());
+             ImportWriter<RealisateurFilm> writer = bulkInsertEngine.ouvrir("RealisateurFilm",
+                realisateurFilm -> realisateurFilmService.createRealisateurFilm(realisateurFilm.getIdRealisateur(), realisateurFilm.getFilmId()), reprise);
+             ImportPipeline.Lecture lignes = importPipeline.lire(SCHEMA, reprise.ouvrirLecteur())) {
+            CsvRejects rejets = progression.getRejets();
 
-                String realisateurFilmId = realisateurIdIMDB + "_" + filmIdIMDB;
+            while (lignes.next()) {
+                CsvLine elements = lignes.ligne();
+                reprise.avancer(elements);
+                progression.lue();
+                String filmIdIMDB = FILM_ID_IMDB.lire(elements, rejets);
+                String realisateurIdIMDB = REALISATEUR_ID_IMDB.lire(elements, rejets);
 
-                // Vérifier si l'association réalisateur-film est unique
-                if (!uniqueRealisateurFilmIds.contains(realisateurFilmId)) {
-                    Realisateur realisateur = realisateurService.findByIdIMDB(realisateurIdIMDB);
-                    Film film = filmService.findByIdIMDB(filmIdIMDB);
+                long cle = cle(realisateurs, films, realisateurIdIMDB, filmIdIMDB);
 
-                    if (realisateur != null && film != null) {
+                if (filmIdIMDB == null || realisateurIdIMDB == null) {
+                    rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                } else if (cle == ImdbIds.INVALIDE) {
+                    rejets.ligneRejetee(elements, "réalisateur ou film inconnu");
+                } else if (uniqueRealisateurFilmIds.ajouter(cle, elements)) {
+                    // Vérifier si l'association réalisateur-film est unique
+                    int idRealisateur = realisateurs.resolve(realisateurIdIMDB);
+                    int filmId = films.resolve(filmIdIMDB);
+                    progression.analysee();
+                    boolean existe = existants.containsKey(cle);
+                    // La clé textuelle n'est construite que pour l'import différentiel, qui la conserve en base
+                    String realisateurFilmId = delta.isActif() ? realisateurIdIMDB + "_" + filmIdIMDB : null;
+                    // Une ligne ne contient que le couple d'identifiants : une association existante n'a rien à mettre à jour
+                    long empreinte = elements.fingerprint();
+                    DeltaTracker.Statut statut = delta.classer(realisateurFilmId, empreinte, existe);
+                    if (statut == DeltaTracker.Statut.NOUVELLE && !existe) {
+                        // Références construites sans accès à la base : seule la clé étrangère est utilisée à l'insertion
                         RealisateurFilm realisateurFilm = new RealisateurFilm();
+                        Realisateur realisateur = new Realisateur();
+                        realisateur.setIdRealisateur(idRealisateur);
                         realisateurFilm.setRealisateur(realisateur);
+                        realisateurFilm.setIdRealisateur(idRealisateur);
+                        Film film = new Film();
+                        film.setFilmId(filmId);
                         realisateurFilm.setFilm(film);
-                        realisateurFilmService.createRealisateurFilm(realisateurFilm);
-
-                        uniqueRealisateurFilmIds.add(realisateurFilmId);
-                    } else {
-                        System.out.println("Invalid Realisateur or Film ID");
+                        realisateurFilm.setFilmId(filmId);
+                        writer.write(realisateurFilm, delta.empreinte(realisateurFilmId, empreinte));
+                    } else if (statut == DeltaTracker.Statut.MODIFIEE) {
+                        // Association déjà en base : seule son empreinte est à enregistrer
+                        writer.confirmer(delta.empreinte(realisateurFilmId, empreinte));
                     }
                 } else {
-                    System.out.println("Duplicate RealisateurFilm ID: " + realisateurFilmId);
+                    progression.dedupliquee();
                 }
             }
 
-            System.out.println("Unique RealisateurFilm IDs Set: " + uniqueRealisateurFilmIds);
+            reprise.lectureTerminee();
+            List<Integer> disparues = resoudreAssociations(delta.disparues(), realisateurs, films, existants);
+            if (!disparues.isEmpty()) {
+                realisateurFilmService.deleteRealisateurFilms(disparues);
+            }
+            delta.oublierDisparues();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Calcule la clé d'une association : le couple (idRealisateur, filmId) codé dans un {@code long}.
+     *
+     * @return La clé, ou {@link ImdbIds#INVALIDE} si le réalisateur ou le film est absent ou inconnu.
+     */
+    private static long cle(ImdbIdIndex realisateurs, ImdbIdIndex films, String realisateurIdIMDB, String filmIdIMDB) {
+        int idRealisateur = realisateurIdIMDB != null ? realisateurs.resolve(realisateurIdIMDB) : ImdbIdIndex.INCONNU;
+        int filmId = filmIdIMDB != null ? films.resolve(filmIdIMDB) : ImdbIdIndex.INCONNU;
+        if (idRealisateur == ImdbIdIndex.INCONNU || filmId == ImdbIdIndex.INCONNU) {
+            return ImdbIds.INVALIDE;
+        }
+        return ImdbIdResolver.paire(idRealisateur, filmId);
+    }
+
+    /**
+     * Résout les clés {@code realisateurIdIMDB_filmIdIMDB} des associations disparues du fichier
+     * en identifiants d'associations en base.
+     */
+    private static List<Integer> resoudreAssociations(Collection<String> cles, ImdbIdIndex realisateurs, ImdbIdIndex films,
+                                                      Map<Long, Integer> existants) {
+        List<Integer> ids = new ArrayList<>(cles.size());
+        for (String cle : cles) {
+            int separateur = cle.indexOf('_');
+            int idRealisateur = realisateurs.resolve(cle.substring(0, separateur));
+            int filmId = films.resolve(cle.substring(separateur + 1));
+            Integer id = existants.get(ImdbIdResolver.paire(idRealisateur, filmId));
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
 }
@@ -1,21 +1,17 @@
 package fr.diginamic.projetspring.traitement;
 
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.entities.Realisateur;
 import fr.diginamic.projetspring.services.RealisateurService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 /**
  * La classe {@code ImportRealisateurs} permet d'importer les données des réalisateurs depuis un fichier CSV.
@@ -44,43 +40,106 @@ public class ImportRealisateurs {
     @Autowired
     private RealisateurService realisateurService;
 
-    private final SimpleDateFormat sdf = new SimpleDateFormat("MMMM d yyyy");
+    @Autowired
+    private BulkInsertEngine bulkInsertEngine;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private ImportCheckpoints importCheckpoints;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DedupSets dedupSets;
+
+    @Autowired
+    private ImdbIdResolver imdbIdResolver;
+
+    // Colonnes et schéma partagés avec le chargement natif (NativeBulkLoader)
+    static final CsvColumn<String> ID_IMDB = CsvColumn.of(0, "idIMDB", FieldCodecs.IDENTIFIANT_NOM).obligatoire();
+    static final CsvColumn<String> NOM = CsvColumn.of(1, "nom", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<Date> DATE_NAISSANCE = CsvColumn.of(2, "dateNaissance", FieldCodecs.DATE_ANGLAISE);
+    static final CsvColumn<String> LIEU_NAISSANCE = CsvColumn.of(3, "lieuNaissance", FieldCodecs.TEXTE).tronquer(255);
+    static final CsvColumn<String> URL_PROFILE = CsvColumn.of(4, "urlProfile", FieldCodecs.TEXTE).tronquer(255);
+
+    static final CsvSchema SCHEMA = new CsvSchema("realisateurs.csv",
+            ID_IMDB, NOM, DATE_NAISSANCE, LIEU_NAISSANCE, URL_PROFILE);
 
     /**
      * Importe les réalisateurs depuis un fichier CSV situé à {@code src/main/resources/dataset/realisateurs.csv}.
      * <p>
      * Cette méthode lit les données du fichier, élimine les duplicatas d'ID IMDB et sauvegarde
-     * les réalisateurs uniques dans la base de données.
+     * les réalisateurs uniques dans la base de données. En import différentiel, seuls les réalisateurs
+     * nouveaux ou modifiés sont écrits.
      * </p>
      */
     public void importRealisateurs() {
-        Set<String> uniqueRealisateurIds = new HashSet<>();
+        List<String> dejaEnBase = Collections.emptyList();
+        ImdbIdIndex existants = ImdbIdIndex.VIDE;
+
+        if (deltaImport.isActif()) {
+            // En import différentiel, les réalisateurs déjà en base sont mis à jour si leur ligne a changé
+            existants = imdbIdResolver.chargerRealisateurs();
+        } else if (bulkInsertEngine.getMode() == ImportMode.BULK) {
+            // En mode par lots, un doublon ferait échouer tout le lot : on écarte d'emblée les réalisateurs déjà en base
+            dejaEnBase = realisateurService.findAllIdIMDB();
+        }
 
         Path pathRealisateurs = Paths.get("src/main/resources/dataset/realisateurs.csv");
-        try {
-            List<String> rowsRealisateurs = Files.readAllLines(pathRealisateurs);
-            rowsRealisateurs.remove(0); // Supprime l'en-tête du fichier CSV
-            for (String rowRealisateur : rowsRealisateurs) {
-                System.out.println(rowRealisateur);
-                String[] elements = rowRealisateur.split(";");
-                String idIMDB = elements[0].trim();
+        ImportCheckpoint reprise = importCheckpoints.ouvrir(pathRealisateurs);
+        if (reprise.isTermine()) {
+            return;
+        }
+        DedupSet uniqueRealisateurIds = dedupSets.ouvrir(SCHEMA, reprise, dejaEnBase,
+                (ligne, rejetsLigne) -> ImdbIds.encoder(ID_IMDB.lire(ligne, rejetsLigne)));
+
+        try (ImportProgress progression = importMetrics.ouvrir(SCHEMA);
+             DeltaTracker delta = deltaImport.ouvrir(pathRealisateurs.getFileName().toString());
+             ImportWriter<Realisateur> writer = bulkInsertEngine.ouvrir("Realisateur", realisateurService::createRealisateur, reprise);
+             ImportPipeline.Lecture lignes = importPipeline.lire(SCHEMA, reprise.ouvrirLecteur())) {
+            CsvRejects rejets = progression.getRejets();
+            while (lignes.next()) {
+                CsvLine elements = lignes.ligne();
+                reprise.avancer(elements);
+                progression.lue();
+                String idIMDB = ID_IMDB.lire(elements, rejets);
                 // Vérifier si l'ID IMDB est unique
-                if (!uniqueRealisateurIds.contains(idIMDB)) {
-                    Realisateur realisateur = createRealisateurFromElements(elements);
-                    try {
-                        // Sauvegarder le réalisateur dans la base de données
-                        realisateurService.createRealisateur(realisateur);
-                        // Ajouter l'ID IMDB à l'ensemble des IDs uniques
-                        uniqueRealisateurIds.add(idIMDB);
-                    } catch (DataIntegrityViolationException e) {
-                        System.out.println("Duplicate ID: " + idIMDB);
+                if (idIMDB == null) {
+                    rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                } else if (uniqueRealisateurIds.ajouter(idIMDB)) {
+                    int idRealisateur = existants.resolve(idIMDB);
+                    progression.analysee();
+                    long empreinte = elements.fingerprint();
+                    switch (delta.classer(idIMDB, empreinte, idRealisateur != ImdbIdIndex.INCONNU)) {
+                        case NOUVELLE:
+                            // Sauvegarder le réalisateur dans la base de données
+                            writer.write(createRealisateurFromElements(elements, rejets), delta.empreinte(idIMDB, empreinte));
+                            break;
+                        case MODIFIEE:
+                            Realisateur realisateur = createRealisateurFromElements(elements, rejets);
+                            realisateur.setIdRealisateur(idRealisateur);
+                            writer.update(realisateur, delta.empreinte(idIMDB, empreinte));
+                            break;
+                        default:
+                            break;
                     }
                 } else {
-                    System.out.println("Duplicate ID: " + idIMDB);
+                    progression.dedupliquee();
                 }
             }
-            System.out.println("Unique IDs Set: " + uniqueRealisateurIds);
-        } catch (IOException | ParseException e) {
+            reprise.lectureTerminee();
+            List<Integer> disparus = existants.resolveAll(delta.disparues());
+            if (!disparus.isEmpty()) {
+                realisateurService.deleteRealisateurs(disparus);
+            }
+            delta.oublierDisparues();
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
@@ -89,27 +148,21 @@ public class ImportRealisateurs {
      * Crée un objet {@link Realisateur} à partir des éléments d'une ligne du fichier CSV.
      * <p>
      * Cette méthode extrait les données d'une ligne du fichier CSV, les formate et les assigne
-     * aux propriétés de l'objet {@link Realisateur}.
+     * aux propriétés de l'objet {@link Realisateur}. Une date de naissance invalide ou incomplète
+     * laisse le champ vide et est comptée dans les rejets, sans interrompre l'import.
      * </p>
      *
-     * @param elements Les éléments de la ligne CSV, séparés par des points-virgules.
+     * @param elements La ligne CSV du réalisateur.
+     * @param rejets   Les compteurs de rejets du fichier.
      * @return Un objet {@link Realisateur} avec les propriétés définies à partir des éléments de la ligne CSV.
-     * @throws ParseException Si la date de naissance ne peut pas être parsée.
      */
-    private Realisateur createRealisateurFromElements(String[] elements) throws ParseException {
+    private Realisateur createRealisateurFromElements(CsvLine elements, CsvRejects rejets) {
         Realisateur realisateur = new Realisateur();
-        realisateur.setIdIMDB(elements[0].trim());
-        realisateur.setNom(elements[1]);
-        try {
-            // Parser la date de naissance à partir du format 'MMMM d yyyy'
-            Date dateNaissance = sdf.parse(elements[2]);
-            realisateur.setDateNaissance(dateNaissance);
-        } catch (ParseException e) {
-            e.printStackTrace();
-            throw e; // Relancer l'exception après l'avoir enregistrée
-        }
-        realisateur.setLieuNaissance(elements[3]);
-        realisateur.setUrlProfile(elements[4]);
+        realisateur.setIdIMDB(ID_IMDB.lire(elements, rejets));
+        realisateur.setNom(NOM.lire(elements, rejets));
+        realisateur.setDateNaissance(DATE_NAISSANCE.lire(elements, rejets));
+        realisateur.setLieuNaissance(LIEU_NAISSANCE.lire(elements, rejets));
+        realisateur.setUrlProfile(URL_PROFILE.lire(elements, rejets));
         return realisateur;
     }
 }
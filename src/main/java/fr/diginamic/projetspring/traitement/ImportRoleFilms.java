@@ -2,21 +2,20 @@ package fr.diginamic.projetspring.traitement;
 
 import fr.diginamic.projetspring.entities.Acteur;
 import fr.diginamic.projetspring.entities.Film;
+import fr.diginamic.projetspring.entities.ImdbIds;
 import fr.diginamic.projetspring.entities.RoleFilm;
-import fr.diginamic.projetspring.services.ActeurService;
-import fr.diginamic.projetspring.services.FilmService;
 import fr.diginamic.projetspring.services.RoleFilmService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * La classe {@code ImportRoleFilms} permet d'importer les rôles des acteurs dans les films depuis un fichier CSV.
@@ -40,68 +39,158 @@ import java.util.Set;
 @Component
 public class ImportRoleFilms {
 
+    // Colonnes et schéma partagés avec le chargement natif (NativeBulkLoader)
+    static final CsvColumn<String> FILM_ID_IMDB = CsvColumn.of(0, "filmIdIMDB", FieldCodecs.IDENTIFIANT_TITRE).obligatoire();
+    static final CsvColumn<String> ACTEUR_ID_IMDB = CsvColumn.of(1, "acteurIdIMDB", FieldCodecs.IDENTIFIANT_NOM).obligatoire();
+    static final CsvColumn<String> PERSONNAGE = CsvColumn.of(2, "personnage", FieldCodecs.TEXTE).tronquer(255);
+
+    static final CsvSchema SCHEMA = new CsvSchema("roles.csv", FILM_ID_IMDB, ACTEUR_ID_IMDB, PERSONNAGE);
+
     @Autowired
-    private ActeurService acteurService;
+    private RoleFilmService roleFilmService;
 
     @Autowired
-    private FilmService filmService;
+    private BulkInsertEngine bulkInsertEngine;
 
     @Autowired
-    private RoleFilmService roleFilmService;
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private ImdbIdResolver imdbIdResolver;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private ImportCheckpoints importCheckpoints;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private DedupSets dedupSets;
 
     /**
      * Importe les rôles des acteurs dans les films depuis un fichier CSV situé à {@code src/main/resources/dataset/roles.csv}.
      * <p>
      * Cette méthode lit les données du fichier, élimine les duplicatas d'associations et sauvegarde
-     * les rôles uniques dans la base de données.
+     * les rôles uniques dans la base de données. En import différentiel, seuls les rôles nouveaux
+     * ou dont le personnage a changé sont écrits.
      * </p>
      */
     public void importRoleFilms() {
-        Set<String> uniqueRoleFilmIds = new HashSet<>();
-
         Path pathRoleFilm = Paths.get("src/main/resources/dataset/roles.csv");
-        try {
-            List<String> rowRoleFilm = Files.readAllLines(pathRoleFilm);
-            rowRoleFilm.remove(0); // Supprime l'en-tête du fichier CSV
-
-            for (String rowRoleFilms : rowRoleFilm) {
-                System.out.println(rowRoleFilms);
-                String[] elements = rowRoleFilms.split(";");
-                if (elements.length >= 3) {
-                    String acteurIdIMDB = elements[1].trim();
-                    String filmIdIMDB = elements[0].trim();
-                    String roleId = acteurIdIMDB + "_" + filmIdIMDB;
-
-                    // Vérifier si l'association acteur-film est unique
-                    if (!uniqueRoleFilmIds.contains(roleId)) {
-                        Acteur acteur = acteurService.findByIdIMDB(acteurIdIMDB);
-                        Film film = filmService.findByIdIMDB(filmIdIMDB);
-
-                        if (acteur != null && film != null) {
-                            RoleFilm role = createRoleFilmFromElements(acteur, film, elements);
-                            try {
-                                roleFilmService.createRoleFilm(role);
-                                uniqueRoleFilmIds.add(roleId);
-                            } catch (DataIntegrityViolationException e) {
-                                System.out.println("Duplicate Role ID: " + roleId);
-                            }
-                        } else {
-                            System.out.println("Invalid Acteur or Film ID");
+        ImportCheckpoint reprise = importCheckpoints.ouvrir(pathRoleFilm);
+        if (reprise.isTermine()) {
+            return;
+        }
+
+        // Correspondances IMDB → identifiant technique chargées une fois pour tout le fichier
+        ImdbIdIndex acteurs = imdbIdResolver.chargerActeurs();
+        ImdbIdIndex films = imdbIdResolver.chargerFilms();
+        // En reprise, les associations déjà en base sont chargées pour ne pas réinsérer celles écrites avant l'interruption
+        Map<Long, Integer> existants = deltaImport.isActif() || reprise.isReprise()
+                ? imdbIdResolver.chargerRoles() : Collections.<Long, Integer>emptyMap();
+        // Couples (acteurId, filmId) déjà rencontrés, codés dans un long
+        try (DedupSet uniqueRoleFilmIds = dedupSets.ouvrir(SCHEMA, reprise, (ligne, rejetsLigne) -> ligne.fieldCount() < 3
+                ? ImdbIds.INVALIDE
+                : cle(acteurs, films, ACTEUR_ID_IMDB.lire(ligne, rejetsLigne), FILM_ID_IMDB.lire(ligne, rejetsLigne)));
+             ImportProgress progression = importMetrics.ouvrir(SCHEMA);
+             DeltaTracker delta = deltaImport.ouvrir(pathRoleFilm.getFileName().toString());
+             ImportWriter<RoleFilm> writer = bulkInsertEngine.ouvrir("RoleFilm",
+                role -> roleFilmService.createRoleFilm(role.getActeurId(), role.getFilmId(), role.getPersonnage()), reprise);
+             ImportPipeline.Lecture lignes = importPipeline.lire(SCHEMA, reprise.ouvrirLecteur())) {
+            CsvRejects rejets = progression.getRejets();
+
+            while (lignes.next()) {
+                CsvLine elements = lignes.ligne();
+                reprise.avancer(elements);
+                progression.lue();
+                if (elements.fieldCount() >= 3) {
+                    String acteurIdIMDB = ACTEUR_ID_IMDB.lire(elements, rejets);
+                    String filmIdIMDB = FILM_ID_IMDB.lire(elements, rejets);
+                    long cle = cle(acteurs, films, acteurIdIMDB, filmIdIMDB);
+
+                    if (acteurIdIMDB == null || filmIdIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (cle == ImdbIds.INVALIDE) {
+                        rejets.ligneRejetee(elements, "acteur ou film inconnu");
+                    } else if (uniqueRoleFilmIds.ajouter(cle, elements)) {
+                        // Vérifier si l'association acteur-film est unique
+                        int acteurId = acteurs.resolve(acteurIdIMDB);
+                        int filmId = films.resolve(filmIdIMDB);
+                        progression.analysee();
+                        Integer roleExistant = existants.get(cle);
+                        // La clé textuelle n'est construite que pour l'import différentiel, qui la conserve en base
+                        String roleId = delta.isActif() ? acteurIdIMDB + "_" + filmIdIMDB : null;
+                        long empreinte = elements.fingerprint();
+                        switch (delta.classer(roleId, empreinte, roleExistant != null)) {
+                            case NOUVELLE:
+                                // Hors import différentiel, un rôle déjà en base ne l'est qu'en reprise : il n'est pas réinséré
+                                if (roleExistant == null) {
+                                    writer.write(createRoleFilmFromElements(acteurId, filmId, elements, rejets),
+                                            delta.empreinte(roleId, empreinte));
+                                }
+                                break;
+                            case MODIFIEE:
+                                RoleFilm role = createRoleFilmFromElements(acteurId, filmId, elements, rejets);
+                                role.setRoleId(roleExistant);
+                                writer.update(role, delta.empreinte(roleId, empreinte));
+                                break;
+                            default:
+                                break;
                         }
                     } else {
-                        System.out.println("Duplicate Role ID: " + roleId);
+                        progression.dedupliquee();
                     }
                 } else {
-                    System.out.println("Insufficient elements in the CSV row");
+                    rejets.ligneRejetee(elements, "ligne incomplète");
                 }
             }
 
-            System.out.println("Unique Role IDs Set: " + uniqueRoleFilmIds);
+            reprise.lectureTerminee();
+            List<Integer> disparus = resoudreRoles(delta.disparues(), acteurs, films, existants);
+            if (!disparus.isEmpty()) {
+                roleFilmService.deleteRoleFilms(disparus);
+            }
+            delta.oublierDisparues();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Calcule la clé d'un rôle : le couple (acteurId, filmId) codé dans un {@code long}.
+     *
+     * @return La clé, ou {@link ImdbIds#INVALIDE} si l'acteur ou le film est absent ou inconnu.
+     */
+    private static long cle(ImdbIdIndex acteurs, ImdbIdIndex films, String acteurIdIMDB, String filmIdIMDB) {
+        int acteurId = acteurIdIMDB != null ? acteurs.resolve(acteurIdIMDB) : ImdbIdIndex.INCONNU;
+        int filmId = filmIdIMDB != null ? films.resolve(filmIdIMDB) : ImdbIdIndex.INCONNU;
+        if (acteurId == ImdbIdIndex.INCONNU || filmId == ImdbIdIndex.INCONNU) {
+            return ImdbIds.INVALIDE;
+        }
+        return ImdbIdResolver.paire(acteurId, filmId);
+    }
+
+    /**
+     * Résout les clés {@code acteurIdIMDB_filmIdIMDB} des rôles disparus du fichier en identifiants de rôles en base.
+     */
+    private static List<Integer> resoudreRoles(Collection<String> cles, ImdbIdIndex acteurs, ImdbIdIndex films,
+                                               Map<Long, Integer> existants) {
+        List<Integer> roleIds = new ArrayList<>(cles.size());
+        for (String cle : cles) {
+            int separateur = cle.indexOf('_');
+            int acteurId = acteurs.resolve(cle.substring(0, separateur));
+            int filmId = films.resolve(cle.substring(separateur + 1));
+            Integer roleId = existants.get(ImdbIdResolver.paire(acteurId, filmId));
+            if (roleId != null) {
+                roleIds.add(roleId);
+            }
+        }
+        return roleIds;
+    }
+
     /**
      * Crée un objet {@link RoleFilm} à partir des éléments d'une ligne du fichier CSV.
      * <p>
@@ -109,16 +198,24 @@ public class ImportRoleFilms {
      * aux propriétés de l'objet {@link RoleFilm}.
      * </p>
      *
-     * @param acteur   L'objet {@link Acteur} correspondant à l'acteur du rôle.
-     * @param film     L'objet {@link Film} correspondant au film du rôle.
-     * @param elements Les éléments de la ligne CSV, séparés par des points-virgules.
+     * @param acteurId L'identifiant de l'acteur du rôle, déjà résolu.
+     * @param filmId   L'identifiant du film du rôle, déjà résolu.
+     * @param elements La ligne CSV du rôle.
+     * @param rejets   Les compteurs de rejets du fichier.
      * @return Un objet {@link RoleFilm} avec les propriétés définies à partir des éléments de la ligne CSV.
      */
-    private RoleFilm createRoleFilmFromElements(Acteur acteur, Film film, String[] elements) {
+    private RoleFilm createRoleFilmFromElements(int acteurId, int filmId, CsvLine elements, CsvRejects rejets) {
         RoleFilm role = new RoleFilm();
+        // Références construites sans accès à la base : seule la clé étrangère est utilisée à l'insertion
+        Acteur acteur = new Acteur();
+        acteur.setActeurId(acteurId);
         role.setActeur(acteur);
+        role.setActeurId(acteurId);
+        Film film = new Film();
+        film.setFilmId(filmId);
         role.setFilm(film);
-        role.setPersonnage(elements[2]);
+        role.setFilmId(filmId);
+        role.setPersonnage(PERSONNAGE.lire(elements, rejets));
         return role;
     }
 }
@@ -0,0 +1,160 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordonnanceur des étapes d'importation, décrites sous forme de graphe de dépendances.
+ * <p>
+ * Chaque étape démarre dès que toutes les étapes dont elle dépend sont terminées ; les étapes
+ * indépendantes s'exécutent en parallèle, chacune sur son propre thread et donc avec ses propres
+ * transactions et connexions. En fin d'exécution, la durée de chaque étape et le chemin critique
+ * (la chaîne de dépendances qui détermine la durée totale) sont affichés ; la durée de chaque étape
+ * est aussi publiée dans le timer Micrometer {@code import.etape}.
+ * </p>
+ * <p>
+ * Si une étape échoue, les étapes qui en dépendent ne sont pas lancées et l'exception est relancée
+ * par {@link #executer(int)}.
+ * </p>
+ */
+public class ImportScheduler {
+
+    private final Map<String, Etape> etapes = new LinkedHashMap<>();
+    private final MeterRegistry registry;
+
+    /**
+     * Crée un ordonnanceur vide.
+     *
+     * @param registry Le registre Micrometer où publier la durée des étapes.
+     */
+    public ImportScheduler(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Déclare une étape d'importation.
+     *
+     * @param nom          Le nom de l'étape, unique.
+     * @param traitement   Le traitement à exécuter.
+     * @param dependances  Les noms des étapes, déjà déclarées, qui doivent être terminées avant de démarrer.
+     * @return Cet ordonnanceur, pour chaîner les déclarations.
+     */
+    public ImportScheduler etape(String nom, Runnable traitement, String... dependances) {
+        if (etapes.containsKey(nom)) {
+            throw new IllegalArgumentException("Étape déjà déclarée : " + nom);
+        }
+        for (String dependance : dependances) {
+            if (!etapes.containsKey(dependance)) {
+                throw new IllegalArgumentException("Étape " + nom + " : dépendance inconnue " + dependance);
+            }
+        }
+        etapes.put(nom, new Etape(nom, traitement, Arrays.asList(dependances)));
+        return this;
+    }
+
+    /**
+     * Exécute toutes les étapes en respectant leurs dépendances, puis affiche le rapport de durées.
+     *
+     * @param parallelisme Le nombre maximal d'étapes exécutées simultanément.
+     */
+    public void executer(int parallelisme) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelisme);
+        long debut = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            // Les étapes sont déclarées après leurs dépendances : l'ordre de déclaration est un ordre topologique
+            for (Etape etape : etapes.values()) {
+                CompletableFuture<?>[] prealables = etape.dependances.stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(etape.nom, CompletableFuture.allOf(prealables)
+                        .thenRunAsync(() -> etape.executer(debut), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            executor.shutdown();
+            for (Etape etape : etapes.values()) {
+                if (etape.fin != 0) {
+                    registry.timer("import.etape", "etape", etape.nom).record(etape.fin - etape.debut, TimeUnit.NANOSECONDS);
+                }
+            }
+            afficherRapport(System.nanoTime() - debut);
+        }
+    }
+
+    private void afficherRapport(long dureeTotale) {
+        for (Etape etape : etapes.values()) {
+            if (etape.fin == 0) {
+                System.out.println("Étape " + etape.nom + " : non exécutée");
+            } else {
+                System.out.println(String.format(Locale.ROOT, "Étape %s : %.2f s (démarrée à +%.2f s)",
+                        etape.nom, secondes(etape.fin - etape.debut), secondes(etape.debut)));
+            }
+        }
+        List<String> chemin = cheminCritique();
+        System.out.println(String.format(Locale.ROOT, "Chemin critique : %s ; durée totale %.2f s",
+                String.join(" -> ", chemin), secondes(dureeTotale)));
+    }
+
+    /**
+     * Remonte, depuis l'étape terminée en dernier, la dépendance terminée le plus tard à chaque niveau.
+     */
+    private List<String> cheminCritique() {
+        List<String> chemin = new ArrayList<>();
+        Etape courante = etapes.values().stream()
+                .filter(etape -> etape.fin != 0)
+                .max((a, b) -> Long.compare(a.fin, b.fin))
+                .orElse(null);
+        while (courante != null) {
+            chemin.add(courante.nom);
+            courante = courante.dependances.stream()
+                    .map(etapes::get)
+                    .max((a, b) -> Long.compare(a.fin, b.fin))
+                    .orElse(null);
+        }
+        Collections.reverse(chemin);
+        return chemin;
+    }
+
+    private static double secondes(long nanos) {
+        return nanos / 1_000_000_000d;
+    }
+
+    /**
+     * Étape du graphe, avec ses instants de début et de fin relatifs au lancement de l'ordonnanceur.
+     */
+    private static final class Etape {
+
+        private final String nom;
+        private final Runnable traitement;
+        private final List<String> dependances;
+        private volatile long debut;
+        private volatile long fin;
+
+        Etape(String nom, Runnable traitement, List<String> dependances) {
+            this.nom = nom;
+            this.traitement = traitement;
+            this.dependances = dependances;
+        }
+
+        void executer(long origine) {
+            debut = System.nanoTime() - origine;
+            traitement.run();
+            fin = System.nanoTime() - origine;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package fr.diginamic.projetspring.traitement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesure le débit d'une importation : nombre de lignes écrites, rejetées et lignes par seconde.
+ * Les mêmes mesures sont publiées dans Micrometer ({@code import.entites.*}, {@code import.bdd.transactions}).
+ * Les compteurs peuvent être alimentés par plusieurs threads d'écriture.
+ */
+public class ImportThroughput {
+
+    private final String libelle;
+    private final long debut = System.nanoTime();
+    private final LongAdder lignesEcrites = new LongAdder();
+    private final LongAdder lignesRejetees = new LongAdder();
+    private final Counter ecrites;
+    private final Counter rejetees;
+    private final Timer transactions;
+
+    /**
+     * Démarre la mesure pour une entité donnée.
+     *
+     * @param libelle  Le nom de l'entité importée (ex : "Acteur").
+     * @param registry Le registre Micrometer où publier les mesures.
+     */
+    public ImportThroughput(String libelle, MeterRegistry registry) {
+        this.libelle = libelle;
+        this.ecrites = registry.counter("import.entites.ecrites", "entite", libelle);
+        this.rejetees = registry.counter("import.entites.rejetees", "entite", libelle);
+        this.transactions = registry.timer("import.bdd.transactions", "entite", libelle);
+    }
+
+    /**
+     * Comptabilise des lignes écrites en base.
+     *
+     * @param nombre Le nombre de lignes écrites.
+     */
+    public void ecrites(long nombre) {
+        lignesEcrites.add(nombre);
+        ecrites.increment(nombre);
+    }
+
+    /**
+     * Comptabilise des lignes rejetées (doublons, contraintes violées).
+     *
+     * @param nombre Le nombre de lignes rejetées.
+     */
+    public void rejetees(long nombre) {
+        lignesRejetees.add(nombre);
+        rejetees.increment(nombre);
+    }
+
+    /**
+     * Comptabilise une transaction d'écriture en base (un lot, ou une ligne en mode unitaire) et sa durée.
+     *
+     * @param nanos La durée de la transaction, en nanosecondes.
+     */
+    public void transaction(long nanos) {
+        transactions.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Obtient le nombre de lignes écrites depuis le début de la mesure.
+     *
+     * @return Le nombre de lignes écrites.
+     */
+    public long getLignesEcrites() {
+        return lignesEcrites.sum();
+    }
+
+    /**
+     * Construit le rapport de débit depuis le début de la mesure.
+     *
+     * @return Une ligne de la forme "Acteur : 27719 lignes en 3,20 s (8662 lignes/s), 0 rejet(s)".
+     */
+    public String rapport() {
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000d;
+        long ecritesTotal = lignesEcrites.sum();
+        double debit = secondes > 0 ? ecritesTotal / secondes : 0;
+        return String.format(Locale.ROOT, "%s : %d lignes en %.2f s (%.0f lignes/s), %d rejet(s)",
+                libelle, ecritesTotal, secondes, debit, lignesRejetees.sum());
+    }
+}
@@ -0,0 +1,69 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Destination d'écriture des entités lues par un composant d'importation.
+ * <p>
+ * Selon le {@link ImportMode} choisi, l'écriture est immédiate (une transaction par entité)
+ * ou différée jusqu'à ce qu'un lot complet soit constitué. Dans les deux cas, la méthode
+ * {@link #close()} doit être appelée en fin de fichier : elle écrit les entités restantes
+ * et affiche le débit obtenu.
+ * </p>
+ * <p>
+ * En import différentiel, l'{@link DeltaTracker.Empreinte empreinte} de chaque ligne accompagne son entité :
+ * elle est enregistrée dans la transaction qui écrit l'entité, et jamais pour une entité rejetée.
+ * </p>
+ *
+ * @param <T> Le type d'entité écrit.
+ */
+public interface ImportWriter<T> extends AutoCloseable {
+
+    /**
+     * Écrit (ou met en attente d'écriture) une entité.
+     *
+     * @param entite L'entité à écrire.
+     */
+    default void write(T entite) {
+        write(entite, null);
+    }
+
+    /**
+     * Écrit (ou met en attente d'écriture) une entité, puis l'empreinte de sa ligne dans la même transaction.
+     *
+     * @param entite    L'entité à écrire.
+     * @param empreinte L'empreinte de la ligne, ou {@code null} hors import différentiel.
+     */
+    void write(T entite, DeltaTracker.Empreinte empreinte);
+
+    /**
+     * Remplace (ou met en attente de remplacement) l'état enregistré d'une entité existante.
+     * L'identifiant technique de l'entité doit être renseigné.
+     *
+     * @param entite L'entité portant les nouvelles valeurs.
+     */
+    default void update(T entite) {
+        update(entite, null);
+    }
+
+    /**
+     * Remplace (ou met en attente de remplacement) l'état enregistré d'une entité existante, puis enregistre
+     * l'empreinte de sa ligne dans la même transaction.
+     *
+     * @param entite    L'entité portant les nouvelles valeurs.
+     * @param empreinte L'empreinte de la ligne, ou {@code null} hors import différentiel.
+     */
+    void update(T entite, DeltaTracker.Empreinte empreinte);
+
+    /**
+     * Enregistre (ou met en attente d'enregistrement) l'empreinte d'une ligne dont l'entité est déjà à jour en
+     * base et n'a rien à écrire.
+     *
+     * @param empreinte L'empreinte de la ligne, ou {@code null} hors import différentiel.
+     */
+    void confirmer(DeltaTracker.Empreinte empreinte);
+
+    /**
+     * Écrit les entités en attente et affiche le rapport de débit.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,135 @@
+package fr.diginamic.projetspring.traitement;
+
+/**
+ * Ensemble de {@code long} à adressage ouvert.
+ * <p>
+ * Les clés sont rangées directement dans un tableau de {@code long} (sondage linéaire, taux de remplissage
+ * d'au plus 1/2) : 16 octets par clé au plus, sans objet {@code Long} ni entrée de table de hachage.
+ * La valeur 0 sert à marquer les cases libres et est suivie à part. Les clés ne peuvent pas être retirées.
+ * Une instance n'est pas thread-safe.
+ * </p>
+ */
+public final class LongHashSet {
+
+    private static final int CAPACITE_MIN = 16;
+
+    private long[] cles;
+    private int masque;
+    private int taille;
+    private boolean contientZero;
+
+    /**
+     * Crée un ensemble vide.
+     *
+     * @param attendues Le nombre de clés attendues, pour dimensionner la table d'emblée.
+     */
+    public LongHashSet(int attendues) {
+        int capacite = CAPACITE_MIN;
+        while (capacite < 2L * attendues && capacite < 1 << 30) {
+            capacite <<= 1;
+        }
+        cles = new long[capacite];
+        masque = capacite - 1;
+    }
+
+    /**
+     * Ajoute une clé.
+     *
+     * @param cle La clé.
+     * @return {@code true} si la clé n'était pas encore présente.
+     */
+    public boolean add(long cle) {
+        if (cle == 0) {
+            if (contientZero) {
+                return false;
+            }
+            contientZero = true;
+            taille++;
+            return true;
+        }
+        int position = position(cle);
+        while (cles[position] != 0) {
+            if (cles[position] == cle) {
+                return false;
+            }
+            position = (position + 1) & masque;
+        }
+        cles[position] = cle;
+        if (++taille > cles.length >> 1) {
+            agrandir();
+        }
+        return true;
+    }
+
+    /**
+     * Indique si une clé est présente.
+     *
+     * @param cle La clé.
+     * @return {@code true} si la clé a été ajoutée.
+     */
+    public boolean contains(long cle) {
+        if (cle == 0) {
+            return contientZero;
+        }
+        int position = position(cle);
+        while (cles[position] != 0) {
+            if (cles[position] == cle) {
+                return true;
+            }
+            position = (position + 1) & masque;
+        }
+        return false;
+    }
+
+    /**
+     * Obtient le nombre de clés.
+     *
+     * @return Le nombre de clés ajoutées.
+     */
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Obtient la taille de la table en mémoire.
+     *
+     * @return Le nombre d'octets occupés par la table.
+     */
+    public long octets() {
+        return 8L * cles.length;
+    }
+
+    private int position(long cle) {
+        return (int) melanger(cle) & masque;
+    }
+
+    private void agrandir() {
+        long[] anciennes = cles;
+        cles = new long[anciennes.length << 1];
+        masque = cles.length - 1;
+        for (long cle : anciennes) {
+            if (cle != 0) {
+                int position = position(cle);
+                while (cles[position] != 0) {
+                    position = (position + 1) & masque;
+                }
+                cles[position] = cle;
+            }
+        }
+    }
+
+    /**
+     * Mélange les bits d'une clé (finaliseur de MurmurHash3), les clés codées n'étant pas uniformément réparties.
+     *
+     * @param cle La clé.
+     * @return Une valeur de hachage sur 64 bits.
+     */
+    static long melanger(long cle) {
+        cle ^= cle >>> 33;
+        cle *= 0xff51afd7ed558ccdL;
+        cle ^= cle >>> 33;
+        cle *= 0xc4ceb9fe1a85ec53L;
+        cle ^= cle >>> 33;
+        return cle;
+    }
+}
@@ -0,0 +1,442 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+import static fr.diginamic.projetspring.traitement.StagingTable.Colonne.date;
+import static fr.diginamic.projetspring.traitement.StagingTable.Colonne.entier;
+import static fr.diginamic.projetspring.traitement.StagingTable.Colonne.entierLong;
+import static fr.diginamic.projetspring.traitement.StagingTable.Colonne.texte;
+import static fr.diginamic.projetspring.traitement.StagingTable.Colonne.texteLong;
+
+/**
+ * Chargement natif des fichiers CSV, pour les rechargements complets ({@code import.mode=NATIF}).
+ * <p>
+ * Chaque fichier est lu et décodé avec le même {@link CsvSchema} que l'import JPA, puis déposé dans une
+ * {@link StagingTable table de transit} par {@code LOAD DATA LOCAL INFILE} (ou par {@code INSERT} multi-lignes
+ * lorsque la connexion ou le serveur ne l'autorisent pas). Les tables de l'application sont ensuite
+ * alimentées par des {@code INSERT ... SELECT} ensemblistes : les identifiants IMDB des tables d'association
+ * sont résolus par jointure, sans passer par le contexte de persistance.
+ * </p>
+ * <p>
+ * Les identifiants techniques sont attribués à la lecture, au-delà du plus grand identifiant déjà en base ;
+ * les séquences des entités sont ensuite avancées pour que les écritures JPA ultérieures ne les réutilisent pas.
+ * Les lignes dont l'identifiant IMDB (ou le couple d'identifiants) est déjà en base sont ignorées.
+ * </p>
+ */
+@Component
+public class NativeBulkLoader {
+
+    private static final Path DATASET = Paths.get("src/main/resources/dataset");
+
+    /** Taille des blocs réservés par les {@code @SequenceGenerator} des entités ({@code allocationSize}). */
+    private static final int ALLOCATION_SEQUENCE = 100;
+
+    private static final StagingTable TRANSIT_ACTEUR = new StagingTable("import_transit_acteur",
+            entierLong("ligne"), entier("id"), entier("idimdb"), texte("nom"), date("date_naissance"),
+            texte("lieu_naissance"), texte("url_profile"));
+    private static final StagingTable TRANSIT_REALISATEUR = new StagingTable("import_transit_realisateur",
+            entierLong("ligne"), entier("id"), entier("idimdb"), texte("nom"), date("date_naissance"),
+            texte("lieu_naissance"), texte("url_profile"));
+    private static final StagingTable TRANSIT_FILM = new StagingTable("import_transit_film",
+            entierLong("ligne"), entier("id"), entier("idimdb"), texte("nom"), entier("annee_sortie"), texte("rating"),
+            texte("url_profile"), texte("lieu_tournage"), texte("langue"), texteLong("resume"), texte("pays"));
+    private static final StagingTable TRANSIT_FILM_GENRE = new StagingTable("import_transit_film_genre",
+            entier("film_id"), texte("genre"));
+    private static final StagingTable TRANSIT_ROLE = new StagingTable("import_transit_role",
+            entierLong("ligne"), entier("id"), entier("film_idimdb"), entier("acteur_idimdb"), texte("personnage"));
+    private static final StagingTable TRANSIT_REALISATEUR_FILM = new StagingTable("import_transit_realisateur_film",
+            entierLong("ligne"), entier("id"), entier("film_idimdb"), entier("realisateur_idimdb"));
+
+    private static final StagingTable[] TABLES_TRANSIT = {TRANSIT_ACTEUR, TRANSIT_REALISATEUR, TRANSIT_FILM,
+            TRANSIT_FILM_GENRE, TRANSIT_ROLE, TRANSIT_REALISATEUR_FILM};
+
+    private static final String SQL_ACTEURS = "INSERT INTO acteur (acteur_id, idimdb, nom, date_naissance, lieu_naissance, url_profile)"
+            + " SELECT s.id, s.idimdb, s.nom, s.date_naissance, s.lieu_naissance, s.url_profile FROM import_transit_acteur s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM acteur a WHERE a.idimdb = s.idimdb)";
+
+    private static final String SQL_REALISATEURS = "INSERT INTO realisateurs (id_realisateur, idimdb, nom, date_naissance, lieu_naissance, url_profile)"
+            + " SELECT s.id, s.idimdb, s.nom, s.date_naissance, s.lieu_naissance, s.url_profile FROM import_transit_realisateur s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM realisateurs r WHERE r.idimdb = s.idimdb)";
+
+    private static final String SQL_FILMS = "INSERT INTO films (film_id, idimdb, nom, annee_sortie, rating, url_profile, lieu_tournage, langue, resume, pays)"
+            + " SELECT s.id, s.idimdb, s.nom, s.annee_sortie, s.rating, s.url_profile, s.lieu_tournage, s.langue, s.resume, s.pays"
+            + " FROM import_transit_film s WHERE NOT EXISTS (SELECT 1 FROM films f WHERE f.idimdb = s.idimdb)";
+
+    private static final String SQL_GENRES = "INSERT INTO genres (type)"
+            + " SELECT DISTINCT s.genre FROM import_transit_film_genre s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM genres g WHERE g.type = s.genre)";
+
+    // Seuls les films insérés par ce chargement portent un identifiant attribué à la lecture
+    private static final String SQL_FILM_GENRES = "INSERT INTO film_genre (film_id, genre_id)"
+            + " SELECT DISTINCT f.film_id, g.genre_id FROM import_transit_film_genre s"
+            + " JOIN films f ON f.film_id = s.film_id JOIN genres g ON g.type = s.genre";
+
+    private static final String SQL_ROLES = "INSERT INTO rolefilm (role_id, personnage, acteur_id, film_id)"
+            + " SELECT s.id, s.personnage, a.acteur_id, f.film_id FROM import_transit_role s"
+            + " JOIN acteur a ON a.idimdb = s.acteur_idimdb JOIN films f ON f.idimdb = s.film_idimdb"
+            + " WHERE NOT EXISTS (SELECT 1 FROM rolefilm r WHERE r.acteur_id = a.acteur_id AND r.film_id = f.film_id)";
+
+    private static final String SQL_ROLES_ORPHELINS = "SELECT s.ligne, s.film_idimdb, s.acteur_idimdb, s.personnage FROM import_transit_role s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM acteur a WHERE a.idimdb = s.acteur_idimdb)"
+            + " OR NOT EXISTS (SELECT 1 FROM films f WHERE f.idimdb = s.film_idimdb) ORDER BY s.ligne";
+
+    private static final String SQL_REALISATEUR_FILMS = "INSERT INTO realisateur_film (id_realisateur_film, realisateur_id, film_id)"
+            + " SELECT s.id, r.id_realisateur, f.film_id FROM import_transit_realisateur_film s"
+            + " JOIN realisateurs r ON r.idimdb = s.realisateur_idimdb JOIN films f ON f.idimdb = s.film_idimdb"
+            + " WHERE NOT EXISTS (SELECT 1 FROM realisateur_film rf WHERE rf.realisateur_id = r.id_realisateur AND rf.film_id = f.film_id)";
+
+    private static final String SQL_REALISATEUR_FILMS_ORPHELINS = "SELECT s.ligne, s.film_idimdb, s.realisateur_idimdb FROM import_transit_realisateur_film s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM realisateurs r WHERE r.idimdb = s.realisateur_idimdb)"
+            + " OR NOT EXISTS (SELECT 1 FROM films f WHERE f.idimdb = s.film_idimdb) ORDER BY s.ligne";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private DeltaImport deltaImport;
+
+    @Autowired
+    private DedupSets dedupSets;
+
+    @Value("${import.bulk.chunk-size:1000}")
+    private int lignesParInsert;
+
+    @Value("${import.natif.load-data:true}")
+    private boolean loadData;
+
+    /**
+     * Recharge tous les fichiers, les tables indépendantes en parallèle.
+     *
+     * @param parallelisme Le nombre maximal de fichiers chargés simultanément.
+     */
+    public void importer(int parallelisme) {
+        if (deltaImport.isActif()) {
+            throw new IllegalStateException("L'import différentiel n'est pas disponible en mode NATIF");
+        }
+        boolean parFichier = loadData && loadDataDisponible();
+        System.out.println("Chargement natif : tables de transit alimentées par "
+                + (parFichier ? "LOAD DATA LOCAL INFILE" : "INSERT multi-lignes"));
+        try {
+            new ImportScheduler(registry)
+                    .etape("acteurs", () -> chargerActeurs(parFichier))
+                    .etape("films", () -> chargerFilms(parFichier))
+                    .etape("realisateurs", () -> chargerRealisateurs(parFichier))
+                    .etape("roles", () -> chargerRoles(parFichier), "acteurs", "films")
+                    .etape("film_realisateurs", () -> chargerRealisateurFilms(parFichier), "realisateurs", "films")
+                    .executer(parallelisme);
+        } finally {
+            for (StagingTable table : TABLES_TRANSIT) {
+                table.supprimer(jdbcTemplate);
+            }
+        }
+    }
+
+    /**
+     * Vérifie, par le chargement d'un fichier vide, que le pilote et le serveur acceptent {@code LOAD DATA LOCAL INFILE}.
+     */
+    private boolean loadDataDisponible() {
+        try {
+            TRANSIT_REALISATEUR_FILM.creer(jdbcTemplate);
+            TRANSIT_REALISATEUR_FILM.charger(jdbcTemplate, true, lignesParInsert).close();
+            return true;
+        } catch (DataAccessException e) {
+            System.out.println("LOAD DATA LOCAL INFILE indisponible (" + e.getMostSpecificCause().getMessage()
+                    + ") : repli sur des INSERT multi-lignes");
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void chargerActeurs(boolean parFichier) {
+        ImportThroughput debit = new ImportThroughput("Acteur", registry);
+        int base = maxId("acteur", "acteur_id");
+        DedupSet uniqueActeurIds = DedupSet.exact(0);
+        int uniques = 0;
+        TRANSIT_ACTEUR.creer(jdbcTemplate);
+        try (ImportProgress progression = importMetrics.ouvrir(ImportActeurs.SCHEMA)) {
+            try (StagingTable.Chargement transit = TRANSIT_ACTEUR.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 CsvReader elements = CsvReader.open(DATASET.resolve("acteurs.csv"))) {
+                CsvRejects rejets = progression.getRejets();
+                elements.next(); // Ignore la ligne d'en-tête
+                while (elements.next()) {
+                    progression.lue();
+                    String idIMDB = ImportActeurs.ID_IMDB.lire(elements, rejets);
+                    if (idIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (uniqueActeurIds.ajouter(idIMDB)) {
+                        progression.analysee();
+                        transit.ajouter(elements.lineNumber(), base + ++uniques, ImdbIds.compacter(idIMDB, ImdbIds.PREFIXE_NOM),
+                                ImportActeurs.NOM.lire(elements, rejets),
+                                ImportActeurs.DATE_NAISSANCE.lire(elements, rejets),
+                                ImportActeurs.LIEU_NAISSANCE.lire(elements, rejets),
+                                ImportActeurs.URL_PROFILE.lire(elements, rejets));
+                    } else {
+                        progression.dedupliquee();
+                    }
+                }
+            }
+            debit.ecrites(executer(debit, SQL_ACTEURS));
+            avancerSequence("acteur_seq", "acteur", "acteur_id");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(debit.rapport());
+    }
+
+    private void chargerRealisateurs(boolean parFichier) {
+        ImportThroughput debit = new ImportThroughput("Realisateur", registry);
+        int base = maxId("realisateurs", "id_realisateur");
+        DedupSet uniqueRealisateurIds = DedupSet.exact(0);
+        int uniques = 0;
+        TRANSIT_REALISATEUR.creer(jdbcTemplate);
+        try (ImportProgress progression = importMetrics.ouvrir(ImportRealisateurs.SCHEMA)) {
+            try (StagingTable.Chargement transit = TRANSIT_REALISATEUR.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 CsvReader elements = CsvReader.open(DATASET.resolve("realisateurs.csv"))) {
+                CsvRejects rejets = progression.getRejets();
+                elements.next(); // Ignore l'en-tête du fichier CSV
+                while (elements.next()) {
+                    progression.lue();
+                    String idIMDB = ImportRealisateurs.ID_IMDB.lire(elements, rejets);
+                    if (idIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (uniqueRealisateurIds.ajouter(idIMDB)) {
+                        progression.analysee();
+                        transit.ajouter(elements.lineNumber(), base + ++uniques, ImdbIds.compacter(idIMDB, ImdbIds.PREFIXE_NOM),
+                                ImportRealisateurs.NOM.lire(elements, rejets),
+                                ImportRealisateurs.DATE_NAISSANCE.lire(elements, rejets),
+                                ImportRealisateurs.LIEU_NAISSANCE.lire(elements, rejets),
+                                ImportRealisateurs.URL_PROFILE.lire(elements, rejets));
+                    } else {
+                        progression.dedupliquee();
+                    }
+                }
+            }
+            debit.ecrites(executer(debit, SQL_REALISATEURS));
+            avancerSequence("realisateur_seq", "realisateurs", "id_realisateur");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(debit.rapport());
+    }
+
+    private void chargerFilms(boolean parFichier) {
+        ImportThroughput debit = new ImportThroughput("Film", registry);
+        int base = maxId("films", "film_id");
+        DedupSet uniqueFilmIds = DedupSet.exact(0);
+        int uniques = 0;
+        TRANSIT_FILM.creer(jdbcTemplate);
+        TRANSIT_FILM_GENRE.creer(jdbcTemplate);
+        try (ImportProgress progression = importMetrics.ouvrir(ImportFilms.SCHEMA)) {
+            try (StagingTable.Chargement transit = TRANSIT_FILM.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 StagingTable.Chargement transitGenres = TRANSIT_FILM_GENRE.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 CsvReader elements = CsvReader.open(DATASET.resolve("films.csv"))) {
+                CsvRejects rejets = progression.getRejets();
+                elements.next(); // Ignore l'en-tête du fichier CSV
+                while (elements.next()) {
+                    progression.lue();
+                    if (elements.fieldCount() < 10) {
+                        rejets.ligneRejetee(elements, "ligne incomplète");
+                        continue;
+                    }
+                    String idIMDB = ImportFilms.ID_IMDB.lire(elements, rejets);
+                    if (idIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (uniqueFilmIds.ajouter(idIMDB)) {
+                        progression.analysee();
+                        int filmId = base + ++uniques;
+                        transit.ajouter(elements.lineNumber(), filmId, ImdbIds.compacter(idIMDB, ImdbIds.PREFIXE_TITRE),
+                                ImportFilms.NOM.lire(elements, rejets),
+                                ImportFilms.ANNEE_SORTIE.lire(elements, rejets),
+                                ImportFilms.RATING.lire(elements, rejets),
+                                ImportFilms.URL_PROFILE.lire(elements, rejets),
+                                ImportFilms.LIEU_TOURNAGE.lire(elements, rejets),
+                                ImportFilms.LANGUE.lire(elements, rejets),
+                                ImportFilms.RESUME.lire(elements, rejets),
+                                ImportFilms.PAYS.lire(elements, rejets));
+                        String genres = ImportFilms.GENRES.lire(elements, rejets);
+                        if (genres != null) {
+                            Set<String> types = new HashSet<>();
+                            for (String genre : genres.split(",")) {
+                                String type = genre.trim();
+                                if (!type.isEmpty() && types.add(type)) {
+                                    transitGenres.ajouter(filmId, type);
+                                }
+                            }
+                        }
+                    } else {
+                        progression.dedupliquee();
+                    }
+                }
+            }
+            debit.ecrites(executer(debit, SQL_FILMS));
+            avancerSequence("film_seq", "films", "film_id");
+            TRANSIT_FILM_GENRE.indexer(jdbcTemplate, "film_id");
+            executer(debit, SQL_GENRES);
+            executer(debit, SQL_FILM_GENRES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(debit.rapport());
+    }
+
+    private void chargerRoles(boolean parFichier) {
+        ImportThroughput debit = new ImportThroughput("RoleFilm", registry);
+        int base = maxId("rolefilm", "role_id");
+        int uniques = 0;
+        TRANSIT_ROLE.creer(jdbcTemplate);
+        try (DedupSet uniqueRoleFilmIds = dedupSets.ouvrir(ImportRoleFilms.SCHEMA, ImportCheckpoint.inactif(DATASET.resolve("roles.csv")),
+                (ligne, rejetsLigne) -> ligne.fieldCount() < 3 ? ImdbIds.INVALIDE
+                        : ImdbIds.paire(ImportRoleFilms.ACTEUR_ID_IMDB.lire(ligne, rejetsLigne), ImdbIds.PREFIXE_NOM,
+                        ImportRoleFilms.FILM_ID_IMDB.lire(ligne, rejetsLigne), ImdbIds.PREFIXE_TITRE));
+             ImportProgress progression = importMetrics.ouvrir(ImportRoleFilms.SCHEMA)) {
+            try (StagingTable.Chargement transit = TRANSIT_ROLE.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 CsvReader elements = CsvReader.open(DATASET.resolve("roles.csv"))) {
+                CsvRejects rejets = progression.getRejets();
+                elements.next(); // Ignore l'en-tête du fichier CSV
+                while (elements.next()) {
+                    progression.lue();
+                    if (elements.fieldCount() < 3) {
+                        rejets.ligneRejetee(elements, "ligne incomplète");
+                        continue;
+                    }
+                    String acteurIdIMDB = ImportRoleFilms.ACTEUR_ID_IMDB.lire(elements, rejets);
+                    String filmIdIMDB = ImportRoleFilms.FILM_ID_IMDB.lire(elements, rejets);
+                    if (acteurIdIMDB == null || filmIdIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (uniqueRoleFilmIds.ajouter(acteurIdIMDB, ImdbIds.PREFIXE_NOM, filmIdIMDB, ImdbIds.PREFIXE_TITRE, elements)) {
+                        progression.analysee();
+                        transit.ajouter(elements.lineNumber(), base + ++uniques,
+                                ImdbIds.compacter(filmIdIMDB, ImdbIds.PREFIXE_TITRE), ImdbIds.compacter(acteurIdIMDB, ImdbIds.PREFIXE_NOM),
+                                ImportRoleFilms.PERSONNAGE.lire(elements, rejets));
+                    } else {
+                        progression.dedupliquee();
+                    }
+                }
+            }
+            TRANSIT_ROLE.indexer(jdbcTemplate, "acteur_idimdb");
+            TRANSIT_ROLE.indexer(jdbcTemplate, "film_idimdb");
+            debit.ecrites(executer(debit, SQL_ROLES));
+            avancerSequence("rolefilm_seq", "rolefilm", "role_id");
+            jdbcTemplate.query(SQL_ROLES_ORPHELINS, ligne -> {
+                debit.rejetees(1);
+                progression.ligneRejetee(ligne.getLong(1), "acteur ou film inconnu",
+                        ImdbIds.decompacter(ligne.getInt(2), ImdbIds.PREFIXE_TITRE) + ';'
+                                + ImdbIds.decompacter(ligne.getInt(3), ImdbIds.PREFIXE_NOM) + ';' + ligne.getString(4));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(debit.rapport());
+    }
+
+    private void chargerRealisateurFilms(boolean parFichier) {
+        ImportThroughput debit = new ImportThroughput("RealisateurFilm", registry);
+        int base = maxId("realisateur_film", "id_realisateur_film");
+        int uniques = 0;
+        TRANSIT_REALISATEUR_FILM.creer(jdbcTemplate);
+        try (DedupSet uniqueRealisateurFilmIds = dedupSets.ouvrir(ImportRealisateurFilms.SCHEMA,
+                ImportCheckpoint.inactif(DATASET.resolve("film_realisateurs.csv")),
+                (ligne, rejetsLigne) -> ImdbIds.paire(ImportRealisateurFilms.REALISATEUR_ID_IMDB.lire(ligne, rejetsLigne), ImdbIds.PREFIXE_NOM,
+                        ImportRealisateurFilms.FILM_ID_IMDB.lire(ligne, rejetsLigne), ImdbIds.PREFIXE_TITRE));
+             ImportProgress progression = importMetrics.ouvrir(ImportRealisateurFilms.SCHEMA)) {
+            try (StagingTable.Chargement transit = TRANSIT_REALISATEUR_FILM.charger(jdbcTemplate, parFichier, lignesParInsert);
+                 CsvReader elements = CsvReader.open(DATASET.resolve("film_realisateurs.csv"))) {
+                CsvRejects rejets = progression.getRejets();
+                elements.next(); // Ignore l'en-tête du fichier CSV
+                while (elements.next()) {
+                    progression.lue();
+                    String filmIdIMDB = ImportRealisateurFilms.FILM_ID_IMDB.lire(elements, rejets);
+                    String realisateurIdIMDB = ImportRealisateurFilms.REALISATEUR_ID_IMDB.lire(elements, rejets);
+                    if (filmIdIMDB == null || realisateurIdIMDB == null) {
+                        rejets.ligneRejetee(elements, "identifiant IMDB manquant");
+                    } else if (uniqueRealisateurFilmIds.ajouter(realisateurIdIMDB, ImdbIds.PREFIXE_NOM, filmIdIMDB, ImdbIds.PREFIXE_TITRE, elements)) {
+                        progression.analysee();
+                        transit.ajouter(elements.lineNumber(), base + ++uniques,
+                                ImdbIds.compacter(filmIdIMDB, ImdbIds.PREFIXE_TITRE), ImdbIds.compacter(realisateurIdIMDB, ImdbIds.PREFIXE_NOM));
+                    } else {
+                        progression.dedupliquee();
+                    }
+                }
+            }
+            debit.ecrites(executer(debit, SQL_REALISATEUR_FILMS));
+            avancerSequence("realisateur_film_seq", "realisateur_film", "id_realisateur_film");
+            jdbcTemplate.query(SQL_REALISATEUR_FILMS_ORPHELINS, ligne -> {
+                debit.rejetees(1);
+                progression.ligneRejetee(ligne.getLong(1), "réalisateur ou film inconnu",
+                        ImdbIds.decompacter(ligne.getInt(2), ImdbIds.PREFIXE_TITRE) + ';'
+                                + ImdbIds.decompacter(ligne.getInt(3), ImdbIds.PREFIXE_NOM));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(debit.rapport());
+    }
+
+    /**
+     * Exécute une instruction ensembliste et en mesure la durée.
+     *
+     * @return Le nombre de lignes insérées.
+     */
+    private int executer(ImportThroughput debit, String sql) {
+        long debut = System.nanoTime();
+        try {
+            return jdbcTemplate.update(sql);
+        } finally {
+            debit.transaction(System.nanoTime() - debut);
+        }
+    }
+
+    private int maxId(String table, String colonneId) {
+        Integer max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + colonneId + "), 0) FROM " + table, Integer.class);
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Avance la séquence d'une entité au-delà des identifiants attribués par le chargement.
+     * <p>
+     * Avec l'optimiseur {@code pooled} d'Hibernate, la valeur lue dans la séquence est la borne haute
+     * (exclue) du prochain bloc de {@link #ALLOCATION_SEQUENCE} identifiants : elle doit donc dépasser
+     * le plus grand identifiant en base d'au moins un bloc. Sur MySQL, la séquence est émulée par une
+     * table à une colonne {@code next_val}.
+     * </p>
+     */
+    private void avancerSequence(String sequence, String table, String colonneId) {
+        long cible = maxId(table, colonneId) + ALLOCATION_SEQUENCE + 1L;
+        SequenceSupport sequences = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+        if (sequences.supportsSequences()) {
+            Long courante = jdbcTemplate.queryForObject(sequences.getSequenceNextValString(sequence), Long.class);
+            if (courante == null || courante < cible) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + cible);
+            }
+        } else {
+            jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", cible, cible);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Table de transit utilisée par le chargement natif ({@link NativeBulkLoader}).
+ * <p>
+ * Une table de transit reçoit les lignes déjà décodées d'un fichier CSV, sans contrainte ni index,
+ * avant leur recopie ensembliste dans les tables de l'application. Elle est alimentée de l'une
+ * des deux façons suivantes :
+ * <ul>
+ * <li>{@code LOAD DATA LOCAL INFILE} : les lignes sont écrites dans un fichier temporaire au format
+ * attendu par MySQL (tabulations, {@code \N} pour {@code NULL}), chargé en une seule instruction ;</li>
+ * <li>{@code INSERT} multi-lignes : les lignes sont regroupées par paquets, chaque paquet étant
+ * envoyé en une seule instruction {@code INSERT ... VALUES (...), (...)}.</li>
+ * </ul>
+ * </p>
+ */
+public final class StagingTable {
+
+    /**
+     * Colonne d'une table de transit.
+     */
+    public static final class Colonne {
+
+        private final String nom;
+        private final String typeSql;
+        private final int typeJdbc;
+
+        private Colonne(String nom, String typeSql, int typeJdbc) {
+            this.nom = nom;
+            this.typeSql = typeSql;
+            this.typeJdbc = typeJdbc;
+        }
+
+        /** Colonne de texte, de la même longueur que les colonnes des entités. */
+        public static Colonne texte(String nom) {
+            return new Colonne(nom, "VARCHAR(255)", Types.VARCHAR);
+        }
+
+        /** Colonne de texte long, sans limite de longueur (résumé). */
+        public static Colonne texteLong(String nom) {
+            return new Colonne(nom, "TEXT", Types.LONGVARCHAR);
+        }
+
+        /** Colonne entière (identifiant technique, année). */
+        public static Colonne entier(String nom) {
+            return new Colonne(nom, "INT", Types.INTEGER);
+        }
+
+        /** Colonne entière longue (numéro de ligne dans le fichier). */
+        public static Colonne entierLong(String nom) {
+            return new Colonne(nom, "BIGINT", Types.BIGINT);
+        }
+
+        /** Colonne de date, sans heure. */
+        public static Colonne date(String nom) {
+            return new Colonne(nom, "DATE", Types.DATE);
+        }
+    }
+
+    private final String nom;
+    private final Colonne[] colonnes;
+
+    /**
+     * Décrit une table de transit.
+     *
+     * @param nom      Le nom de la table.
+     * @param colonnes Les colonnes, dans l'ordre des valeurs passées à {@link Chargement#ajouter(Object...)}.
+     */
+    public StagingTable(String nom, Colonne... colonnes) {
+        this.nom = nom;
+        this.colonnes = colonnes;
+    }
+
+    /**
+     * Obtient le nom de la table.
+     *
+     * @return Le nom de la table.
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * (Re)crée la table de transit, vide.
+     *
+     * @param jdbc L'accès JDBC à la base.
+     */
+    public void creer(JdbcTemplate jdbc) {
+        supprimer(jdbc);
+        jdbc.execute("CREATE TABLE " + nom + " (" + Arrays.stream(colonnes)
+                .map(colonne -> colonne.nom + " " + colonne.typeSql)
+                .collect(Collectors.joining(", ")) + ")");
+    }
+
+    /**
+     * Indexe une colonne de jointure, une fois la table chargée : l'index est construit en une passe
+     * plutôt que maintenu à chaque ligne insérée.
+     *
+     * @param jdbc    L'accès JDBC à la base.
+     * @param colonne Le nom de la colonne.
+     */
+    public void indexer(JdbcTemplate jdbc, String colonne) {
+        jdbc.execute("CREATE INDEX " + nom + "_" + colonne + " ON " + nom + " (" + colonne + ")");
+    }
+
+    /**
+     * Supprime la table de transit si elle existe.
+     *
+     * @param jdbc L'accès JDBC à la base.
+     */
+    public void supprimer(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS " + nom);
+    }
+
+    /**
+     * Ouvre un chargement de la table.
+     *
+     * @param jdbc            L'accès JDBC à la base.
+     * @param loadData        {@code true} pour charger par {@code LOAD DATA LOCAL INFILE}, {@code false} pour des {@code INSERT} multi-lignes.
+     * @param lignesParInsert Le nombre de lignes par instruction {@code INSERT} multi-lignes.
+     * @return Un {@link Chargement} à fermer pour terminer l'écriture des lignes.
+     * @throws IOException Si le fichier temporaire du {@code LOAD DATA} ne peut pas être créé.
+     */
+    public Chargement charger(JdbcTemplate jdbc, boolean loadData, int lignesParInsert) throws IOException {
+        return loadData ? new ChargementFichier(jdbc) : new InsertionMultiLignes(jdbc, lignesParInsert);
+    }
+
+    private String listeColonnes() {
+        return Arrays.stream(colonnes).map(colonne -> colonne.nom).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Écriture des lignes dans une table de transit.
+     */
+    public interface Chargement extends AutoCloseable {
+
+        /**
+         * Ajoute une ligne à la table.
+         *
+         * @param valeurs Les valeurs, une par colonne et dans leur ordre ; {@code null} pour une valeur absente.
+         */
+        void ajouter(Object... valeurs);
+
+        /**
+         * Obtient le nombre de lignes ajoutées.
+         *
+         * @return Le nombre de lignes.
+         */
+        long getLignes();
+
+        /**
+         * Envoie les lignes en attente à la base.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Chargement par {@code LOAD DATA LOCAL INFILE} d'un fichier temporaire au format par défaut de MySQL.
+     */
+    private final class ChargementFichier implements Chargement {
+
+        private final JdbcTemplate jdbc;
+        private final Path fichier;
+        private final BufferedWriter sortie;
+        private long lignes;
+
+        ChargementFichier(JdbcTemplate jdbc) throws IOException {
+            this.jdbc = jdbc;
+            this.fichier = Files.createTempFile(nom, ".tsv");
+            this.sortie = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void ajouter(Object... valeurs) {
+            try {
+                for (int i = 0; i < valeurs.length; i++) {
+                    if (i > 0) {
+                        sortie.write('\t');
+                    }
+                    ecrire(valeurs[i]);
+                }
+                sortie.write('\n');
+                lignes++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long getLignes() {
+            return lignes;
+        }
+
+        @Override
+        public void close() {
+            try {
+                sortie.close();
+                jdbc.execute("LOAD DATA LOCAL INFILE '" + fichier.toAbsolutePath().toString().replace('\\', '/')
+                        + "' INTO TABLE " + nom + " CHARACTER SET utf8mb4"
+                        + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                        + " (" + listeColonnes() + ")");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                try {
+                    Files.deleteIfExists(fichier);
+                } catch (IOException e) {
+                    fichier.toFile().deleteOnExit();
+                }
+            }
+        }
+
+        private void ecrire(Object valeur) throws IOException {
+            if (valeur == null) {
+                sortie.write("\\N");
+            } else if (valeur instanceof Date) {
+                sortie.write(new java.sql.Date(((Date) valeur).getTime()).toString());
+            } else {
+                String texte = valeur.toString();
+                for (int i = 0; i < texte.length(); i++) {
+                    char c = texte.charAt(i);
+                    switch (c) {
+                        case '\\':
+                            sortie.write("\\\\");
+                            break;
+                        case '\t':
+                            sortie.write("\\t");
+                            break;
+                        case '\n':
+                            sortie.write("\\n");
+                            break;
+                        case '\r':
+                            sortie.write("\\r");
+                            break;
+                        case '\0':
+                            sortie.write("\\0");
+                            break;
+                        default:
+                            sortie.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Chargement par paquets d'{@code INSERT ... VALUES (...), (...)}, pour les bases ou connexions
+     * qui n'autorisent pas {@code LOAD DATA LOCAL INFILE}.
+     */
+    private final class InsertionMultiLignes implements Chargement {
+
+        private final JdbcTemplate jdbc;
+        private final int lignesParInsert;
+        private final String insertComplet;
+        private final List<Object[]> paquet;
+        private long lignes;
+
+        InsertionMultiLignes(JdbcTemplate jdbc, int lignesParInsert) {
+            this.jdbc = jdbc;
+            this.lignesParInsert = lignesParInsert;
+            this.insertComplet = insert(lignesParInsert);
+            this.paquet = new ArrayList<>(lignesParInsert);
+        }
+
+        @Override
+        public void ajouter(Object... valeurs) {
+            paquet.add(valeurs);
+            lignes++;
+            if (paquet.size() == lignesParInsert) {
+                envoyer();
+            }
+        }
+
+        @Override
+        public long getLignes() {
+            return lignes;
+        }
+
+        @Override
+        public void close() {
+            envoyer();
+        }
+
+        private void envoyer() {
+            if (paquet.isEmpty()) {
+                return;
+            }
+            String sql = paquet.size() == lignesParInsert ? insertComplet : insert(paquet.size());
+            jdbc.update(sql, statement -> {
+                int parametre = 1;
+                for (Object[] ligne : paquet) {
+                    for (int i = 0; i < colonnes.length; i++, parametre++) {
+                        Object valeur = ligne[i];
+                        if (valeur == null) {
+                            statement.setNull(parametre, colonnes[i].typeJdbc);
+                        } else if (valeur instanceof Date) {
+                            statement.setDate(parametre, new java.sql.Date(((Date) valeur).getTime()));
+                        } else {
+                            statement.setObject(parametre, valeur, colonnes[i].typeJdbc);
+                        }
+                    }
+                }
+            });
+            paquet.clear();
+        }
+
+        private String insert(int nombreLignes) {
+            StringBuilder ligne = new StringBuilder("(");
+            for (int i = 0; i < colonnes.length; i++) {
+                ligne.append(i == 0 ? "?" : ", ?");
+            }
+            ligne.append(')');
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(nom)
+                    .append(" (").append(listeColonnes()).append(") VALUES ");
+            for (int i = 0; i < nombreLignes; i++) {
+                sql.append(i == 0 ? "" : ", ").append(ligne);
+            }
+            return sql.toString();
+        }
+    }
+}
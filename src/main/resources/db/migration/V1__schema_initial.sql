@@ -0,0 +1,75 @@
+-- Schéma initial, tel que le créait la mise à jour automatique d'Hibernate (spring.jpa.hibernate.ddl-auto=update)
+-- avant la gestion du schéma par Flyway. Une base déjà créée par Hibernate est enregistrée à cette version sans
+-- exécuter ce script (spring.flyway.baseline-on-migrate) ; les versions suivantes s'appliquent aux deux.
+
+create table acteur (
+    acteur_id integer not null auto_increment,
+    date_naissance date,
+    idimdb varchar(255),
+    lieu_naissance varchar(255),
+    nom varchar(255),
+    url_profile varchar(255),
+    primary key (acteur_id)
+) engine=InnoDB;
+
+create table films (
+    annee_sortie integer,
+    film_id integer not null auto_increment,
+    idimdb varchar(255),
+    langue varchar(255),
+    lieu_tournage varchar(255),
+    nom varchar(255),
+    pays varchar(255),
+    rating varchar(255),
+    resume varchar(255),
+    url_profile varchar(255),
+    primary key (film_id)
+) engine=InnoDB;
+
+create table genres (
+    genre_id integer not null auto_increment,
+    type varchar(255),
+    primary key (genre_id)
+) engine=InnoDB;
+
+create table film_genre (
+    film_id integer not null,
+    genre_id integer not null,
+    primary key (film_id, genre_id)
+) engine=InnoDB;
+
+create table realisateurs (
+    date_naissance date,
+    id_realisateur integer not null auto_increment,
+    idimdb varchar(255),
+    lieu_naissance varchar(255),
+    nom varchar(255),
+    url_profile varchar(255),
+    primary key (id_realisateur)
+) engine=InnoDB;
+
+create table realisateur_film (
+    film_id integer,
+    id_realisateur_film integer not null auto_increment,
+    realisateur_id integer,
+    primary key (id_realisateur_film)
+) engine=InnoDB;
+
+create table rolefilm (
+    acteur_id integer,
+    film_id integer,
+    role_id integer not null auto_increment,
+    personnage varchar(255),
+    primary key (role_id)
+) engine=InnoDB;
+
+alter table acteur add constraint UK_o481oh6ka8mqkt1p2qk27pl20 unique (idimdb);
+alter table films add constraint UK_n1xptkj5thu7n9u98hqdppii0 unique (idimdb);
+alter table realisateurs add constraint UK_rjbmxbslo60kxbr0ukjl27mdf unique (idimdb);
+
+alter table film_genre add constraint FK9be4ttxtha7ev3deijk44j71n foreign key (genre_id) references genres (genre_id);
+alter table film_genre add constraint FK5ak2a33dwsg8k75gwaheplxf2 foreign key (film_id) references films (film_id);
+alter table realisateur_film add constraint FKiqx68ywolkmx63kytw7cs7u65 foreign key (film_id) references films (film_id);
+alter table realisateur_film add constraint FKec3ganke1yk7pes6rw51yftqt foreign key (realisateur_id) references realisateurs (id_realisateur);
+alter table rolefilm add constraint FKtk8ox80fck64tt5np5lvtpp7f foreign key (acteur_id) references acteur (acteur_id);
+alter table rolefilm add constraint FKsbyer11v7rq2o0ly03jm93r8y foreign key (film_id) references films (film_id);
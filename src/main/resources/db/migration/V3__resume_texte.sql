@@ -0,0 +1,3 @@
+-- Résumé des films complet : la colonne créée en VARCHAR(255) par les premières versions devient un TEXT.
+-- Les résumés déjà tronqués ne sont complétés que par un réimport à vide.
+alter table films modify column resume text;
@@ -0,0 +1,19 @@
+-- Index secondaires des requêtes de l'API.
+
+-- Recherches de films par attribut (findAllByAnneeSortie, ..., intervalles d'années)
+create index idx_films_annee_sortie on films (annee_sortie);
+create index idx_films_nom on films (nom);
+create index idx_films_langue on films (langue);
+create index idx_films_pays on films (pays);
+
+-- Recherches de personnes par nom
+create index idx_acteur_nom on acteur (nom);
+create index idx_realisateurs_nom on realisateurs (nom);
+
+-- Jointures des associations, dans les deux sens : films d'un acteur, acteurs d'un film, etc.
+-- La seconde colonne permet de résoudre la jointure à partir de l'index seul.
+create index idx_rolefilm_acteur_film on rolefilm (acteur_id, film_id);
+create index idx_rolefilm_film_acteur on rolefilm (film_id, acteur_id);
+create index idx_realisateur_film_realisateur_film on realisateur_film (realisateur_id, film_id);
+create index idx_realisateur_film_film_realisateur on realisateur_film (film_id, realisateur_id);
+create index idx_film_genre_genre_film on film_genre (genre_id, film_id);
@@ -0,0 +1,53 @@
+-- Tables ajoutées depuis le schéma initial : générateurs d'identifiants par blocs de 100 (import par lots),
+-- empreintes de l'import différentiel et points de reprise des imports.
+
+-- Chaque générateur repart après le plus grand identifiant existant : Hibernate attribue les identifiants
+-- next_val - 99 à next_val du bloc qu'il réserve.
+create table acteur_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into acteur_seq select coalesce(max(acteur_id), 0) + 100 from acteur;
+
+create table film_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into film_seq select coalesce(max(film_id), 0) + 100 from films;
+
+create table realisateur_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into realisateur_seq select coalesce(max(id_realisateur), 0) + 100 from realisateurs;
+
+create table realisateur_film_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into realisateur_film_seq select coalesce(max(id_realisateur_film), 0) + 100 from realisateur_film;
+
+create table rolefilm_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into rolefilm_seq select coalesce(max(role_id), 0) + 100 from rolefilm;
+
+create table import_empreinte (
+    empreinte bigint not null,
+    cle varchar(64) not null,
+    fichier varchar(64) not null,
+    primary key (cle, fichier)
+) engine=InnoDB;
+
+create table import_reprise (
+    termine bit not null,
+    decalage bigint not null,
+    ligne bigint not null,
+    empreinte varchar(64) not null,
+    fichier varchar(64) not null,
+    primary key (fichier)
+) engine=InnoDB;
+
+-- Un genre par type : le dictionnaire des genres de l'import s'appuie sur cette contrainte
+alter table genres add constraint UK_mi1pkdha007yt6mr9h4xvp38q unique (type);
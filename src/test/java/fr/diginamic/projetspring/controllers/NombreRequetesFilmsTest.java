@@ -0,0 +1,165 @@
+package fr.diginamic.projetspring.controllers;
+
+import fr.diginamic.projetspring.ProjetSpringApplication;
+import fr.diginamic.projetspring.TraitementFichierApplication;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Nombre d'instructions SQL préparées par les listes de films : une page ou une liste de 50 films doit coûter autant
+ * de requêtes qu'une de 5 (pas de chargement des genres film par film), y compris pour les pages lues par curseur
+ * et pour les lignes (nom, année) des films d'un genre.
+ * <p>
+ * Le cache de second niveau est désactivé pour que chaque appel lise la base ; les instructions sont comptées par
+ * les statistiques d'Hibernate, activées pour le test.
+ * </p>
+ */
+@SpringBootTest(classes = NombreRequetesFilmsTest.Application.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:requetes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "api.cache.actif=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NombreRequetesFilmsTest {
+
+    /**
+     * L'API sans le lanceur de l'import, qui chargerait les fichiers CSV dans la base de test.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackageClasses = ProjetSpringApplication.class)
+    @ComponentScan(basePackageClasses = ProjetSpringApplication.class, excludeFilters = @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE, classes = {ProjetSpringApplication.class, TraitementFichierApplication.class}))
+    static class Application {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistiques;
+
+    /**
+     * 60 films, tous du genre Drame : les films 1 à 5 sortis en 1990 et du genre Rare, les films 6 à 55 sortis en
+     * 2000 et du genre Courant, les films 56 à 60 sortis en 2010.
+     */
+    @BeforeAll
+    void creerFilms() {
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.setStatisticsEnabled(true);
+        jdbcTemplate.update("INSERT INTO genres (genre_id, type) VALUES (1, 'Rare'), (2, 'Courant'), (3, 'Drame')");
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        for (int filmId = 1; filmId <= 60; filmId++) {
+            films.add(new Object[]{filmId, "Film " + filmId, filmId <= 5 ? 1990 : filmId <= 55 ? 2000 : 2010,
+                    "Résumé du film " + filmId});
+            genres.add(new Object[]{filmId, 3});
+            if (filmId <= 55) {
+                genres.add(new Object[]{filmId, filmId <= 5 ? 1 : 2});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (film_id, nom, annee_sortie, resume) VALUES (?, ?, ?, ?)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", genres);
+    }
+
+    @Test
+    void pageDeFilms() throws Exception {
+        assertEquals(requetes("/films?size=5", "$.content.length()", 5),
+                requetes("/films?size=50", "$.content.length()", 50));
+        assertEquals(requetes("/films?size=5&resume=true", "$.content.length()", 5),
+                requetes("/films?size=50&resume=true", "$.content.length()", 50));
+    }
+
+    @Test
+    void pageDeFilmsParCurseur() throws Exception {
+        assertEquals(requetes("/films?curseur=&size=5", "$.content.length()", 5),
+                requetes("/films?curseur=&size=50", "$.content.length()", 50));
+
+        // Page suivante : la lecture reprend après le dernier film de la première page
+        String suivant = JsonPath.read(mockMvc.perform(get("/films?curseur=&size=5"))
+                .andReturn().getResponse().getContentAsString(), "$.next");
+        assertEquals(requetes("/films?curseur=" + suivant + "&size=5", "$.content.length()", 5),
+                requetes("/films?curseur=" + suivant + "&size=50", "$.content.length()", 50));
+    }
+
+    @Test
+    void filmsDUnGenre() throws Exception {
+        assertEquals(requetes("/films/byGenre?genreType=Rare", "$.length()", 5),
+                requetes("/films/byGenre?genreType=Courant", "$.length()", 50));
+    }
+
+    @Test
+    void filmsDUnGenreParIdentifiant() throws Exception {
+        assertEquals(requetes("/films/by-genre?genreId=1", "$.length()", 5, false),
+                requetes("/films/by-genre?genreId=2", "$.length()", 50, false));
+    }
+
+    @Test
+    void filmsDeGenresDonnes() throws Exception {
+        assertEquals(requetes("/films/byGenres?genreTypes=Rare", "$.length()", 5),
+                requetes("/films/byGenres?genreTypes=Courant", "$.length()", 50));
+    }
+
+    @Test
+    void filmsSortisEntreDeuxAnnees() throws Exception {
+        assertEquals(requetes("/films/released-between-years?startYear=1990&endYear=1990", "$.length()", 5),
+                requetes("/films/released-between-years?startYear=2000&endYear=2000", "$.length()", 50));
+        assertEquals(requetes("/films/released-between-years?startYear=1990&endYear=1990&resume=true", "$.length()", 5),
+                requetes("/films/released-between-years?startYear=2000&endYear=2000&resume=true", "$.length()", 50));
+    }
+
+    private long requetes(String url, String nombreFilms, int attendus) throws Exception {
+        return requetes(url, nombreFilms, attendus, true);
+    }
+
+    /**
+     * Appelle un endpoint et compte les instructions préparées pendant l'appel, après avoir vérifié le nombre de
+     * films renvoyés et, pour les listes de films avec leurs genres, la présence de ces genres.
+     */
+    private long requetes(String url, String nombreFilms, int attendus, boolean avecGenres) throws Exception {
+        statistiques.clear();
+        String films = nombreFilms.replace(".length()", "");
+        ResultActions resultat = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(nombreFilms).value(attendus));
+        if (avecGenres) {
+            resultat.andExpect(jsonPath(films + "[0].genres").isNotEmpty());
+        }
+        long requetes = statistiques.getPrepareStatementCount();
+        assertTrue(requetes > 0, "Aucune instruction comptée pour " + url);
+        return requetes;
+    }
+}
@@ -0,0 +1,57 @@
+package fr.diginamic.projetspring.entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Codage compact des identifiants IMDB : aller-retour sans perte et rejet des identifiants mal formés.
+ */
+class ImdbIdsTest {
+
+    @Test
+    void encodageSansPerte() {
+        for (String idIMDB : new String[]{"nm0913738", "tt0082449", "tt00000001", "nm123456789012345", "ab1"}) {
+            long code = ImdbIds.encoder(idIMDB);
+            assertNotEquals(ImdbIds.INVALIDE, code, idIMDB);
+            assertEquals(idIMDB, ImdbIds.decoder(code));
+        }
+        // Les zéros de tête sont significatifs
+        assertNotEquals(ImdbIds.encoder("tt082449"), ImdbIds.encoder("tt0082449"));
+    }
+
+    @Test
+    void encodageRefuse() {
+        for (String idIMDB : new String[]{null, "", "nm", "NM0913738", "nm09137x8", "nm1234567890123456"}) {
+            assertEquals(ImdbIds.INVALIDE, ImdbIds.encoder(idIMDB), String.valueOf(idIMDB));
+        }
+    }
+
+    @Test
+    void compactageSansPerte() {
+        for (String idIMDB : new String[]{"nm0000001", "nm0913738", "nm12345678", "nm999999999", "nm000000000"}) {
+            int code = ImdbIds.compacter(idIMDB, ImdbIds.PREFIXE_NOM);
+            assertNotEquals(ImdbIds.INVALIDE_COMPACT, code, idIMDB);
+            assertEquals(idIMDB, ImdbIds.decompacter(code, ImdbIds.PREFIXE_NOM));
+        }
+        assertNotEquals(ImdbIds.compacter("nm00000001", ImdbIds.PREFIXE_NOM),
+                ImdbIds.compacter("nm0000001", ImdbIds.PREFIXE_NOM));
+    }
+
+    @Test
+    void compactageRefuse() {
+        for (String idIMDB : new String[]{null, "nm123456", "nm1234567890", "tt0082449", "nm09137a8"}) {
+            assertEquals(ImdbIds.INVALIDE_COMPACT, ImdbIds.compacter(idIMDB, ImdbIds.PREFIXE_NOM), String.valueOf(idIMDB));
+        }
+    }
+
+    @Test
+    void paire() {
+        long paire = ImdbIds.paire("nm0913738", ImdbIds.PREFIXE_NOM, "tt0082449", ImdbIds.PREFIXE_TITRE);
+        assertEquals(ImdbIds.compacter("nm0913738", ImdbIds.PREFIXE_NOM), (int) (paire >>> 32));
+        assertEquals(ImdbIds.compacter("tt0082449", ImdbIds.PREFIXE_TITRE), (int) paire);
+        assertNotEquals(paire, ImdbIds.paire("nm0082449", ImdbIds.PREFIXE_NOM, "tt0913738", ImdbIds.PREFIXE_TITRE));
+        assertEquals(ImdbIds.INVALIDE, ImdbIds.paire("tt0913738", ImdbIds.PREFIXE_NOM, "tt0082449", ImdbIds.PREFIXE_TITRE));
+    }
+}
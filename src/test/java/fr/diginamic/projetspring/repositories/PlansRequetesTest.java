@@ -0,0 +1,191 @@
+package fr.diginamic.projetspring.repositories;
+
+import fr.diginamic.projetspring.ProjetSpringApplication;
+import fr.diginamic.projetspring.entities.Film;
+import fr.diginamic.projetspring.traitement.ImdbIdMigration;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans d'exécution des requêtes {@link Query} des repositories sur le schéma créé par les migrations Flyway
+ * (base H2 en mode MySQL) : chaque requête est exécutée, et chaque instruction SQL qu'elle envoie passe par
+ * {@code EXPLAIN}. Une table lue sans condition d'index (parcours complet de la table ou d'un index) fait
+ * échouer le test, sauf pour les requêtes qui lisent toutes les lignes par contrat.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ProjetSpringApplication.class)
+@Import({ImdbIdMigration.class, PlansRequetesTest.Capture.class})
+class PlansRequetesTest {
+
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(ActeurRepository.class, FilmRepository.class,
+            GenreRepository.class, RealisateurFilmRepository.class, RealisateurRepository.class,
+            RoleFilmRepository.class);
+
+    /**
+     * Requêtes qui lisent toutes les lignes de leur table : index des identifiants IMDB et état de l'import
+     * différentiel.
+     */
+    private static final Set<String> LECTURES_COMPLETES = new HashSet<>(Arrays.asList(
+            "findAllIdIMDB", "findAllIdIMDBAndId", "findAllIds"));
+
+    /**
+     * Accès à une table dans un plan H2 : l'index lu ({@code <table>.tableScan} pour la table elle-même), suivi
+     * de la condition de recherche s'il y en a une.
+     */
+    private static final Pattern ACCES = Pattern.compile("/\\* public\\.(\\S+?)(: [^\\n]*)? \\*/");
+
+    @Autowired
+    private ApplicationContext contexte;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Capture capture;
+
+    @Test
+    void requetesLuesParIndex() {
+        List<String> erreurs = new ArrayList<>();
+        int requetes = 0;
+        for (Class<?> repository : REPOSITORIES) {
+            Object bean = contexte.getBean(repository);
+            for (Method methode : repository.getDeclaredMethods()) {
+                if (!methode.isAnnotationPresent(Query.class)) {
+                    continue;
+                }
+                requetes++;
+                String nom = repository.getSimpleName() + "." + methode.getName();
+                List<String> instructions;
+                try {
+                    instructions = capture.executer(bean, methode, arguments(methode));
+                } catch (InvocationTargetException | IllegalAccessException e) {
+                    erreurs.add(nom + " : échec de la requête (" + e + ")");
+                    continue;
+                }
+                if (instructions.isEmpty()) {
+                    erreurs.add(nom + " : aucune instruction SQL exécutée");
+                }
+                for (String sql : instructions) {
+                    String plan = expliquer(sql);
+                    Matcher acces = ACCES.matcher(plan);
+                    int tables = 0;
+                    while (acces.find()) {
+                        tables++;
+                        if (acces.group(2) == null && !LECTURES_COMPLETES.contains(methode.getName())) {
+                            erreurs.add(nom + " : parcours complet (" + acces.group(1) + ")\n" + plan);
+                        }
+                    }
+                    if (tables == 0) {
+                        erreurs.add(nom + " : plan sans accès reconnu\n" + plan);
+                    }
+                }
+            }
+        }
+        assertTrue(requetes > 0, "Aucune requête @Query trouvée");
+        assertTrue(erreurs.isEmpty(), String.join("\n\n", erreurs));
+    }
+
+    private String expliquer(String sql) {
+        return jdbcTemplate.query(connexion -> connexion.prepareStatement("EXPLAIN " + sql), resultat -> {
+            StringBuilder plan = new StringBuilder();
+            while (resultat.next()) {
+                plan.append(resultat.getString(1)).append('\n');
+            }
+            return plan.toString();
+        });
+    }
+
+    /**
+     * Arguments quelconques du type de chaque paramètre : le plan ne dépend pas des valeurs, seulement de la
+     * forme de la requête.
+     */
+    private Object[] arguments(Method methode) {
+        Class<?>[] types = methode.getParameterTypes();
+        Type[] generiques = methode.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == int.class || types[i] == Integer.class) {
+                arguments[i] = 1;
+            } else if (types[i] == String.class) {
+                arguments[i] = "x";
+            } else if (generiques[i] instanceof ParameterizedType
+                    && ((ParameterizedType) generiques[i]).getActualTypeArguments()[0] == Film.class) {
+                arguments[i] = Collections.singletonList(entityManager.getReference(Film.class, 1));
+            } else if (generiques[i] instanceof ParameterizedType
+                    && ((ParameterizedType) generiques[i]).getActualTypeArguments()[0] == Integer.class) {
+                arguments[i] = Arrays.asList(1, 2);
+            } else {
+                throw new IllegalArgumentException("Paramètre non pris en charge : " + generiques[i]
+                        + " (" + methode + ")");
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Relève les instructions SQL envoyées par Hibernate pendant l'appel d'une requête.
+     */
+    static class Capture implements HibernatePropertiesCustomizer {
+
+        private List<String> instructions;
+
+        @Override
+        public void customize(Map<String, Object> proprietes) {
+            proprietes.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) this::inspecter);
+        }
+
+        private synchronized String inspecter(String sql) {
+            if (instructions != null) {
+                instructions.add(sql);
+            }
+            return sql;
+        }
+
+        synchronized List<String> executer(Object repository, Method methode, Object[] arguments)
+                throws InvocationTargetException, IllegalAccessException {
+            instructions = new ArrayList<>();
+            try {
+                methode.invoke(repository, arguments);
+                return instructions;
+            } finally {
+                instructions = null;
+            }
+        }
+    }
+}
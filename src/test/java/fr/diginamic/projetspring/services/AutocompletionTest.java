@@ -0,0 +1,129 @@
+package fr.diginamic.projetspring.services;
+
+import fr.diginamic.projetspring.dto.SuggestionDTO;
+import fr.diginamic.projetspring.services.IndexRecherche.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Autocomplétion construite depuis une petite base H2 : préfixes de chaque mot, ajouts, renommages et
+ * suppressions, et changements de popularité publiés dans un nouvel état sans modifier le précédent.
+ */
+class AutocompletionTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void creerBase() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:autocompletion;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE films (film_id INT PRIMARY KEY, nom VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE acteur (acteur_id INT PRIMARY KEY, nom VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE realisateurs (id_realisateur INT PRIMARY KEY, nom VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE rolefilm (role_id INT AUTO_INCREMENT PRIMARY KEY, acteur_id INT, film_id INT)");
+        jdbcTemplate.execute("CREATE TABLE realisateur_film (id_realisateur_film INT AUTO_INCREMENT PRIMARY KEY,"
+                + " realisateur_id INT, film_id INT)");
+        jdbcTemplate.update("INSERT INTO films VALUES (1, 'Rio Bravo'), (2, 'Rio Grande'), (3, 'Les Tontons flingueurs')");
+        jdbcTemplate.update("INSERT INTO acteur VALUES (1, 'John Wayne'), (2, 'Dean Martin'), (3, 'Lino Ventura')");
+        jdbcTemplate.update("INSERT INTO realisateurs VALUES (1, 'Howard Hawks'), (2, 'John Ford')");
+        jdbcTemplate.update("INSERT INTO rolefilm (acteur_id, film_id) VALUES (1, 1), (1, 2), (2, 1), (3, 3)");
+        jdbcTemplate.update("INSERT INTO realisateur_film (realisateur_id, film_id) VALUES (1, 1), (2, 2)");
+    }
+
+    @AfterEach
+    void supprimerBase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void suggestionsParPopularite() {
+        Autocompletion autocompletion = autocompletion();
+        assertEquals(Arrays.asList("film:1:Rio Bravo:2", "film:2:Rio Grande:1"), suggerer(autocompletion, "Rio", null));
+        assertEquals(Arrays.asList("acteur:1:John Wayne:2", "realisateur:2:John Ford:1"),
+                suggerer(autocompletion, "JOHN", null));
+        assertEquals(Collections.singletonList("realisateur:2:John Ford:1"),
+                suggerer(autocompletion, "john", Type.REALISATEUR));
+        assertEquals(Collections.singletonList("acteur:1:John Wayne:2"), suggerer(autocompletion, "wayn", null));
+        assertEquals(Collections.singletonList("acteur:1:John Wayne:2"), suggerer(autocompletion, "john  w", null));
+        assertEquals(Collections.singletonList("film:3:Les Tontons flingueurs:1"), suggerer(autocompletion, "flingu", null));
+        assertEquals(1, autocompletion.suggerer("rio", null, 1).size());
+        assertTrue(suggerer(autocompletion, " - ", null).isEmpty());
+    }
+
+    @Test
+    void nomsAjoutesRenommesEtSupprimes() {
+        Autocompletion autocompletion = autocompletion();
+        autocompletion.indexer(Type.ACTEUR, 4, "Johnny Hallyday");
+        assertEquals(Arrays.asList("acteur:1:John Wayne:2", "realisateur:2:John Ford:1", "acteur:4:Johnny Hallyday:0"),
+                suggerer(autocompletion, "john", null));
+
+        // Un renommage remplace les clés de l'ancien nom et garde la popularité
+        autocompletion.indexer(Type.ACTEUR, 2, "Jean Dujardin");
+        assertTrue(suggerer(autocompletion, "dean", null).isEmpty());
+        assertEquals(Collections.singletonList("acteur:2:Jean Dujardin:1"), suggerer(autocompletion, "dujar", null));
+
+        autocompletion.supprimer(Type.FILM, Collections.singletonList(2));
+        assertEquals(Collections.singletonList("film:1:Rio Bravo:2"), suggerer(autocompletion, "rio", null));
+        assertTrue(suggerer(autocompletion, "grande", null).isEmpty());
+        // Un film recréé repart sans rôle
+        autocompletion.indexer(Type.FILM, 2, "Rio Grande");
+        assertEquals(Arrays.asList("film:1:Rio Bravo:2", "film:2:Rio Grande:0"), suggerer(autocompletion, "rio", null));
+    }
+
+    @Test
+    void popularitesPublieesDansUnNouvelEtat() {
+        Autocompletion autocompletion = autocompletion();
+        Object avant = ReflectionTestUtils.getField(autocompletion, "instantane");
+        int[] popularitesAvant = ((int[]) ReflectionTestUtils.getField(avant, "popularites")).clone();
+        String[] nomsAvant = ((String[]) ReflectionTestUtils.getField(avant, "noms")).clone();
+
+        autocompletion.ajusterPopularite(3, 3, 5);
+        autocompletion.ajusterPopularites(Type.ACTEUR, Arrays.asList(1, 1, 1), -1);
+        autocompletion.ajusterPopularites(Type.REALISATEUR, Collections.singletonList(2), 1);
+        autocompletion.indexer(Type.ACTEUR, 2, "Jean Dujardin");
+
+        assertEquals(Arrays.asList("realisateur:2:John Ford:2", "acteur:1:John Wayne:0"),
+                suggerer(autocompletion, "john", null));
+        assertEquals(Collections.singletonList("acteur:3:Lino Ventura:6"), suggerer(autocompletion, "lino", null));
+        assertEquals(Collections.singletonList("film:3:Les Tontons flingueurs:6"), suggerer(autocompletion, "tontons", null));
+
+        // L'état lu avant les modifications n'a pas changé
+        Object apres = ReflectionTestUtils.getField(autocompletion, "instantane");
+        assertNotSame(avant, apres);
+        assertArrayEquals(popularitesAvant, (int[]) ReflectionTestUtils.getField(avant, "popularites"));
+        assertArrayEquals(nomsAvant, (String[]) ReflectionTestUtils.getField(avant, "noms"));
+    }
+
+    private Autocompletion autocompletion() {
+        Autocompletion autocompletion = new Autocompletion();
+        ReflectionTestUtils.setField(autocompletion, "jdbcTemplate", jdbcTemplate);
+        autocompletion.chargerSiNecessaire();
+        return autocompletion;
+    }
+
+    /**
+     * Suggestions sous la forme « type:id:nom:popularité », dans l'ordre du classement.
+     */
+    private static List<String> suggerer(Autocompletion autocompletion, String saisie, Type type) {
+        List<String> suggestions = new ArrayList<>();
+        for (SuggestionDTO suggestion : autocompletion.suggerer(saisie, type, Autocompletion.TAILLE_DEFAUT)) {
+            suggestions.add(suggestion.getType() + ":" + suggestion.getId() + ":" + suggestion.getNom() + ":"
+                    + suggestion.getPopularite());
+        }
+        return suggestions;
+    }
+}
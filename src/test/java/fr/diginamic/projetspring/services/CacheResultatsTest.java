@@ -0,0 +1,155 @@
+package fr.diginamic.projetspring.services;
+
+import fr.diginamic.projetspring.repositories.RealisateurFilmRepository;
+import fr.diginamic.projetspring.repositories.RoleFilmRepository;
+import fr.diginamic.projetspring.services.CacheResultats.Requete;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache des résultats de consultation : chaque écriture n'invalide que les résultats qu'elle touche, et une lecture
+ * concurrente d'une invalidation ne remet pas son résultat dans le cache.
+ */
+class CacheResultatsTest {
+
+    private final RoleFilmRepository roleFilmRepository = mock(RoleFilmRepository.class);
+    private final RealisateurFilmRepository realisateurFilmRepository = mock(RealisateurFilmRepository.class);
+    private final AtomicInteger lectures = new AtomicInteger();
+    private CacheResultats cache;
+
+    @BeforeEach
+    void creerCache() {
+        cache = new CacheResultats();
+        ReflectionTestUtils.setField(cache, "roleFilmRepository", roleFilmRepository);
+        ReflectionTestUtils.setField(cache, "realisateurFilmRepository", realisateurFilmRepository);
+        ReflectionTestUtils.setField(cache, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "environment", new StandardEnvironment());
+        ReflectionTestUtils.setField(cache, "duree", Duration.ofMinutes(10));
+        cache.creer();
+    }
+
+    @Test
+    void resultatLuUneSeuleFois() {
+        List<Object[]> resultat = lire(Requete.FILMS_ACTEUR, 1);
+        assertEquals(1, lectures.get());
+        assertEquals(resultat, lire(Requete.FILMS_ACTEUR, 1));
+        assertEquals(1, lectures.get());
+        assertThrows(UnsupportedOperationException.class, () -> resultat.add(new Object[0]));
+    }
+
+    @Test
+    void roleModifie() {
+        remplir();
+        cache.roleModifie(1, 10);
+        // Films de l'acteur 1, rôles du film 10 et couples qui contiennent l'acteur 1, dans un sens ou dans l'autre
+        assertEquals(Arrays.asList(Requete.FILMS_ACTEUR + ":1", Requete.ROLES_FILM + ":10",
+                Requete.FILMS_DEUX_ACTEURS + ":1-2", Requete.FILMS_DEUX_ACTEURS + ":3-1"), relus());
+    }
+
+    @Test
+    void acteursEtFilmsModifies() {
+        remplir();
+        when(roleFilmRepository.findFilmIdsByActeurIds(anyCollection())).thenReturn(Collections.singletonList(11));
+        cache.acteursModifies(Collections.singletonList(2));
+        assertEquals(Arrays.asList(Requete.FILMS_ACTEUR + ":2", Requete.ROLES_FILM + ":11",
+                Requete.FILMS_DEUX_ACTEURS + ":1-2"), relus());
+
+        remplir();
+        when(roleFilmRepository.findActeurIdsByFilmIds(anyCollection())).thenReturn(Collections.singletonList(3));
+        when(realisateurFilmRepository.findRealisateurIdsByFilmIds(anyCollection())).thenReturn(Collections.singletonList(100));
+        cache.filmsModifies(Collections.singletonList(10));
+        assertEquals(Arrays.asList(Requete.FILMS_ACTEUR + ":3", Requete.ROLES_FILM + ":10",
+                Requete.FILMS_DEUX_ACTEURS + ":3-1", Requete.FILMS_REALISATEUR + ":100"), relus());
+
+        remplir();
+        cache.realisateursModifies(Arrays.asList(100, null));
+        cache.roleModifie(null, null);
+        assertEquals(Collections.singletonList(Requete.FILMS_REALISATEUR + ":100"), relus());
+    }
+
+    @Test
+    void lectureConcurrenteDUneInvalidation() {
+        // Le rôle est supprimé pendant la lecture : le résultat lu, peut-être périmé, n'est pas gardé
+        cache.lire(Requete.FILMS_ACTEUR, 1, () -> {
+            lectures.incrementAndGet();
+            cache.roleModifie(1, 10);
+            return new ArrayList<>();
+        });
+        lire(Requete.FILMS_ACTEUR, 1);
+        assertEquals(2, lectures.get());
+
+        // Une invalidation qui ne touche pas ce résultat l'empêche aussi d'être gardé, sans effet sur les suivants
+        cache.lire(Requete.FILMS_ACTEUR, 5, () -> {
+            lectures.incrementAndGet();
+            cache.realisateursModifies(Collections.singletonList(100));
+            return new ArrayList<>();
+        });
+        lire(Requete.FILMS_ACTEUR, 5);
+        lire(Requete.FILMS_ACTEUR, 5);
+        assertEquals(4, lectures.get());
+    }
+
+    /**
+     * Met en cache les films des acteurs 1 à 3, les rôles des films 10 et 11, les films des couples d'acteurs
+     * (1, 2) et (3, 1) et les films du réalisateur 100.
+     */
+    private void remplir() {
+        for (int acteurId = 1; acteurId <= 3; acteurId++) {
+            lire(Requete.FILMS_ACTEUR, acteurId);
+        }
+        lire(Requete.ROLES_FILM, 10);
+        lire(Requete.ROLES_FILM, 11);
+        lire(Requete.FILMS_DEUX_ACTEURS, CacheResultats.cle(1, 2));
+        lire(Requete.FILMS_DEUX_ACTEURS, CacheResultats.cle(3, 1));
+        lire(Requete.FILMS_REALISATEUR, 100);
+    }
+
+    /**
+     * Relit les résultats rangés par {@link #remplir()} et renvoie ceux qui ont dû être lus à nouveau en base.
+     */
+    private List<String> relus() {
+        List<String> relus = new ArrayList<>();
+        for (int acteurId = 1; acteurId <= 3; acteurId++) {
+            relire(relus, Requete.FILMS_ACTEUR, acteurId, String.valueOf(acteurId));
+        }
+        relire(relus, Requete.ROLES_FILM, 10, "10");
+        relire(relus, Requete.ROLES_FILM, 11, "11");
+        relire(relus, Requete.FILMS_DEUX_ACTEURS, CacheResultats.cle(1, 2), "1-2");
+        relire(relus, Requete.FILMS_DEUX_ACTEURS, CacheResultats.cle(3, 1), "3-1");
+        relire(relus, Requete.FILMS_REALISATEUR, 100, "100");
+        return relus;
+    }
+
+    private void relire(List<String> relus, Requete requete, long cle, String libelle) {
+        int avant = lectures.get();
+        lire(requete, cle);
+        if (lectures.get() != avant) {
+            relus.add(requete + ":" + libelle);
+        }
+    }
+
+    private List<Object[]> lire(Requete requete, long cle) {
+        return cache.lire(requete, cle, () -> {
+            lectures.incrementAndGet();
+            List<Object[]> lignes = new ArrayList<>();
+            lignes.add(new Object[]{"Résultat " + cle, cle});
+            return lignes;
+        });
+    }
+}
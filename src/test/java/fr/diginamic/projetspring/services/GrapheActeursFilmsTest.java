@@ -0,0 +1,193 @@
+package fr.diginamic.projetspring.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Graphe acteurs-films chargé depuis une petite table {@code rolefilm} H2 : intersections des listes d'adjacence,
+ * mises à jour après validation et plus courts chemins entre acteurs.
+ */
+class GrapheActeursFilmsTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void creerBase() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:graphe;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE rolefilm (id INT AUTO_INCREMENT PRIMARY KEY, acteur_id INT, film_id INT)");
+    }
+
+    @AfterEach
+    void supprimerBase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void intersecter() {
+        assertArrayEquals(new int[]{2, 5}, GrapheActeursFilms.intersecter(new int[]{1, 2, 2, 5, 9}, new int[]{2, 2, 2, 3, 5}));
+        assertArrayEquals(new int[0], GrapheActeursFilms.intersecter(new int[]{1, 3}, new int[]{2, 4}));
+        assertArrayEquals(new int[0], GrapheActeursFilms.intersecter(new int[0], new int[]{2, 4}));
+    }
+
+    @Test
+    void filmsEtActeursCommuns() {
+        // L'acteur 1 a deux rôles dans le film 10
+        roles(1, 10, 1, 10, 1, 11, 1, 12, 2, 10, 2, 12, 2, 13, 3, 13, null, 11);
+        GrapheActeursFilms graphe = graphe();
+        assertArrayEquals(new int[]{10, 12}, graphe.filmsCommuns(1, 2));
+        assertArrayEquals(new int[]{10, 12}, graphe.filmsCommuns(2, 1));
+        assertArrayEquals(new int[0], graphe.filmsCommuns(1, 3));
+        assertArrayEquals(new int[0], graphe.filmsCommuns(1, 99));
+        assertArrayEquals(new int[]{2}, graphe.acteursCommuns(12, 13));
+        assertArrayEquals(new int[]{1}, graphe.acteursCommuns(10, 11));
+    }
+
+    @Test
+    void rolesAjoutesEtRetires() {
+        roles(1, 10, 1, 10, 2, 10);
+        GrapheActeursFilms graphe = graphe();
+        long version = graphe.getVersion();
+
+        graphe.ajouterRole(3, 10);
+        graphe.ajouterRole(3, 500);
+        graphe.ajouterRole(2, 500);
+        assertTrue(graphe.getVersion() > version);
+        assertArrayEquals(new int[]{10, 500}, graphe.filmsCommuns(2, 3));
+
+        // Un acteur qui garde un autre rôle dans le film reste relié au film
+        graphe.retirerRole(1, 10);
+        assertArrayEquals(new int[]{10}, graphe.filmsCommuns(1, 2));
+        graphe.retirerRole(1, 10);
+        assertArrayEquals(new int[0], graphe.filmsCommuns(1, 2));
+        assertArrayEquals(new int[]{2, 3}, graphe.acteursCommuns(10, 500));
+
+        // La surcharge est fusionnée dans les tableaux compacts sans perdre de rôle
+        for (int filmId = 1000; filmId < 1000 + GrapheActeursFilms.SURCHARGE_MAX + 10; filmId++) {
+            graphe.ajouterRole(4, filmId);
+        }
+        graphe.ajouterRole(5, 1000 + GrapheActeursFilms.SURCHARGE_MAX);
+        assertArrayEquals(new int[]{1000 + GrapheActeursFilms.SURCHARGE_MAX}, graphe.filmsCommuns(4, 5));
+        assertArrayEquals(new int[]{10, 500}, graphe.filmsCommuns(2, 3));
+    }
+
+    @Test
+    void cheminsLesPlusCourts() {
+        Random aleatoire = new Random(11);
+        List<Object> roles = new ArrayList<>();
+        // Acteurs 0 à 149 répartis dans 120 films ; les acteurs 150 à 159 forment une composante à part
+        for (int filmId = 0; filmId < 120; filmId++) {
+            for (int k = 0; k < 2 + aleatoire.nextInt(3); k++) {
+                roles.add(aleatoire.nextInt(150));
+                roles.add(filmId);
+            }
+        }
+        for (int acteurId = 150; acteurId < 159; acteurId++) {
+            roles.add(acteurId);
+            roles.add(200 + acteurId);
+            roles.add(acteurId + 1);
+            roles.add(200 + acteurId);
+        }
+        roles(roles.toArray());
+        GrapheActeursFilms graphe = graphe();
+
+        for (int hubs : new int[]{0, 5}) {
+            CheminsActeurs chemins = new CheminsActeurs();
+            ReflectionTestUtils.setField(chemins, "graphe", graphe);
+            ReflectionTestUtils.setField(chemins, "nombreHubs", hubs);
+            chemins.demarrer(null);
+            for (int depart = 0; depart < 160; depart += 7) {
+                Map<Integer, Integer> distances = distances(depart);
+                for (int arrivee = 0; arrivee < 165; arrivee += 3) {
+                    int[] chemin = chemins.chemin(depart, arrivee);
+                    Integer distance = distances.get(arrivee);
+                    String cas = depart + " -> " + arrivee + " (" + hubs + " hubs)";
+                    if (distance == null) {
+                        assertNull(chemin, cas);
+                        continue;
+                    }
+                    assertNotNull(chemin, cas);
+                    assertEquals(2 * distance + 1, chemin.length, cas);
+                    assertEquals(depart, chemin[0], cas);
+                    assertEquals(arrivee, chemin[chemin.length - 1], cas);
+                    // Chaque film du chemin relie l'acteur qui le précède à celui qui le suit
+                    for (int k = 1; k < chemin.length; k += 2) {
+                        assertTrue(Arrays.binarySearch(graphe.filmsCommuns(chemin[k - 1], chemin[k + 1]), chemin[k]) >= 0, cas);
+                    }
+                }
+            }
+        }
+    }
+
+    private GrapheActeursFilms graphe() {
+        GrapheActeursFilms graphe = new GrapheActeursFilms();
+        ReflectionTestUtils.setField(graphe, "jdbcTemplate", jdbcTemplate);
+        graphe.charger();
+        return graphe;
+    }
+
+    /**
+     * Insère des rôles donnés par couples (acteurId, filmId).
+     */
+    private void roles(Object... couples) {
+        List<Object[]> lignes = new ArrayList<>();
+        for (int i = 0; i < couples.length; i += 2) {
+            lignes.add(new Object[]{couples[i], couples[i + 1]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO rolefilm (acteur_id, film_id) VALUES (?, ?)", lignes);
+    }
+
+    /**
+     * Distances depuis un acteur par un parcours en largeur simple, lu directement dans la table des rôles.
+     */
+    private Map<Integer, Integer> distances(int depart) {
+        Map<Integer, Set<Integer>> voisins = new HashMap<>();
+        Map<Integer, List<Integer>> acteursParFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT acteur_id, film_id FROM rolefilm WHERE acteur_id IS NOT NULL", ligne -> {
+            acteursParFilm.computeIfAbsent(ligne.getInt(2), film -> new ArrayList<>()).add(ligne.getInt(1));
+        });
+        for (List<Integer> acteurs : acteursParFilm.values()) {
+            for (int acteur : acteurs) {
+                voisins.computeIfAbsent(acteur, a -> new HashSet<>()).addAll(acteurs);
+            }
+        }
+        Map<Integer, Integer> distances = new HashMap<>();
+        if (!voisins.containsKey(depart)) {
+            return distances;
+        }
+        Deque<Integer> file = new ArrayDeque<>();
+        distances.put(depart, 0);
+        file.add(depart);
+        while (!file.isEmpty()) {
+            int acteur = file.poll();
+            for (int voisin : voisins.get(acteur)) {
+                if (!distances.containsKey(voisin)) {
+                    distances.put(voisin, distances.get(acteur) + 1);
+                    file.add(voisin);
+                }
+            }
+        }
+        return distances;
+    }
+}
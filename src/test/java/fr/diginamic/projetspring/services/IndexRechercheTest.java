@@ -0,0 +1,156 @@
+package fr.diginamic.projetspring.services;
+
+import fr.diginamic.projetspring.dto.ResultatRechercheDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index de recherche sur une petite base H2 : classement BM25, sauvegarde dans {@code api.recherche.fichier} puis
+ * relecture.
+ */
+class IndexRechercheTest {
+
+    @TempDir
+    Path repertoire;
+
+    private JdbcTemplate jdbcTemplate;
+    private Path fichier;
+
+    @BeforeEach
+    void creerBase() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:recherche;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE films (film_id INT PRIMARY KEY, nom VARCHAR(255), resume TEXT)");
+        jdbcTemplate.execute("CREATE TABLE acteur (acteur_id INT PRIMARY KEY, nom VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE realisateurs (id_realisateur INT PRIMARY KEY, nom VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE import_empreinte (cle VARCHAR(64) PRIMARY KEY, empreinte BIGINT)");
+        jdbcTemplate.update("INSERT INTO films VALUES (1, 'Le Grand Bleu', 'Un plongeur en apnée dans la mer'),"
+                + " (2, 'La Grande Vadrouille', 'Deux Français traversent la France occupée'),"
+                + " (3, 'Bleu profond', 'La mer, le plongeur et le bleu des profondeurs')");
+        jdbcTemplate.update("INSERT INTO acteur VALUES (1, 'Jean Reno'), (2, 'Louis de Funès')");
+        jdbcTemplate.update("INSERT INTO realisateurs VALUES (1, 'Luc Besson')");
+        fichier = repertoire.resolve("index-recherche.bin");
+    }
+
+    @AfterEach
+    void supprimerBase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void classementBm25() {
+        // Termes indexés : 2 par nom pour les 6 documents ; résumés de 3, 5 et 4 termes pour les 3 films
+        assertEquals(Arrays.asList("film:3:" + arrondi(bm25(IndexRecherche.POIDS_NOM, 6, 2, 1, 2, 2) + bm25(1, 3, 1, 1, 4, 4)),
+                        "film:1:" + arrondi(bm25(IndexRecherche.POIDS_NOM, 6, 2, 1, 2, 2))),
+                rechercher(index(), "Bleu"));
+        // Un terme présent dans le seul résumé du film 1
+        assertEquals(Collections.singletonList("film:1:" + arrondi(bm25(1, 3, 1, 1, 3, 4))),
+                rechercher(index(), "apnées"));
+        // Le titre compte plus que le résumé, et un terme rare plus qu'un terme fréquent
+        List<String> resultats = rechercher(index(), "plongeur vadrouille");
+        assertEquals(3, resultats.size());
+        assertTrue(resultats.get(0).startsWith("film:2:"));
+        assertTrue(rechercher(index(), "le la des").isEmpty());
+    }
+
+    @Test
+    void rechercheParType() {
+        IndexRecherche index = index();
+        assertEquals(Collections.singletonList("acteur:1:" + arrondi(bm25(IndexRecherche.POIDS_NOM, 6, 1, 1, 2, 2))),
+                rechercher(index, "reno", IndexRecherche.Type.ACTEUR));
+        assertTrue(rechercher(index, "bleu", IndexRecherche.Type.REALISATEUR).isEmpty());
+        assertEquals(1, rechercher(index, "besson reno", IndexRecherche.Type.REALISATEUR).size());
+        assertEquals(2, rechercher(index, "besson reno", null).size());
+    }
+
+    @Test
+    void indexRelu() {
+        List<String> attendus = rechercher(index(), "plongeur mer bleu");
+        assertFalse(attendus.isEmpty());
+        assertTrue(Files.isRegularFile(fichier));
+
+        // Même signature (nombre de lignes et plus grand identifiant) : un index reconstruit trouverait ce film
+        jdbcTemplate.update("UPDATE films SET resume = 'Un plongeur et la mer' WHERE film_id = 2");
+        assertEquals(attendus, rechercher(index(), "plongeur mer bleu"));
+    }
+
+    @Test
+    void indexReluApresSuppression() {
+        IndexRecherche index = index();
+        rechercher(index, "bleu");
+        jdbcTemplate.update("DELETE FROM films WHERE film_id = 3");
+        index.supprimer(IndexRecherche.Type.FILM, Collections.singletonList(3));
+        index.enregistrer();
+        List<String> attendus = rechercher(index, "plongeur mer bleu");
+        assertEquals(1, attendus.size());
+
+        assertEquals(attendus, rechercher(index(), "plongeur mer bleu"));
+    }
+
+    @Test
+    void indexReconstruitSiLaBaseAChange() {
+        rechercher(index(), "bleu");
+        jdbcTemplate.update("INSERT INTO films VALUES (4, 'Bleu comme l''enfer', NULL)");
+        assertEquals(3, rechercher(index(), "bleu").size());
+    }
+
+    private IndexRecherche index() {
+        IndexRecherche index = new IndexRecherche();
+        ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(index, "fichier", fichier.toString());
+        return index;
+    }
+
+    /**
+     * Résultats d'une recherche sous la forme « type:id:score », dans l'ordre du classement.
+     */
+    private static List<String> rechercher(IndexRecherche index, String requete) {
+        return rechercher(index, requete, null);
+    }
+
+    private static List<String> rechercher(IndexRecherche index, String requete, IndexRecherche.Type type) {
+        List<String> resultats = new ArrayList<>();
+        for (ResultatRechercheDTO resultat : index.rechercher(requete, type, PageRequest.of(0, 20))) {
+            resultats.add(resultat.getType() + ":" + resultat.getId() + ":" + resultat.getScore());
+        }
+        return resultats;
+    }
+
+    /**
+     * Score BM25 (k1 = 1,2, b = 0,75) d'un terme dans un champ.
+     *
+     * @param poids           Le poids du champ.
+     * @param documents       Le nombre de documents où le champ n'est pas vide.
+     * @param frequence       Le nombre de ces documents qui contiennent le terme.
+     * @param occurrences     Le nombre d'occurrences du terme dans le champ du document.
+     * @param longueur        Le nombre de termes du champ du document.
+     * @param longueurMoyenne Le nombre moyen de termes du champ.
+     */
+    private static double bm25(double poids, int documents, int frequence, int occurrences, int longueur,
+                               double longueurMoyenne) {
+        double idf = Math.log(1 + (documents - frequence + 0.5) / (frequence + 0.5));
+        double normalisation = 1.2 * (1 - 0.75 + 0.75 * longueur / longueurMoyenne);
+        return poids * idf * occurrences * 2.2 / (occurrences + normalisation);
+    }
+
+    private static double arrondi(double score) {
+        return Math.round(score * 1000) / 1000.0;
+    }
+}
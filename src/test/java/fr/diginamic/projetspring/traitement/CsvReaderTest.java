@@ -0,0 +1,107 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Découpage des enregistrements par {@link CsvReader} : champs cités, enregistrements sur plusieurs lignes et
+ * reprise à une position.
+ */
+class CsvReaderTest {
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void champsCites() throws IOException {
+        try (CsvReader lecteur = CsvReader.open(fichier("tt0082449;\"Le Grand Bleu; version longue\";\"Un \"\"plongeur\"\"\"\n"))) {
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("tt0082449", "Le Grand Bleu; version longue", "Un \"plongeur\""), champs(lecteur));
+            assertFalse(lecteur.next());
+        }
+    }
+
+    @Test
+    void champCiteSurPlusieursLignes() throws IOException {
+        try (CsvReader lecteur = CsvReader.open(fichier("tt1;\"Première ligne\r\nseconde ligne\";fin\r\ntt2;suite\r\n"))) {
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("tt1", "Première ligne\r\nseconde ligne", "fin"), champs(lecteur));
+            assertEquals(2, lecteur.lineNumber());
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("tt2", "suite"), champs(lecteur));
+            assertEquals(3, lecteur.lineNumber());
+        }
+    }
+
+    @Test
+    void guillemetsSuivisDeTexteConserves() throws IOException {
+        try (CsvReader lecteur = CsvReader.open(fichier("tt1;\"Maude\" spin-off;1972\n"))) {
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("tt1", "\"Maude\" spin-off", "1972"), champs(lecteur));
+        }
+    }
+
+    @Test
+    void separateurTerminalEtLignesVides() throws IOException {
+        try (CsvReader lecteur = CsvReader.open(fichier("\uFEFFtt0082449;nm0410139;\n\n;\n  tt2 ; ;x\n"))) {
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("tt0082449", "nm0410139"), champs(lecteur));
+            assertTrue(lecteur.next());
+            assertEquals(1, lecteur.fieldCount());
+            assertTrue(lecteur.isBlank(0));
+            assertTrue(lecteur.next());
+            assertEquals("tt2", lecteur.getTrimmed(0));
+            assertTrue(lecteur.isBlank(1));
+            assertEquals(4, lecteur.lineNumber());
+            assertFalse(lecteur.next());
+        }
+    }
+
+    @Test
+    void repriseALaPosition() throws IOException {
+        Path chemin = fichier("nm1;Émile Zola\nnm2;\"Jean\nReno\"\nnm3;Noël\n");
+        long position;
+        long ligne;
+        CsvLine copie;
+        try (CsvReader lecteur = CsvReader.open(chemin)) {
+            lecteur.next();
+            lecteur.next();
+            assertTrue(lecteur.isPositionExacte());
+            position = lecteur.position();
+            ligne = lecteur.lineNumber();
+            copie = lecteur.copier();
+            lecteur.next();
+        }
+        assertEquals("Jean\nReno", copie.getString(1));
+        try (CsvReader lecteur = CsvReader.open(chemin, position, ligne)) {
+            assertTrue(lecteur.next());
+            assertEquals(Arrays.asList("nm3", "Noël"), champs(lecteur));
+            assertEquals(4, lecteur.lineNumber());
+            assertFalse(lecteur.next());
+        }
+    }
+
+    private Path fichier(String contenu) throws IOException {
+        return Files.write(repertoire.resolve("donnees.csv"), contenu.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> champs(CsvReader lecteur) {
+        List<String> champs = new ArrayList<>();
+        for (int i = 0; i < lecteur.fieldCount(); i++) {
+            champs.add(lecteur.getString(i));
+        }
+        return champs;
+    }
+}
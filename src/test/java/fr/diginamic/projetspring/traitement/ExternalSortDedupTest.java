@@ -0,0 +1,87 @@
+package fr.diginamic.projetspring.traitement;
+
+import fr.diginamic.projetspring.entities.ImdbIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dédoublonnage par tri externe : mêmes doublons qu'un ensemble en mémoire, quel que soit le découpage en
+ * segments, et suppression des fichiers temporaires.
+ */
+class ExternalSortDedupTest {
+
+    private static final DedupSet.Cle IDENTIFIANT = (ligne, rejets) -> ImdbIds.encoder(ligne.field(0));
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void doublonsDansLOrdreDuFichier() throws IOException {
+        Path fichier = fichier("nm1;A\nnm2;B\nnm1;C\nxx;D\nnm3;E\nnm2;F\nnm1;G\n");
+        try (CsvReader lecteur = CsvReader.open(fichier);
+             ExternalSortDedup.Doublons doublons = ExternalSortDedup.trier(lecteur, IDENTIFIANT, null, 2, repertoire)) {
+            List<Long> lignes = new ArrayList<>();
+            for (long ligne = 1; ligne <= 7; ligne++) {
+                if (doublons.contient(ligne)) {
+                    lignes.add(ligne);
+                }
+            }
+            // La première occurrence est gardée, la ligne sans clé (xx) n'est jamais un doublon
+            assertEquals(Arrays.asList(3L, 6L, 7L), lignes);
+            assertTrue(doublons.rapport().contains("6 clé(s) triée(s) en 3 segment(s), 3 doublon(s)"), doublons.rapport());
+        }
+        assertEquals(0, fichiersTemporaires());
+    }
+
+    @Test
+    void memeResultatQuUnEnsembleEnMemoire() throws IOException {
+        StringBuilder contenu = new StringBuilder();
+        Set<String> vues = new HashSet<>();
+        List<Boolean> attendus = new ArrayList<>();
+        Random aleatoire = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            String id = String.format("tt%07d", aleatoire.nextInt(2_000));
+            contenu.append(id).append(";titre ").append(i).append('\n');
+            attendus.add(!vues.add(id));
+        }
+        Path fichier = fichier(contenu.toString());
+        for (int clesParSegment : new int[]{64, 1_000, 10_000}) {
+            try (CsvReader lecteur = CsvReader.open(fichier);
+                 ExternalSortDedup.Doublons doublons = ExternalSortDedup.trier(lecteur, IDENTIFIANT, null, clesParSegment,
+                         repertoire)) {
+                for (int i = 0; i < attendus.size(); i++) {
+                    assertEquals(attendus.get(i), doublons.contient(i + 1), "ligne " + (i + 1) + ", segments de " + clesParSegment);
+                }
+                assertFalse(doublons.contient(attendus.size() + 1));
+            }
+        }
+        assertEquals(0, fichiersTemporaires());
+    }
+
+    private Path fichier(String contenu) throws IOException {
+        Path donnees = Files.createDirectories(repertoire.resolve("donnees"));
+        return Files.write(donnees.resolve("titres.csv"), contenu.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long fichiersTemporaires() throws IOException {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.filter(chemin -> chemin.getFileName().toString().startsWith("import-dedup")).count();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package fr.diginamic.projetspring.traitement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensemble de {@code long} à adressage ouvert : doublons, clé 0 et agrandissement de la table.
+ */
+class LongHashSetTest {
+
+    @Test
+    void doublonsEtCleZero() {
+        LongHashSet ensemble = new LongHashSet(4);
+        assertFalse(ensemble.contains(0));
+        assertTrue(ensemble.add(0));
+        assertFalse(ensemble.add(0));
+        assertTrue(ensemble.add(-1));
+        assertTrue(ensemble.add(Long.MIN_VALUE));
+        assertFalse(ensemble.add(-1));
+        assertTrue(ensemble.contains(0));
+        assertTrue(ensemble.contains(Long.MIN_VALUE));
+        assertFalse(ensemble.contains(1));
+        assertEquals(3, ensemble.size());
+    }
+
+    @Test
+    void agrandissementSansPerte() {
+        LongHashSet ensemble = new LongHashSet(1);
+        long octetsInitiaux = ensemble.octets();
+        Set<Long> attendues = new HashSet<>();
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Clés regroupées comme des couples d'identifiants codés : seuls les bits de poids faible varient
+            long cle = (long) aleatoire.nextInt(5_000) << 32 | aleatoire.nextInt(50);
+            assertEquals(attendues.add(cle), ensemble.add(cle));
+        }
+        assertEquals(attendues.size(), ensemble.size());
+        for (long cle : attendues) {
+            assertTrue(ensemble.contains(cle));
+        }
+        assertFalse(ensemble.contains(5_000L << 32));
+        assertTrue(ensemble.octets() > octetsInitiaux);
+        assertTrue(ensemble.octets() <= 32L * attendues.size());
+    }
+}